@@ -38,6 +38,15 @@ db.artifacts.createIndex({ "category": 1 })
 db.artifacts.createIndex({ "culture": 1 })
 db.artifacts.createIndex({ "period": 1 })
 db.artifacts.createIndex({ "createdAt": -1 })
+db.artifacts.createIndex({ "createdAt": -1, "_id": -1 })
+db.artifacts.createIndex({ "updatedAt": 1 })
+db.artifacts.createIndex({ "categoryKey": 1, "cultureKey": 1, "periodKey": 1 })
+db.artifacts.createIndex({ "cultureKey": 1, "periodKey": 1 })
+db.artifacts.createIndex({ "periodKey": 1 })
+db.artifacts.createIndex({ "duplicateOf": 1 }, { sparse: true })
+db.artifacts.createIndex({ "imageHash": 1 }, { sparse: true })
+db.artifacts.createIndex({ "imageSha256": 1 }, { sparse: true })
+db.artifacts.createIndex({ "source": 1, "sourceId": 1 }, { unique: true, partialFilterExpression: { sourceId: { $exists: true } } })
 
 db.users.createIndex({ "username": 1 }, { unique: true })
 db.users.createIndex({ "email": 1 }, { unique: true })
@@ -45,8 +54,21 @@ db.users.createIndex({ "email": 1 }, { unique: true })
 db.stories.createIndex({ "artifactId": 1 })
 db.stories.createIndex({ "userId": 1 })
 db.stories.createIndex({ "generatedAt": -1 })
+db.stories.createIndex({ "generatedAt": -1, "_id": -1 })
+db.stories.createIndex({ "artifactId": 1, "generatedAt": -1, "_id": -1 })
+db.stories.createIndex({ "userId": 1, "generatedAt": -1, "_id": -1 })
 
 db.user_interactions.createIndex({ "userId": 1, "artifactId": 1 })
 db.user_interactions.createIndex({ "timestamp": -1 })
 
+db.thumbnail_runs.createIndex({ "status": 1, "startedAt": -1 })
+
+db.image_blobs.createIndex({ "refCount": 1, "updatedAt": 1 })
+
+db.analysis_tasks.createIndex({ "status": 1, "availableAt": 1 })
+db.analysis_tasks.createIndex({ "status": 1, "leaseExpiresAt": 1 })
+
+db.story_jobs.createIndex({ "status": 1, "availableAt": 1 })
+db.story_jobs.createIndex({ "status": 1, "leaseExpiresAt": 1 })
+
 print("MongoDB setup complete!")
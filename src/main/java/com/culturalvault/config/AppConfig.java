@@ -5,8 +5,17 @@
 
 package com.culturalvault.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -14,12 +23,43 @@ import org.springframework.web.client.RestTemplate;
  * @author parth
  */
 @Configuration
+@EnableScheduling
 public class AppConfig {
     /**
-     * RestTemplate for external API calls
+     * Pooled JDK HTTP client (keeps connections alive and reuses them),
+     * shared by the RestTemplate, the AI service client and the harvest
+     * sources. HTTP/1.1 so that plain-HTTP servers are not sent an h2c
+     * upgrade; async responses (streamed stories) are handed on on virtual
+     * threads
+     */
+    @Bean
+    public HttpClient httpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * RestTemplate for external API calls, on the shared HTTP client with
+     * a read timeout
+     */
+    @Bean
+    public RestTemplate restTemplate(HttpClient httpClient,
+                                     @Value("${app.ai.service.timeout:30000}") long timeoutMillis) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMillis));
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Answer "Expect: 100-continue" only when the body is read, so an image
+     * upload of content that is already stored is never transferred
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> continueOnReadCustomizer() {
+        return factory -> factory.addConnectorCustomizers(
+                connector -> connector.setProperty("continueResponseTiming", "onRead"));
     }
 }
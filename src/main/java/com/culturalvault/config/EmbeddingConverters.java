@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.config;
+
+import java.util.List;
+
+import org.bson.types.Binary;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import com.culturalvault.model.Embedding;
+
+/**
+ * MongoDB converters storing {@link Embedding}s as packed BSON binary.
+ *
+ * @author parth
+ */
+public final class EmbeddingConverters {
+
+    private EmbeddingConverters() {
+    }
+
+    public static List<Converter<?, ?>> all(Embedding.Encoding encoding) {
+        return List.of(new EmbeddingToBinary(encoding), new BinaryToEmbedding(), new ListToEmbedding());
+    }
+
+    @WritingConverter
+    static class EmbeddingToBinary implements Converter<Embedding, Binary> {
+
+        private final Embedding.Encoding encoding;
+
+        EmbeddingToBinary(Embedding.Encoding encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        public Binary convert(Embedding source) {
+            return new Binary(source.toBytes(encoding));
+        }
+    }
+
+    @ReadingConverter
+    static class BinaryToEmbedding implements Converter<Binary, Embedding> {
+
+        @Override
+        public Embedding convert(Binary source) {
+            return Embedding.fromBytes(source.getData());
+        }
+    }
+
+    /**
+     * Reads embeddings still stored as arrays of doubles, i.e. documents the
+     * embedding migration has not rewritten yet.
+     */
+    @ReadingConverter
+    static class ListToEmbedding implements Converter<List<Number>, Embedding> {
+
+        @Override
+        public Embedding convert(List<Number> source) {
+            return Embedding.of(source);
+        }
+    }
+}
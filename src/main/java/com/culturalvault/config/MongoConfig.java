@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import com.culturalvault.model.Embedding;
+
+/**
+ *
+ * @author parth
+ */
+@Configuration
+public class MongoConfig {
+    /**
+     * Custom type conversions (embeddings are stored as packed binary)
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(
+            @Value("${app.embeddings.encoding:float32}") String embeddingEncoding) {
+        return new MongoCustomConversions(EmbeddingConverters.all(Embedding.Encoding.fromName(embeddingEncoding)));
+    }
+}
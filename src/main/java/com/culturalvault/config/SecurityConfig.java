@@ -9,6 +9,7 @@ import java.util.List;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -44,12 +45,18 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/api", "/api/health", "/api/version").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/artifacts/bulk").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/artifacts/export").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/artifacts/*/image").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/api/artifacts/*/analysis").hasRole("ADMIN")
                 .requestMatchers("/api/artifacts/**").permitAll()
+                .requestMatchers("/api/stories/generate", "/api/stories/generate/**", "/api/stories/jobs/**").authenticated()
                 .requestMatchers("/api/stories/**").permitAll()
                 .requestMatchers("/api/recommendations/**").permitAll()
                 .requestMatchers("/api/users/profile/**").authenticated()
                 .requestMatchers("/api/interactions/**").authenticated()
                 .requestMatchers("/api/users/search", "/api/users/statistics").hasRole("ADMIN")
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated())
                 .httpBasic(Customizer.withDefaults())
                 .sessionManagement(session -> session
@@ -0,0 +1,210 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.culturalvault.model.AnalysisTask;
+import com.culturalvault.model.HarvestJob;
+import com.culturalvault.model.SourceSyncState;
+import com.culturalvault.model.ThumbnailRun;
+import com.culturalvault.service.AiServiceClient;
+import com.culturalvault.service.AnalysisQueue;
+import com.culturalvault.service.AnalysisWorkers;
+import com.culturalvault.service.ArtifactDuplicateIndex;
+import com.culturalvault.service.EmbeddingMigrationService;
+import com.culturalvault.service.FacetKeyBackfillService;
+import com.culturalvault.service.HarvestService;
+import com.culturalvault.service.ImageBlobService;
+import com.culturalvault.service.ImageHashIndex;
+import com.culturalvault.service.ThumbnailService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintenance jobs (migrations, backfills, harvests, thumbnails, AI analysis). Restricted to ADMIN users.
+ *
+ * @author parth
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private final EmbeddingMigrationService embeddingMigrationService;
+    private final FacetKeyBackfillService facetKeyBackfillService;
+    private final HarvestService harvestService;
+    private final ArtifactDuplicateIndex artifactDuplicateIndex;
+    private final ImageHashIndex imageHashIndex;
+    private final ThumbnailService thumbnailService;
+    private final ImageBlobService imageBlobService;
+    private final AnalysisQueue analysisQueue;
+    private final AnalysisWorkers analysisWorkers;
+    private final AiServiceClient aiServiceClient;
+
+    @PostMapping("/migrations/embeddings")
+    public ResponseEntity<EmbeddingMigrationService.Result> migrateEmbeddings(
+            @RequestParam(defaultValue = "false") boolean reencode) {
+        log.info("POST /api/admin/migrations/embeddings - reencode: {}", reencode);
+        return ResponseEntity.ok(embeddingMigrationService.migrate(reencode));
+    }
+
+    @PostMapping("/backfills/facet-keys")
+    public ResponseEntity<FacetKeyBackfillService.Result> backfillFacetKeys(
+            @RequestParam(defaultValue = "false") boolean full) {
+        log.info("POST /api/admin/backfills/facet-keys - full: {}", full);
+        return ResponseEntity.ok(facetKeyBackfillService.backfill(full));
+    }
+
+    @PostMapping("/backfills/image-hashes")
+    public ResponseEntity<ImageHashIndex.Result> backfillImageHashes(
+            @RequestParam(defaultValue = "false") boolean full) throws InterruptedException {
+        log.info("POST /api/admin/backfills/image-hashes - full: {}", full);
+        return ResponseEntity.ok(imageHashIndex.backfill(full));
+    }
+
+    @PostMapping("/duplicates/scan")
+    public ResponseEntity<ArtifactDuplicateIndex.Result> scanDuplicates() {
+        log.info("POST /api/admin/duplicates/scan");
+        try {
+            return ResponseEntity.ok(artifactDuplicateIndex.scan());
+        } catch (IllegalStateException e) {
+            log.warn("Cannot scan for duplicates: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/harvests")
+    public ResponseEntity<HarvestJob> startHarvest(
+            @RequestParam String source,
+            @RequestParam List<String> queries,
+            @RequestParam(defaultValue = "0") long maxRecords,
+            @RequestParam(defaultValue = "false") boolean incremental) {
+        log.info("POST /api/admin/harvests - source: {}, queries: {}, maxRecords: {}, incremental: {}",
+                source, queries, maxRecords, incremental);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(harvestService.start(source, queries, maxRecords, incremental));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid harvest request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Cannot start harvest: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/harvests")
+    public ResponseEntity<List<HarvestJob>> getHarvests() {
+        log.debug("GET /api/admin/harvests");
+        return ResponseEntity.ok(harvestService.getJobs());
+    }
+
+    @GetMapping("/harvests/sync-states")
+    public ResponseEntity<List<SourceSyncState>> getSyncStates(@RequestParam String source) {
+        log.debug("GET /api/admin/harvests/sync-states - source: {}", source);
+        return ResponseEntity.ok(harvestService.getSyncStates(source));
+    }
+
+    @GetMapping("/harvests/{id}")
+    public ResponseEntity<HarvestJob> getHarvest(@PathVariable String id) {
+        log.debug("GET /api/admin/harvests/{}", id);
+        return harvestService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/harvests/{id}")
+    public ResponseEntity<Void> cancelHarvest(@PathVariable String id) {
+        log.info("DELETE /api/admin/harvests/{}", id);
+        return harvestService.cancel(id)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/thumbnails/runs")
+    public ResponseEntity<ThumbnailRun> startThumbnailRun() {
+        log.info("POST /api/admin/thumbnails/runs");
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(thumbnailService.start());
+        } catch (IllegalStateException e) {
+            log.warn("Cannot start thumbnail run: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/thumbnails/runs")
+    public ResponseEntity<List<ThumbnailRun>> getThumbnailRuns() {
+        log.debug("GET /api/admin/thumbnails/runs");
+        return ResponseEntity.ok(thumbnailService.getRuns());
+    }
+
+    @GetMapping("/thumbnails/runs/{id}")
+    public ResponseEntity<ThumbnailRun> getThumbnailRun(@PathVariable String id) {
+        log.debug("GET /api/admin/thumbnails/runs/{}", id);
+        return thumbnailService.getRun(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/thumbnails/runs/{id}")
+    public ResponseEntity<Void> cancelThumbnailRun(@PathVariable String id) {
+        log.info("DELETE /api/admin/thumbnails/runs/{}", id);
+        return thumbnailService.cancel(id)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/images/gc")
+    public ResponseEntity<ImageBlobService.GcResult> collectImageBlobs(
+            @RequestParam(defaultValue = "false") boolean reconcile) {
+        log.info("POST /api/admin/images/gc - reconcile: {}", reconcile);
+        return ResponseEntity.ok(imageBlobService.collect(reconcile));
+    }
+
+    @GetMapping("/analysis/progress")
+    public ResponseEntity<Map<String, Object>> getAnalysisProgress() {
+        log.debug("GET /api/admin/analysis/progress");
+        return ResponseEntity.ok(Map.of(
+                "queue", analysisQueue.getProgress(),
+                "workers", analysisWorkers.getStats(),
+                "aiService", aiServiceClient.getStats()));
+    }
+
+    @PostMapping("/analysis/enqueue")
+    public ResponseEntity<Map<String, Long>> enqueueAnalysis() {
+        log.info("POST /api/admin/analysis/enqueue");
+        return ResponseEntity.ok(Map.of("enqueued", analysisQueue.enqueueUnanalyzed()));
+    }
+
+    @GetMapping("/analysis/dead")
+    public ResponseEntity<List<AnalysisTask>> getDeadAnalysisTasks(
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("GET /api/admin/analysis/dead?limit={}", limit);
+        return ResponseEntity.ok(analysisQueue.getDeadTasks(Math.min(limit, 1000)));
+    }
+
+    @PostMapping("/analysis/dead/requeue")
+    public ResponseEntity<Map<String, Long>> requeueDeadAnalysisTasks() {
+        log.info("POST /api/admin/analysis/dead/requeue");
+        return ResponseEntity.ok(Map.of("requeued", analysisQueue.requeueDead()));
+    }
+}
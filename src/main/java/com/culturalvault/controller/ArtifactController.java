@@ -5,14 +5,24 @@
 
 package com.culturalvault.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -22,12 +32,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+import com.culturalvault.model.ArtifactDuplicate;
+import com.culturalvault.model.DuplicateKind;
+import com.culturalvault.model.ArtifactSummary;
+import com.culturalvault.model.CursorPage;
+import com.culturalvault.model.SimilarityMode;
+import com.culturalvault.service.ArtifactExportService;
+import com.culturalvault.service.ArtifactIngestService;
 import com.culturalvault.service.ArtifactService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -43,10 +66,21 @@ import lombok.extern.slf4j.Slf4j;
 @CrossOrigin(origins = "*")
 public class ArtifactController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ArtifactService artifactService;
+    private final ArtifactExportService artifactExportService;
+    private final ArtifactIngestService artifactIngestService;
+    
+    // Cache-Control max-age of artifact detail responses
+    @Value("${app.http-cache.detail-max-age:PT0S}")
+    private Duration detailMaxAge;
+
+    @Value("${app.export.timeout:PT30M}")
+    private Duration exportTimeout;
     
     @GetMapping
-    public ResponseEntity<Page<Artifact>> getAllArtifacts(
+    public ResponseEntity<Page<ArtifactSummary>> getAllArtifacts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
@@ -59,17 +93,53 @@ public class ArtifactController {
             : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Artifact> artifacts = artifactService.getAllArtifacts(pageable);
+        Page<ArtifactSummary> artifacts = artifactService.getAllArtifacts(pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
+    /**
+     * Keyset-paginated variant of {@link #getAllArtifacts}, selected when the
+     * request carries a {@code cursor} parameter (empty for the first page).
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ArtifactSummary>> getAllArtifactsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        
+        log.debug("GET /api/artifacts - Cursor: {}, Size: {}, Sort: {} {}", cursor, size, sortBy, sortDir);
+        
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        try {
+            return ResponseEntity.ok(artifactService.getArtifactsByCursor(cursor, size, sortBy, direction));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Artifact> getArtifactById(@PathVariable String id) {
+    public ResponseEntity<Artifact> getArtifactById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("GET /api/artifacts/{}", id);
         
+        // Revalidations are answered from the timestamp alone
+        if (ifNoneMatch != null) {
+            ResponseEntity<Artifact> notModified = artifactService.getLastModified(id)
+                    .map(updatedAt -> HttpCaching.<Artifact>notModified(ifNoneMatch, id, updatedAt, detailMaxAge))
+                    .orElse(null);
+            if (notModified != null) {
+                return notModified;
+            }
+        }
+        
         return artifactService.getArtifactById(id)
-                .map(artifact -> ResponseEntity.ok(artifact))
+                .map(artifact -> HttpCaching.ok(id, artifact.getUpdatedAt() != null ? artifact.getUpdatedAt() : artifact.getCreatedAt(), detailMaxAge)
+                        .body(artifact))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -86,6 +156,28 @@ public class ArtifactController {
         }
     }
     
+    /**
+     * Bulk load from an NDJSON body (one artifact per line), read and written
+     * in batches. Send {@code Content-Encoding: gzip} for a compressed body.
+     * Admins only (see SecurityConfig), like the harvests.
+     */
+    @PostMapping(value = "/bulk", consumes = { "application/x-ndjson", MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE })
+    public ResponseEntity<ArtifactIngestService.Result> ingestArtifacts(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestParam(defaultValue = "0") int batchSize) throws IOException {
+        
+        log.info("POST /api/artifacts/bulk - Batch size: {}, Encoding: {}", batchSize, contentEncoding);
+        
+        try {
+            boolean gzip = "gzip".equalsIgnoreCase(contentEncoding);
+            return ResponseEntity.ok(artifactIngestService.ingest(body, gzip, batchSize));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid bulk request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Artifact> updateArtifact(
             @PathVariable String id, 
@@ -102,6 +194,22 @@ public class ArtifactController {
         }
     }
     
+    @PutMapping("/{id}/analysis")
+    public ResponseEntity<Artifact> saveAnalysis(
+            @PathVariable String id,
+            @RequestBody ArtifactAnalysis analysis) {
+        
+        log.info("PUT /api/artifacts/{}/analysis - Saving AI analysis", id);
+        
+        try {
+            Artifact updatedArtifact = artifactService.saveAnalysis(id, analysis);
+            return ResponseEntity.ok(updatedArtifact);
+        } catch (RuntimeException e) {
+            log.error("Error saving analysis for artifact {}: {}", id, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteArtifact(@PathVariable String id) {
         log.info("DELETE /api/artifacts/{}", id);
@@ -115,7 +223,7 @@ public class ArtifactController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<Artifact>> searchArtifacts(
+    public ResponseEntity<Page<ArtifactSummary>> searchArtifacts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
@@ -129,13 +237,13 @@ public class ArtifactController {
             : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Artifact> artifacts = artifactService.searchArtifacts(q, pageable);
+        Page<ArtifactSummary> artifacts = artifactService.searchArtifacts(q, pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<Artifact>> getArtifactsByCategory(
+    public ResponseEntity<Page<ArtifactSummary>> getArtifactsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
@@ -143,13 +251,13 @@ public class ArtifactController {
         log.debug("GET /api/artifacts/category/{}", category);
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Artifact> artifacts = artifactService.getArtifactsByCategory(category, pageable);
+        Page<ArtifactSummary> artifacts = artifactService.getArtifactsByCategory(category, pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/culture/{culture}")
-    public ResponseEntity<Page<Artifact>> getArtifactsByCulture(
+    public ResponseEntity<Page<ArtifactSummary>> getArtifactsByCulture(
             @PathVariable String culture,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
@@ -157,13 +265,13 @@ public class ArtifactController {
         log.debug("GET /api/artifacts/culture/{}", culture);
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Artifact> artifacts = artifactService.getArtifactsByCulture(culture, pageable);
+        Page<ArtifactSummary> artifacts = artifactService.getArtifactsByCulture(culture, pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/period/{period}")
-    public ResponseEntity<Page<Artifact>> getArtifactsByPeriod(
+    public ResponseEntity<Page<ArtifactSummary>> getArtifactsByPeriod(
             @PathVariable String period,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
@@ -171,13 +279,13 @@ public class ArtifactController {
         log.debug("GET /api/artifacts/period/{}", period);
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Artifact> artifacts = artifactService.getArtifactsByPeriod(period, pageable);
+        Page<ArtifactSummary> artifacts = artifactService.getArtifactsByPeriod(period, pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/filter")
-    public ResponseEntity<Page<Artifact>> getArtifactsByCriteria(
+    public ResponseEntity<Page<ArtifactSummary>> getArtifactsByCriteria(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String culture,
             @RequestParam(required = false) String period,
@@ -188,41 +296,103 @@ public class ArtifactController {
                  category, culture, period);
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Artifact> artifacts = artifactService.getArtifactsByCriteria(category, culture, period, pageable);
+        Page<ArtifactSummary> artifacts = artifactService.getArtifactsByCriteria(category, culture, period, pageable);
         
         return ResponseEntity.ok(artifacts);
     }
     
+    /**
+     * Full documents as NDJSON, streamed from a database cursor. Optionally
+     * gzip-compressed ({@code artifacts.ndjson.gz}). Admins only. Runs as an
+     * async task on the export service's own executor, with its own timeout
+     * ({@code app.export.timeout}) since a full export outlasts the default
+     * async request timeout; 503 while {@code app.export.max-concurrent}
+     * exports are running.
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportArtifacts(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        
+        log.debug("GET /api/artifacts/export - Source: {}, Category: {}, Updated: {} - {}, Gzip: {}",
+                 source, category, updatedFrom, updatedTo, gzip);
+        
+        ArtifactExportService.Filter filter;
+        try {
+            filter = new ArtifactExportService.Filter(source, category, updatedFrom, updatedTo);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Callable<Void> export;
+        try {
+            export = artifactExportService.newExport(filter, gzip, response::getOutputStream);
+        } catch (IllegalStateException e) {
+            log.warn("Refusing export: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        
+        response.setContentType(gzip ? "application/gzip" : NDJSON.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(gzip ? "artifacts.ndjson.gz" : "artifacts.ndjson").build().toString());
+        return new WebAsyncTask<>(exportTimeout.toMillis(), artifactExportService.getExecutor(), export);
+    }
+    
     @GetMapping("/random")
-    public ResponseEntity<List<Artifact>> getRandomArtifacts(
-            @RequestParam(defaultValue = "6") int count) {
+    public ResponseEntity<List<ArtifactSummary>> getRandomArtifacts(
+            @RequestParam(defaultValue = "6") int count,
+            HttpServletRequest request) {
         
         log.debug("GET /api/artifacts/random?count={}", count);
         
-        List<Artifact> artifacts = artifactService.getRandomArtifacts(count);
+        List<ArtifactSummary> artifacts = artifactService.getRandomArtifacts(count, Clients.key(request));
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/random/category/{category}")
-    public ResponseEntity<List<Artifact>> getRandomArtifactsByCategory(
+    public ResponseEntity<List<ArtifactSummary>> getRandomArtifactsByCategory(
             @PathVariable String category,
-            @RequestParam(defaultValue = "6") int count) {
+            @RequestParam(defaultValue = "6") int count,
+            HttpServletRequest request) {
         
         log.debug("GET /api/artifacts/random/category/{}?count={}", category, count);
         
-        List<Artifact> artifacts = artifactService.getRandomArtifactsByCategory(category, count);
+        List<ArtifactSummary> artifacts = artifactService.getRandomArtifactsByCategory(category, count, Clients.key(request));
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/{id}/similar")
-    public ResponseEntity<List<Artifact>> getSimilarArtifacts(
+    public ResponseEntity<List<ArtifactSummary>> getSimilarArtifacts(
             @PathVariable String id,
-            @RequestParam(defaultValue = "6") int count) {
+            @RequestParam(defaultValue = "6") int count,
+            @RequestParam(defaultValue = "metadata") String mode) {
         
-        log.debug("GET /api/artifacts/{}/similar?count={}", id, count);
+        log.debug("GET /api/artifacts/{}/similar?count={}&mode={}", id, count, mode);
         
-        List<Artifact> artifacts = artifactService.getSimilarArtifacts(id, count);
-        return ResponseEntity.ok(artifacts);
+        try {
+            List<ArtifactSummary> artifacts = artifactService.getSimilarArtifacts(id, count, SimilarityMode.fromName(mode));
+            return ResponseEntity.ok(artifacts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<ArtifactDuplicate>> getDuplicateArtifacts(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "text") String by) {
+        
+        log.debug("GET /api/artifacts/{}/duplicates?limit={}&by={}", id, limit, by);
+        
+        try {
+            return ResponseEntity.ok(artifactService.getDuplicates(id, limit, DuplicateKind.fromName(by)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/metadata")
@@ -273,6 +443,38 @@ public class ArtifactController {
         return ResponseEntity.ok(stats);
     }
     
+    @GetMapping("/statistics/periods")
+    public ResponseEntity<Map<String, Long>> getPeriodStatistics() {
+        log.debug("GET /api/artifacts/statistics/periods");
+        
+        Map<String, Long> stats = artifactService.getFacetStatistics("period");
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/statistics/materials")
+    public ResponseEntity<Map<String, Long>> getMaterialStatistics() {
+        log.debug("GET /api/artifacts/statistics/materials");
+        
+        Map<String, Long> stats = artifactService.getFacetStatistics("material");
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/statistics/sources")
+    public ResponseEntity<Map<String, Long>> getSourceStatistics() {
+        log.debug("GET /api/artifacts/statistics/sources");
+        
+        Map<String, Long> stats = artifactService.getFacetStatistics("source");
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Map<String, Long>>> getAllFacetStatistics() {
+        log.debug("GET /api/artifacts/statistics");
+        
+        Map<String, Map<String, Long>> stats = artifactService.getAllFacetStatistics();
+        return ResponseEntity.ok(stats);
+    }
+    
     @GetMapping("/unanalyzed")
     public ResponseEntity<Page<Artifact>> getUnanalyzedArtifacts(
             @RequestParam(defaultValue = "0") int page,
@@ -0,0 +1,60 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.controller;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Identification of the client behind a request.
+ *
+ * @author parth
+ */
+final class Clients {
+
+    private Clients() {
+    }
+
+    /**
+     * The client's address, taken from the proxy headers when present.
+     */
+    static String ipAddress(HttpServletRequest request) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeader("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * A key for per-client state: the user name when signed in, otherwise
+     * the client's address.
+     */
+    static String key(HttpServletRequest request) {
+        String userName = userName();
+        return userName != null ? "user:" + userName : "ip:" + ipAddress(request);
+    }
+
+    /**
+     * The signed-in user's name, or null for anonymous requests.
+     */
+    static String userName() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return auth.getName();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.controller;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Validators and headers for conditional GETs of documents tracked by
+ * {@code updatedAt}.
+ *
+ * @author parth
+ */
+final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    /**
+     * Strong ETag of a document version, from its id and last modification
+     * time (every write that changes a serialized field sets {@code updatedAt}).
+     */
+    static String etag(String id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + Long.toHexString(epochMillis(updatedAt)) + "\"";
+    }
+
+    static long epochMillis(LocalDateTime time) {
+        // LocalDateTime is stored and read in the default zone
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A 200 response builder carrying the validators of the version
+     * modified at {@code updatedAt}.
+     */
+    static ResponseEntity.BodyBuilder ok(String id, LocalDateTime updatedAt, Duration maxAge) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(cacheControl(maxAge));
+        if (updatedAt != null) {
+            builder.eTag(etag(id, updatedAt)).lastModified(epochMillis(updatedAt));
+        }
+        return builder;
+    }
+
+    /**
+     * A 304 response if {@code ifNoneMatch} matches the version modified at
+     * {@code updatedAt}, else null.
+     */
+    static <T> ResponseEntity<T> notModified(String ifNoneMatch, String id, LocalDateTime updatedAt, Duration maxAge) {
+        if (updatedAt == null || !matches(ifNoneMatch, etag(id, updatedAt))) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(cacheControl(maxAge))
+                .eTag(etag(id, updatedAt))
+                .lastModified(epochMillis(updatedAt))
+                .build();
+    }
+
+    private static CacheControl cacheControl(Duration maxAge) {
+        // Clients may reuse a copy for maxAge, then must revalidate
+        return CacheControl.maxAge(maxAge).mustRevalidate();
+    }
+
+    /** Whether an If-None-Match header matches the ETag (weak comparison). */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.culturalvault.service.ArtifactImageService;
+import com.culturalvault.service.ImageCache;
+import com.culturalvault.service.ImageUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves artifact images from the local image cache, and accepts uploads
+ * of them.
+ *
+ * Supports conditional requests ({@code If-None-Match}) and single byte
+ * ranges ({@code Range}, {@code If-Range}). File bodies are sent with
+ * {@link FileChannel#transferTo} from the file the cache opened, which stays
+ * readable if the entry is evicted meanwhile. Tomcat's sendfile is not used:
+ * it opens the file by name after the handler returns, when an eviction may
+ * already have deleted it.
+ *
+ * @author parth
+ */
+@RestController
+@RequestMapping("/api/artifacts")
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    private static final String CONTENT_SHA256 = "X-Content-SHA256";
+
+    private final ArtifactImageService artifactImageService;
+    private final ImageUploadService imageUploadService;
+    private final String cacheControl;
+
+    public ImageController(ArtifactImageService artifactImageService,
+                           ImageUploadService imageUploadService,
+                           @Value("${app.image-cache.max-age:P1D}") Duration maxAge) {
+        this.artifactImageService = artifactImageService;
+        this.imageUploadService = imageUploadService;
+        this.cacheControl = "public, max-age=" + maxAge.toSeconds();
+    }
+
+    @GetMapping("/{id}/image")
+    public void getArtifactImage(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer width,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        log.debug("GET /api/artifacts/{}/image?width={}", id, width);
+
+        Optional<ImageCache.OpenFile> image;
+        try {
+            image = artifactImageService.getImage(id, width);
+        } catch (NoSuchFileException e) {
+            log.warn("Stored image of artifact {} is missing: {}", id, e.getMessage());
+            image = Optional.empty();
+        } catch (IOException e) {
+            log.warn("Cannot fetch image of artifact {}: {}", id, e.getMessage());
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+            return;
+        }
+        if (image.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        try (ImageCache.OpenFile file = image.get()) {
+            send(file, request, response);
+        }
+    }
+
+    /**
+     * Uploads the image of an artifact. The image is the raw request body
+     * (not a multipart form), so it is streamed to storage as it arrives
+     * instead of being buffered first. A client that sends the SHA-256 of
+     * the image in {@code X-Content-SHA256} skips the transfer when that
+     * content is already stored (send {@code Expect: 100-continue} so the
+     * body is held back until the server asks for it). Admins only (see
+     * SecurityConfig).
+     */
+    @PutMapping("/{id}/image")
+    public ResponseEntity<ImageUploadService.Result> uploadArtifactImage(
+            @PathVariable String id,
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestHeader(value = CONTENT_SHA256, required = false) String sha256) throws IOException {
+
+        log.info("PUT /api/artifacts/{}/image - Content length: {}, SHA-256: {}", id, contentLength, sha256);
+
+        try {
+            return ResponseEntity.ok(imageUploadService.upload(id, body, contentLength == null ? -1 : contentLength, sha256));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (ImageUploadService.RejectedException e) {
+            log.warn("Rejected image upload for artifact {}: {}", id, e.getMessage());
+            return ResponseEntity.status(switch (e.getReason()) {
+                case TOO_LARGE -> HttpStatus.PAYLOAD_TOO_LARGE;
+                case UNSUPPORTED_TYPE -> HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+                case DIGEST_MISMATCH -> HttpStatus.BAD_REQUEST;
+            }).build();
+        } catch (IllegalStateException e) {
+            log.warn("Cannot accept image upload for artifact {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private void send(ImageCache.OpenFile open, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ImageCache.CachedFile file = open.file();
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (HttpCaching.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), file.etag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = file.size();
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A stale If-Range validator means the client wants the whole file
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(file.etag()))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multiple ranges are answered with the whole file, as RFC 9110 allows
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    // Starts beyond the end of the file
+                    start = length;
+                }
+                if (start >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        FileChannel channel = open.channel();
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long sent = channel.transferTo(position, remaining, target);
+            if (sent <= 0) {
+                break;
+            }
+            position += sent;
+            remaining -= sent;
+        }
+        out.flush();
+    }
+}
@@ -18,7 +18,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactSummary;
+import com.culturalvault.model.SimilarityMode;
 import com.culturalvault.service.RecommendationService;
 
 import lombok.RequiredArgsConstructor;
@@ -38,7 +39,7 @@ public class RecommendationController {
     private final RecommendationService recommendationService;
     
     @GetMapping("/for-me")
-    public ResponseEntity<List<Artifact>> getRecommendationsForCurrentUser(
+    public ResponseEntity<List<ArtifactSummary>> getRecommendationsForCurrentUser(
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/for-me?count={}", count);
@@ -47,35 +48,40 @@ public class RecommendationController {
         String username = auth.getName();
         
         // For now, we'll use a placeholder user ID - in a real app, you'd get the actual user ID
-        List<Artifact> recommendations = recommendationService.getRecommendationsForUser(username, count);
+        List<ArtifactSummary> recommendations = recommendationService.getRecommendationsForUser(username, count);
         
         return ResponseEntity.ok(recommendations);
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Artifact>> getRecommendationsForUser(
+    public ResponseEntity<List<ArtifactSummary>> getRecommendationsForUser(
             @PathVariable String userId,
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/user/{}?count={}", userId, count);
         
-        List<Artifact> recommendations = recommendationService.getRecommendationsForUser(userId, count);
+        List<ArtifactSummary> recommendations = recommendationService.getRecommendationsForUser(userId, count);
         return ResponseEntity.ok(recommendations);
     }
     
     @GetMapping("/similar/{artifactId}")
-    public ResponseEntity<List<Artifact>> getSimilarArtifacts(
+    public ResponseEntity<List<ArtifactSummary>> getSimilarArtifacts(
             @PathVariable String artifactId,
-            @RequestParam(defaultValue = "6") int count) {
+            @RequestParam(defaultValue = "6") int count,
+            @RequestParam(defaultValue = "metadata") String mode) {
         
-        log.debug("GET /api/recommendations/similar/{}?count={}", artifactId, count);
+        log.debug("GET /api/recommendations/similar/{}?count={}&mode={}", artifactId, count, mode);
         
-        List<Artifact> similar = recommendationService.getSimilarArtifacts(artifactId, count);
-        return ResponseEntity.ok(similar);
+        try {
+            List<ArtifactSummary> similar = recommendationService.getSimilarArtifacts(artifactId, count, SimilarityMode.fromName(mode));
+            return ResponseEntity.ok(similar);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/by-interests")
-    public ResponseEntity<List<Artifact>> getArtifactsByUserInterests(
+    public ResponseEntity<List<ArtifactSummary>> getArtifactsByUserInterests(
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/by-interests?count={}", count);
@@ -83,12 +89,12 @@ public class RecommendationController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
         
-        List<Artifact> artifacts = recommendationService.getArtifactsByUserInterests(username, count);
+        List<ArtifactSummary> artifacts = recommendationService.getArtifactsByUserInterests(username, count);
         return ResponseEntity.ok(artifacts);
     }
     
     @GetMapping("/based-on-favorites")
-    public ResponseEntity<List<Artifact>> getFavoriteBasedRecommendations(
+    public ResponseEntity<List<ArtifactSummary>> getFavoriteBasedRecommendations(
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/based-on-favorites?count={}", count);
@@ -96,38 +102,38 @@ public class RecommendationController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
         
-        List<Artifact> recommendations = recommendationService.getFavoriteBasedRecommendations(username, count);
+        List<ArtifactSummary> recommendations = recommendationService.getFavoriteBasedRecommendations(username, count);
         return ResponseEntity.ok(recommendations);
     }
     
     @GetMapping("/popular")
-    public ResponseEntity<List<Artifact>> getPopularArtifacts(
+    public ResponseEntity<List<ArtifactSummary>> getPopularArtifacts(
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/popular?count={}", count);
         
-        List<Artifact> popular = recommendationService.getPopularArtifacts(count);
+        List<ArtifactSummary> popular = recommendationService.getPopularArtifacts(count);
         return ResponseEntity.ok(popular);
     }
     
     @GetMapping("/trending")
-    public ResponseEntity<List<Artifact>> getTrendingArtifacts(
+    public ResponseEntity<List<ArtifactSummary>> getTrendingArtifacts(
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/trending?count={}", count);
         
-        List<Artifact> trending = recommendationService.getTrendingArtifacts(count);
+        List<ArtifactSummary> trending = recommendationService.getTrendingArtifacts(count);
         return ResponseEntity.ok(trending);
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Artifact>> getRecommendationsByCategory(
+    public ResponseEntity<List<ArtifactSummary>> getRecommendationsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "6") int count) {
         
         log.debug("GET /api/recommendations/category/{}?count={}", category, count);
         
-        List<Artifact> recommendations = recommendationService.getRecommendationsByCategory(category, count);
+        List<ArtifactSummary> recommendations = recommendationService.getRecommendationsByCategory(category, count);
         return ResponseEntity.ok(recommendations);
     }
     
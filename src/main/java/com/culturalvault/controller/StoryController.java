@@ -5,14 +5,22 @@
 
 package com.culturalvault.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,17 +29,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.culturalvault.model.CursorPage;
+import com.culturalvault.model.GenerationParams;
 import com.culturalvault.model.Story;
 import com.culturalvault.model.StoryFeedback;
 import com.culturalvault.model.StoryGenre;
+import com.culturalvault.model.StoryJob;
 import com.culturalvault.model.StoryLength;
 import com.culturalvault.repository.GenreStats;
+import com.culturalvault.service.AiServiceClient;
+import com.culturalvault.service.StoryGenerationService;
 import com.culturalvault.service.StoryService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -47,6 +63,15 @@ import lombok.extern.slf4j.Slf4j;
 @CrossOrigin(origins = "*")
 public class StoryController {
     private final StoryService storyService;
+    private final StoryGenerationService storyGenerationService;
+    
+    // Cache-Control max-age of story detail responses
+    @Value("${app.http-cache.detail-max-age:PT0S}")
+    private Duration detailMaxAge;
+
+    // Upper bound of a streamed generation; the emitter outlives it slightly
+    @Value("${app.ai.service.stream.timeout:PT5M}")
+    private Duration streamTimeout;
     
     @GetMapping
     public ResponseEntity<Page<Story>> getAllStories(
@@ -67,12 +92,48 @@ public class StoryController {
         return ResponseEntity.ok(stories);
     }
     
+    /**
+     * Keyset-paginated variant of {@link #getAllStories}, selected when the
+     * request carries a {@code cursor} parameter (empty for the first page).
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<Story>> getAllStoriesByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "generatedAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        
+        log.debug("GET /api/stories - Cursor: {}, Size: {}", cursor, size);
+        
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        try {
+            return ResponseEntity.ok(storyService.getStoriesByCursor(cursor, size, sortBy, direction));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Story> getStoryById(@PathVariable String id) {
+    public ResponseEntity<Story> getStoryById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("GET /api/stories/{}", id);
         
+        // Revalidations are answered from the timestamp alone
+        if (ifNoneMatch != null) {
+            ResponseEntity<Story> notModified = storyService.getLastModified(id)
+                    .map(updatedAt -> HttpCaching.<Story>notModified(ifNoneMatch, id, updatedAt, detailMaxAge))
+                    .orElse(null);
+            if (notModified != null) {
+                return notModified;
+            }
+        }
+        
         return storyService.getStoryById(id)
-                .map(ResponseEntity::ok)
+                .map(story -> HttpCaching.ok(id, story.getUpdatedAt() != null ? story.getUpdatedAt() : story.getGeneratedAt(), detailMaxAge)
+                        .body(story))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -89,6 +150,100 @@ public class StoryController {
         }
     }
     
+    /**
+     * Queues the generation of a story for the signed-in user; the returned
+     * job is polled at its Location until it has a {@code storyId}.
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<StoryJob> generateStory(
+            @RequestParam String artifactId,
+            @RequestParam StoryGenre genre,
+            @RequestParam StoryLength length,
+            @RequestBody(required = false) GenerationParams params) {
+        
+        log.info("POST /api/stories/generate - artifact: {}, genre: {}, length: {}", artifactId, genre, length);
+        
+        try {
+            StoryJob job = storyGenerationService.submit(artifactId, Clients.userName(), genre, length, params);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/stories/jobs/" + job.getId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot generate story: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Generates a story for the signed-in user and streams it as Server-Sent
+     * Events: a {@code chunk} event ({@code {"text": ...}}) per piece of text
+     * as the model produces it, then a {@code story} event with the saved
+     * story, or an {@code error} event. The request thread returns at once; the events
+     * are written as the AI service's response arrives.
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStory(
+            @RequestParam String artifactId,
+            @RequestParam StoryGenre genre,
+            @RequestParam StoryLength length,
+            @RequestBody(required = false) GenerationParams params) {
+        
+        log.info("POST /api/stories/generate/stream - artifact: {}, genre: {}, length: {}", artifactId, genre, length);
+        
+        SseEmitter emitter = new SseEmitter(streamTimeout.plusSeconds(30).toMillis());
+        try {
+            CompletableFuture<Story> story = storyGenerationService.stream(artifactId, Clients.userName(),
+                    genre, length, params, text -> send(emitter, SseEmitter.event().name("chunk").data(Map.of("text", text))));
+            // The client went away: stop generating
+            emitter.onCompletion(() -> story.cancel(true));
+            emitter.onError(e -> story.cancel(true));
+            story.whenComplete((saved, e) -> {
+                try {
+                    if (e == null) {
+                        emitter.send(SseEmitter.event().name("story").data(saved));
+                    } else if (!story.isCancelled()) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        log.warn("Streamed story generation for artifact {} failed: {}", artifactId, cause.getMessage());
+                        emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(cause.getMessage()))));
+                    }
+                    emitter.complete();
+                } catch (IOException | IllegalStateException ignored) {
+                    // Client gone
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot generate story: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (AiServiceClient.AiServiceException e) {
+            log.warn("Cannot generate story: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * A generation job of the signed-in user; other users' jobs are not
+     * found.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<StoryJob> getGenerationJob(@PathVariable String id) {
+        log.debug("GET /api/stories/jobs/{}", id);
+        
+        String userName = Clients.userName();
+        return storyGenerationService.getJob(id)
+                .filter(job -> userName != null && userName.equals(job.getUserId()))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Story> updateStory(
             @PathVariable String id,
@@ -131,6 +286,22 @@ public class StoryController {
         return ResponseEntity.ok(stories);
     }
     
+    @GetMapping(value = "/artifact/{artifactId}", params = "cursor")
+    public ResponseEntity<CursorPage<Story>> getStoriesByArtifactCursor(
+            @PathVariable String artifactId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        log.debug("GET /api/stories/artifact/{} - Cursor: {}", artifactId, cursor);
+        
+        try {
+            return ResponseEntity.ok(storyService.getStoriesByArtifactCursor(artifactId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/user/{userId}")
     public ResponseEntity<Page<Story>> getStoriesByUser(
             @PathVariable String userId,
@@ -145,6 +316,22 @@ public class StoryController {
         return ResponseEntity.ok(stories);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "cursor")
+    public ResponseEntity<CursorPage<Story>> getStoriesByUserCursor(
+            @PathVariable String userId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        log.debug("GET /api/stories/user/{} - Cursor: {}", userId, cursor);
+        
+        try {
+            return ResponseEntity.ok(storyService.getStoriesByUserCursor(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/genre/{genre}")
     public ResponseEntity<Page<Story>> getStoriesByGenre(
             @PathVariable StoryGenre genre,
@@ -229,22 +416,24 @@ public class StoryController {
     
     @GetMapping("/random")
     public ResponseEntity<List<Story>> getRandomStories(
-            @RequestParam(defaultValue = "5") int count) {
+            @RequestParam(defaultValue = "5") int count,
+            HttpServletRequest request) {
         
         log.debug("GET /api/stories/random?count={}", count);
         
-        List<Story> stories = storyService.getRandomStories(count);
+        List<Story> stories = storyService.getRandomStories(count, Clients.key(request));
         return ResponseEntity.ok(stories);
     }
     
     @GetMapping("/random/genre/{genre}")
     public ResponseEntity<List<Story>> getRandomStoriesByGenre(
             @PathVariable StoryGenre genre,
-            @RequestParam(defaultValue = "5") int count) {
+            @RequestParam(defaultValue = "5") int count,
+            HttpServletRequest request) {
         
         log.debug("GET /api/stories/random/genre/{}?count={}", genre, count);
         
-        List<Story> stories = storyService.getRandomStoriesByGenre(genre, count);
+        List<Story> stories = storyService.getRandomStoriesByGenre(genre, count, Clients.key(request));
         return ResponseEntity.ok(stories);
     }
     
@@ -60,7 +60,7 @@ public class UserInterationController {
         
         // Get additional request info
         String sessionId = request.getSession().getId();
-        String ipAddress = getClientIpAddress(request);
+        String ipAddress = Clients.ipAddress(request);
         String userAgent = request.getHeader("User-Agent");
         
         try {
@@ -176,18 +176,4 @@ public class UserInterationController {
         
         return ResponseEntity.ok(health);
     }
-    
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-        
-        return request.getRemoteAddr();
-    }
 }
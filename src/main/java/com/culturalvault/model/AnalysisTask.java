@@ -0,0 +1,126 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An entry of the AI analysis work queue, one per artifact.
+ *
+ * A PENDING task becomes available at {@code availableAt}. A worker claims
+ * it by leasing it until {@code leaseExpiresAt}; a lease that runs out
+ * (the worker died) makes the task claimable again. Failed tasks go back to
+ * PENDING with a backoff, or to DEAD once {@code attempts} reaches the
+ * maximum.
+ *
+ * @author parth
+ */
+@Document(collection = "analysis_tasks")
+@CompoundIndexes({
+    @CompoundIndex(name = "status_availableAt", def = "{ 'status': 1, 'availableAt': 1 }"),
+    @CompoundIndex(name = "status_leaseExpiresAt", def = "{ 'status': 1, 'leaseExpiresAt': 1 }")
+})
+public class AnalysisTask {
+
+    public enum Status { PENDING, LEASED, DONE, DEAD }
+
+    // Id of the artifact to analyse
+    @Id
+    private String id;
+
+    private Status status;
+
+    // Claims so far, including the current one
+    private int attempts;
+
+    private LocalDateTime availableAt;
+    private String leaseOwner;
+    private LocalDateTime leaseExpiresAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public AnalysisTask() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -6,21 +6,35 @@
 package com.culturalvault.model;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  *
  * @author parth
  */
 @Document(collection="artifacts")
+@CompoundIndexes({
+    // Keyset pagination of the default listing
+    @CompoundIndex(name = "createdAt_id", def = "{ 'createdAt': -1, '_id': -1 }"),
+    // Exact-match facet filters (/api/artifacts/filter, /category, /culture, /period)
+    @CompoundIndex(name = "categoryKey_cultureKey_periodKey", def = "{ 'categoryKey': 1, 'cultureKey': 1, 'periodKey': 1 }"),
+    @CompoundIndex(name = "cultureKey_periodKey", def = "{ 'cultureKey': 1, 'periodKey': 1 }"),
+    // Upsert key of harvested records (ArtifactBulkWriter)
+    @CompoundIndex(name = "source_sourceId", def = "{ 'source': 1, 'sourceId': 1 }", unique = true,
+            partialFilter = "{ 'sourceId': { $exists: true } }")
+})
 public class Artifact {
     @Id
     private String id;
@@ -42,10 +56,45 @@ public class Artifact {
 
     private String material;
 
+    // Normalized (trimmed, lower-cased) facet values for case-insensitive
+    // exact-match filters; kept in sync by updateFacetKeys()
+    @JsonIgnore
+    private String categoryKey;
+
+    @JsonIgnore
+    private String cultureKey;
+
+    @JsonIgnore
+    @Indexed
+    private String periodKey;
+
     private String imageUrl;
     private String thumbnailUrl;
     private String r2ImageKey;
 
+    // SHA-256 (hex) of the uploaded image stored under r2ImageKey; the
+    // artifact's reference to its ImageBlob
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private String imageSha256;
+
+    // Storage keys (see ImageStorage) of generated thumbnails by width in
+    // pixels, set by ThumbnailService; null until thumbnails exist
+    private Map<String, String> thumbnailKeys;
+
+    // Failed thumbnail generations so far and the last error; the pipeline
+    // gives up on an image after app.thumbnails.max-attempts
+    @JsonIgnore
+    private Integer thumbnailAttempts;
+
+    @JsonIgnore
+    private String thumbnailError;
+
+    // 64-bit perceptual hash (dHash) of the image, set by ImageHashIndex
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Long imageHash;
+
     // Metadata from external APIs
     private Map<String, Object> metadata;
 
@@ -57,10 +106,21 @@ public class Artifact {
     private String sourceId;
     private String sourceUrl;
 
+    // Hash of the imported fields as last received from the source; an
+    // unchanged hash lets a re-import skip the write (ArtifactBulkWriter)
+    @JsonIgnore
+    private String contentHash;
+
+    // Id of an older artifact with near-identical title and description,
+    // set by ArtifactDuplicateIndex; null when no duplicate is known
+    @Indexed(sparse = true)
+    private String duplicateOf;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
     @LastModifiedDate
+    @Indexed
     private LocalDateTime updatedAt;
 
     public Artifact() { }
@@ -103,6 +163,44 @@ public class Artifact {
         this.updatedAt = updatedAt;
     }
 
+    // Copy Constructor (shallow)
+    public Artifact(Artifact other) {
+        this(other.id, other.title, other.description, other.category, other.culture,
+             other.period, other.material, other.imageUrl, other.thumbnailUrl,
+             other.r2ImageKey, other.metadata, other.analysis, other.source,
+             other.sourceId, other.sourceUrl, other.createdAt, other.updatedAt);
+        this.categoryKey = other.categoryKey;
+        this.cultureKey = other.cultureKey;
+        this.periodKey = other.periodKey;
+        this.contentHash = other.contentHash;
+        this.duplicateOf = other.duplicateOf;
+        this.imageHash = other.imageHash;
+        this.imageSha256 = other.imageSha256;
+        this.thumbnailKeys = other.thumbnailKeys;
+        this.thumbnailAttempts = other.thumbnailAttempts;
+        this.thumbnailError = other.thumbnailError;
+    }
+
+    /**
+     * Normalized form of a facet value used for filtering: trimmed and
+     * lower-cased, or null when blank.
+     */
+    public static String normalizeFacetKey(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Recomputes the facet key fields from category, culture and period.
+     */
+    public void updateFacetKeys() {
+        this.categoryKey = normalizeFacetKey(category);
+        this.cultureKey = normalizeFacetKey(culture);
+        this.periodKey = normalizeFacetKey(period);
+    }
+
     public String getId() {
         return id;
     }
@@ -159,6 +257,18 @@ public class Artifact {
         this.material = material;
     }
 
+    public String getCategoryKey() {
+        return categoryKey;
+    }
+
+    public String getCultureKey() {
+        return cultureKey;
+    }
+
+    public String getPeriodKey() {
+        return periodKey;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
@@ -223,199 +333,87 @@ public class Artifact {
         this.sourceUrl = sourceUrl;
     }
 
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
+    public String getContentHash() {
+        return contentHash;
     }
 
-    public void setCreatedAt(LocalDateTime createdAt) {
-        this.createdAt = createdAt;
-    }
-
-    public LocalDateTime getUpdatedAt() {
-        return updatedAt;
-    }
-
-    public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
-    }
-
-    @Override
-    public String toString() {
-        return "Artifact{" +
-                "id='" + id + '\'' +
-                ", title='" + title + '\'' +
-                ", category='" + category + '\'' +
-                ", culture='" + culture + '\'' +
-                ", period='" + period + '\'' +
-                ", source='" + source + '\'' +
-                '}';
-    }
-}
-
-class ArtifactAnalysis {
-    private List<YoloDetection> detections;
-    private List<Double> imageEmbedding; // 512-dimensional vector
-    private List<Double> textEmbedding; // 768-dimensional vector
-    private List<NamedEntity> entities;
-    private Map<String, Double> culturalTags;
-    private LocalDateTime analyzedAt;
-
-    // Default Constructor
-    public ArtifactAnalysis() {
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
     }
 
-    // Constructor with essential fields
-    public ArtifactAnalysis(List<YoloDetection> detections, List<Double> imageEmbedding,
-                           List<Double> textEmbedding, List<NamedEntity> entities) {
-        this.detections = detections;
-        this.imageEmbedding = imageEmbedding;
-        this.textEmbedding = textEmbedding;
-        this.entities = entities;
-        this.analyzedAt = LocalDateTime.now();
+    public String getImageSha256() {
+        return imageSha256;
     }
 
-    // Full Constructor
-    public ArtifactAnalysis(List<YoloDetection> detections, List<Double> imageEmbedding,
-                           List<Double> textEmbedding, List<NamedEntity> entities,
-                           Map<String, Double> culturalTags, LocalDateTime analyzedAt) {
-        this.detections = detections;
-        this.imageEmbedding = imageEmbedding;
-        this.textEmbedding = textEmbedding;
-        this.entities = entities;
-        this.culturalTags = culturalTags;
-        this.analyzedAt = analyzedAt;
+    public void setImageSha256(String imageSha256) {
+        this.imageSha256 = imageSha256;
     }
 
-    // Getters and Setters
-    public List<YoloDetection> getDetections() {
-        return detections;
+    public Map<String, String> getThumbnailKeys() {
+        return thumbnailKeys;
     }
 
-    public void setDetections(List<YoloDetection> detections) {
-        this.detections = detections;
+    public void setThumbnailKeys(Map<String, String> thumbnailKeys) {
+        this.thumbnailKeys = thumbnailKeys;
     }
 
-    public List<Double> getImageEmbedding() {
-        return imageEmbedding;
+    public Integer getThumbnailAttempts() {
+        return thumbnailAttempts;
     }
 
-    public void setImageEmbedding(List<Double> imageEmbedding) {
-        this.imageEmbedding = imageEmbedding;
+    public void setThumbnailAttempts(Integer thumbnailAttempts) {
+        this.thumbnailAttempts = thumbnailAttempts;
     }
 
-    public List<Double> getTextEmbedding() {
-        return textEmbedding;
+    public String getThumbnailError() {
+        return thumbnailError;
     }
 
-    public void setTextEmbedding(List<Double> textEmbedding) {
-        this.textEmbedding = textEmbedding;
+    public void setThumbnailError(String thumbnailError) {
+        this.thumbnailError = thumbnailError;
     }
 
-    public List<NamedEntity> getEntities() {
-        return entities;
+    public Long getImageHash() {
+        return imageHash;
     }
 
-    public void setEntities(List<NamedEntity> entities) {
-        this.entities = entities;
+    public void setImageHash(Long imageHash) {
+        this.imageHash = imageHash;
     }
 
-    public Map<String, Double> getCulturalTags() {
-        return culturalTags;
+    public String getDuplicateOf() {
+        return duplicateOf;
     }
 
-    public void setCulturalTags(Map<String, Double> culturalTags) {
-        this.culturalTags = culturalTags;
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
     }
 
-    public LocalDateTime getAnalyzedAt() {
-        return analyzedAt;
-    }
-
-    public void setAnalyzedAt(LocalDateTime analyzedAt) {
-        this.analyzedAt = analyzedAt;
-    }
-}
-
-class YoloDetection {
-    private String className;
-    private double confidence;
-    private List<Double> bbox; // [x, y, width, height]
-
-    // Default Constructor
-    public YoloDetection() {
-    }
-
-    // Constructor
-    public YoloDetection(String className, double confidence, List<Double> bbox) {
-        this.className = className;
-        this.confidence = confidence;
-        this.bbox = bbox;
-    }
-
-    // Getters and Setters
-    public String getClassName() {
-        return className;
-    }
-
-    public void setClassName(String className) {
-        this.className = className;
-    }
-
-    public double getConfidence() {
-        return confidence;
-    }
-
-    public void setConfidence(double confidence) {
-        this.confidence = confidence;
-    }
-
-    public List<Double> getBbox() {
-        return bbox;
-    }
-
-    public void setBbox(List<Double> bbox) {
-        this.bbox = bbox;
-    }
-}
-
-class NamedEntity {
-    private String text;
-    private String label; // PERSON, LOCATION, ORGANIZATION, DATE, etc.
-    private double confidence;
-
-    // Default Constructor
-    public NamedEntity() {
-    }
-
-    // Constructor
-    public NamedEntity(String text, String label, double confidence) {
-        this.text = text;
-        this.label = label;
-        this.confidence = confidence;
-    }
-
-    // Getters and Setters
-    public String getText() {
-        return text;
-    }
-
-    public void setText(String text) {
-        this.text = text;
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
     }
 
-    public String getLabel() {
-        return label;
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
     }
 
-    public void setLabel(String label) {
-        this.label = label;
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
     }
 
-    public double getConfidence() {
-        return confidence;
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
     }
 
-    public void setConfidence(double confidence) {
-        this.confidence = confidence;
+    @Override
+    public String toString() {
+        return "Artifact{" +
+                "id='" + id + '\'' +
+                ", title='" + title + '\'' +
+                ", category='" + category + '\'' +
+                ", culture='" + culture + '\'' +
+                ", period='" + period + '\'' +
+                ", source='" + source + '\'' +
+                '}';
     }
 }
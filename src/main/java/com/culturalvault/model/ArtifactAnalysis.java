@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * @author parth
+ */
+public class ArtifactAnalysis {
+    private List<YoloDetection> detections;
+    private Embedding imageEmbedding; // 512-dimensional vector
+    private Embedding textEmbedding; // 768-dimensional vector
+    private List<NamedEntity> entities;
+    private Map<String, Double> culturalTags;
+    private LocalDateTime analyzedAt;
+
+    // Default Constructor
+    public ArtifactAnalysis() {
+    }
+
+    // Constructor with essential fields
+    public ArtifactAnalysis(List<YoloDetection> detections, Embedding imageEmbedding,
+                           Embedding textEmbedding, List<NamedEntity> entities) {
+        this.detections = detections;
+        this.imageEmbedding = imageEmbedding;
+        this.textEmbedding = textEmbedding;
+        this.entities = entities;
+        this.analyzedAt = LocalDateTime.now();
+    }
+
+    // Full Constructor
+    public ArtifactAnalysis(List<YoloDetection> detections, Embedding imageEmbedding,
+                           Embedding textEmbedding, List<NamedEntity> entities,
+                           Map<String, Double> culturalTags, LocalDateTime analyzedAt) {
+        this.detections = detections;
+        this.imageEmbedding = imageEmbedding;
+        this.textEmbedding = textEmbedding;
+        this.entities = entities;
+        this.culturalTags = culturalTags;
+        this.analyzedAt = analyzedAt;
+    }
+
+    // Getters and Setters
+    public List<YoloDetection> getDetections() {
+        return detections;
+    }
+
+    public void setDetections(List<YoloDetection> detections) {
+        this.detections = detections;
+    }
+
+    public Embedding getImageEmbedding() {
+        return imageEmbedding;
+    }
+
+    public void setImageEmbedding(Embedding imageEmbedding) {
+        this.imageEmbedding = imageEmbedding;
+    }
+
+    public Embedding getTextEmbedding() {
+        return textEmbedding;
+    }
+
+    public void setTextEmbedding(Embedding textEmbedding) {
+        this.textEmbedding = textEmbedding;
+    }
+
+    public List<NamedEntity> getEntities() {
+        return entities;
+    }
+
+    public void setEntities(List<NamedEntity> entities) {
+        this.entities = entities;
+    }
+
+    public Map<String, Double> getCulturalTags() {
+        return culturalTags;
+    }
+
+    public void setCulturalTags(Map<String, Double> culturalTags) {
+        this.culturalTags = culturalTags;
+    }
+
+    public LocalDateTime getAnalyzedAt() {
+        return analyzedAt;
+    }
+
+    public void setAnalyzedAt(LocalDateTime analyzedAt) {
+        this.analyzedAt = analyzedAt;
+    }
+}
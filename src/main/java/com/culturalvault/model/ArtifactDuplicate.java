@@ -0,0 +1,44 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+/**
+ * A likely duplicate of another artifact, with the estimated Jaccard
+ * similarity (0 to 1) of their title and description text.
+ *
+ * @author parth
+ */
+public class ArtifactDuplicate {
+
+    private ArtifactSummary artifact;
+    private double similarity;
+
+    // Default Constructor
+    public ArtifactDuplicate() {
+    }
+
+    public ArtifactDuplicate(ArtifactSummary artifact, double similarity) {
+        this.artifact = artifact;
+        this.similarity = similarity;
+    }
+
+    // Getters and Setters
+    public ArtifactSummary getArtifact() {
+        return artifact;
+    }
+
+    public void setArtifact(ArtifactSummary artifact) {
+        this.artifact = artifact;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+/**
+ * Lightweight view of an {@link Artifact} for list responses. It leaves out
+ * the description, metadata and AI analysis (embeddings, detections), which
+ * make up most of a full document; those are only returned by
+ * {@code GET /api/artifacts/{id}}.
+ *
+ * Repository methods returning this type only read these fields from MongoDB.
+ *
+ * @author parth
+ */
+public class ArtifactSummary {
+
+    /** Document fields read for a summary, besides {@code _id}. */
+    public static final String[] FIELDS = { "title", "category", "culture", "period", "thumbnailUrl" };
+
+    private String id;
+    private String title;
+    private String category;
+    private String culture;
+    private String period;
+    private String thumbnailUrl;
+
+    // Default Constructor
+    public ArtifactSummary() {
+    }
+
+    // Full Constructor
+    public ArtifactSummary(String id, String title, String category, String culture,
+                           String period, String thumbnailUrl) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.culture = culture;
+        this.period = period;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public static ArtifactSummary from(Artifact artifact) {
+        return new ArtifactSummary(artifact.getId(), artifact.getTitle(), artifact.getCategory(),
+                artifact.getCulture(), artifact.getPeriod(), artifact.getThumbnailUrl());
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getCulture() {
+        return culture;
+    }
+
+    public void setCulture(String culture) {
+        this.culture = culture;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    @Override
+    public String toString() {
+        return "ArtifactSummary{" +
+                "id='" + id + '\'' +
+                ", title='" + title + '\'' +
+                ", category='" + category + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.util.Locale;
+
+/**
+ *
+ * @author parth
+ */
+public enum DuplicateKind {
+    TEXT,       // near-identical title and description (MinHash)
+    IMAGE;      // visually identical image (perceptual hash)
+
+    public static DuplicateKind fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown duplicate kind: " + name);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Dense embedding vector held as a primitive {@code float[]}.
+ *
+ * In MongoDB it is stored as a single BSON binary value (see
+ * {@link #toBytes(Encoding)}) instead of an array of boxed doubles; in JSON
+ * it is still a plain array of numbers.
+ *
+ * Binary layout: one format byte, then
+ * <ul>
+ *   <li>{@link Encoding#FLOAT32}: the values as little-endian float32</li>
+ *   <li>{@link Encoding#INT8}: a little-endian float32 scale, then one signed
+ *       byte per value ({@code value = byte * scale})</li>
+ * </ul>
+ *
+ * @author parth
+ */
+public final class Embedding {
+
+    public enum Encoding {
+        FLOAT32((byte) 1),
+        INT8((byte) 2);
+
+        private final byte tag;
+
+        Encoding(byte tag) {
+            this.tag = tag;
+        }
+
+        public static Encoding fromName(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        static Encoding fromTag(byte tag) {
+            for (Encoding encoding : values()) {
+                if (encoding.tag == tag) {
+                    return encoding;
+                }
+            }
+            throw new IllegalArgumentException("Unknown embedding encoding: " + tag);
+        }
+    }
+
+    private final float[] values;
+
+    private Embedding(float[] values) {
+        this.values = values;
+    }
+
+    @JsonCreator
+    public static Embedding of(float[] values) {
+        return new Embedding(values.clone());
+    }
+
+    public static Embedding of(List<? extends Number> values) {
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i).floatValue();
+        }
+        return new Embedding(array);
+    }
+
+    public static Embedding fromBytes(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty embedding");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1).order(ByteOrder.LITTLE_ENDIAN);
+        switch (Encoding.fromTag(bytes[0])) {
+            case FLOAT32 -> {
+                float[] values = new float[buffer.remaining() / Float.BYTES];
+                buffer.asFloatBuffer().get(values);
+                return new Embedding(values);
+            }
+            case INT8 -> {
+                float scale = buffer.getFloat();
+                float[] values = new float[buffer.remaining()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = buffer.get() * scale;
+                }
+                return new Embedding(values);
+            }
+            default -> throw new IllegalStateException();
+        }
+    }
+
+    public byte[] toBytes(Encoding encoding) {
+        ByteBuffer buffer;
+        if (encoding == Encoding.INT8) {
+            float maxAbs = 0f;
+            for (float value : values) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+            float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+            buffer = ByteBuffer.allocate(1 + Float.BYTES + values.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(encoding.tag).putFloat(scale);
+            for (float value : values) {
+                buffer.put((byte) Math.round(value / scale));
+            }
+        } else {
+            buffer = ByteBuffer.allocate(1 + Float.BYTES * values.length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(encoding.tag);
+            buffer.asFloatBuffer().put(values);
+        }
+        return buffer.array();
+    }
+
+    public int dimension() {
+        return values.length;
+    }
+
+    public float get(int index) {
+        return values[index];
+    }
+
+    @JsonValue
+    public float[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Embedding other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "Embedding{dimension=" + values.length + '}';
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import run from an external collection API. Counters are
+ * updated concurrently by the harvest workers.
+ *
+ * @author parth
+ */
+public class HarvestJob {
+
+    public enum Status { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final String id;
+    private final String source;
+    private final List<String> queries;
+    private final long maxRecords;
+    private final boolean incremental;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    private final AtomicLong pagesFetched = new AtomicLong();
+    private final AtomicLong recordsFetched = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    public HarvestJob(String id, String source, List<String> queries, long maxRecords, boolean incremental) {
+        this.id = id;
+        this.source = source;
+        this.queries = List.copyOf(queries);
+        this.maxRecords = maxRecords;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Reserves room for up to {@code count} more fetched records.
+     *
+     * @return how many of them fit under {@code maxRecords}
+     */
+    public long reserveRecords(long count) {
+        if (maxRecords <= 0) {
+            recordsFetched.addAndGet(count);
+            return count;
+        }
+        while (true) {
+            long current = recordsFetched.get();
+            long allowed = Math.max(0, Math.min(count, maxRecords - current));
+            if (recordsFetched.compareAndSet(current, current + allowed)) {
+                return allowed;
+            }
+        }
+    }
+
+    public boolean isLimitReached() {
+        return maxRecords > 0 && recordsFetched.get() >= maxRecords;
+    }
+
+    public void pageFetched() {
+        pagesFetched.incrementAndGet();
+    }
+
+    public void recordsWritten(int inserted, int updated, int unchanged, int failed) {
+        this.inserted.addAndGet(inserted);
+        this.updated.addAndGet(updated);
+        this.unchanged.addAndGet(unchanged);
+        this.failed.addAndGet(failed);
+    }
+
+    public void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<String> getQueries() {
+        return queries;
+    }
+
+    public long getMaxRecords() {
+        return maxRecords;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getPagesFetched() {
+        return pagesFetched.get();
+    }
+
+    public long getRecordsFetched() {
+        return recordsFetched.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An image stored once in the image storage under a key derived from the
+ * SHA-256 of its content, however many artifacts use it.
+ * {@code refCount} is the number of artifacts whose {@code imageSha256}
+ * points here; blobs left without references are removed by the
+ * garbage-collection sweep (ImageBlobService).
+ *
+ * @author parth
+ */
+@Document(collection = "image_blobs")
+@CompoundIndex(name = "refCount_updatedAt", def = "{ 'refCount': 1, 'updatedAt': 1 }")
+public class ImageBlob {
+
+    // Hex SHA-256 of the content
+    @Id
+    private String id;
+
+    private String key;
+    private String contentType;
+    private long size;
+    private long refCount;
+    private LocalDateTime createdAt;
+
+    // Last time a reference was added or dropped
+    private LocalDateTime updatedAt;
+
+    // Set while a sweep deletes the content; the blob is then gone for
+    // acquire() and store() until the sweep removes this document
+    private LocalDateTime deletingSince;
+
+    public ImageBlob() {
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getDeletingSince() {
+        return deletingSince;
+    }
+
+    public void setDeletingSince(LocalDateTime deletingSince) {
+        this.deletingSince = deletingSince;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+/**
+ *
+ * @author parth
+ */
+public class NamedEntity {
+    private String text;
+    private String label; // PERSON, LOCATION, ORGANIZATION, DATE, etc.
+    private double confidence;
+
+    // Default Constructor
+    public NamedEntity() {
+    }
+
+    // Constructor
+    public NamedEntity(String text, String label, double confidence) {
+        this.text = text;
+        this.label = label;
+        this.confidence = confidence;
+    }
+
+    // Getters and Setters
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+}
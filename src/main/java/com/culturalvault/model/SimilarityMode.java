@@ -0,0 +1,26 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.util.Locale;
+
+/**
+ *
+ * @author parth
+ */
+public enum SimilarityMode {
+    METADATA,   // same culture and period
+    TEXT,       // nearest text embeddings
+    IMAGE;      // nearest image embeddings
+
+    public static SimilarityMode fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown similarity mode: " + name);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * High-water mark of one harvested (source, query) pair: every upstream
+ * record modified before {@code highWaterMark} has been imported, so an
+ * incremental sync only needs to ask the source for later changes.
+ *
+ * @author parth
+ */
+@Document(collection = "source_sync_states")
+public class SourceSyncState {
+
+    @Id
+    private String id;
+
+    private String source;
+    private String query;
+    private Instant highWaterMark;
+    private Instant lastSyncedAt;
+    private String lastJobId;
+    private long lastRecordCount;
+
+    public SourceSyncState() {
+    }
+
+    public SourceSyncState(String source, String query) {
+        this.id = idOf(source, query);
+        this.source = source;
+        this.query = query;
+    }
+
+    public static String idOf(String source, String query) {
+        return source + ":" + query;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Instant getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setHighWaterMark(Instant highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    public Instant getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(Instant lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    public String getLastJobId() {
+        return lastJobId;
+    }
+
+    public void setLastJobId(String lastJobId) {
+        this.lastJobId = lastJobId;
+    }
+
+    public long getLastRecordCount() {
+        return lastRecordCount;
+    }
+
+    public void setLastRecordCount(long lastRecordCount) {
+        this.lastRecordCount = lastRecordCount;
+    }
+}
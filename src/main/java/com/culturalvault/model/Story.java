@@ -9,6 +9,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -17,6 +19,12 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * @author parth
  */
 @Document(collection="stories")
+@CompoundIndexes({
+    // Keyset pagination of the story listings
+    @CompoundIndex(name = "generatedAt_id", def = "{ 'generatedAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "artifactId_generatedAt_id", def = "{ 'artifactId': 1, 'generatedAt': -1, '_id': -1 }"),
+    @CompoundIndex(name = "userId_generatedAt_id", def = "{ 'userId': 1, 'generatedAt': -1, '_id': -1 }")
+})
 public class Story {
     @Id
     private String id;
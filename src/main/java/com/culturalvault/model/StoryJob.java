@@ -0,0 +1,219 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A request to generate a story with the AI service, processed in the
+ * background (StoryGenerationService) and polled by the client.
+ *
+ * A QUEUED job is picked up at {@code availableAt} and RUNNING while a
+ * node holds its lease; a lease that runs out (the node stopped) puts it
+ * back within reach of the other workers. The generated story gets the
+ * job's id, so {@code storyId} equals {@code id} once SUCCEEDED.
+ *
+ * @author parth
+ */
+@Document(collection = "story_jobs")
+@CompoundIndexes({
+    @CompoundIndex(name = "status_availableAt", def = "{ 'status': 1, 'availableAt': 1 }"),
+    @CompoundIndex(name = "status_leaseExpiresAt", def = "{ 'status': 1, 'leaseExpiresAt': 1 }")
+})
+public class StoryJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @Id
+    private String id;
+
+    private String artifactId;
+    private String userId;
+    private StoryGenre genre;
+    private StoryLength length;
+    private GenerationParams generationParams;
+
+    private Status status;
+    private int attempts;
+    private LocalDateTime availableAt;
+    private String storyId;
+    private String error;
+
+    @JsonIgnore
+    private String leaseOwner;
+
+    @JsonIgnore
+    private LocalDateTime leaseExpiresAt;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime updatedAt;
+
+    public StoryJob() {
+    }
+
+    public StoryJob(String artifactId, String userId, StoryGenre genre, StoryLength length,
+                    GenerationParams generationParams) {
+        this.artifactId = artifactId;
+        this.userId = userId;
+        this.genre = genre;
+        this.length = length;
+        this.generationParams = generationParams;
+        this.status = Status.QUEUED;
+        this.createdAt = LocalDateTime.now();
+        this.availableAt = this.createdAt;
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public StoryGenre getGenre() {
+        return genre;
+    }
+
+    public void setGenre(StoryGenre genre) {
+        this.genre = genre;
+    }
+
+    public StoryLength getLength() {
+        return length;
+    }
+
+    public void setLength(StoryLength length) {
+        this.length = length;
+    }
+
+    public GenerationParams getGenerationParams() {
+        return generationParams;
+    }
+
+    public void setGenerationParams(GenerationParams generationParams) {
+        this.generationParams = generationParams;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getStoryId() {
+        return storyId;
+    }
+
+    public void setStoryId(String storyId) {
+        this.storyId = storyId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
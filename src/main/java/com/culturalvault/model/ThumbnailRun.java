@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Progress of one pass of the thumbnail pipeline over the artifacts that
+ * lack thumbnails. Saved after every batch: {@code lastArtifactId} is the
+ * checkpoint up to which all artifacts have been processed, so a run that
+ * was interrupted (e.g. by a restart) continues from there.
+ *
+ * @author parth
+ */
+@Document(collection = "thumbnail_runs")
+public class ThumbnailRun {
+
+    public enum Status { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    @Id
+    private String id;
+
+    private Status status = Status.RUNNING;
+    private String error;
+    private LocalDateTime startedAt = LocalDateTime.now();
+    private LocalDateTime finishedAt;
+    private String lastArtifactId;
+    private long processed;
+    private long succeeded;
+    private long failed;
+
+    public ThumbnailRun() {
+    }
+
+    public void batchDone(String lastArtifactId, long succeeded, long failed) {
+        this.lastArtifactId = lastArtifactId;
+        this.processed += succeeded + failed;
+        this.succeeded += succeeded;
+        this.failed += failed;
+    }
+
+    public void finish(Status status, String error) {
+        this.status = status;
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getLastArtifactId() {
+        return lastArtifactId;
+    }
+
+    public void setLastArtifactId(String lastArtifactId) {
+        this.lastArtifactId = lastArtifactId;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(long succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.model;
+
+import java.util.List;
+
+/**
+ *
+ * @author parth
+ */
+public class YoloDetection {
+    private String className;
+    private double confidence;
+    private List<Double> bbox; // [x, y, width, height]
+
+    // Default Constructor
+    public YoloDetection() {
+    }
+
+    // Constructor
+    public YoloDetection(String className, double confidence, List<Double> bbox) {
+        this.className = className;
+        this.confidence = confidence;
+        this.bbox = bbox;
+    }
+
+    // Getters and Setters
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    public List<Double> getBbox() {
+        return bbox;
+    }
+
+    public void setBbox(List<Double> bbox) {
+        this.bbox = bbox;
+    }
+}
@@ -6,9 +6,11 @@
 package com.culturalvault.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.Aggregation;
@@ -17,6 +19,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactSummary;
 
 /**
  *
@@ -24,7 +27,10 @@ import com.culturalvault.model.Artifact;
  */
 
 @Repository
-public interface ArtifactRepository extends MongoRepository<Artifact, String> {
+public interface ArtifactRepository extends MongoRepository<Artifact, String>, ArtifactRepositoryCustom {
+    // Projection matching ArtifactSummary.FIELDS, for list endpoints
+    String SUMMARY_FIELDS = "{ title: 1, category: 1, culture: 1, period: 1, thumbnailUrl: 1 }";
+    
     // Basic finders by individual fields
     Page<Artifact> findByCategory(String category, Pageable pageable);
     Page<Artifact> findByCulture(String culture, Pageable pageable);
@@ -32,28 +38,24 @@ public interface ArtifactRepository extends MongoRepository<Artifact, String> {
     Page<Artifact> findByMaterial(String material, Pageable pageable);
     Page<Artifact> findBySource(String source, Pageable pageable);
     
-    // Case-insensitive searches
-    Page<Artifact> findByCategoryIgnoreCase(String category, Pageable pageable);
-    Page<Artifact> findByCultureIgnoreCase(String culture, Pageable pageable);
-    Page<Artifact> findByPeriodIgnoreCase(String period, Pageable pageable);
+    // Summary listings (only ArtifactSummary fields are read)
+    Page<ArtifactSummary> findAllBy(Pageable pageable);
+    List<ArtifactSummary> findSummaryByIdIn(Collection<String> ids);
+    
+    // Case-insensitive searches on the normalized facet keys (see Artifact.normalizeFacetKey)
+    Page<ArtifactSummary> findByCategoryKey(String categoryKey, Pageable pageable);
+    Page<ArtifactSummary> findByCultureKey(String cultureKey, Pageable pageable);
+    Page<ArtifactSummary> findByPeriodKey(String periodKey, Pageable pageable);
     
     // Text search using MongoDB text index
-    @Query("{ $text: { $search: ?0 } }")
-    Page<Artifact> findByTextSearch(String searchText, Pageable pageable);
+    @Query(value = "{ $text: { $search: ?0 } }", fields = SUMMARY_FIELDS)
+    Page<ArtifactSummary> findByTextSearch(String searchText, Pageable pageable);
     
     // Advanced text search with score
     @Query(value = "{ $text: { $search: ?0 } }", 
            sort = "{ score: { $meta: 'textScore' } }")
     List<Artifact> findByTextSearchWithScore(String searchText);
     
-    // Multi-criteria search
-    @Query("{ $and: [ " +
-           "{ $or: [ {category: {$regex: ?0, $options: 'i'}}, {category: {$exists: false}} ] }, " +
-           "{ $or: [ {culture: {$regex: ?1, $options: 'i'}}, {culture: {$exists: false}} ] }, " +
-           "{ $or: [ {period: {$regex: ?2, $options: 'i'}}, {period: {$exists: false}} ] } " +
-           "] }")
-    Page<Artifact> findByCriteria(String category, String culture, String period, Pageable pageable);
-    
     // Find artifacts with non-null analysis (AI processed) - FIXED TYPO
     @Query("{ 'analysis': { $exists: true, $ne: null } }")
     Page<Artifact> findAnalyzedArtifacts(Pageable pageable);
@@ -64,30 +66,36 @@ public interface ArtifactRepository extends MongoRepository<Artifact, String> {
     
     // Random sampling for recommendations
     @Aggregation(pipeline = {
-        "{ $sample: { size: ?0 } }"
+        "{ $sample: { size: ?0 } }",
+        "{ $project: " + SUMMARY_FIELDS + " }"
     })
-    List<Artifact> findRandomArtifacts(int count);
+    List<ArtifactSummary> findRandomArtifacts(int count);
     
-    // Random artifacts by category
+    // Random artifacts by normalized category key
     @Aggregation(pipeline = {
-        "{ $match: { category: ?0 } }",
-        "{ $sample: { size: ?1 } }"
+        "{ $match: { categoryKey: ?0 } }",
+        "{ $sample: { size: ?1 } }",
+        "{ $project: " + SUMMARY_FIELDS + " }"
     })
-    List<Artifact> findRandomArtifactsByCategory(String category, int count);
+    List<ArtifactSummary> findRandomArtifactsByCategory(String category, int count);
     
     // Find similar artifacts by culture and period
-    @Query("{ $and: [ " +
+    @Query(value = "{ $and: [ " +
            "{ culture: ?0 }, " +
            "{ period: ?1 }, " +
            "{ _id: { $ne: ?2 } } " +
-           "] }")
-    List<Artifact> findSimilarArtifacts(String culture, String period, String excludeId, Pageable pageable);
+           "] }", fields = SUMMARY_FIELDS)
+    List<ArtifactSummary> findSimilarArtifacts(String culture, String period, String excludeId, Pageable pageable);
     
     // Find artifacts created within date range
     List<Artifact> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     // Find artifacts by source and sourceId
     Optional<Artifact> findBySourceAndSourceId(String source, String sourceId);
+
+    // Timestamps only, for answering conditional requests
+    @Query(value = "{ _id: ?0 }", fields = "{ createdAt: 1, updatedAt: 1 }")
+    Optional<Artifact> findTimestampsById(String id);
     
     // Distinct values for filters
     @Query(value = "{}", fields = "{ category: 1 }")
@@ -117,6 +125,16 @@ public interface ArtifactRepository extends MongoRepository<Artifact, String> {
            "] } " +
            "] }")
     Page<Artifact> findArtifactsWithImages(Pageable pageable);
+
+    // Artifacts with an image but no generated thumbnails yet, after the
+    // given id and not given up on (fewer than maxAttempts failures); for
+    // walking the collection in _id order with a checkpoint (ThumbnailService)
+    @Query(value = "{ _id: { $gt: ?0 }, " +
+                   "$or: [ { imageUrl: { $nin: [ null, '' ] } }, { r2ImageKey: { $nin: [ null, '' ] } } ], " +
+                   "thumbnailKeys: null, " +
+                   "thumbnailAttempts: { $not: { $gte: ?1 } } }",
+           fields = "{ imageUrl: 1, r2ImageKey: 1 }")
+    List<Artifact> findArtifactsNeedingThumbnails(ObjectId afterId, int maxAttempts, Pageable pageable);
     
     // Complex aggregation for statistics
     @Aggregation(pipeline = {
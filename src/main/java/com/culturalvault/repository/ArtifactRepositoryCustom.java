@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package com.culturalvault.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.culturalvault.model.ArtifactSummary;
+
+/**
+ * Artifact queries built at runtime, implemented in {@link ArtifactRepositoryImpl}.
+ *
+ * @author parth
+ */
+public interface ArtifactRepositoryCustom {
+
+    /**
+     * Exact match on the normalized facet keys; null keys are not filtered on.
+     */
+    Page<ArtifactSummary> findByFacetKeys(String categoryKey, String cultureKey, String periodKey, Pageable pageable);
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactSummary;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ *
+ * @author parth
+ */
+@RequiredArgsConstructor
+public class ArtifactRepositoryImpl implements ArtifactRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<ArtifactSummary> findByFacetKeys(String categoryKey, String cultureKey, String periodKey, Pageable pageable) {
+        Criteria criteria = new Criteria();
+        if (categoryKey != null) {
+            criteria.and("categoryKey").is(categoryKey);
+        }
+        if (cultureKey != null) {
+            criteria.and("cultureKey").is(cultureKey);
+        }
+        if (periodKey != null) {
+            criteria.and("periodKey").is(periodKey);
+        }
+
+        Query query = new Query(criteria).with(pageable);
+        query.fields().include(ArtifactSummary.FIELDS);
+        List<ArtifactSummary> content = mongoTemplate.find(query, ArtifactSummary.class,
+                mongoTemplate.getCollectionName(Artifact.class));
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Artifact.class));
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package com.culturalvault.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.culturalvault.model.SourceSyncState;
+
+/**
+ *
+ * @author parth
+ */
+@Repository
+public interface SourceSyncStateRepository extends MongoRepository<SourceSyncState, String> {
+
+    List<SourceSyncState> findBySourceOrderByQuery(String source);
+}
@@ -29,6 +29,10 @@ public interface StoryRepository extends MongoRepository<Story, String> {
         // Find stories by artifact
     Page<Story> findByArtifactId(String artifactId, Pageable pageable);
     List<Story> findByArtifactId(String artifactId);
+
+    // Timestamps only, for answering conditional requests
+    @Query(value = "{ _id: ?0 }", fields = "{ generatedAt: 1, updatedAt: 1 }")
+    Optional<Story> findTimestampsById(String id);
     
     // Find stories by user
     Page<Story> findByUserId(String userId, Pageable pageable);
@@ -0,0 +1,26 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package com.culturalvault.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.culturalvault.model.ThumbnailRun;
+
+/**
+ *
+ * @author parth
+ */
+@Repository
+public interface ThumbnailRunRepository extends MongoRepository<ThumbnailRun, String> {
+
+    Optional<ThumbnailRun> findFirstByStatusOrderByStartedAtDesc(ThumbnailRun.Status status);
+
+    List<ThumbnailRun> findTop20ByOrderByStartedAtDesc();
+}
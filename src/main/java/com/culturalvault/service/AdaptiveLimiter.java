@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to the downstream service with AIMD: every
+ * call that succeeds within {@code latencyThreshold} while the limit is in
+ * use raises it by {@code 1/limit} (about one per round trip), and every
+ * call that fails with an overload signal or is too slow multiplies it by
+ * {@code backoffRatio}. The limit stays within {@code [min, max]}.
+ *
+ * As with {@link RateLimiter}, waiting is done on a lock rather than with
+ * {@code synchronized} so that virtual threads do not pin their carrier.
+ *
+ * @author parth
+ */
+public class AdaptiveLimiter {
+
+    private final int min;
+    private final int max;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveLimiter(int initial, int min, int max, double backoffRatio, Duration latencyThreshold) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid limit bounds: " + min + ".." + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.clamp(initial, min, max);
+    }
+
+    /**
+     * Takes a slot, waiting up to {@code timeout} for one.
+     *
+     * @return false if none became free in time
+     */
+    public boolean acquire(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Releases a slot after a call that took {@code latencyNanos} and succeeded. */
+    public void onSuccess(long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos) {
+            onDropped();
+            return;
+        }
+        lock.lock();
+        try {
+            // Only a limit that is actually reached says anything about capacity
+            if (inFlight * 2 >= limit) {
+                limit = Math.min(max, limit + 1.0 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Releases a slot after a call that failed because the service is overloaded. */
+    public void onDropped() {
+        lock.lock();
+        try {
+            limit = Math.max(min, limit * backoffRatio);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Releases a slot after a call whose outcome says nothing about load. */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        released.signalAll();
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+import com.culturalvault.model.GenerationParams;
+import com.culturalvault.model.StoryGenre;
+import com.culturalvault.model.StoryLength;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client of the AI service ({@code app.ai.service.base-url}).
+ *
+ * {@code POST /analyze} takes the descriptive fields of one artifact as JSON
+ * and answers with its {@link ArtifactAnalysis}, in the same shape as the
+ * body of {@code PUT /api/artifacts/{id}/analysis}; {@code POST /generate}
+ * takes an artifact with the story settings and answers with a
+ * {@link GeneratedStory}. Calls made at about the same time are coalesced:
+ * up to {@code app.ai.service.batch.max-size} of them, gathered for at most
+ * {@code batch.max-delay}, go out as one array to {@code /analyze/batch} or
+ * {@code /generate/batch}, answered by an array of results in the same
+ * order. A service without batch endpoints is detected and called one item
+ * at a time.
+ *
+ * {@code POST /generate/stream} takes the same request as {@code /generate}
+ * and answers with NDJSON while the model runs: each line carries the next
+ * piece of the story as {@code text}, and any line may carry its
+ * {@code title}. Streams are read asynchronously, are not batched, and are
+ * bounded by {@code app.ai.service.stream.max-concurrent} rather than the
+ * adaptive limit, since they last as long as the model takes.
+ *
+ * Requests in flight are bounded by an {@link AdaptiveLimiter} that follows
+ * the service's latency, and a {@link CircuitBreaker} refuses calls while
+ * the service keeps failing. Calls wait for a slot at most
+ * {@code app.ai.service.queue-timeout} and are refused outright when
+ * {@code batch.queue-capacity} calls are already waiting, so a slow model
+ * server sheds load instead of tying up every caller. Connections are kept
+ * alive and reused by the JDK HTTP client.
+ *
+ * The base URL is configurable, so the pipeline can be run against a local
+ * stub server.
+ *
+ * @author parth
+ */
+@Component
+@Slf4j
+public class AiServiceClient {
+
+    public record GeneratedStory(String title, String content) { }
+
+    public record Stats(CircuitBreaker.State circuit, int concurrencyLimit, int inFlight,
+                        int queuedAnalyses, int queuedStories, boolean batching, int streams) { }
+
+    /**
+     * A failed call. {@code retryable} unless the service rejected the
+     * request itself; {@code rejected} if it was refused here without
+     * reaching the service (circuit open or too many calls waiting).
+     */
+    public static class AiServiceException extends RuntimeException {
+
+        private final boolean retryable;
+        private final boolean rejected;
+
+        public AiServiceException(String message, boolean retryable, Throwable cause) {
+            this(message, retryable, false, cause);
+        }
+
+        public AiServiceException(String message, boolean retryable, boolean rejected, Throwable cause) {
+            super(message, cause);
+            this.retryable = retryable;
+            this.rejected = rejected;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        public boolean isRejected() {
+            return rejected;
+        }
+    }
+
+    private final RestClient restClient;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI streamUri;
+    private final Duration timeout;
+    private final Duration streamTimeout;
+    private final int maxStreams;
+    private final Semaphore streams;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Duration queueTimeout;
+    private final Duration callTimeout;
+    private final AdaptiveLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Batcher<ArtifactAnalysis> analyses;
+    private final Batcher<GeneratedStory> stories;
+
+    private volatile boolean batching = true;
+
+    public AiServiceClient(RestClient.Builder builder,
+                           HttpClient httpClient,
+                           ObjectMapper objectMapper,
+                           @Value("${app.ai.service.base-url:http://localhost:5000}") String baseUrl,
+                           @Value("${app.ai.service.timeout:30000}") long timeoutMillis,
+                           @Value("${app.ai.service.queue-timeout:PT5S}") Duration queueTimeout,
+                           @Value("${app.ai.service.batch.max-size:8}") int maxBatchSize,
+                           @Value("${app.ai.service.batch.max-delay:20ms}") Duration maxDelay,
+                           @Value("${app.ai.service.batch.queue-capacity:256}") int queueCapacity,
+                           @Value("${app.ai.service.limit.initial:4}") int initialLimit,
+                           @Value("${app.ai.service.limit.min:1}") int minLimit,
+                           @Value("${app.ai.service.limit.max:32}") int maxLimit,
+                           @Value("${app.ai.service.limit.backoff-ratio:0.7}") double backoffRatio,
+                           @Value("${app.ai.service.limit.latency-threshold:PT10S}") Duration latencyThreshold,
+                           @Value("${app.ai.service.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                           @Value("${app.ai.service.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+                           @Value("${app.ai.service.stream.max-concurrent:1000}") int maxStreams,
+                           @Value("${app.ai.service.stream.timeout:PT5M}") Duration streamTimeout) {
+        this.httpClient = httpClient;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = builder.baseUrl(baseUrl).requestFactory(requestFactory).build();
+        this.objectMapper = objectMapper;
+        this.streamUri = URI.create(baseUrl.replaceAll("/+$", "") + "/generate/stream");
+        this.streamTimeout = streamTimeout;
+        this.maxStreams = maxStreams;
+        this.streams = new Semaphore(maxStreams);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queueTimeout = queueTimeout;
+        // A caller waits out the queue, the batching delay and the request itself
+        this.callTimeout = queueTimeout.plus(maxDelay).plus(timeout).plusSeconds(1);
+        this.limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.analyses = new Batcher<>("/analyze", ArtifactAnalysis.class, queueCapacity);
+        this.stories = new Batcher<>("/generate", GeneratedStory.class, queueCapacity);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        analyses.stop();
+        stories.stop();
+    }
+
+    /**
+     * Analyses one artifact.
+     *
+     * @throws AiServiceException if the service fails, cannot be reached or
+     *                            is not being called at the moment
+     */
+    public ArtifactAnalysis analyze(Artifact artifact) {
+        return analyses.call(describe(artifact));
+    }
+
+    /**
+     * Analyses the text of an artifact only, leaving its image out of the
+     * request, for an artifact whose image was already analysed.
+     *
+     * @throws AiServiceException if the service fails, cannot be reached or
+     *                            is not being called at the moment
+     */
+    public ArtifactAnalysis analyzeText(Artifact artifact) {
+        Map<String, Object> request = describe(artifact);
+        request.remove("imageUrl");
+        return analyses.call(request);
+    }
+
+    /**
+     * Generates a story about an artifact.
+     *
+     * @throws AiServiceException if the service fails, cannot be reached or
+     *                            is not being called at the moment
+     */
+    public GeneratedStory generateStory(Artifact artifact, StoryGenre genre, StoryLength length, GenerationParams params) {
+        return stories.call(describe(artifact, genre, length, params));
+    }
+
+    /**
+     * Generates a story about an artifact, handing each piece of text to
+     * {@code onChunk} as the model produces it. No thread waits on the
+     * service meanwhile: {@code onChunk} is called from the HTTP client's
+     * response handling, one piece at a time.
+     *
+     * @return the whole story once the stream has ended; it fails with an
+     *         {@link AiServiceException}, and cancelling it (or an exception
+     *         from {@code onChunk}) aborts the call
+     * @throws AiServiceException (rejected) if the call cannot be made now
+     */
+    public CompletableFuture<GeneratedStory> streamStory(Artifact artifact, StoryGenre genre, StoryLength length,
+                                                         GenerationParams params, Consumer<String> onChunk) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(describe(artifact, genre, length, params));
+        } catch (JsonProcessingException e) {
+            throw new AiServiceException("Cannot write AI service request: " + e.getMessage(), false, e);
+        }
+        if (!streams.tryAcquire()) {
+            throw new AiServiceException("Too many AI service streams", true, true, null);
+        }
+        if (!circuitBreaker.allowRequest()) {
+            streams.release();
+            throw new AiServiceException("AI service circuit open", true, true, null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(streamUri)
+                // Time to the first response, not to the end of the story
+                .timeout(timeout)
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .header("Accept", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        StoryStream stream = new StoryStream(onChunk);
+        CompletableFuture<HttpResponse<Void>> response = httpClient.sendAsync(request, stream);
+        response.whenComplete((ignored, e) -> {
+            if (e != null) {
+                if (!stream.answered) {
+                    circuitBreaker.onFailure();
+                }
+                stream.result.completeExceptionally(
+                        new AiServiceException("AI service unreachable: " + e.getMessage(), true, e));
+            }
+        });
+        CompletableFuture.delayedExecutor(streamTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() ->
+                stream.result.completeExceptionally(new AiServiceException("AI service stream timed out", true, null)));
+        stream.result.whenComplete((story, e) -> {
+            streams.release();
+            if (e != null) {
+                // Caller gone, timed out or failed: stop reading (and the model, if it notices)
+                response.cancel(true);
+            }
+        });
+        return stream.result;
+    }
+
+    public Stats getStats() {
+        return new Stats(circuitBreaker.getState(), limiter.getLimit(), limiter.getInFlight(),
+                analyses.queued(), stories.queued(), batching, maxStreams - streams.availablePermits());
+    }
+
+    private static Map<String, Object> describe(Artifact artifact, StoryGenre genre, StoryLength length,
+                                                GenerationParams params) {
+        Map<String, Object> request = describe(artifact);
+        request.put("genre", genre);
+        request.put("length", length);
+        if (params != null) {
+            request.put("model", params.getModel());
+            request.put("temperature", params.getTemperature());
+            request.put("maxTokens", params.getMaxTokens());
+            request.put("prompt", params.getPrompt());
+        }
+        return request;
+    }
+
+    private static Map<String, Object> describe(Artifact artifact) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("artifactId", artifact.getId());
+        request.put("title", artifact.getTitle());
+        request.put("description", artifact.getDescription());
+        request.put("category", artifact.getCategory());
+        request.put("culture", artifact.getCulture());
+        request.put("period", artifact.getPeriod());
+        request.put("material", artifact.getMaterial());
+        request.put("imageUrl", artifact.getImageUrl());
+        return request;
+    }
+
+    private record Call<T>(Map<String, Object> request, CompletableFuture<T> result) { }
+
+    /**
+     * Reads the NDJSON of one story stream, line by line as it arrives, and
+     * settles {@code result} when it ends.
+     */
+    private final class StoryStream implements HttpResponse.BodyHandler<Void>, Flow.Subscriber<String> {
+
+        private final Consumer<String> onChunk;
+        private final CompletableFuture<GeneratedStory> result = new CompletableFuture<>();
+        private final StringBuilder content = new StringBuilder();
+        private String title;
+        private Flow.Subscription subscription;
+
+        // Set once the service has responded
+        private volatile boolean answered;
+
+        StoryStream(Consumer<String> onChunk) {
+            this.onChunk = onChunk;
+        }
+
+        @Override
+        public HttpResponse.BodySubscriber<Void> apply(HttpResponse.ResponseInfo info) {
+            answered = true;
+            int status = info.statusCode();
+            if (status == 200) {
+                circuitBreaker.onSuccess();
+                return HttpResponse.BodySubscribers.fromLineSubscriber(this, subscriber -> null,
+                        StandardCharsets.UTF_8, null);
+            }
+            boolean retryable = status == 408 || status == 429 || status >= 500;
+            if (retryable) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            result.completeExceptionally(new AiServiceException("AI service responded " + status, retryable, null));
+            return HttpResponse.BodySubscribers.discarding();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (result.isDone()) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (result.isDone()) {
+                subscription.cancel();
+                return;
+            }
+            if (!line.isBlank()) {
+                String text;
+                try {
+                    JsonNode chunk = objectMapper.readTree(line);
+                    if (chunk.hasNonNull("title")) {
+                        title = chunk.get("title").asText();
+                    }
+                    text = chunk.path("text").asText("");
+                } catch (JsonProcessingException e) {
+                    subscription.cancel();
+                    result.completeExceptionally(
+                            new AiServiceException("Invalid AI service response: " + e.getMessage(), false, e));
+                    return;
+                }
+                if (!text.isEmpty()) {
+                    content.append(text);
+                    try {
+                        onChunk.accept(text);
+                    } catch (RuntimeException e) {
+                        subscription.cancel();
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                }
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            result.completeExceptionally(new AiServiceException("AI service stream failed: " + e.getMessage(), true, e));
+        }
+
+        @Override
+        public void onComplete() {
+            if (content.isEmpty()) {
+                result.completeExceptionally(new AiServiceException("Empty AI service response", false, null));
+            } else {
+                result.complete(new GeneratedStory(title, content.toString()));
+            }
+        }
+    }
+
+    /**
+     * Coalesces the calls of one operation: callers queue their request and
+     * wait, a dispatcher thread gathers a batch, takes a concurrency slot
+     * and sends the batch on a virtual thread of its own.
+     */
+    private final class Batcher<T> {
+
+        private final String path;
+        private final Class<T> type;
+        private final ParameterizedTypeReference<List<T>> listType;
+        private final BlockingQueue<Call<T>> queue;
+        private final Thread dispatcher;
+
+        Batcher(String path, Class<T> type, int queueCapacity) {
+            this.path = path;
+            this.type = type;
+            this.listType = ParameterizedTypeReference.forType(
+                    ResolvableType.forClassWithGenerics(List.class, type).getType());
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.dispatcher = Thread.ofVirtual().name("ai-dispatch" + path.replace('/', '-')).start(this::dispatch);
+        }
+
+        int queued() {
+            return queue.size();
+        }
+
+        void stop() {
+            dispatcher.interrupt();
+        }
+
+        T call(Map<String, Object> request) {
+            if (circuitBreaker.isOpen()) {
+                throw new AiServiceException("AI service circuit open", true, true, null);
+            }
+            Call<T> call = new Call<>(request, new CompletableFuture<>());
+            if (!queue.offer(call)) {
+                throw new AiServiceException("Too many AI service calls waiting", true, true, null);
+            }
+            try {
+                return call.result().get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Dropped from its batch if not sent yet
+                call.result().cancel(false);
+                throw new AiServiceException("Timed out waiting for the AI service", true, e);
+            } catch (InterruptedException e) {
+                call.result().cancel(false);
+                Thread.currentThread().interrupt();
+                throw new AiServiceException("Interrupted while waiting for the AI service", true, true, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof AiServiceException failure) {
+                    throw failure;
+                }
+                throw new AiServiceException(String.valueOf(e.getCause().getMessage()), true, e.getCause());
+            }
+        }
+
+        private void dispatch() {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Call<T>> batch = new ArrayList<>(maxBatchSize);
+                try {
+                    batch.add(queue.take());
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    int batchSize = batching ? maxBatchSize : 1;
+                    while (batch.size() < batchSize) {
+                        Call<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    batch.removeIf(call -> call.result().isDone());
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                    if (!limiter.acquire(queueTimeout)) {
+                        failAll(batch, new AiServiceException("AI service overloaded", true, true, null));
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    failAll(batch, new AiServiceException("AI service client stopped", true, true, e));
+                    return;
+                }
+                if (!circuitBreaker.allowRequest()) {
+                    limiter.onIgnored();
+                    failAll(batch, new AiServiceException("AI service circuit open", true, true, null));
+                    continue;
+                }
+                Thread.ofVirtual().name("ai-call" + path.replace('/', '-')).start(() -> send(batch));
+            }
+        }
+
+        /**
+         * Sends a batch holding a concurrency slot, and settles its calls. The
+         * slot is given back, the outcome reported to the circuit breaker and
+         * every call settled whatever is thrown.
+         */
+        private void send(List<Call<T>> batch) {
+            long start = System.nanoTime();
+            boolean released = false;
+            // Whether the service answered sanely; anything unexpected counts as a failure
+            boolean healthy = false;
+            try {
+                List<T> results = execute(batch);
+                released = true;
+                limiter.onSuccess(System.nanoTime() - start);
+                healthy = true;
+                complete(batch, results);
+            } catch (RestClientResponseException e) {
+                int status = e.getStatusCode().value();
+                boolean retryable = status == 408 || status == 429 || e.getStatusCode().is5xxServerError();
+                if (retryable) {
+                    released = true;
+                    limiter.onDropped();
+                    failAll(batch, new AiServiceException("AI service responded " + status, true, e));
+                    return;
+                }
+                // The service is up, but refused the request
+                healthy = true;
+                if (batch.size() > 1) {
+                    if (status == 404 || status == 405) {
+                        log.warn("AI service has no {}/batch endpoint, sending requests one at a time", path);
+                        batching = false;
+                    }
+                    // One bad request should not fail the others in its batch
+                    sendEach(batch);
+                } else {
+                    failAll(batch, new AiServiceException("AI service responded " + status, false, e));
+                }
+            } catch (ResourceAccessException e) {
+                // Timeouts and connection failures
+                released = true;
+                limiter.onDropped();
+                failAll(batch, new AiServiceException("AI service unreachable: " + e.getMessage(), true, e));
+            } catch (RestClientException | IllegalStateException e) {
+                healthy = true;
+                failAll(batch, new AiServiceException("Invalid AI service response: " + e.getMessage(), false, e));
+            } catch (RuntimeException e) {
+                log.error("AI service call to {} failed", path, e);
+                failAll(batch, new AiServiceException("AI service call failed: " + e.getMessage(), true, e));
+            } finally {
+                if (!released) {
+                    limiter.onIgnored();
+                }
+                // Also ends a half-open trial, which would otherwise keep the circuit open for good
+                if (healthy) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+                // No-op for calls already settled
+                failAll(batch, new AiServiceException("AI service call failed", true, null));
+            }
+        }
+
+        private void sendEach(List<Call<T>> batch) {
+            for (Call<T> call : batch) {
+                try {
+                    complete(List.of(call), execute(List.of(call)));
+                } catch (RestClientResponseException e) {
+                    int status = e.getStatusCode().value();
+                    boolean retryable = status == 408 || status == 429 || e.getStatusCode().is5xxServerError();
+                    call.result().completeExceptionally(new AiServiceException("AI service responded " + status, retryable, e));
+                } catch (RuntimeException e) {
+                    call.result().completeExceptionally(new AiServiceException(String.valueOf(e.getMessage()), true, e));
+                }
+            }
+        }
+
+        private List<T> execute(List<Call<T>> batch) {
+            if (batch.size() == 1) {
+                T result = restClient.post().uri(path).contentType(MediaType.APPLICATION_JSON)
+                        .body(batch.get(0).request()).retrieve().body(type);
+                return Collections.singletonList(result);
+            }
+            List<T> results = restClient.post().uri(path + "/batch").contentType(MediaType.APPLICATION_JSON)
+                    .body(batch.stream().map(Call::request).toList()).retrieve().body(listType);
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Batch of " + batch.size() + " answered with "
+                        + (results == null ? 0 : results.size()) + " results");
+            }
+            return results;
+        }
+
+        private void complete(List<Call<T>> batch, List<T> results) {
+            for (int i = 0; i < batch.size(); i++) {
+                T result = results.get(i);
+                if (result == null) {
+                    batch.get(i).result().completeExceptionally(
+                            new AiServiceException("Empty AI service response", false, null));
+                } else {
+                    batch.get(i).result().complete(result);
+                }
+            }
+        }
+
+        private void failAll(List<Call<T>> batch, AiServiceException failure) {
+            batch.forEach(call -> call.result().completeExceptionally(failure));
+        }
+    }
+}
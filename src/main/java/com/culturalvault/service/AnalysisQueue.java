@@ -0,0 +1,271 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.culturalvault.model.AnalysisTask;
+import com.culturalvault.model.AnalysisTask.Status;
+import com.culturalvault.model.Artifact;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable work queue of AI analyses, kept in the {@code analysis_tasks}
+ * collection so that workers on any number of nodes share it.
+ *
+ * Artifacts without an analysis are enqueued by a sweep (in full at
+ * startup, then every {@code app.analysis.enqueue-interval} for artifacts
+ * created since the previous sweep). Workers lease tasks through a
+ * {@link LeasedQueue}: a claim leases a task for {@code app.analysis.lease},
+ * and only the lease owner can complete or fail it. Failures are retried
+ * with exponential backoff from {@code app.analysis.backoff} up to
+ * {@code app.analysis.max-backoff}, and after {@code app.analysis.max-attempts}
+ * claims the task is dead-lettered (status DEAD) until an admin requeues it.
+ *
+ * @author parth
+ */
+@Component
+@Slf4j
+public class AnalysisQueue {
+
+    private static final int BATCH_SIZE = 1000;
+    // Artifacts saved just before a sweep started may not have been visible to it
+    private static final Duration SWEEP_OVERLAP = Duration.ofMinutes(1);
+
+    public record Progress(long pending, long retrying, long leased, long done, long dead,
+                           Map<String, Long> leasesByWorker) { }
+
+    private final MongoTemplate mongoTemplate;
+    private final LeasedQueue<AnalysisTask> queue;
+    private final boolean enqueueOnStartup;
+
+    private volatile LocalDateTime lastSweep;
+
+    public AnalysisQueue(MongoTemplate mongoTemplate,
+                         @Value("${app.analysis.lease:PT5M}") Duration lease,
+                         @Value("${app.analysis.max-attempts:5}") int maxAttempts,
+                         @Value("${app.analysis.backoff:PT30S}") Duration backoff,
+                         @Value("${app.analysis.max-backoff:PT1H}") Duration maxBackoff,
+                         @Value("${app.analysis.enqueue-on-startup:true}") boolean enqueueOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.queue = new LeasedQueue<>(mongoTemplate, AnalysisTask.class, Status.PENDING, Status.LEASED, "lastError",
+                lease, maxAttempts, backoff, maxBackoff);
+        this.enqueueOnStartup = enqueueOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enqueueOnStartup) {
+            lastSweep = LocalDateTime.now();
+            return;
+        }
+        try {
+            enqueueUnanalyzed();
+        } catch (Exception e) {
+            log.error("Failed to enqueue unanalyzed artifacts: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analysis.enqueue-interval:PT1M}",
+               initialDelayString = "${app.analysis.enqueue-interval:PT1M}")
+    public void scheduledSweep() {
+        try {
+            enqueueUnanalyzed();
+            expireDeadLeases();
+        } catch (Exception e) {
+            log.error("Analysis queue sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Results saved by any means (including external workers through
+     * {@code PUT /api/artifacts/{id}/analysis}) complete the task, and
+     * deleted artifacts drop theirs.
+     */
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        Query byId = Query.query(Criteria.where("_id").is(event.artifactId()));
+        if (event.isDeletion()) {
+            mongoTemplate.remove(byId, AnalysisTask.class);
+        } else if (event.current().getAnalysis() != null
+                && (event.previous() == null || event.previous().getAnalysis() == null)) {
+            mongoTemplate.updateFirst(byId.addCriteria(Criteria.where("status").ne(Status.DONE)),
+                    new Update().set("status", Status.DONE).unset("leaseOwner").unset("leaseExpiresAt")
+                            .set("updatedAt", LocalDateTime.now()),
+                    AnalysisTask.class);
+        }
+    }
+
+    /**
+     * Adds a task for every artifact without an analysis that has none yet;
+     * after the first sweep only artifacts created since the last one are
+     * looked at.
+     *
+     * @return the number of tasks added
+     */
+    public synchronized long enqueueUnanalyzed() {
+        LocalDateTime start = LocalDateTime.now();
+        Criteria criteria = Criteria.where("analysis").is(null);
+        if (lastSweep != null) {
+            criteria.and("createdAt").gte(lastSweep.minus(SWEEP_OVERLAP));
+        }
+        Query query = new Query(criteria);
+        query.fields().include("_id");
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long added = 0;
+        List<String> ids = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Document> artifacts = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(Artifact.class))) {
+            for (Document artifact : (Iterable<Document>) artifacts::iterator) {
+                ids.add(artifact.get("_id").toString());
+                if (ids.size() == BATCH_SIZE) {
+                    added += enqueue(ids);
+                    ids.clear();
+                }
+            }
+        }
+        added += enqueue(ids);
+        lastSweep = start;
+        if (added > 0) {
+            log.info("Enqueued {} artifacts for analysis", added);
+        }
+        return added;
+    }
+
+    /** Inserts PENDING tasks for the ids that have none. */
+    private long enqueue(Collection<String> artifactIds) {
+        if (artifactIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalysisTask.class);
+        for (String id : artifactIds) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(id)), new Update()
+                    .setOnInsert("status", Status.PENDING)
+                    .setOnInsert("attempts", 0)
+                    .setOnInsert("availableAt", now)
+                    .setOnInsert("createdAt", now)
+                    .setOnInsert("updatedAt", now));
+        }
+        return bulk.execute().getUpserts().size();
+    }
+
+    /**
+     * Leases up to {@code max} tasks to {@code owner}: first those whose
+     * lease ran out, then the available PENDING ones, longest waiting first.
+     * Each claim is a single atomic {@code findAndModify}, so a task is
+     * never held by two workers at once.
+     */
+    public List<AnalysisTask> claim(String owner, int max) {
+        List<AnalysisTask> claimed = new ArrayList<>(max);
+        AnalysisTask task;
+        while (claimed.size() < max && (task = queue.claim(owner, Update::new)) != null) {
+            claimed.add(task);
+        }
+        return claimed;
+    }
+
+    /** Marks a task done; false if {@code owner} no longer holds its lease. */
+    public boolean complete(String owner, String taskId) {
+        return queue.finish(owner, taskId, new Update().set("status", Status.DONE).unset("lastError"));
+    }
+
+    /**
+     * Records a failed attempt: the task is retried after a backoff, or
+     * dead-lettered if it is not retryable or out of attempts.
+     */
+    public void fail(String owner, AnalysisTask task, String error, boolean retryable) {
+        if (retryable && queue.retry(owner, task.getId(), task.getAttempts(), error)) {
+            return;
+        }
+        log.warn("Analysis of artifact {} dead-lettered after {} attempts: {}", task.getId(), task.getAttempts(), error);
+        queue.finish(owner, task.getId(), new Update().set("status", Status.DEAD).set("lastError", error));
+    }
+
+    /**
+     * Hands unprocessed tasks back without counting the attempt, e.g. on
+     * shutdown.
+     */
+    public void release(String owner, Collection<String> taskIds) {
+        queue.release(owner, taskIds);
+    }
+
+    /** Dead-letters tasks whose last allowed lease ran out. */
+    public long expireDeadLeases() {
+        long expired = queue.expireDeadLeases(new Update().set("status", Status.DEAD).set("lastError", "Lease expired"));
+        if (expired > 0) {
+            log.warn("Dead-lettered {} analysis tasks whose lease expired", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Puts every dead-lettered task back in the queue with fresh attempts.
+     *
+     * @return the number of tasks requeued
+     */
+    public long requeueDead() {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("status").is(Status.DEAD)),
+                new Update().set("status", Status.PENDING).set("attempts", 0)
+                        .set("availableAt", now).set("updatedAt", now),
+                AnalysisTask.class).getModifiedCount();
+    }
+
+    public List<AnalysisTask> getDeadTasks(int limit) {
+        Query query = Query.query(Criteria.where("status").is(Status.DEAD))
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt"))
+                .limit(limit);
+        return mongoTemplate.find(query, AnalysisTask.class);
+    }
+
+    public Progress getProgress() {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(Aggregation.group("status").count().as("count")),
+                        AnalysisTask.class, Document.class)
+                .forEach(group -> byStatus.put(group.getString("_id"), ((Number) group.get("count")).longValue()));
+
+        Map<String, Long> leasesByWorker = new LinkedHashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                                Aggregation.match(Criteria.where("status").is(Status.LEASED)),
+                                Aggregation.group("leaseOwner").count().as("count")),
+                        AnalysisTask.class, Document.class)
+                .forEach(group -> leasesByWorker.put(group.getString("_id"), ((Number) group.get("count")).longValue()));
+
+        long retrying = mongoTemplate.count(Query.query(Criteria.where("status").is(Status.PENDING)
+                .and("attempts").gt(0)), AnalysisTask.class);
+        return new Progress(
+                byStatus.getOrDefault(Status.PENDING.name(), 0L),
+                retrying,
+                byStatus.getOrDefault(Status.LEASED.name(), 0L),
+                byStatus.getOrDefault(Status.DONE.name(), 0L),
+                byStatus.getOrDefault(Status.DEAD.name(), 0L),
+                leasesByWorker);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.AnalysisTask;
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The analysis workers of this node. Each of {@code app.analysis.workers}
+ * threads claims a batch of {@code app.analysis.batch-size} tasks from the
+ * {@link AnalysisQueue}, sends the artifacts to the {@link AiServiceClient}
+ * together (so they go out as one batch request) and saves the results.
+ * An artifact whose image is the same picture as that of an analysed one
+ * ({@link ImageHashIndex#findAnalyzedTwin}) has only its text analysed and
+ * takes the image results of its twin.
+ * A call is bounded by the client's timeouts, well within
+ * {@code app.analysis.lease}, so no other node picks a task up meanwhile.
+ * With an empty queue, or while the AI service client refuses calls, a
+ * worker waits {@code app.analysis.poll-interval}.
+ *
+ * Off unless {@code app.analysis.enabled}; tasks interrupted by shutdown
+ * are handed back to the queue.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class AnalysisWorkers {
+
+    public record Stats(String workerId, boolean running, long analyzed, long failed, long skipped) { }
+
+    private final AnalysisQueue queue;
+    private final ArtifactService artifactService;
+    private final AiServiceClient aiServiceClient;
+    private final ImageHashIndex imageHashIndex;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final String workerId;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong analyzed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private volatile boolean running;
+
+    public AnalysisWorkers(AnalysisQueue queue,
+                           ArtifactService artifactService,
+                           AiServiceClient aiServiceClient,
+                           ImageHashIndex imageHashIndex,
+                           @Value("${app.analysis.enabled:false}") boolean enabled,
+                           @Value("${app.analysis.workers:2}") int workers,
+                           @Value("${app.analysis.batch-size:10}") int batchSize,
+                           @Value("${app.analysis.poll-interval:PT5S}") Duration pollInterval,
+                           NodeIdentity nodeIdentity) {
+        this.queue = queue;
+        this.artifactService = artifactService;
+        this.aiServiceClient = aiServiceClient;
+        this.imageHashIndex = imageHashIndex;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.workerId = nodeIdentity.getId();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        if (!enabled) {
+            log.info("Analysis workers disabled");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            // Blocked on the AI service most of the time, so virtual threads
+            String owner = workerId + "/" + i;
+            threads.add(Thread.ofVirtual().name("analysis-" + i).start(() -> work(owner)));
+        }
+        log.info("Started {} analysis workers as {}", workers, workerId);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void onShutdown() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(workerId, running, analyzed.get(), failed.get(), skipped.get());
+    }
+
+    private void work(String owner) {
+        while (running) {
+            List<AnalysisTask> batch;
+            try {
+                batch = queue.claim(owner, batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Cannot claim analysis tasks: {}", e.getMessage());
+                batch = List.of();
+            }
+            if (batch.isEmpty()) {
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            process(owner, batch);
+        }
+    }
+
+    /**
+     * Processes a batch concurrently, so that the {@link AiServiceClient}
+     * can send its analyses to the service as one request.
+     */
+    private void process(String owner, List<AnalysisTask> batch) {
+        List<Thread> tasks = batch.stream()
+                .map(task -> Thread.ofVirtual().start(() -> process(owner, task)))
+                .toList();
+        try {
+            for (Thread task : tasks) {
+                task.join();
+            }
+        } catch (InterruptedException e) {
+            // Shutdown: the interrupted calls hand their tasks back
+            tasks.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(String owner, AnalysisTask task) {
+        try {
+            Optional<Artifact> artifact = artifactService.getArtifactById(task.getId());
+            if (artifact.isEmpty() || artifact.get().getAnalysis() != null) {
+                // Deleted, or analysed through the API meanwhile
+                skipped.incrementAndGet();
+                queue.complete(owner, task.getId());
+                return;
+            }
+            artifactService.saveAnalysis(task.getId(), analyze(artifact.get()));
+            queue.complete(owner, task.getId());
+            analyzed.incrementAndGet();
+        } catch (AiServiceClient.AiServiceException e) {
+            if (e.isRejected()) {
+                // Not sent (service overloaded or failing, or shutdown): no attempt used up.
+                // The interrupt is cleared so that it does not also abort this write
+                boolean interrupted = Thread.interrupted();
+                queue.release(owner, List.of(task.getId()));
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                } else {
+                    pause();
+                }
+                return;
+            }
+            failed.incrementAndGet();
+            log.debug("Analysis of artifact {} failed (attempt {}): {}", task.getId(), task.getAttempts(), e.getMessage());
+            queue.fail(owner, task, e.getMessage(), e.isRetryable());
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Analysis of artifact {} failed (attempt {}): {}", task.getId(), task.getAttempts(), e.getMessage());
+            queue.fail(owner, task, String.valueOf(e.getMessage()), true);
+        }
+    }
+
+    private ArtifactAnalysis analyze(Artifact artifact) {
+        Optional<Artifact> twin = imageHashIndex.findAnalyzedTwin(artifact.getId());
+        if (twin.isEmpty()) {
+            return aiServiceClient.analyze(artifact);
+        }
+        log.debug("Reusing image analysis of artifact {} for {}", twin.get().getId(), artifact.getId());
+        ArtifactAnalysis analysis = aiServiceClient.analyzeText(artifact);
+        analysis.setImageEmbedding(twin.get().getAnalysis().getImageEmbedding());
+        analysis.setDetections(twin.get().getAnalysis().getDetections());
+        return analysis;
+    }
+
+    /** Backs off while the AI service is refusing calls. */
+    private void pause() {
+        try {
+            Thread.sleep(pollInterval);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
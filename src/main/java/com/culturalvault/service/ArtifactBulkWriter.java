@@ -0,0 +1,340 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.culturalvault.model.Artifact;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes batches of imported artifacts with unordered bulk writes.
+ *
+ * Artifacts with a {@code sourceId} are upserted on
+ * {@code (source, sourceId)}, which has a unique index. Only the imported
+ * fields are set, so AI analysis and other data added later survive a
+ * re-import. The stored documents that are about to change are read first
+ * (one query) so that an {@link ArtifactChangedEvent} with the correct
+ * previous state can be published for every written artifact. Artifacts
+ * without a {@code sourceId} are always inserted as new documents.
+ *
+ * Every write stores a hash of the imported fields ({@code contentHash}).
+ * A keyed artifact whose hash matches the stored one is counted as
+ * unchanged and not written at all, so re-syncing an unchanged upstream
+ * record neither touches the document nor publishes an event (which would
+ * re-index it and invalidate caches).
+ *
+ * @author parth
+ */
+@Component
+@Slf4j
+public class ArtifactBulkWriter {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    /** An artifact that could not be written, with the database's reason. */
+    public record Failure(Artifact artifact, String message) { }
+
+    public record Result(int inserted, int updated, int unchanged, List<Failure> failures) {
+
+        static final Result EMPTY = new Result(0, 0, 0, List.of());
+
+        public int failed() {
+            return failures.size();
+        }
+
+        Result plus(Result other) {
+            List<Failure> allFailures = new ArrayList<>(failures);
+            allFailures.addAll(other.failures);
+            return new Result(inserted + other.inserted, updated + other.updated,
+                    unchanged + other.unchanged, allFailures);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper canonicalMapper;
+
+    public ArtifactBulkWriter(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.canonicalMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * Upserts the given artifacts that have a {@code sourceId} (which also
+     * requires a {@code source}) and inserts the others. Within the batch the
+     * last record for a key wins. Written artifacts get their id set.
+     */
+    public Result write(List<Artifact> artifacts) {
+        Map<String, Map<String, Artifact>> bySource = new LinkedHashMap<>();
+        List<Artifact> unkeyed = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getSourceId() == null) {
+                unkeyed.add(artifact);
+            } else {
+                bySource.computeIfAbsent(artifact.getSource(), source -> new LinkedHashMap<>())
+                        .put(artifact.getSourceId(), artifact);
+            }
+        }
+        Result result = unkeyed.isEmpty() ? Result.EMPTY : insert(unkeyed);
+        for (Map.Entry<String, Map<String, Artifact>> entry : bySource.entrySet()) {
+            result = result.plus(write(entry.getKey(), new ArrayList<>(entry.getValue().values()), true));
+        }
+        return result;
+    }
+
+    private Result write(String source, List<Artifact> artifacts, boolean retryDuplicates) {
+        Map<String, Artifact> stored = findStoredHashes(source, artifacts);
+        List<Artifact> batch = new ArrayList<>();
+        List<String> changedSourceIds = new ArrayList<>();
+        int unchanged = 0;
+        for (Artifact artifact : artifacts) {
+            artifact.setContentHash(contentHash(artifact));
+            Artifact current = stored.get(artifact.getSourceId());
+            if (current == null) {
+                batch.add(artifact);
+            } else if (artifact.getContentHash().equals(current.getContentHash())) {
+                artifact.setId(current.getId());
+                unchanged++;
+            } else {
+                batch.add(artifact);
+                changedSourceIds.add(artifact.getSourceId());
+            }
+        }
+        if (batch.isEmpty()) {
+            return new Result(0, 0, unchanged, List.of());
+        }
+
+        Map<String, Artifact> existing = findExisting(source, changedSourceIds);
+        LocalDateTime now = LocalDateTime.now();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class);
+        for (Artifact artifact : batch) {
+            artifact.updateFacetKeys();
+            bulk.upsert(Query.query(Criteria.where("source").is(source).and("sourceId").is(artifact.getSourceId())),
+                    toUpdate(artifact, now));
+        }
+
+        BulkWriteResult bulkResult;
+        Set<Integer> failedIndexes = new HashSet<>();
+        List<Failure> failures = new ArrayList<>();
+        List<Artifact> duplicates = new ArrayList<>();
+        try {
+            bulkResult = bulk.execute();
+        } catch (BulkOperationException e) {
+            bulkResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                Artifact artifact = batch.get(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY && retryDuplicates) {
+                    // Inserted concurrently by another worker; retrying turns it into an update
+                    duplicates.add(artifact);
+                } else {
+                    log.warn("Failed to import {} {}: {}", source, artifact.getSourceId(), error.getMessage());
+                    failures.add(new Failure(artifact, error.getMessage()));
+                }
+            }
+        }
+
+        Map<Integer, String> upsertedIds = new HashMap<>();
+        for (BulkWriteUpsert upsert : bulkResult.getUpserts()) {
+            upsertedIds.put(upsert.getIndex(), upsert.getId().asObjectId().getValue().toHexString());
+        }
+
+        int inserted = 0;
+        int updated = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (failedIndexes.contains(i)) {
+                continue;
+            }
+            Artifact artifact = batch.get(i);
+            Artifact previous = existing.get(artifact.getSourceId());
+            if (upsertedIds.containsKey(i)) {
+                artifact.setId(upsertedIds.get(i));
+                artifact.setCreatedAt(now);
+                artifact.setUpdatedAt(now);
+                eventPublisher.publishEvent(ArtifactChangedEvent.created(artifact));
+                inserted++;
+            } else if (previous != null) {
+                eventPublisher.publishEvent(ArtifactChangedEvent.updated(previous, merge(previous, artifact, now)));
+                updated++;
+            } else {
+                // Inserted by another worker after findExisting; it published the creation
+                Artifact current = mongoTemplate.findOne(Query.query(Criteria.where("source").is(source)
+                        .and("sourceId").is(artifact.getSourceId())), Artifact.class);
+                if (current != null) {
+                    artifact.setId(current.getId());
+                    eventPublisher.publishEvent(ArtifactChangedEvent.updated(current, current));
+                }
+                updated++;
+            }
+        }
+
+        Result result = new Result(inserted, updated, unchanged, failures);
+        if (!duplicates.isEmpty()) {
+            result = result.plus(write(source, duplicates, false));
+        }
+        return result;
+    }
+
+    private Result insert(List<Artifact> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class);
+        for (Artifact artifact : batch) {
+            artifact.setId(new ObjectId().toHexString());
+            artifact.setCreatedAt(now);
+            artifact.setUpdatedAt(now);
+            artifact.updateFacetKeys();
+            artifact.setContentHash(contentHash(artifact));
+        }
+        bulk.insert(batch);
+
+        Set<Integer> failedIndexes = new HashSet<>();
+        List<Failure> failures = new ArrayList<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                Artifact artifact = batch.get(error.getIndex());
+                log.warn("Failed to insert artifact {}: {}", artifact.getTitle(), error.getMessage());
+                failedIndexes.add(error.getIndex());
+                failures.add(new Failure(artifact, error.getMessage()));
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                eventPublisher.publishEvent(ArtifactChangedEvent.created(batch.get(i)));
+            }
+        }
+        return new Result(batch.size() - failures.size(), 0, 0, failures);
+    }
+
+    /**
+     * Id and content hash of the stored artifacts of a batch, keyed by
+     * sourceId. Cheap enough to run for every batch, unlike loading the full
+     * documents (with their embeddings).
+     */
+    private Map<String, Artifact> findStoredHashes(String source, List<Artifact> batch) {
+        List<String> sourceIds = batch.stream().map(Artifact::getSourceId).toList();
+        Query query = Query.query(Criteria.where("source").is(source).and("sourceId").in(sourceIds));
+        query.fields().include("sourceId", "contentHash");
+        Map<String, Artifact> stored = new HashMap<>();
+        for (Artifact artifact : mongoTemplate.find(query, Artifact.class)) {
+            stored.put(artifact.getSourceId(), artifact);
+        }
+        return stored;
+    }
+
+    private Map<String, Artifact> findExisting(String source, List<String> sourceIds) {
+        if (sourceIds.isEmpty()) {
+            return Map.of();
+        }
+        Query query = Query.query(Criteria.where("source").is(source).and("sourceId").in(sourceIds));
+        Map<String, Artifact> existing = new HashMap<>();
+        for (Artifact artifact : mongoTemplate.find(query, Artifact.class)) {
+            existing.put(artifact.getSourceId(), artifact);
+        }
+        return existing;
+    }
+
+    private static Update toUpdate(Artifact artifact, LocalDateTime now) {
+        return new Update()
+                .set("title", artifact.getTitle())
+                .set("description", artifact.getDescription())
+                .set("category", artifact.getCategory())
+                .set("culture", artifact.getCulture())
+                .set("period", artifact.getPeriod())
+                .set("material", artifact.getMaterial())
+                .set("imageUrl", artifact.getImageUrl())
+                .set("thumbnailUrl", artifact.getThumbnailUrl())
+                .set("metadata", artifact.getMetadata())
+                .set("sourceUrl", artifact.getSourceUrl())
+                .set("categoryKey", artifact.getCategoryKey())
+                .set("cultureKey", artifact.getCultureKey())
+                .set("periodKey", artifact.getPeriodKey())
+                .set("contentHash", artifact.getContentHash())
+                .set("updatedAt", now)
+                .setOnInsert("createdAt", now);
+    }
+
+    /**
+     * The stored document after the update: the previous one with the
+     * imported fields replaced.
+     */
+    private static Artifact merge(Artifact previous, Artifact imported, LocalDateTime now) {
+        Artifact merged = new Artifact(previous);
+        merged.setTitle(imported.getTitle());
+        merged.setDescription(imported.getDescription());
+        merged.setCategory(imported.getCategory());
+        merged.setCulture(imported.getCulture());
+        merged.setPeriod(imported.getPeriod());
+        merged.setMaterial(imported.getMaterial());
+        merged.setImageUrl(imported.getImageUrl());
+        merged.setThumbnailUrl(imported.getThumbnailUrl());
+        merged.setMetadata(imported.getMetadata());
+        merged.setSourceUrl(imported.getSourceUrl());
+        merged.setContentHash(imported.getContentHash());
+        merged.setUpdatedAt(now);
+        merged.updateFacetKeys();
+        imported.setId(previous.getId());
+        return merged;
+    }
+
+    /**
+     * SHA-256 of the imported fields, serialized as JSON with sorted map keys
+     * so the hash does not depend on metadata ordering.
+     */
+    private String contentHash(Artifact artifact) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", artifact.getTitle());
+        fields.put("description", artifact.getDescription());
+        fields.put("category", artifact.getCategory());
+        fields.put("culture", artifact.getCulture());
+        fields.put("period", artifact.getPeriod());
+        fields.put("material", artifact.getMaterial());
+        fields.put("imageUrl", artifact.getImageUrl());
+        fields.put("thumbnailUrl", artifact.getThumbnailUrl());
+        fields.put("metadata", artifact.getMetadata());
+        fields.put("sourceUrl", artifact.getSourceUrl());
+        try {
+            byte[] json = canonicalMapper.writeValueAsString(fields).getBytes(StandardCharsets.UTF_8);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash artifact " + artifact.getSourceId(), e);
+        }
+    }
+}
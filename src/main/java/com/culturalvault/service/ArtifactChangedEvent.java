@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import com.culturalvault.model.Artifact;
+
+/**
+ * Published by {@link ArtifactService} (and {@link ArtifactBulkWriter} for
+ * imports) after an artifact has been written or removed, so in-memory views
+ * of the catalog can update themselves.
+ *
+ * @param previous the artifact before the change, or null when it was created
+ * @param current  the artifact after the change, or null when it was deleted
+ *
+ * @author parth
+ */
+public record ArtifactChangedEvent(Artifact previous, Artifact current) {
+
+    public static ArtifactChangedEvent created(Artifact current) {
+        return new ArtifactChangedEvent(null, current);
+    }
+
+    public static ArtifactChangedEvent updated(Artifact previous, Artifact current) {
+        return new ArtifactChangedEvent(previous, current);
+    }
+
+    public static ArtifactChangedEvent deleted(Artifact previous) {
+        return new ArtifactChangedEvent(previous, null);
+    }
+
+    public boolean isDeletion() {
+        return current == null;
+    }
+
+    public String artifactId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+}
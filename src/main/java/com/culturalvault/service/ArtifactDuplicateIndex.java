@@ -0,0 +1,342 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Near-duplicate detection over artifact titles and descriptions, served
+ * from an in-process {@link MinHashLsh} index.
+ *
+ * The index is built once the application is ready and kept current from
+ * {@link ArtifactChangedEvent}s. When an artifact is written, it is flagged
+ * with {@code duplicateOf} pointing at the oldest artifact (lowest id) whose
+ * text is at least {@code app.duplicates.threshold} similar, or unflagged
+ * when there is none; when an artifact is deleted or its text changes,
+ * those flagged as its duplicates, and the newer artifacts now similar to
+ * it, are re-evaluated. Flag changes are collected and written in
+ * bulk every {@code app.duplicates.flush-interval}, so the writer (often a
+ * bulk import) does not pay a round trip per artifact. Flags are only set,
+ * never acted on: nothing is merged or deleted. {@link #scan()} recomputes
+ * every flag, e.g. after changing the threshold.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ArtifactDuplicateIndex {
+
+    private static final int BATCH_SIZE = 1000;
+    // Pending value that clears the flag (the map cannot hold nulls)
+    private static final String CLEARED = "";
+
+    public record Result(long scanned, long flagged, long cleared, long durationMs) { }
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final double threshold;
+    private final int minShingles;
+    private final MinHashLsh index;
+    // Flag changes not written yet, by artifact id
+    private final Map<String, String> pendingFlags = new ConcurrentHashMap<>();
+    // Deleted artifacts and artifacts whose text changed, whose duplicates
+    // may have to point elsewhere
+    private final Set<String> changedIds = ConcurrentHashMap.newKeySet();
+    // Artifacts newer than one whose text changed that may now duplicate it
+    private final Set<String> recheckIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready = false;
+
+    public ArtifactDuplicateIndex(MongoTemplate mongoTemplate,
+                                  @Value("${app.duplicates.enabled:true}") boolean enabled,
+                                  @Value("${app.duplicates.threshold:0.7}") double threshold,
+                                  @Value("${app.duplicates.bands:16}") int bands,
+                                  @Value("${app.duplicates.rows:4}") int rows,
+                                  @Value("${app.duplicates.shingle-size:5}") int shingleSize,
+                                  @Value("${app.duplicates.min-shingles:20}") int minShingles) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.minShingles = minShingles;
+        this.index = new MinHashLsh(bands, rows, shingleSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Artifact duplicate index disabled");
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build artifact duplicate index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the title and description of every artifact into a fresh index.
+     */
+    public synchronized void rebuild() {
+        log.info("Building artifact duplicate index...");
+        long start = System.currentTimeMillis();
+        ready = false;
+        index.clear();
+
+        Query query = new Query();
+        query.fields().include("title", "description");
+        query.cursorBatchSize(BATCH_SIZE);
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            artifacts.forEach(this::put);
+        }
+
+        ready = true;
+        log.info("Artifact duplicate index built: {} artifacts in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isDeletion()) {
+            index.remove(event.artifactId());
+            pendingFlags.remove(event.artifactId());
+            if (ready) {
+                changedIds.add(event.artifactId());
+            }
+            return;
+        }
+        Artifact current = event.current();
+        Artifact previous = event.previous();
+        boolean textChanged = previous == null
+                || !Objects.equals(previous.getTitle(), current.getTitle())
+                || !Objects.equals(previous.getDescription(), current.getDescription());
+        if (textChanged || !index.contains(current.getId())) {
+            put(current);
+        }
+        if (!ready) {
+            return;
+        }
+        if (textChanged && previous != null) {
+            changedIds.add(current.getId());
+            for (MinHashLsh.Match match : findDuplicates(current.getId(), Integer.MAX_VALUE)) {
+                if (match.id().compareTo(current.getId()) > 0) {
+                    recheckIds.add(match.id());
+                }
+            }
+        }
+        String duplicateOf = canonicalOf(current.getId());
+        if (!Objects.equals(duplicateOf, current.getDuplicateOf())) {
+            pendingFlags.put(current.getId(), duplicateOf == null ? CLEARED : duplicateOf);
+            current.setDuplicateOf(duplicateOf);
+            if (duplicateOf != null) {
+                log.info("Artifact {} ({}) looks like a duplicate of {}", current.getId(), current.getTitle(), duplicateOf);
+            }
+        } else {
+            // A change queued by an earlier write is no longer wanted
+            pendingFlags.remove(current.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.duplicates.flush-interval:PT1S}",
+               initialDelayString = "${app.duplicates.flush-interval:PT1S}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to write duplicate flags: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Re-evaluates the duplicates of deleted and changed artifacts, then
+     * writes the pending flag changes in bulk.
+     */
+    public synchronized void flush() {
+        if (!changedIds.isEmpty() || !recheckIds.isEmpty()) {
+            List<String> changed = new ArrayList<>(changedIds);
+            List<String> recheck = new ArrayList<>(recheckIds);
+            Query query = Query.query(new Criteria().orOperator(
+                    Criteria.where("duplicateOf").in(changed),
+                    Criteria.where("_id").in(recheck)));
+            query.fields().include("duplicateOf");
+            for (Artifact dependent : mongoTemplate.find(query, Artifact.class)) {
+                String duplicateOf = canonicalOf(dependent.getId());
+                if (Objects.equals(duplicateOf, dependent.getDuplicateOf())) {
+                    pendingFlags.remove(dependent.getId());
+                } else {
+                    pendingFlags.put(dependent.getId(), duplicateOf == null ? CLEARED : duplicateOf);
+                }
+            }
+            changed.forEach(changedIds::remove);
+            recheck.forEach(recheckIds::remove);
+        }
+        if (pendingFlags.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = null;
+        int pending = 0;
+        for (String id : new ArrayList<>(pendingFlags.keySet())) {
+            String duplicateOf = pendingFlags.remove(id);
+            if (duplicateOf == null) {
+                continue;
+            }
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class);
+            }
+            Query byId = Query.query(Criteria.where("_id").is(id));
+            bulk.updateOne(byId, CLEARED.equals(duplicateOf)
+                    ? new Update().unset("duplicateOf").set("updatedAt", now)
+                    : new Update().set("duplicateOf", duplicateOf).set("updatedAt", now));
+            if (++pending == BATCH_SIZE) {
+                bulk.execute();
+                bulk = null;
+                pending = 0;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    /**
+     * Artifacts whose text is at least {@code app.duplicates.threshold}
+     * similar to that of {@code artifactId}, most similar first; empty if it
+     * is not indexed (unknown, or too little text).
+     */
+    public List<MinHashLsh.Match> findDuplicates(String artifactId, int limit) {
+        int[] signature = index.get(artifactId);
+        if (signature == null) {
+            return List.of();
+        }
+        return index.query(signature, threshold, limit, artifactId);
+    }
+
+    /**
+     * Recomputes {@code duplicateOf} for every artifact and writes the flags
+     * that changed.
+     */
+    public synchronized Result scan() {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Duplicate index is not available");
+        }
+        log.info("Scanning artifacts for duplicates (threshold {})", threshold);
+        long start = System.currentTimeMillis();
+        // Superseded by the scan
+        pendingFlags.clear();
+        changedIds.clear();
+        recheckIds.clear();
+
+        Map<String, String> canonical = new HashMap<>();
+        for (String id : index.ids()) {
+            String duplicateOf = canonicalOf(id);
+            if (duplicateOf != null) {
+                canonical.put(id, duplicateOf);
+            }
+        }
+
+        long scanned = 0;
+        long flagged = 0;
+        long cleared = 0;
+        BulkOperations bulk = null;
+        LocalDateTime now = LocalDateTime.now();
+        int pending = 0;
+        Query query = new Query();
+        query.fields().include("duplicateOf");
+        query.cursorBatchSize(BATCH_SIZE);
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                scanned++;
+                String duplicateOf = canonical.get(artifact.getId());
+                if (Objects.equals(duplicateOf, artifact.getDuplicateOf())) {
+                    continue;
+                }
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class);
+                }
+                Query byId = Query.query(Criteria.where("_id").is(artifact.getId()));
+                if (duplicateOf == null) {
+                    bulk.updateOne(byId, new Update().unset("duplicateOf").set("updatedAt", now));
+                    cleared++;
+                } else {
+                    bulk.updateOne(byId, new Update().set("duplicateOf", duplicateOf).set("updatedAt", now));
+                    flagged++;
+                }
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+
+        Result result = new Result(scanned, flagged, cleared, System.currentTimeMillis() - start);
+        log.info("Duplicate scan finished: {} ({} artifacts flagged in total)", result, canonical.size());
+        return result;
+    }
+
+    /** The oldest artifact this one duplicates, or null if it has no older duplicate. */
+    private String canonicalOf(String artifactId) {
+        String oldest = null;
+        for (MinHashLsh.Match match : findDuplicates(artifactId, Integer.MAX_VALUE)) {
+            if (match.id().compareTo(artifactId) < 0 && (oldest == null || match.id().compareTo(oldest) < 0)) {
+                oldest = match.id();
+            }
+        }
+        return oldest;
+    }
+
+    private void put(Artifact artifact) {
+        String text = artifact.getDescription() == null
+                ? artifact.getTitle()
+                : artifact.getTitle() + " " + artifact.getDescription();
+        int[] signature = index.signature(text, minShingles);
+        if (signature == null) {
+            index.remove(artifact.getId());
+        } else {
+            index.put(artifact.getId(), signature);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the artifact catalog as NDJSON (one JSON document per line),
+ * reading straight from a MongoDB cursor so memory use does not depend on
+ * the size of the export.
+ *
+ * Asynchronous exports ({@link #newExport}) run on virtual threads of their
+ * own rather than the shared task executor, and at most
+ * {@code app.export.max-concurrent} at once, since each holds a database
+ * cursor and a connection for as long as the client takes to read it.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ArtifactExportService {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Export filter; null fields are not filtered on. The category is
+     * matched on its normalized key, the updatedAt range is inclusive.
+     */
+    public record Filter(String source, String category, LocalDateTime updatedFrom, LocalDateTime updatedTo) {
+
+        public Filter {
+            if (updatedFrom != null && updatedTo != null && updatedFrom.isAfter(updatedTo)) {
+                throw new IllegalArgumentException("updatedFrom must not be after updatedTo");
+            }
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncTaskExecutor executor = new TaskExecutorAdapter(threads);
+
+    public ArtifactExportService(MongoTemplate mongoTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        threads.shutdownNow();
+    }
+
+    /** The executor to run the tasks of {@link #newExport} on. */
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * An export to run on {@link #getExecutor()}, holding one of the
+     * {@code app.export.max-concurrent} slots until it ends.
+     *
+     * @param out opens the stream to write to once the task runs
+     * @throws IllegalStateException if that many exports are already running
+     */
+    public Callable<Void> newExport(Filter filter, boolean gzip, Callable<OutputStream> out) {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("Too many exports in progress");
+        }
+        return () -> {
+            try {
+                export(filter, gzip, out.call());
+                return null;
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Streams the matching artifacts to {@code out}, gzip-compressed if
+     * requested. The stream is flushed but not closed.
+     *
+     * @return the number of artifacts written
+     */
+    public long export(Filter filter, boolean gzip, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+
+        Query query = toQuery(filter);
+        query.cursorBatchSize(BATCH_SIZE);
+
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip ? compressed : out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                objectMapper.writeValue(generator, artifact);
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.flush();
+        }
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+
+        log.info("Exported {} artifacts in {} ms (gzip={})", count, System.currentTimeMillis() - start, gzip);
+        return count;
+    }
+
+    private static Query toQuery(Filter filter) {
+        Criteria criteria = new Criteria();
+        if (filter.source() != null && !filter.source().isBlank()) {
+            criteria.and("source").is(filter.source().trim());
+        }
+        String categoryKey = Artifact.normalizeFacetKey(filter.category());
+        if (categoryKey != null) {
+            criteria.and("categoryKey").is(categoryKey);
+        }
+        if (filter.updatedFrom() != null || filter.updatedTo() != null) {
+            Criteria updatedAt = criteria.and("updatedAt");
+            if (filter.updatedFrom() != null) {
+                updatedAt.gte(filter.updatedFrom());
+            }
+            if (filter.updatedTo() != null) {
+                updatedAt.lte(filter.updatedTo());
+            }
+        }
+        return new Query(criteria);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Artifact images served from the {@link ImageCache}.
+ *
+ * A request for a width is answered with the smallest generated thumbnail
+ * at least that wide (the largest one if none is). The original is read
+ * from the {@link ImageStorage} when the artifact has an {@code r2ImageKey};
+ * without one, its largest thumbnail stands in. Only objects of the
+ * storage are served: the source {@code imageUrl} is set by clients, so it
+ * is never fetched on behalf of a request. Cached files of an artifact are
+ * dropped when its image changes or it is deleted.
+ *
+ * @author parth
+ */
+@Service
+@RequiredArgsConstructor
+public class ArtifactImageService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageStorage storage;
+    private final ImageCache cache;
+
+    /**
+     * The cached image of an artifact, opened for reading: its thumbnail
+     * closest to {@code width}, or the original when {@code width} is null
+     * or there are no thumbnails. Empty if the artifact does not exist or
+     * has no stored image.
+     *
+     * @throws java.nio.file.NoSuchFileException if the stored image is missing
+     * @throws IOException if the image cannot be read
+     */
+    public Optional<ImageCache.OpenFile> getImage(String artifactId, Integer width) throws IOException {
+        Query query = Query.query(Criteria.where("_id").is(artifactId));
+        query.fields().include("r2ImageKey", "thumbnailKeys");
+        Artifact artifact = mongoTemplate.findOne(query, Artifact.class);
+        if (artifact == null) {
+            return Optional.empty();
+        }
+
+        String key = width == null ? null : thumbnailKey(artifact.getThumbnailKeys(), width);
+        if (key == null) {
+            key = hasText(artifact.getR2ImageKey())
+                    ? artifact.getR2ImageKey()
+                    : thumbnailKey(artifact.getThumbnailKeys(), Integer.MAX_VALUE);
+        }
+        if (key == null) {
+            return Optional.empty();
+        }
+        String storedKey = key;
+        return Optional.of(cache.open(storageKey(storedKey), () -> storage.open(storedKey)));
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        Artifact previous = event.previous();
+        if (previous == null) {
+            return;
+        }
+        Artifact current = event.current();
+        if (event.isDeletion() || ThumbnailService.imageChanged(previous, current)) {
+            if (previous.getThumbnailKeys() != null) {
+                previous.getThumbnailKeys().values().forEach(key -> cache.invalidate(storageKey(key)));
+            }
+        }
+        if (hasText(previous.getR2ImageKey())
+                && (event.isDeletion() || !previous.getR2ImageKey().equals(current.getR2ImageKey()))) {
+            cache.invalidate(storageKey(previous.getR2ImageKey()));
+        }
+    }
+
+    /** Smallest thumbnail at least {@code width} wide, else the largest. */
+    private static String thumbnailKey(Map<String, String> thumbnailKeys, int width) {
+        if (thumbnailKeys == null || thumbnailKeys.isEmpty()) {
+            return null;
+        }
+        String best = null;
+        int bestWidth = 0;
+        for (Map.Entry<String, String> entry : thumbnailKeys.entrySet()) {
+            int candidate;
+            try {
+                candidate = Integer.parseInt(entry.getKey());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            boolean better = best == null
+                    || (bestWidth < width ? candidate > bestWidth : candidate >= width && candidate < bestWidth);
+            if (better) {
+                best = entry.getValue();
+                bestWidth = candidate;
+            }
+        }
+        return best;
+    }
+
+    // Cache key of an object in the ImageStorage
+    private static String storageKey(String key) {
+        return "storage/" + key;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
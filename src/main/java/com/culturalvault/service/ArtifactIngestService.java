@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads artifacts from an NDJSON stream (one JSON document per line), as
+ * produced by {@link ArtifactExportService}.
+ *
+ * The body is read one line at a time; valid records are collected into
+ * batches and written with {@link ArtifactBulkWriter}, so only one batch is
+ * held in memory. Records with {@code source} and {@code sourceId} are
+ * upserted on that key, others are inserted; ids in the input are ignored.
+ * Invalid or rejected lines are
+ * reported by line number and do not stop the load.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ArtifactIngestService {
+
+    public record LineError(long line, String message) { }
+
+    /**
+     * Outcome of a load. At most {@code app.ingest.max-errors} line errors are
+     * listed; {@code failed} counts all of them.
+     */
+    public record Result(long lines, long inserted, long updated, long unchanged, long failed,
+                         List<LineError> errors, boolean errorsTruncated, long durationMs) { }
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ArtifactBulkWriter bulkWriter;
+    private final int defaultBatchSize;
+    private final int maxErrors;
+
+    public ArtifactIngestService(ObjectMapper objectMapper,
+                                 Validator validator,
+                                 ArtifactBulkWriter bulkWriter,
+                                 @Value("${app.ingest.batch-size:1000}") int defaultBatchSize,
+                                 @Value("${app.ingest.max-errors:1000}") int maxErrors) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.bulkWriter = bulkWriter;
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Reads and writes the whole stream.
+     *
+     * @param gzip       whether the stream is gzip-compressed
+     * @param batchSize  records per bulk write, or 0 for {@code app.ingest.batch-size}
+     */
+    public Result ingest(InputStream in, boolean gzip, int batchSize) throws IOException {
+        if (batchSize < 0 || batchSize > 10_000) {
+            throw new IllegalArgumentException("batchSize must be between 1 and 10000, or 0 for the default");
+        }
+        Load load = new Load(batchSize == 0 ? defaultBatchSize : batchSize);
+
+        InputStream source = gzip ? new GZIPInputStream(in, 64 * 1024) : in;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8), 64 * 1024);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            load.add(line);
+        }
+        load.flush();
+
+        Result result = load.result();
+        log.info("Ingested {} lines: {} inserted, {} updated, {} unchanged, {} failed in {} ms",
+                result.lines(), result.inserted(), result.updated(), result.unchanged(), result.failed(),
+                result.durationMs());
+        return result;
+    }
+
+    private String validate(Artifact artifact) {
+        if (artifact == null) {
+            return "Not an artifact object";
+        }
+        if (artifact.getTitle() == null || artifact.getTitle().isBlank()) {
+            return "title is required";
+        }
+        if (artifact.getSourceId() != null && (artifact.getSource() == null || artifact.getSource().isBlank())) {
+            return "source is required when sourceId is set";
+        }
+        for (ConstraintViolation<Artifact> violation : validator.validate(artifact)) {
+            return violation.getPropertyPath() + " " + violation.getMessage();
+        }
+        return null;
+    }
+
+    /** State of one {@link #ingest} call. */
+    private class Load {
+
+        private final int batchSize;
+        private final long start = System.currentTimeMillis();
+        private final List<Artifact> batch = new ArrayList<>();
+        private final Map<Artifact, Long> lineNumbers = new IdentityHashMap<>();
+        private final List<LineError> errors = new ArrayList<>();
+        private long lines;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long failed;
+
+        Load(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        void add(String line) {
+            long number = ++lines;
+            if (line.isBlank()) {
+                return;
+            }
+            Artifact artifact;
+            try {
+                artifact = objectMapper.readValue(line, Artifact.class);
+            } catch (JsonProcessingException e) {
+                error(number, "Invalid JSON: " + e.getOriginalMessage());
+                return;
+            }
+            String problem = validate(artifact);
+            if (problem != null) {
+                error(number, problem);
+                return;
+            }
+            // Existing artifacts are matched on (source, sourceId), never on an id from the file
+            artifact.setId(null);
+            batch.add(artifact);
+            lineNumbers.put(artifact, number);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            ArtifactBulkWriter.Result written = bulkWriter.write(batch);
+            inserted += written.inserted();
+            updated += written.updated();
+            unchanged += written.unchanged();
+            for (ArtifactBulkWriter.Failure failure : written.failures()) {
+                error(lineNumbers.get(failure.artifact()), failure.message());
+            }
+            batch.clear();
+            lineNumbers.clear();
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+
+        Result result() {
+            return new Result(lines, inserted, updated, unchanged, failed, errors, failed > errors.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactSummary;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Full-text search over artifact titles, descriptions and metadata values,
+ * served from an in-process {@link Bm25Index}.
+ *
+ * The index is built once the application is ready and kept current from
+ * {@link ArtifactChangedEvent}s. With {@code app.search.mode=mongo}, or while
+ * the index is still loading, {@link ArtifactService} keeps using the MongoDB
+ * {@code $text} query instead.
+ *
+ * The summary fields of each indexed artifact are kept alongside the index so
+ * that a result page is answered without going back to MongoDB.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ArtifactSearchIndex {
+
+    public static final String MODE_INDEX = "index";
+    public static final String MODE_MONGO = "mongo";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Bm25Index index;
+    private final Map<String, ArtifactSummary> summaries = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ArtifactSearchIndex(MongoTemplate mongoTemplate,
+                               @Value("${app.search.mode:index}") String mode,
+                               @Value("${app.search.boost.title:3.0}") double titleBoost,
+                               @Value("${app.search.boost.description:1.0}") double descriptionBoost,
+                               @Value("${app.search.boost.metadata:0.5}") double metadataBoost,
+                               @Value("${app.search.bm25.k1:1.2}") double k1,
+                               @Value("${app.search.bm25.b:0.75}") double b) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = MODE_INDEX.equalsIgnoreCase(mode);
+
+        Map<String, Double> boosts = new LinkedHashMap<>();
+        boosts.put("title", titleBoost);
+        boosts.put("description", descriptionBoost);
+        boosts.put("metadata", metadataBoost);
+        this.index = new Bm25Index(boosts, k1, b);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Artifact search index disabled, using MongoDB text search");
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build artifact search index, using MongoDB text search: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the searchable fields of every artifact into a fresh index.
+     */
+    public synchronized void rebuild() {
+        log.info("Building artifact search index...");
+        long start = System.currentTimeMillis();
+        ready = false;
+        index.clear();
+        summaries.clear();
+
+        Query query = new Query();
+        query.fields().include("description", "metadata").include(ArtifactSummary.FIELDS);
+        query.cursorBatchSize(1000);
+
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            artifacts.forEach(this::put);
+        }
+
+        ready = true;
+        log.info("Artifact search index built: {} documents in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isDeletion()) {
+            index.remove(event.artifactId());
+            summaries.remove(event.artifactId());
+        } else {
+            put(event.current());
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Bm25Index.SearchResult search(String text, long offset, int limit) {
+        return index.search(text, (int) Math.min(offset, Integer.MAX_VALUE - limit), limit);
+    }
+
+    /**
+     * Summary of an indexed artifact, or null if it is not in the index.
+     */
+    public ArtifactSummary getSummary(String id) {
+        return summaries.get(id);
+    }
+
+    private void put(Artifact artifact) {
+        summaries.put(artifact.getId(), ArtifactSummary.from(artifact));
+        index.put(artifact.getId(), artifact.getTitle(), artifact.getDescription(), metadataText(artifact));
+    }
+
+    private static String metadataText(Artifact artifact) {
+        if (artifact.getMetadata() == null || artifact.getMetadata().isEmpty()) {
+            return null;
+        }
+        return artifact.getMetadata().values().stream()
+                .flatMap(value -> value instanceof Collection<?> values ? values.stream() : Stream.of(value))
+                .filter(value -> value instanceof CharSequence)
+                .map(Object::toString)
+                .collect(Collectors.joining(" "));
+    }
+}
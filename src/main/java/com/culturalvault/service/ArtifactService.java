@@ -6,20 +6,32 @@
 package com.culturalvault.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+import com.culturalvault.model.ArtifactDuplicate;
+import com.culturalvault.model.DuplicateKind;
+import com.culturalvault.model.ArtifactSummary;
+import com.culturalvault.model.CursorPage;
+import com.culturalvault.model.SimilarityMode;
 import com.culturalvault.repository.ArtifactRepository;
-import com.culturalvault.repository.CategoryStats;
+import com.culturalvault.service.FacetDictionaryService.Facet;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,10 +48,25 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class ArtifactService {
     private final ArtifactRepository artifactRepository;
+    private final FacetDictionaryService facetDictionary;
+    private final FacetStatisticsService facetStatistics;
+    private final ArtifactSearchIndex searchIndex;
+    private final ArtifactVectorIndex vectorIndex;
+    private final ArtifactDuplicateIndex duplicateIndex;
+    private final ImageHashIndex imageHashIndex;
+    private final RandomSampleService randomSamples;
+    private final KeysetPaginator keysetPaginator;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public Page<Artifact> getAllArtifacts(Pageable pagebale) {
+    public Page<ArtifactSummary> getAllArtifacts(Pageable pagebale) {
         log.debug("Fetching all artifacts with pagination: {}", pagebale);
-        return artifactRepository.findAll(pagebale);
+        return artifactRepository.findAllBy(pagebale);
+    }
+
+    public CursorPage<ArtifactSummary> getArtifactsByCursor(String cursor, int size, String sortBy, Sort.Direction direction) {
+        log.debug("Fetching artifacts after cursor {} sorted by {} {}", cursor, sortBy, direction);
+        return keysetPaginator.page(Artifact.class, null, sortBy, direction, cursor, size,
+                ArtifactSummary.class, ArtifactSummary.FIELDS);
     }
 
     public Optional<Artifact> getArtifactById(String id) {
@@ -47,14 +74,28 @@ public class ArtifactService {
         return artifactRepository.findById(id);
     }
 
+    /**
+     * When the artifact was last modified, read without loading the document.
+     */
+    public Optional<LocalDateTime> getLastModified(String id) {
+        return artifactRepository.findTimestampsById(id)
+                .map(artifact -> artifact.getUpdatedAt() != null ? artifact.getUpdatedAt() : artifact.getCreatedAt());
+    }
+
     public Artifact saveArtifact(Artifact artifact) {
         log.debug("Saving artifact: {}", artifact.getTitle());
+        Artifact previous = null;
         // Set timestamp
         if(artifact.getId() == null) {
             artifact.setCreatedAt(LocalDateTime.now());
+        } else {
+            previous = artifactRepository.findById(artifact.getId()).orElse(null);
         }
         artifact.setUpdatedAt(LocalDateTime.now());
-        return artifactRepository.save(artifact);
+        artifact.updateFacetKeys();
+        Artifact saved = artifactRepository.save(artifact);
+        eventPublisher.publishEvent(new ArtifactChangedEvent(previous, saved));
+        return saved;
     }
 
     public Artifact updateArtifact(String id, Artifact updatedArtifact) {
@@ -62,6 +103,7 @@ public class ArtifactService {
 
         return artifactRepository.findById(id)
                 .map(artifact -> {
+                    Artifact previous = new Artifact(artifact);
                     artifact.setTitle(updatedArtifact.getTitle());
                     artifact.setDescription(updatedArtifact.getDescription());
                     artifact.setCategory(updatedArtifact.getCategory());
@@ -72,63 +114,134 @@ public class ArtifactService {
                     artifact.setThumbnailUrl(updatedArtifact.getThumbnailUrl());
                     artifact.setMetadata(updatedArtifact.getMetadata());
                     artifact.setUpdatedAt(LocalDateTime.now());
+                    artifact.updateFacetKeys();
                     
-                    return artifactRepository.save(artifact);
+                    Artifact saved = artifactRepository.save(artifact);
+                    eventPublisher.publishEvent(ArtifactChangedEvent.updated(previous, saved));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Artifact not found with ID: " + id));
     }
 
     public void deleteArtifact(String id) {
         log.info("Deleting artifact with id: {}", id);
-        artifactRepository.deleteById(id);
+        artifactRepository.findById(id).ifPresent(existing -> {
+            artifactRepository.deleteById(id);
+            eventPublisher.publishEvent(ArtifactChangedEvent.deleted(existing));
+        });
     }
     
     // ===== Search and Filtering =====
     
-    public Page<Artifact> searchArtifacts(String searchText, Pageable pageable) {
+    public Page<ArtifactSummary> searchArtifacts(String searchText, Pageable pageable) {
         log.debug("Searching artifacts with text: {}", searchText);
         
         if (searchText == null || searchText.trim().isEmpty()) {
             return getAllArtifacts(pageable);
         }
         
+        if (searchIndex.isAvailable()) {
+            Bm25Index.SearchResult result = searchIndex.search(searchText.trim(), pageable.getOffset(), pageable.getPageSize());
+            List<ArtifactSummary> summaries = result.ids().stream()
+                    .map(searchIndex::getSummary)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return new PageImpl<>(summaries, pageable, result.totalHits());
+        }
+        
         return artifactRepository.findByTextSearch(searchText.trim(), pageable);
     }
     
-    public Page<Artifact> getArtifactsByCategory(String category, Pageable pageable) {
+    public Page<ArtifactSummary> getArtifactsByCategory(String category, Pageable pageable) {
         log.debug("Fetching artifacts by category: {}", category);
-        return artifactRepository.findByCategoryIgnoreCase(category, pageable);
+        return artifactRepository.findByCategoryKey(Artifact.normalizeFacetKey(category), pageable);
     }
     
-    public Page<Artifact> getArtifactsByCulture(String culture, Pageable pageable) {
+    public Page<ArtifactSummary> getArtifactsByCulture(String culture, Pageable pageable) {
         log.debug("Fetching artifacts by culture: {}", culture);
-        return artifactRepository.findByCultureIgnoreCase(culture, pageable);
+        return artifactRepository.findByCultureKey(Artifact.normalizeFacetKey(culture), pageable);
     }
     
-    public Page<Artifact> getArtifactsByPeriod(String period, Pageable pageable) {
+    public Page<ArtifactSummary> getArtifactsByPeriod(String period, Pageable pageable) {
         log.debug("Fetching artifacts by period: {}", period);
-        return artifactRepository.findByPeriodIgnoreCase(period, pageable);
+        return artifactRepository.findByPeriodKey(Artifact.normalizeFacetKey(period), pageable);
     }
     
-    public Page<Artifact> getArtifactsByCriteria(String category, String culture, String period, Pageable pageable) {
+    public Page<ArtifactSummary> getArtifactsByCriteria(String category, String culture, String period, Pageable pageable) {
         log.debug("Fetching artifacts by criteria - Category: {}, Culture: {}, Period: {}", category, culture, period);
-        return artifactRepository.findByCriteria(category, culture, period, pageable);
+        return artifactRepository.findByFacetKeys(
+                Artifact.normalizeFacetKey(category),
+                Artifact.normalizeFacetKey(culture),
+                Artifact.normalizeFacetKey(period),
+                pageable);
     }
     
     // ===== Recommendations =====
     
-    public List<Artifact> getRandomArtifacts(int count) {
+    public List<ArtifactSummary> getRandomArtifacts(int count) {
+        return getRandomArtifacts(count, null);
+    }
+    
+    /**
+     * Random artifacts from the precomputed sample pools, avoiding those
+     * recently shown to {@code client} (null for no one in particular).
+     */
+    public List<ArtifactSummary> getRandomArtifacts(int count, String client) {
         log.debug("Fetching {} random artifacts", count);
-        return artifactRepository.findRandomArtifacts(Math.min(count, 50)); // Limit to 50
+        int limit = Math.min(count, 50); // Limit to 50
+        return randomSamples.pickArtifactIds(null, limit, client)
+                .map(this::getSampledSummaries)
+                .orElseGet(() -> artifactRepository.findRandomArtifacts(limit));
+    }
+    
+    public List<ArtifactSummary> getRandomArtifactsByCategory(String category, int count) {
+        return getRandomArtifactsByCategory(category, count, null);
     }
     
-    public List<Artifact> getRandomArtifactsByCategory(String category, int count) {
+    public List<ArtifactSummary> getRandomArtifactsByCategory(String category, int count, String client) {
         log.debug("Fetching {} random artifacts from category: {}", count, category);
-        return artifactRepository.findRandomArtifactsByCategory(category, Math.min(count, 20));
+        String categoryKey = Artifact.normalizeFacetKey(category);
+        int limit = Math.min(count, 20);
+        return randomSamples.pickArtifactIds(categoryKey, limit, client)
+                .map(this::getSampledSummaries)
+                .orElseGet(() -> artifactRepository.findRandomArtifactsByCategory(categoryKey, limit));
+    }
+    
+    /** Summaries of sampled ids, from the search index when it is loaded. */
+    private List<ArtifactSummary> getSampledSummaries(List<String> ids) {
+        if (!searchIndex.isAvailable()) {
+            return getArtifactSummaries(ids);
+        }
+        // Ids missing from the index were deleted since the pools were drawn
+        return ids.stream()
+                .map(searchIndex::getSummary)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    public List<ArtifactSummary> getSimilarArtifacts(String artifactId, int count) {
+        return getSimilarArtifacts(artifactId, count, SimilarityMode.METADATA);
     }
     
-    public List<Artifact> getSimilarArtifacts(String artifactId, int count) {
-        log.debug("Fetching similar artifacts for artifact: {}", artifactId);
+    /**
+     * Artifacts similar to the given one. The embedding modes fall back to
+     * {@link SimilarityMode#METADATA} while the vector index is loading or
+     * when the artifact has no embedding of that kind.
+     */
+    public List<ArtifactSummary> getSimilarArtifacts(String artifactId, int count, SimilarityMode mode) {
+        log.debug("Fetching similar artifacts for artifact: {} (mode: {})", artifactId, mode);
+        
+        if (mode != SimilarityMode.METADATA && vectorIndex.isAvailable()) {
+            ArtifactVectorIndex.Kind kind = mode == SimilarityMode.TEXT
+                    ? ArtifactVectorIndex.Kind.TEXT
+                    : ArtifactVectorIndex.Kind.IMAGE;
+            List<String> ids = vectorIndex.findSimilar(artifactId, kind, Math.min(count, 50)).stream()
+                    .map(HnswIndex.Neighbor::id)
+                    .toList();
+            if (!ids.isEmpty()) {
+                return getArtifactSummaries(ids);
+            }
+        }
         
         return artifactRepository.findById(artifactId)
                 .map(artifact -> {
@@ -143,57 +256,68 @@ public class ArtifactService {
                 .orElse(List.of());
     }
     
+    /**
+     * Likely duplicates of the given artifact, most similar first: by
+     * near-identical title and description, or by visually identical image.
+     */
+    public List<ArtifactDuplicate> getDuplicates(String artifactId, int limit, DuplicateKind kind) {
+        log.debug("Fetching duplicates of artifact: {} (kind: {})", artifactId, kind);
+        
+        Map<String, Double> similarities = new LinkedHashMap<>();
+        if (kind == DuplicateKind.IMAGE) {
+            imageHashIndex.findVisualDuplicates(artifactId, Math.min(limit, 50))
+                    .forEach(match -> similarities.put(match.id(), 1 - match.distance() / 64.0));
+        } else {
+            duplicateIndex.findDuplicates(artifactId, Math.min(limit, 50))
+                    .forEach(match -> similarities.put(match.id(), match.similarity()));
+        }
+        return getArtifactSummaries(new ArrayList<>(similarities.keySet())).stream()
+                .map(summary -> new ArtifactDuplicate(summary, similarities.get(summary.getId())))
+                .toList();
+    }
+    
+    /**
+     * Summaries for the given ids, in the same order; unknown ids are skipped.
+     */
+    public List<ArtifactSummary> getArtifactSummaries(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, ArtifactSummary> byId = new HashMap<>();
+        artifactRepository.findSummaryByIdIn(ids).forEach(summary -> byId.put(summary.getId(), summary));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
     // ===== Analytics and Metadata =====
     
     public List<String> getDistinctCategories() {
         log.debug("Fetching distinct categories");
-        return artifactRepository.findAll()
-                .stream()
-                .map(Artifact::getCategory)
-                .filter(category -> category != null && !category.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return facetDictionary.getValues(Facet.CATEGORY);
     }
     
     public List<String> getDistinctCultures() {
         log.debug("Fetching distinct cultures");
-        return artifactRepository.findAll()
-                .stream()
-                .map(Artifact::getCulture)
-                .filter(culture -> culture != null && !culture.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return facetDictionary.getValues(Facet.CULTURE);
     }
     
     public List<String> getDistinctPeriods() {
         log.debug("Fetching distinct periods");
-        return artifactRepository.findAll()
-                .stream()
-                .map(Artifact::getPeriod)
-                .filter(period -> period != null && !period.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return facetDictionary.getValues(Facet.PERIOD);
     }
     
     public List<String> getDistinctMaterials() {
         log.debug("Fetching distinct materials");
-        return artifactRepository.findAll()
-                .stream()
-                .map(Artifact::getMaterial)
-                .filter(material -> material != null && !material.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return facetDictionary.getValues(Facet.MATERIAL);
     }
     
     public Map<String, Object> getArtifactMetadata() {
         log.debug("Fetching artifact metadata and statistics");
         
-        long totalCount = artifactRepository.count();
-        List<CategoryStats> categoryStats = artifactRepository.getCategoryStatistics();
+        long totalCount = facetDictionary.getTotalArtifacts();
+        List<Map<String, Object>> categoryStats = facetStatistics.getCategoryStatistics();
         
         return Map.of(
                 "totalArtifacts", totalCount,
@@ -201,6 +325,12 @@ public class ArtifactService {
                 "cultures", getDistinctCultures(),
                 "periods", getDistinctPeriods(),
                 "materials", getDistinctMaterials(),
+                "facetCounts", Map.of(
+                        "categories", facetDictionary.getCounts(Facet.CATEGORY),
+                        "cultures", facetDictionary.getCounts(Facet.CULTURE),
+                        "periods", facetDictionary.getCounts(Facet.PERIOD),
+                        "materials", facetDictionary.getCounts(Facet.MATERIAL)
+                ),
                 "categoryStatistics", categoryStats
         );
     }
@@ -222,6 +352,53 @@ public class ArtifactService {
         return artifactRepository.findArtifactsWithImages(pageable);
     }
     
+    public Artifact saveAnalysis(String id, ArtifactAnalysis analysis) {
+        log.debug("Saving AI analysis for artifact: {}", id);
+        
+        return artifactRepository.findById(id)
+                .map(artifact -> {
+                    Artifact previous = new Artifact(artifact);
+                    if (analysis.getAnalyzedAt() == null) {
+                        analysis.setAnalyzedAt(LocalDateTime.now());
+                    }
+                    if (analysis.getImageEmbedding() == null && analysis.getDetections() == null) {
+                        // Image not analysed: reuse the results of an identical image
+                        imageHashIndex.findAnalyzedTwin(id).ifPresent(twin -> {
+                            log.debug("Reusing image analysis of artifact {} for {}", twin.getId(), id);
+                            analysis.setImageEmbedding(twin.getAnalysis().getImageEmbedding());
+                            analysis.setDetections(twin.getAnalysis().getDetections());
+                        });
+                    }
+                    artifact.setAnalysis(analysis);
+                    artifact.setUpdatedAt(LocalDateTime.now());
+                    
+                    Artifact saved = artifactRepository.save(artifact);
+                    eventPublisher.publishEvent(ArtifactChangedEvent.updated(previous, saved));
+                    return saved;
+                })
+                .orElseThrow(() -> new RuntimeException("Artifact not found with ID: " + id));
+    }
+    
+    /**
+     * Points an artifact at an image uploaded to the image storage.
+     */
+    public Artifact updateStoredImage(String id, String r2ImageKey, String imageSha256) {
+        log.debug("Updating stored image of artifact {}: {}", id, r2ImageKey);
+
+        return artifactRepository.findById(id)
+                .map(artifact -> {
+                    Artifact previous = new Artifact(artifact);
+                    artifact.setR2ImageKey(r2ImageKey);
+                    artifact.setImageSha256(imageSha256);
+                    artifact.setUpdatedAt(LocalDateTime.now());
+
+                    Artifact saved = artifactRepository.save(artifact);
+                    eventPublisher.publishEvent(ArtifactChangedEvent.updated(previous, saved));
+                    return saved;
+                })
+                .orElseThrow(() -> new RuntimeException("Artifact not found with ID: " + id));
+    }
+    
     // ===== Data Import Support =====
     
     public Optional<Artifact> findBySourceAndSourceId(String source, String sourceId) {
@@ -251,24 +428,22 @@ public class ArtifactService {
     
     public Map<String, Long> getCategoryStatistics() {
         log.debug("Fetching category statistics");
-        List<String> categories = getDistinctCategories();
-        
-        return categories.stream()
-                .collect(Collectors.toMap(
-                        category -> category,
-                        category -> artifactRepository.countByCategory(category)
-                ));
+        return facetStatistics.getCounts("category");
     }
     
     public Map<String, Long> getCultureStatistics() {
         log.debug("Fetching culture statistics");
-        List<String> cultures = getDistinctCultures();
-        
-        return cultures.stream()
-                .collect(Collectors.toMap(
-                        culture -> culture,
-                        culture -> artifactRepository.countByCulture(culture)
-                ));
+        return facetStatistics.getCounts("culture");
+    }
+    
+    public Map<String, Long> getFacetStatistics(String facet) {
+        log.debug("Fetching {} statistics", facet);
+        return facetStatistics.getCounts(facet);
+    }
+    
+    public Map<String, Map<String, Long>> getAllFacetStatistics() {
+        log.debug("Fetching statistics for all facets");
+        return facetStatistics.getAllCounts();
     }
     
     public boolean existsById(String id) {
@@ -0,0 +1,363 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+import com.culturalvault.model.Embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedding similarity over artifacts, served from one in-process
+ * {@link HnswIndex} per embedding kind.
+ *
+ * The indexes are built once the application is ready and kept current from
+ * {@link ArtifactChangedEvent}s, so new analysis results are searchable as
+ * soon as they are saved.
+ *
+ * With snapshots enabled the graphs are also saved through
+ * {@link EmbeddingSnapshotStore} periodically and on shutdown. At startup
+ * the snapshot is loaded instead of a full rebuild, then caught up with the
+ * artifacts updated since it was taken (minus a clock-skew margin) and with
+ * the artifacts deleted since.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ArtifactVectorIndex {
+
+    public enum Kind {
+        TEXT("analysis.textEmbedding", ArtifactAnalysis::getTextEmbedding),
+        IMAGE("analysis.imageEmbedding", ArtifactAnalysis::getImageEmbedding);
+
+        private final String field;
+        private final Function<ArtifactAnalysis, Embedding> accessor;
+
+        Kind(String field, Function<ArtifactAnalysis, Embedding> accessor) {
+            this.field = field;
+            this.accessor = accessor;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        Embedding valueOf(Artifact artifact) {
+            return artifact == null || artifact.getAnalysis() == null ? null : accessor.apply(artifact.getAnalysis());
+        }
+    }
+
+    private static final int CATCH_UP_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final EmbeddingSnapshotStore snapshotStore;
+    private final boolean enabled;
+    private final boolean snapshotsEnabled;
+    private final Duration catchUpMargin;
+    private final Map<Kind, HnswIndex> indexes = new EnumMap<>(Kind.class);
+
+    /** Bumped on every index change, to skip snapshots when nothing changed. */
+    private final AtomicLong modifications = new AtomicLong();
+    private long snapshotModifications = -1;
+
+    private volatile boolean ready = false;
+
+    public ArtifactVectorIndex(MongoTemplate mongoTemplate,
+                               EmbeddingSnapshotStore snapshotStore,
+                               @Value("${app.similarity.enabled:true}") boolean enabled,
+                               @Value("${app.similarity.hnsw.m:16}") int m,
+                               @Value("${app.similarity.hnsw.ef-construction:100}") int efConstruction,
+                               @Value("${app.similarity.hnsw.ef-search:64}") int efSearch,
+                               @Value("${app.similarity.snapshot.enabled:true}") boolean snapshotsEnabled,
+                               @Value("${app.similarity.snapshot.catch-up-margin:5m}") Duration catchUpMargin) {
+        this.mongoTemplate = mongoTemplate;
+        this.snapshotStore = snapshotStore;
+        this.enabled = enabled;
+        this.snapshotsEnabled = snapshotsEnabled;
+        this.catchUpMargin = catchUpMargin;
+        for (Kind kind : Kind.values()) {
+            indexes.put(kind, new HnswIndex(m, efConstruction, efSearch));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Artifact vector index disabled");
+            return;
+        }
+        try {
+            if (!snapshotsEnabled || !loadSnapshot()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Failed to build artifact vector index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Restores the indexes from the snapshot file and catches up with MongoDB.
+     *
+     * @return false if there is no usable snapshot
+     */
+    synchronized boolean loadSnapshot() {
+        long start = System.currentTimeMillis();
+        Optional<EmbeddingSnapshotStore.Snapshot> snapshot;
+        try {
+            snapshot = snapshotStore.read();
+        } catch (IOException e) {
+            log.warn("Ignoring embedding snapshot: {}", e.getMessage());
+            return false;
+        }
+        if (snapshot.isEmpty()) {
+            log.info("No embedding snapshot at {}", snapshotStore.getPath());
+            return false;
+        }
+        try {
+            for (Kind kind : Kind.values()) {
+                HnswIndex.Graph graph = snapshot.get().graphs().get(kind);
+                if (graph == null) {
+                    log.warn("Embedding snapshot has no {} section", kind);
+                    return false;
+                }
+                indexes.get(kind).importGraph(graph);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring embedding snapshot: {}", e.getMessage());
+            return false;
+        }
+        log.info("Loaded embedding snapshot taken at {}: {} text and {} image embeddings in {} ms",
+                snapshot.get().watermark(), indexes.get(Kind.TEXT).size(), indexes.get(Kind.IMAGE).size(),
+                System.currentTimeMillis() - start);
+
+        catchUp(snapshot.get().watermark().minus(catchUpMargin));
+        ready = true;
+        return true;
+    }
+
+    /**
+     * Re-indexes artifacts updated since {@code since} and drops the ones
+     * that no longer exist.
+     */
+    private void catchUp(Instant since) {
+        long start = System.currentTimeMillis();
+        Query query = new Query(Criteria.where("updatedAt").gte(LocalDateTime.ofInstant(since, ZoneId.systemDefault())));
+        for (Kind kind : Kind.values()) {
+            query.fields().include(kind.getField());
+        }
+        query.cursorBatchSize(CATCH_UP_BATCH_SIZE);
+
+        long updated = 0;
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                for (Kind kind : Kind.values()) {
+                    Embedding embedding = kind.valueOf(artifact);
+                    if (embedding == null) {
+                        indexes.get(kind).remove(artifact.getId());
+                    } else {
+                        put(indexes.get(kind), artifact.getId(), embedding);
+                    }
+                }
+                updated++;
+            }
+        }
+
+        Set<String> indexed = new HashSet<>();
+        indexes.values().forEach(index -> indexed.addAll(index.ids()));
+        List<String> ids = List.copyOf(indexed);
+        long removed = 0;
+        for (int from = 0; from < ids.size(); from += CATCH_UP_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + CATCH_UP_BATCH_SIZE, ids.size()));
+            Query existing = new Query(Criteria.where("_id").in(batch));
+            existing.fields().include("_id");
+            Set<String> found = new HashSet<>();
+            for (Document document : mongoTemplate.find(existing, Document.class, mongoTemplate.getCollectionName(Artifact.class))) {
+                found.add(String.valueOf(document.get("_id")));
+            }
+            for (String id : batch) {
+                if (!found.contains(id)) {
+                    indexes.values().forEach(index -> index.remove(id));
+                    removed++;
+                }
+            }
+        }
+        if (updated > 0 || removed > 0) {
+            modifications.incrementAndGet();
+        }
+        log.info("Embedding snapshot caught up: {} updated and {} deleted artifacts in {} ms",
+                updated, removed, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${app.similarity.snapshot.interval:PT30M}",
+               initialDelayString = "${app.similarity.snapshot.interval:PT30M}")
+    public void scheduledSnapshot() {
+        writeSnapshot();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        writeSnapshot();
+    }
+
+    /**
+     * Saves the indexes if they changed since the last snapshot.
+     */
+    public synchronized void writeSnapshot() {
+        if (!snapshotsEnabled || !isAvailable()) {
+            return;
+        }
+        long current = modifications.get();
+        if (current == snapshotModifications) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Instant watermark = Instant.now();
+        Map<Kind, HnswIndex.Graph> graphs = new EnumMap<>(Kind.class);
+        indexes.forEach((kind, index) -> graphs.put(kind, index.exportGraph()));
+        try {
+            snapshotStore.write(new EmbeddingSnapshotStore.Snapshot(watermark, graphs));
+            snapshotModifications = current;
+            log.info("Wrote embedding snapshot to {} in {} ms", snapshotStore.getPath(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Failed to write embedding snapshot: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the embeddings of every analysed artifact into fresh indexes.
+     */
+    public synchronized void rebuild() {
+        log.info("Building artifact vector index...");
+        long start = System.currentTimeMillis();
+        ready = false;
+        indexes.values().forEach(HnswIndex::clear);
+
+        Query query = new Query(Criteria.where("analysis").ne(null));
+        for (Kind kind : Kind.values()) {
+            query.fields().include(kind.getField());
+        }
+        query.cursorBatchSize(1000);
+
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            artifacts.forEach(this::put);
+        }
+
+        modifications.incrementAndGet();
+        ready = true;
+        log.info("Artifact vector index built: {} text and {} image embeddings in {} ms",
+                indexes.get(Kind.TEXT).size(), indexes.get(Kind.IMAGE).size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Kind kind : Kind.values()) {
+            HnswIndex index = indexes.get(kind);
+            Embedding current = event.isDeletion() ? null : kind.valueOf(event.current());
+            if (current == null) {
+                if (index.contains(event.artifactId())) {
+                    index.remove(event.artifactId());
+                    modifications.incrementAndGet();
+                }
+            } else if (!Objects.equals(current, kind.valueOf(event.previous())) || !index.contains(event.artifactId())) {
+                put(index, event.artifactId(), current);
+                modifications.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the indexes that hold many removed entries. Done here rather
+     * than on the (request or import) thread whose change tipped the count.
+     */
+    @Scheduled(fixedDelayString = "${app.similarity.compact-interval:PT1M}",
+               initialDelayString = "${app.similarity.compact-interval:PT1M}")
+    public void scheduledCompaction() {
+        if (!isAvailable()) {
+            return;
+        }
+        for (Kind kind : Kind.values()) {
+            HnswIndex index = indexes.get(kind);
+            int tombstones = index.tombstones();
+            if (tombstones > Math.max(1000, index.size() / 2)) {
+                long start = System.currentTimeMillis();
+                index.compact();
+                log.info("Compacted {} vector index ({} removed entries) in {} ms",
+                        kind, tombstones, System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    public int size(Kind kind) {
+        return indexes.get(kind).size();
+    }
+
+    /**
+     * Ids of the {@code count} artifacts whose embedding of the given kind is
+     * closest to that of {@code artifactId}; empty if it has none indexed.
+     */
+    public List<HnswIndex.Neighbor> findSimilar(String artifactId, Kind kind, int count) {
+        HnswIndex index = indexes.get(kind);
+        float[] vector = index.get(artifactId);
+        if (vector == null) {
+            return List.of();
+        }
+        return index.search(vector, count, artifactId);
+    }
+
+    private void put(Artifact artifact) {
+        for (Kind kind : Kind.values()) {
+            Embedding embedding = kind.valueOf(artifact);
+            if (embedding != null) {
+                put(indexes.get(kind), artifact.getId(), embedding);
+            }
+        }
+    }
+
+    private static void put(HnswIndex index, String id, Embedding embedding) {
+        try {
+            index.put(id, embedding.toArray());
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping embedding of artifact {}: {}", id, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Burkhard-Keller tree over 64-bit hashes under Hamming distance, for
+ * finding all entries within a small distance of a query without comparing
+ * against every entry.
+ *
+ * Each node holds one hash and the ids stored under it; its children are
+ * keyed by their distance to the node. By the triangle inequality a search
+ * within distance {@code d} of a node at distance {@code n} only needs the
+ * children keyed {@code n - d} to {@code n + d}.
+ *
+ * Removing an id leaves its node in place (empty nodes still route
+ * searches); {@link #emptyNodes()} tells the owner when rebuilding is
+ * worthwhile. Thread-safe: searches share a read lock, changes take the
+ * write lock.
+ *
+ * @author parth
+ */
+public class BkTree {
+
+    public record Match(String id, long hash, int distance) { }
+
+    private static final class Node {
+        final long hash;
+        final List<String> ids = new ArrayList<>(1);
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(long hash) {
+            this.hash = hash;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+    private int emptyNodes;
+
+    public void put(long hash, String id) {
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                root = new Node(hash);
+                add(root, id, true);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance == 0) {
+                    add(node, id, false);
+                    return;
+                }
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    child = new Node(hash);
+                    node.children.put(distance, child);
+                    add(child, id, true);
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long hash, String id) {
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            while (node != null) {
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance == 0) {
+                    boolean removed = node.ids.remove(id);
+                    if (removed) {
+                        size--;
+                        if (node.ids.isEmpty()) {
+                            emptyNodes++;
+                        }
+                    }
+                    return removed;
+                }
+                node = node.children.get(distance);
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entries within {@code maxDistance} of {@code hash}, nearest first.
+     */
+    public List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return matches;
+            }
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance <= maxDistance) {
+                    for (String id : node.ids) {
+                        matches.add(new Match(id, node.hash, distance));
+                    }
+                }
+                for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                    Node child = node.children.get(d);
+                    if (child != null) {
+                        pending.push(child);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::id));
+        return matches;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            size = 0;
+            emptyNodes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of stored ids. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nodes left without ids by {@link #remove}. */
+    public int emptyNodes() {
+        lock.readLock().lock();
+        try {
+            return emptyNodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Node node, String id, boolean created) {
+        if (node.ids.contains(id)) {
+            return;
+        }
+        if (!created && node.ids.isEmpty()) {
+            // Reusing a node emptied by remove()
+            emptyNodes--;
+        }
+        node.ids.add(id);
+        size++;
+    }
+}
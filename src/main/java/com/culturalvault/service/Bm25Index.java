@@ -0,0 +1,281 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe in-memory inverted index with BM25F ranking.
+ *
+ * Each document has a fixed set of fields (for example title, description and
+ * metadata). Term frequencies are weighted by a per-field boost and normalised
+ * by the field length before the usual BM25 saturation is applied, so a match
+ * in a short title counts for more than the same match in a long description.
+ *
+ * @author parth
+ */
+public class Bm25Index {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "its", "of", "on", "or", "that", "the", "this", "to", "was", "were", "with");
+
+    private final String[] fields;
+    private final double[] boosts;
+    private final double k1;
+    private final double b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (doc ordinal -> term frequency per field)
+    private final Map<String, Map<Integer, int[]>> postings = new HashMap<>();
+    // doc ordinal -> distinct terms, needed to remove a document again
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private int[][] fieldLengths;
+    private final long[] totalFieldLengths;
+    private int documentCount = 0;
+
+    /**
+     * @param fieldBoosts boost per field name; iteration order defines the
+     *                    field order expected by {@link #put(String, String...)}
+     */
+    public Bm25Index(Map<String, Double> fieldBoosts, double k1, double b) {
+        this.fields = fieldBoosts.keySet().toArray(String[]::new);
+        this.boosts = fieldBoosts.values().stream().mapToDouble(Double::doubleValue).toArray();
+        this.k1 = k1;
+        this.b = b;
+        this.fieldLengths = new int[fields.length][1024];
+        this.totalFieldLengths = new long[fields.length];
+    }
+
+    /**
+     * Splits text into lower-cased word tokens, dropping stop words and
+     * single characters.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds a document, replacing any previous version with the same id.
+     *
+     * @param fieldTexts text per field, in the order of the boosts map given
+     *                   to the constructor
+     */
+    public void put(String id, String... fieldTexts) {
+        Map<String, int[]> termFrequencies = new HashMap<>();
+        int[] lengths = new int[fields.length];
+        for (int field = 0; field < fields.length && field < fieldTexts.length; field++) {
+            List<String> tokens = tokenize(fieldTexts[field]);
+            lengths[field] = tokens.size();
+            for (String token : tokens) {
+                termFrequencies.computeIfAbsent(token, t -> new int[fields.length])[field]++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+
+            int ordinal = allocateOrdinal(id);
+            for (int field = 0; field < fields.length; field++) {
+                fieldLengths[field][ordinal] = lengths[field];
+                totalFieldLengths[field] += lengths[field];
+            }
+            for (Map.Entry<String, int[]> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(ordinal, entry.getValue());
+            }
+            documentTerms.put(ordinal, termFrequencies.keySet().toArray(String[]::new));
+            documentCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            ordinals.clear();
+            ids.clear();
+            freeOrdinals.clear();
+            fieldLengths = new int[fields.length][1024];
+            Arrays.fill(totalFieldLengths, 0);
+            documentCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the {@code limit} best scoring documents after skipping the
+     * first {@code offset}, along with the total number of matches.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documentCount == 0) {
+                return new SearchResult(List.of(), 0);
+            }
+
+            double[] averageLengths = new double[fields.length];
+            for (int field = 0; field < fields.length; field++) {
+                averageLengths[field] = Math.max(1.0, (double) totalFieldLengths[field] / documentCount);
+            }
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Integer, int[]> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int df = termPostings.size();
+                double idf = Math.log(1.0 + (documentCount - df + 0.5) / (df + 0.5));
+
+                for (Map.Entry<Integer, int[]> posting : termPostings.entrySet()) {
+                    int ordinal = posting.getKey();
+                    int[] tf = posting.getValue();
+                    double weightedTf = 0.0;
+                    for (int field = 0; field < fields.length; field++) {
+                        if (tf[field] == 0) {
+                            continue;
+                        }
+                        double norm = 1.0 - b + b * fieldLengths[field][ordinal] / averageLengths[field];
+                        weightedTf += boosts[field] * tf[field] / norm;
+                    }
+                    double termScore = idf * weightedTf / (k1 + weightedTf);
+                    scores.merge(ordinal, termScore, Double::sum);
+                }
+            }
+
+            int wanted = offset + limit;
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(wanted, scores.size()) + 1);
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                Hit hit = new Hit(ids.get(entry.getKey()), entry.getValue());
+                if (top.size() < wanted) {
+                    top.add(hit);
+                } else if (hit.compareTo(top.peek()) > 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Collections.reverseOrder());
+            List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+            return new SearchResult(List.copyOf(page), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : documentTerms.remove(ordinal)) {
+            Map<Integer, int[]> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(ordinal);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (int field = 0; field < fields.length; field++) {
+            totalFieldLengths[field] -= fieldLengths[field][ordinal];
+            fieldLengths[field][ordinal] = 0;
+        }
+        ids.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+        documentCount--;
+    }
+
+    private int allocateOrdinal(String id) {
+        int ordinal;
+        if (!freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.pop();
+            ids.set(ordinal, id);
+        } else {
+            ordinal = ids.size();
+            ids.add(id);
+            if (ordinal >= fieldLengths[0].length) {
+                for (int field = 0; field < fields.length; field++) {
+                    fieldLengths[field] = Arrays.copyOf(fieldLengths[field], fieldLengths[field].length * 2);
+                }
+            }
+        }
+        ordinals.put(id, ordinal);
+        return ordinal;
+    }
+
+    public record Hit(String id, double score) implements Comparable<Hit> {
+
+        @Override
+        public int compareTo(Hit other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : other.id.compareTo(id);
+        }
+    }
+
+    public record SearchResult(List<Hit> hits, long totalHits) {
+
+        public List<String> ids() {
+            return hits.stream().map(Hit::id).toList();
+        }
+    }
+}
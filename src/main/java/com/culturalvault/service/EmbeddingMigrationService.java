@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.Embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rewrites artifact embeddings stored as arrays of doubles into the packed
+ * binary form of {@link Embedding}, using the configured
+ * {@code app.embeddings.encoding}.
+ *
+ * Only the embedding fields are read and written, in unordered bulk updates.
+ * The job can be re-run at any time; documents already in binary form are
+ * skipped unless {@code reencode} is set (e.g. after switching to int8).
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class EmbeddingMigrationService {
+
+    static final List<String> EMBEDDING_FIELDS = List.of("analysis.imageEmbedding", "analysis.textEmbedding");
+    private static final int BATCH_SIZE = 500;
+    private static final int BSON_ARRAY = 4;
+
+    public record Result(long documents, long embeddings, long bytesBefore, long bytesAfter, long durationMs) { }
+
+    private final MongoTemplate mongoTemplate;
+    private final Embedding.Encoding encoding;
+
+    public EmbeddingMigrationService(MongoTemplate mongoTemplate,
+                                     @Value("${app.embeddings.encoding:float32}") String encoding) {
+        this.mongoTemplate = mongoTemplate;
+        this.encoding = Embedding.Encoding.fromName(encoding);
+    }
+
+    public synchronized Result migrate(boolean reencode) {
+        log.info("Migrating artifact embeddings to {} binary (reencode={})", encoding, reencode);
+        long start = System.currentTimeMillis();
+        String collection = mongoTemplate.getCollectionName(Artifact.class);
+
+        Query query = new Query(new Criteria().orOperator(EMBEDDING_FIELDS.stream()
+                .map(field -> reencode ? Criteria.where(field).exists(true) : Criteria.where(field).type(BSON_ARRAY))
+                .toList()));
+        query.fields().include(EMBEDDING_FIELDS.toArray(String[]::new));
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long documents = 0;
+        long embeddings = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+
+        try (Stream<Document> stream = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) stream::iterator) {
+                Document analysis = document.get("analysis", Document.class);
+                if (analysis == null) {
+                    continue;
+                }
+                Update update = new Update();
+                for (String field : EMBEDDING_FIELDS) {
+                    Object value = analysis.get(field.substring("analysis.".length()));
+                    Embedding embedding = toEmbedding(value);
+                    if (embedding == null) {
+                        continue;
+                    }
+                    byte[] packed = embedding.toBytes(encoding);
+                    update.set(field, new Binary(packed));
+                    bytesBefore += storedSize(value);
+                    bytesAfter += packed.length;
+                    embeddings++;
+                }
+                if (update.getUpdateObject().isEmpty()) {
+                    continue;
+                }
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))), update);
+                documents++;
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = null;
+                    pending = 0;
+                    log.debug("Migrated embeddings of {} artifacts so far", documents);
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+
+        Result result = new Result(documents, embeddings, bytesBefore, bytesAfter, System.currentTimeMillis() - start);
+        log.info("Embedding migration finished: {}", result);
+        return result;
+    }
+
+    private static Embedding toEmbedding(Object value) {
+        if (value instanceof List<?> list) {
+            return list.isEmpty() ? null : Embedding.of(list.stream().map(Number.class::cast).toList());
+        }
+        if (value instanceof Binary binary) {
+            return Embedding.fromBytes(binary.getData());
+        }
+        return null;
+    }
+
+    /**
+     * Approximate BSON size: an array element is a type byte, the decimal
+     * index as a C string and an 8-byte double.
+     */
+    private static long storedSize(Object value) {
+        if (value instanceof List<?> list) {
+            long size = 5;
+            for (int i = 0; i < list.size(); i++) {
+                size += 1 + String.valueOf(i).length() + 1 + 8;
+            }
+            return size;
+        }
+        return value instanceof Binary binary ? binary.length() : 0;
+    }
+}
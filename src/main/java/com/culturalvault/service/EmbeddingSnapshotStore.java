@@ -0,0 +1,248 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk snapshot of the {@link ArtifactVectorIndex} graphs: artifact ids,
+ * normalised vectors and HNSW links, so a restart can skip both re-reading
+ * every embedding from MongoDB and rebuilding the graphs.
+ *
+ * The file is written to a temporary sibling and atomically renamed over
+ * the previous snapshot. It is read through memory-mapped windows, so loading
+ * is bounded by page-cache copy speed rather than by parsing.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int version, long watermark (epoch ms), int sections
+ * per section:
+ *   short kind length, kind name (UTF-8)
+ *   int m, int dimension, int nodes, int entryPoint, int maxLevel
+ *   per node: short id length, id (UTF-8), byte deleted, byte layers,
+ *             per layer: short count, int[count] links
+ *   nodes * dimension float vectors
+ * </pre>
+ *
+ * @author parth
+ */
+@Component
+@Slf4j
+public class EmbeddingSnapshotStore {
+
+    private static final int MAGIC = 0x43564553; // "CVES"
+    private static final int VERSION = 1;
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /** Snapshot contents; {@code watermark} is when its export started. */
+    record Snapshot(Instant watermark, Map<ArtifactVectorIndex.Kind, HnswIndex.Graph> graphs) { }
+
+    private final Path path;
+
+    public EmbeddingSnapshotStore(@Value("${app.similarity.snapshot.path:data/embeddings.snapshot}") String path) {
+        this.path = Path.of(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    void write(Snapshot snapshot) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                OutputStream stream = Channels.newOutputStream(channel);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 20));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(snapshot.watermark().toEpochMilli());
+                out.writeInt(snapshot.graphs().size());
+                for (Map.Entry<ArtifactVectorIndex.Kind, HnswIndex.Graph> entry : snapshot.graphs().entrySet()) {
+                    writeString(out, entry.getKey().name());
+                    writeGraph(out, entry.getValue());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads the snapshot, or returns empty if there is none. A corrupt or
+     * incompatible file is reported as an IOException.
+     */
+    Optional<Snapshot> read() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not an embedding snapshot (or an unsupported version): " + path);
+            }
+            Instant watermark = Instant.ofEpochMilli(in.readLong());
+            int sections = in.readInt();
+            Map<ArtifactVectorIndex.Kind, HnswIndex.Graph> graphs = new EnumMap<>(ArtifactVectorIndex.Kind.class);
+            for (int i = 0; i < sections; i++) {
+                ArtifactVectorIndex.Kind kind = ArtifactVectorIndex.Kind.valueOf(in.readString());
+                graphs.put(kind, readGraph(in));
+            }
+            return Optional.of(new Snapshot(watermark, graphs));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt embedding snapshot " + path + ": " + e, e);
+        }
+    }
+
+    private static void writeGraph(DataOutputStream out, HnswIndex.Graph graph) throws IOException {
+        int count = graph.ids().length;
+        out.writeInt(graph.m());
+        out.writeInt(graph.dimension());
+        out.writeInt(count);
+        out.writeInt(graph.entryPoint());
+        out.writeInt(graph.maxLevel());
+        for (int i = 0; i < count; i++) {
+            writeString(out, graph.ids()[i]);
+            out.writeByte(graph.deleted()[i] ? 1 : 0);
+            int[][] links = graph.links()[i];
+            out.writeByte(links.length);
+            for (int[] layer : links) {
+                out.writeShort(layer.length);
+                for (int link : layer) {
+                    out.writeInt(link);
+                }
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(graph.dimension(), 0) * Float.BYTES);
+        for (float[] vector : graph.vectors()) {
+            buffer.clear();
+            buffer.asFloatBuffer().put(vector);
+            out.write(buffer.array());
+        }
+    }
+
+    private static HnswIndex.Graph readGraph(MappedReader in) throws IOException {
+        int m = in.readInt();
+        int dimension = in.readInt();
+        int count = in.readInt();
+        int entryPoint = in.readInt();
+        int maxLevel = in.readInt();
+
+        String[] ids = new String[count];
+        boolean[] deleted = new boolean[count];
+        int[][][] links = new int[count][][];
+        for (int i = 0; i < count; i++) {
+            ids[i] = in.readString();
+            deleted[i] = in.readByte() != 0;
+            links[i] = new int[in.readByte()][];
+            for (int layer = 0; layer < links[i].length; layer++) {
+                int[] layerLinks = new int[in.readShort()];
+                for (int j = 0; j < layerLinks.length; j++) {
+                    layerLinks[j] = in.readInt();
+                }
+                links[i][layer] = layerLinks;
+            }
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = new float[dimension];
+            in.readFloats(vectors[i]);
+        }
+        return new HnswIndex.Graph(m, dimension, entryPoint, maxLevel, ids, deleted, vectors, links);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Sequential reader over a file mapped in windows of up to 1 GB, since a
+     * single MappedByteBuffer cannot address more than 2 GB.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart = 0;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+
+        private ByteBuffer require(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (size - position < bytes) {
+                    throw new IOException("Unexpected end of snapshot");
+                }
+                map(position);
+            }
+            return window;
+        }
+
+        int readInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        long readLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        int readShort() throws IOException {
+            return Short.toUnsignedInt(require(Short.BYTES).getShort());
+        }
+
+        byte readByte() throws IOException {
+            return require(1).get();
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readShort()];
+            require(bytes.length).get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void readFloats(float[] target) throws IOException {
+            ByteBuffer buffer = require(target.length * Float.BYTES);
+            buffer.asFloatBuffer().get(target);
+            buffer.position(buffer.position() + target.length * Float.BYTES);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Europeana Search API ({@code /search.json}), paged with its deep-paging
+ * cursor.
+ *
+ * @author parth
+ */
+@Component
+public class EuropeanaHarvestSource extends HarvestSource {
+
+    public static final String NAME = "EUROPEANA";
+
+    private final String apiKey;
+
+    public EuropeanaHarvestSource(RestClient.Builder builder,
+                                  HttpClient httpClient,
+                                  @Value("${app.api.europeana.base-url}") String baseUrl,
+                                  @Value("${app.api.europeana.api-key:}") String apiKey,
+                                  @Value("${app.api.europeana.rate-limit:10000}") int rateLimit,
+                                  @Value("${app.api.europeana.rate-limit-period:PT1H}") Duration rateLimitPeriod) {
+        super(builder, httpClient, baseUrl, rateLimit, rateLimitPeriod);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    @Override
+    public String firstCursor() {
+        return "*";
+    }
+
+    @Override
+    public boolean supportsModifiedSince() {
+        return true;
+    }
+
+    @Override
+    public Page fetch(String query, Instant modifiedSince, String cursor, int pageSize) throws InterruptedException {
+        JsonNode response = get(uri -> {
+            uri.path("/search.json")
+                    .queryParam("wskey", apiKey)
+                    .queryParam("query", query)
+                    .queryParam("rows", Math.min(pageSize, 100))
+                    .queryParam("cursor", cursor)
+                    .queryParam("profile", "standard");
+            if (modifiedSince != null) {
+                // Solr range on the record's last update in Europeana
+                uri.queryParam("qf", "timestamp_update:[" + modifiedSince.truncatedTo(ChronoUnit.SECONDS) + " TO *]");
+            }
+            return uri.build();
+        });
+
+        List<Artifact> records = new ArrayList<>();
+        for (JsonNode item : response.path("items")) {
+            Artifact artifact = toArtifact(item);
+            if (artifact != null) {
+                records.add(artifact);
+            }
+        }
+        return new Page(records, text(response, "nextCursor"), response.path("totalResults").asLong());
+    }
+
+    private static Artifact toArtifact(JsonNode item) {
+        String id = text(item, "id");
+        String title = first(item, "title");
+        if (id == null || title == null) {
+            return null;
+        }
+        Artifact artifact = new Artifact();
+        artifact.setSource(NAME);
+        artifact.setSourceId(id);
+        artifact.setTitle(title);
+        artifact.setDescription(first(item, "dcDescription"));
+        artifact.setCategory(upper(text(item, "type")));
+        artifact.setCulture(upper(first(item, "country")));
+        artifact.setPeriod(periodOf(first(item, "year")));
+        artifact.setImageUrl(first(item, "edmIsShownBy"));
+        artifact.setThumbnailUrl(first(item, "edmPreview"));
+        artifact.setSourceUrl(text(item, "guid"));
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        putIfPresent(metadata, "creator", first(item, "dcCreator"));
+        putIfPresent(metadata, "year", first(item, "year"));
+        putIfPresent(metadata, "dataProvider", first(item, "dataProvider"));
+        putIfPresent(metadata, "rights", first(item, "rights"));
+        artifact.setMetadata(metadata);
+        return artifact;
+    }
+
+    private static void putIfPresent(Map<String, Object> metadata, String key, String value) {
+        if (value != null) {
+            metadata.put(key, value);
+        }
+    }
+}
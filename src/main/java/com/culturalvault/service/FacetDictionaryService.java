@@ -0,0 +1,191 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory dictionary of the distinct facet values (category, culture,
+ * period, material) in the artifact catalog, together with how many artifacts
+ * carry each value.
+ *
+ * The dictionary is loaded once the application is ready (or on first use,
+ * whichever comes first) and then kept up to date from
+ * {@link ArtifactChangedEvent}s, so reads never touch MongoDB.
+ *
+ * @author parth
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FacetDictionaryService {
+
+    public enum Facet {
+        CATEGORY("category", Artifact::getCategory),
+        CULTURE("culture", Artifact::getCulture),
+        PERIOD("period", Artifact::getPeriod),
+        MATERIAL("material", Artifact::getMaterial);
+
+        private final String field;
+        private final Function<Artifact, String> accessor;
+
+        Facet(String field, Function<Artifact, String> accessor) {
+            this.field = field;
+            this.accessor = accessor;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        String valueOf(Artifact artifact) {
+            String value = accessor.apply(artifact);
+            return value == null || value.trim().isEmpty() ? null : value;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Map<Facet, ConcurrentSkipListMap<String, Long>> counts = new EnumMap<>(Facet.class);
+    private final AtomicLong totalArtifacts = new AtomicLong();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to load facet dictionary, will retry on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads every facet from the database. Only the facet fields are read.
+     */
+    public synchronized void rebuild() {
+        log.info("Loading artifact facet dictionary...");
+        long start = System.currentTimeMillis();
+
+        Map<Facet, ConcurrentSkipListMap<String, Long>> loaded = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            loaded.put(facet, new ConcurrentSkipListMap<>());
+        }
+
+        Query query = new Query();
+        for (Facet facet : Facet.values()) {
+            query.fields().include(facet.getField());
+        }
+        query.cursorBatchSize(1000);
+
+        long total = 0;
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                total++;
+                for (Facet facet : Facet.values()) {
+                    String value = facet.valueOf(artifact);
+                    if (value != null) {
+                        loaded.get(facet).merge(value, 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        counts = loaded;
+        totalArtifacts.set(total);
+        ready = true;
+
+        log.info("Facet dictionary loaded: {} artifacts, {} categories, {} cultures, {} periods, {} materials in {} ms",
+                total,
+                loaded.get(Facet.CATEGORY).size(),
+                loaded.get(Facet.CULTURE).size(),
+                loaded.get(Facet.PERIOD).size(),
+                loaded.get(Facet.MATERIAL).size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public synchronized void onArtifactChanged(ArtifactChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+
+        if (event.previous() == null) {
+            totalArtifacts.incrementAndGet();
+        } else if (event.isDeletion()) {
+            totalArtifacts.decrementAndGet();
+        }
+
+        for (Facet facet : Facet.values()) {
+            String oldValue = event.previous() != null ? facet.valueOf(event.previous()) : null;
+            String newValue = event.current() != null ? facet.valueOf(event.current()) : null;
+
+            if (oldValue != null && oldValue.equals(newValue)) {
+                continue;
+            }
+            if (oldValue != null) {
+                counts.get(facet).computeIfPresent(oldValue, (value, count) -> count > 1 ? count - 1 : null);
+            }
+            if (newValue != null) {
+                counts.get(facet).merge(newValue, 1L, Long::sum);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Sorted distinct values for a facet.
+     */
+    public List<String> getValues(Facet facet) {
+        ensureLoaded();
+        return new ArrayList<>(counts.get(facet).keySet());
+    }
+
+    /**
+     * Distinct values for a facet with the number of artifacts using each,
+     * sorted by value.
+     */
+    public Map<String, Long> getCounts(Facet facet) {
+        ensureLoaded();
+        return new LinkedHashMap<>(counts.get(facet));
+    }
+
+    public long getTotalArtifacts() {
+        ensureLoaded();
+        return totalArtifacts.get();
+    }
+
+    private void ensureLoaded() {
+        if (!ready) {
+            synchronized (this) {
+                if (!ready) {
+                    rebuild();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills in the normalized facet key fields ({@code categoryKey},
+ * {@code cultureKey}, {@code periodKey}) of artifacts written before they
+ * existed, or of every artifact with {@code full} set.
+ *
+ * Keys are computed with {@link Artifact#normalizeFacetKey} rather than
+ * MongoDB's {@code $toLower}, which only handles ASCII, so they always match
+ * what {@link ArtifactService} writes and queries with.
+ *
+ * Missing keys are backfilled at startup unless
+ * {@code app.facets.backfill-on-startup} is false.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class FacetKeyBackfillService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public record Result(long scanned, long updated, long durationMs) { }
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean backfillOnStartup;
+
+    public FacetKeyBackfillService(MongoTemplate mongoTemplate,
+                                   @Value("${app.facets.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            backfill(false);
+        } catch (Exception e) {
+            log.error("Failed to backfill artifact facet keys: {}", e.getMessage());
+        }
+    }
+
+    public synchronized Result backfill(boolean full) {
+        log.info("Backfilling artifact facet keys (full={})", full);
+        long start = System.currentTimeMillis();
+
+        Query query = full
+                ? new Query()
+                : new Query(new Criteria().orOperator(
+                        missingKey("category", "categoryKey"),
+                        missingKey("culture", "cultureKey"),
+                        missingKey("period", "periodKey")));
+        query.fields().include("category", "culture", "period", "categoryKey", "cultureKey", "periodKey");
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long scanned = 0;
+        long updated = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                scanned++;
+                Artifact normalized = new Artifact(artifact);
+                normalized.updateFacetKeys();
+                if (!full || !sameKeys(artifact, normalized)) {
+                    if (bulk == null) {
+                        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class);
+                    }
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(artifact.getId())), new Update()
+                            .set("categoryKey", normalized.getCategoryKey())
+                            .set("cultureKey", normalized.getCultureKey())
+                            .set("periodKey", normalized.getPeriodKey()));
+                    updated++;
+                    if (++pending == BATCH_SIZE) {
+                        bulk.execute();
+                        bulk = null;
+                        pending = 0;
+                        log.debug("Backfilled facet keys of {} artifacts so far", updated);
+                    }
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+
+        Result result = new Result(scanned, updated, System.currentTimeMillis() - start);
+        log.info("Facet key backfill finished: {}", result);
+        return result;
+    }
+
+    /**
+     * A facet value without its key. Saves drop null properties, so a
+     * missing key alone also matches every artifact without the facet.
+     */
+    private static Criteria missingKey(String field, String keyField) {
+        return Criteria.where(field).nin(null, "").and(keyField).exists(false);
+    }
+
+    private static boolean sameKeys(Artifact a, Artifact b) {
+        return Objects.equals(a.getCategoryKey(), b.getCategoryKey())
+                && Objects.equals(a.getCultureKey(), b.getCultureKey())
+                && Objects.equals(a.getPeriodKey(), b.getPeriodKey());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Computes artifact counts for every facet (category, culture, period,
+ * material, source) with a single {@code $facet} aggregation and caches the
+ * result for a configurable time, or until an artifact is created, deleted
+ * or moved to another facet value. The next read after that recomputes it,
+ * however many artifacts changed in between.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class FacetStatisticsService {
+
+    public static final List<String> FACETS = List.of("category", "culture", "period", "material", "source");
+
+    private static final String TOTAL = "total";
+    private static final String CATEGORY_STATISTICS = "categoryStatistics";
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration cacheTtl;
+
+    private volatile Snapshot snapshot;
+
+    public FacetStatisticsService(MongoTemplate mongoTemplate,
+                                  @Value("${app.statistics.cache-ttl:5m}") Duration cacheTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Artifact count per value of the given facet, most common first.
+     */
+    public Map<String, Long> getCounts(String facet) {
+        Map<String, Long> counts = current().counts().get(facet);
+        if (counts == null) {
+            throw new IllegalArgumentException("Unknown facet: " + facet);
+        }
+        return counts;
+    }
+
+    /**
+     * Artifact counts for every facet, keyed by facet name.
+     */
+    public Map<String, Map<String, Long>> getAllCounts() {
+        return current().counts();
+    }
+
+    /**
+     * Per-category count with the cultures and periods seen in it, in the
+     * same shape as {@code ArtifactRepository.getCategoryStatistics()}.
+     */
+    public List<Map<String, Object>> getCategoryStatistics() {
+        return current().categoryStatistics();
+    }
+
+    public long getTotalArtifacts() {
+        return current().total();
+    }
+
+    public Instant getComputedAt() {
+        return current().computedAt();
+    }
+
+    /**
+     * Drops the cached statistics so the next read recomputes them.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        Artifact previous = event.previous();
+        Artifact current = event.current();
+        if (previous == null || current == null
+                || !Objects.equals(previous.getCategory(), current.getCategory())
+                || !Objects.equals(previous.getCulture(), current.getCulture())
+                || !Objects.equals(previous.getPeriod(), current.getPeriod())
+                || !Objects.equals(previous.getMaterial(), current.getMaterial())
+                || !Objects.equals(previous.getSource(), current.getSource())) {
+            invalidate();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot cached = snapshot;
+        if (cached != null && !cached.isExpired(cacheTtl)) {
+            return cached;
+        }
+        synchronized (this) {
+            cached = snapshot;
+            if (cached == null || cached.isExpired(cacheTtl)) {
+                cached = compute();
+                snapshot = cached;
+            }
+            return cached;
+        }
+    }
+
+    private Snapshot compute() {
+        log.debug("Computing facet statistics");
+        long start = System.currentTimeMillis();
+
+        FacetOperation facets = Aggregation.facet(Aggregation.count().as("count")).as(TOTAL)
+                .and(
+                        Aggregation.group("category")
+                                .count().as("count")
+                                .addToSet("culture").as("cultures")
+                                .addToSet("period").as("periods"),
+                        Aggregation.sort(Sort.Direction.DESC, "count")
+                ).as(CATEGORY_STATISTICS);
+        for (String facet : FACETS) {
+            facets = facets.and(
+                    Aggregation.group(facet).count().as("count"),
+                    Aggregation.sort(Sort.Direction.DESC, "count")
+            ).as(facet);
+        }
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(facets), "artifacts", Document.class)
+                .getUniqueMappedResult();
+
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (Document bucket : buckets(result, facet)) {
+                Object value = bucket.get("_id");
+                if (value != null && !value.toString().trim().isEmpty()) {
+                    values.put(value.toString(), ((Number) bucket.get("count")).longValue());
+                }
+            }
+            counts.put(facet, Collections.unmodifiableMap(values));
+        }
+
+        List<Map<String, Object>> categoryStatistics = new ArrayList<>();
+        for (Document bucket : buckets(result, CATEGORY_STATISTICS)) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("id", bucket.get("_id"));
+            stats.put("count", ((Number) bucket.get("count")).intValue());
+            stats.put("cultures", bucket.get("cultures"));
+            stats.put("periods", bucket.get("periods"));
+            categoryStatistics.add(stats);
+        }
+
+        List<Document> totalBucket = buckets(result, TOTAL);
+        long total = totalBucket.isEmpty() ? 0 : ((Number) totalBucket.get(0).get("count")).longValue();
+
+        log.debug("Facet statistics computed in {} ms", System.currentTimeMillis() - start);
+        return new Snapshot(Collections.unmodifiableMap(counts),
+                Collections.unmodifiableList(categoryStatistics), total, Instant.now());
+    }
+
+    private static List<Document> buckets(Document result, String facet) {
+        if (result == null) {
+            return List.of();
+        }
+        return result.getList(facet, Document.class, List.of());
+    }
+
+    private record Snapshot(Map<String, Map<String, Long>> counts,
+                            List<Map<String, Object>> categoryStatistics,
+                            long total,
+                            Instant computedAt) {
+
+        boolean isExpired(Duration ttl) {
+            return computedAt.plus(ttl).isBefore(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.HarvestJob;
+import com.culturalvault.model.SourceSyncState;
+import com.culturalvault.repository.SourceSyncStateRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports artifacts from the configured {@link HarvestSource}s.
+ *
+ * A job runs on virtual threads: one task per search query walks that
+ * query's result pages, and every fetched page is handed to a write task so
+ * fetching the next page overlaps with writing the previous one. At most
+ * {@code app.harvest.workers} pages are being written at any time; requests
+ * to the source are paced by its rate limit. Records are written with
+ * {@link ArtifactBulkWriter} in batches of {@code app.harvest.batch-size};
+ * records whose content has not changed upstream are skipped there.
+ *
+ * When a query has been harvested completely and without write failures,
+ * its start time is saved as the {@link SourceSyncState} high-water mark.
+ * An incremental job then only asks the source for records modified since
+ * that mark (minus {@code app.harvest.incremental-overlap}, to allow for
+ * clock skew and late indexing upstream), where the source supports it.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class HarvestService {
+
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    private final Map<String, HarvestSource> sources;
+    private final ArtifactBulkWriter bulkWriter;
+    private final SourceSyncStateRepository syncStateRepository;
+    private final Duration incrementalOverlap;
+    private final int workers;
+    private final int pageSize;
+    private final int batchSize;
+    private final Map<String, HarvestJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Thread> runners = new ConcurrentHashMap<>();
+
+    public HarvestService(List<HarvestSource> sources,
+                          ArtifactBulkWriter bulkWriter,
+                          SourceSyncStateRepository syncStateRepository,
+                          @Value("${app.harvest.incremental-overlap:PT1H}") Duration incrementalOverlap,
+                          @Value("${app.harvest.workers:8}") int workers,
+                          @Value("${app.harvest.page-size:100}") int pageSize,
+                          @Value("${app.harvest.batch-size:500}") int batchSize) {
+        this.sources = sources.stream().collect(Collectors.toMap(HarvestSource::getName, Function.identity()));
+        this.bulkWriter = bulkWriter;
+        this.syncStateRepository = syncStateRepository;
+        this.incrementalOverlap = incrementalOverlap;
+        this.workers = workers;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts a harvest in the background.
+     *
+     * @param maxRecords   stop after this many fetched records (0 for no limit)
+     * @param incremental  only fetch records changed since the last complete
+     *                     sync of each query, where the source supports it
+     * @throws IllegalArgumentException for an unknown source or no queries
+     * @throws IllegalStateException if the source is not configured
+     */
+    public HarvestJob start(String sourceName, List<String> queries, long maxRecords, boolean incremental) {
+        HarvestSource source = sources.get(sourceName == null ? null : sourceName.toUpperCase(Locale.ROOT));
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown source: " + sourceName + " (available: " + sources.keySet() + ")");
+        }
+        if (!source.isConfigured()) {
+            throw new IllegalStateException("Source " + source.getName() + " is not configured (missing API key)");
+        }
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("At least one query is required");
+        }
+
+        HarvestJob job = new HarvestJob(UUID.randomUUID().toString(), source.getName(), queries, maxRecords, incremental);
+        pruneFinishedJobs();
+        jobs.put(job.getId(), job);
+        Thread runner = Thread.ofVirtual().name("harvest-" + job.getId()).unstarted(() -> run(job, source));
+        runners.put(job.getId(), runner);
+        runner.start();
+        log.info("Started {} harvest {} from {} for {}", incremental ? "incremental" : "full",
+                job.getId(), source.getName(), queries);
+        return job;
+    }
+
+    public Optional<HarvestJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<HarvestJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(HarvestJob::getStartedAt).reversed())
+                .toList();
+    }
+
+    public List<SourceSyncState> getSyncStates(String sourceName) {
+        return syncStateRepository.findBySourceOrderByQuery(sourceName.toUpperCase(Locale.ROOT));
+    }
+
+    public boolean cancel(String id) {
+        Thread runner = runners.get(id);
+        if (runner == null) {
+            return false;
+        }
+        runner.interrupt();
+        return true;
+    }
+
+    private void run(HarvestJob job, HarvestSource source) {
+        HarvestJob.Status status = HarvestJob.Status.COMPLETED;
+        String error = null;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Semaphore writeSlots = new Semaphore(workers);
+            List<Future<?>> queryTasks = new ArrayList<>();
+            for (String query : job.getQueries()) {
+                queryTasks.add(executor.submit(() -> {
+                    harvestQuery(job, source, query, executor, writeSlots);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> task : queryTasks) {
+                    task.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                // Stop the remaining tasks before close() waits for them
+                executor.shutdownNow();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            status = HarvestJob.Status.CANCELLED;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            status = cause instanceof InterruptedException ? HarvestJob.Status.CANCELLED : HarvestJob.Status.FAILED;
+            error = cause.getMessage();
+            if (status == HarvestJob.Status.FAILED) {
+                log.error("Harvest {} failed: {}", job.getId(), error, cause);
+            }
+        } finally {
+            runners.remove(job.getId());
+        }
+        job.finish(status, error);
+        log.info("Harvest {} {}: {} pages, {} records, {} inserted, {} updated, {} unchanged, {} failed",
+                job.getId(), status, job.getPagesFetched(), job.getRecordsFetched(),
+                job.getInserted(), job.getUpdated(), job.getUnchanged(), job.getFailed());
+    }
+
+    private void harvestQuery(HarvestJob job, HarvestSource source, String query,
+                              ExecutorService executor, Semaphore writeSlots) throws Exception {
+        Instant syncStart = Instant.now();
+        Instant modifiedSince = job.isIncremental() && source.supportsModifiedSince()
+                ? syncStateRepository.findById(SourceSyncState.idOf(source.getName(), query))
+                        .map(SourceSyncState::getHighWaterMark)
+                        .map(mark -> mark.minus(incrementalOverlap))
+                        .orElse(null)
+                : null;
+        if (modifiedSince != null) {
+            log.debug("Harvest {}: fetching '{}' modified since {}", job.getId(), query, modifiedSince);
+        }
+
+        List<Future<?>> writes = new ArrayList<>();
+        AtomicInteger records = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        String cursor = source.firstCursor();
+        while (cursor != null && !job.isLimitReached()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            HarvestSource.Page page = source.fetch(query, modifiedSince, cursor, pageSize);
+            job.pageFetched();
+            long allowed = job.reserveRecords(page.records().size());
+            List<Artifact> pageRecords = page.records().subList(0, (int) allowed);
+            records.addAndGet(pageRecords.size());
+
+            writeSlots.acquire();
+            writes.add(executor.submit(() -> {
+                try {
+                    for (int from = 0; from < pageRecords.size(); from += batchSize) {
+                        ArtifactBulkWriter.Result result = bulkWriter.write(
+                                pageRecords.subList(from, Math.min(from + batchSize, pageRecords.size())));
+                        job.recordsWritten(result.inserted(), result.updated(), result.unchanged(), result.failed());
+                        failed.addAndGet(result.failed());
+                    }
+                } finally {
+                    writeSlots.release();
+                }
+                return null;
+            }));
+            cursor = page.nextCursor();
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+
+        // Only a complete pass guarantees that nothing before syncStart was missed
+        if (cursor == null && failed.get() == 0) {
+            SourceSyncState state = syncStateRepository.findById(SourceSyncState.idOf(source.getName(), query))
+                    .orElseGet(() -> new SourceSyncState(source.getName(), query));
+            state.setHighWaterMark(syncStart);
+            state.setLastSyncedAt(Instant.now());
+            state.setLastJobId(job.getId());
+            state.setLastRecordCount(records.get());
+            syncStateRepository.save(state);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<HarvestJob> finished = jobs.values().stream()
+                .filter(job -> !job.isRunning())
+                .sorted(Comparator.comparing(HarvestJob::getStartedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+}
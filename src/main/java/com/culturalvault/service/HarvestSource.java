@@ -0,0 +1,158 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriBuilder;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An external collection API that artifacts are harvested from.
+ *
+ * Implementations fetch one page of search results at a time and map each
+ * record to an unsaved {@link Artifact} with {@code source} and
+ * {@code sourceId} set. Requests go through a per-source
+ * {@link RateLimiter} and are retried with backoff on 429 and 5xx responses.
+ * The base URL is configurable, so a source can be pointed at a local stub
+ * server.
+ *
+ * @author parth
+ */
+@Slf4j
+public abstract class HarvestSource {
+
+    /** One page of results; {@code nextCursor} is null on the last page. */
+    public record Page(List<Artifact> records, String nextCursor, long totalResults) { }
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Pattern YEAR = Pattern.compile("(\\d{1,4})\\s*(B\\.?C\\.?E?\\.?)?", Pattern.CASE_INSENSITIVE);
+
+    private final RestClient restClient;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * @param httpClient the shared pooled client, so harvests reuse its
+     *                   connections and its connect timeout
+     */
+    protected HarvestSource(RestClient.Builder builder, HttpClient httpClient, String baseUrl,
+                            int rateLimit, Duration rateLimitPeriod) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(30));
+        this.restClient = builder.baseUrl(baseUrl).requestFactory(requestFactory).build();
+        this.rateLimiter = new RateLimiter(rateLimit, rateLimitPeriod);
+    }
+
+    /** Value stored in {@link Artifact#getSource()}, e.g. {@code EUROPEANA}. */
+    public abstract String getName();
+
+    /** False when required settings (such as an API key) are missing. */
+    public abstract boolean isConfigured();
+
+    /** Cursor of the first page. */
+    public abstract String firstCursor();
+
+    /**
+     * Whether {@link #fetch} can restrict results to records modified after
+     * a given time, which makes incremental syncs fetch only the changes.
+     */
+    public boolean supportsModifiedSince() {
+        return false;
+    }
+
+    /**
+     * Fetches one page of results.
+     *
+     * @param modifiedSince  only records modified at or after this time, or
+     *                       null for all; ignored unless {@link #supportsModifiedSince()}
+     */
+    public abstract Page fetch(String query, Instant modifiedSince, String cursor, int pageSize)
+            throws InterruptedException;
+
+    protected JsonNode get(Function<UriBuilder, URI> uri) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+            try {
+                return restClient.get().uri(uri).retrieve().body(JsonNode.class);
+            } catch (RestClientResponseException e) {
+                HttpStatusCode status = e.getStatusCode();
+                boolean retryable = status.value() == 429 || status.is5xxServerError();
+                if (!retryable || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("{} request failed with {}, retrying (attempt {})", getName(), status.value(), attempt);
+                Thread.sleep(Duration.ofSeconds(1L << attempt));
+            }
+        }
+    }
+
+    // ===== Mapping helpers =====
+
+    protected static String text(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isValueNode() && !value.asText().isBlank() ? value.asText().trim() : null;
+    }
+
+    /** First element of an array field, or the field itself if it is a value. */
+    protected static String first(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        if (value.isArray()) {
+            for (JsonNode element : value) {
+                if (element.isValueNode() && !element.asText().isBlank()) {
+                    return element.asText().trim();
+                }
+            }
+            return null;
+        }
+        return text(node, field);
+    }
+
+    protected static String upper(String value) {
+        return value == null ? null : value.toUpperCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    /**
+     * Period bucket (as used by the sample data) for a free-text date such as
+     * "1665", "ca. 500 BC" or "1900s".
+     */
+    protected static String periodOf(String date) {
+        if (date == null) {
+            return null;
+        }
+        Matcher matcher = YEAR.matcher(date);
+        if (!matcher.find()) {
+            return null;
+        }
+        int year = Integer.parseInt(matcher.group(1));
+        if (matcher.group(2) != null) {
+            year = -year;
+        }
+        if (year < 500) {
+            return "ANCIENT";
+        } else if (year < 1500) {
+            return "MEDIEVAL";
+        } else if (year < 1800) {
+            return "EARLY_MODERN";
+        }
+        return "MODERN";
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbour index over dense vectors (Hierarchical
+ * Navigable Small World graph, Malkov &amp; Yashunin), ranking by cosine
+ * similarity.
+ *
+ * Vectors are normalised on insert so similarity is a plain dot product.
+ * Searches run concurrently under a read lock; inserts and removals take
+ * the write lock. A removed vector stays in the graph as a tombstone so the
+ * links through it keep working, and is never returned; {@link #compact()}
+ * rebuilds the graph without tombstones.
+ *
+ * @author parth
+ */
+public class HnswIndex {
+
+    public record Neighbor(String id, float similarity) { }
+
+    private record Scored(int node, float similarity) { }
+
+    /**
+     * Point-in-time copy of the graph, for persisting it. {@code links[node][layer]}
+     * holds exactly the links of that node on that layer.
+     */
+    record Graph(int m, int dimension, int entryPoint, int maxLevel,
+                 String[] ids, boolean[] deleted, float[][] vectors, int[][][] links) { }
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::similarity).reversed();
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::similarity);
+
+    private static final class Node {
+        final String id;
+        final float[] vector;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(String id, float[] vector, int level, int m, int maxM0) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new int[layer == 0 ? maxM0 : m];
+            }
+        }
+
+        int level() {
+            return links.length - 1;
+        }
+    }
+
+    /** Per-thread visited marks, reset in O(1) by bumping the generation. */
+    private static final class Visited {
+        int[] marks = new int[0];
+        int generation;
+
+        void reset(int size) {
+            if (marks.length < size) {
+                marks = new int[Math.max(size, marks.length * 2)];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Node[] nodes = new Node[1024];
+    private int nodeCount = 0;
+    private int dimension = -1;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param m               links per node on the upper layers (twice that on layer 0)
+     * @param efConstruction  candidate list size while inserting
+     * @param efSearch        minimum candidate list size while searching
+     */
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * Inserts a vector, replacing any previous vector for the same id.
+     *
+     * @throws IllegalArgumentException if its dimension differs from the vectors already indexed
+     */
+    public void put(String id, float[] vector) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if (dimension == -1) {
+                dimension = normalized.length;
+            } else if (dimension != normalized.length) {
+                throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + normalized.length);
+            }
+            markDeleted(id);
+            insert(id, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return ordinals.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            nodes = new Node[1024];
+            nodeCount = 0;
+            dimension = -1;
+            entryPoint = -1;
+            maxLevel = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live (searchable) vectors. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of removed vectors still held in the graph. */
+    public int tombstones() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the live vectors only. The new graph is built
+     * from a copy of them while searches and updates go on; only catching
+     * up with the updates made meanwhile and the swap hold the write lock.
+     */
+    public void compact() {
+        Map<String, float[]> live = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            ordinals.forEach((id, ordinal) -> live.put(id, nodes[ordinal].vector));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        HnswIndex rebuilt = new HnswIndex(m, efConstruction, efSearch);
+        live.forEach(rebuilt::insert);
+
+        lock.writeLock().lock();
+        try {
+            // Vectors are normalized into new arrays on every put, so a
+            // different array means the vector was replaced
+            for (Map.Entry<String, float[]> entry : live.entrySet()) {
+                Integer ordinal = ordinals.get(entry.getKey());
+                if (ordinal == null || nodes[ordinal].vector != entry.getValue()) {
+                    rebuilt.markDeleted(entry.getKey());
+                }
+            }
+            ordinals.forEach((id, ordinal) -> {
+                if (!rebuilt.ordinals.containsKey(id)) {
+                    rebuilt.insert(id, nodes[ordinal].vector);
+                }
+            });
+            nodes = rebuilt.nodes;
+            nodeCount = rebuilt.nodeCount;
+            entryPoint = rebuilt.entryPoint;
+            maxLevel = rebuilt.maxLevel;
+            ordinals.clear();
+            ordinals.putAll(rebuilt.ordinals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids of the live vectors. */
+    public List<String> ids() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(ordinals.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the graph structure. Vectors are never modified once inserted,
+     * so they are shared rather than copied.
+     */
+    Graph exportGraph() {
+        lock.readLock().lock();
+        try {
+            String[] ids = new String[nodeCount];
+            boolean[] deleted = new boolean[nodeCount];
+            float[][] vectors = new float[nodeCount][];
+            int[][][] links = new int[nodeCount][][];
+            for (int i = 0; i < nodeCount; i++) {
+                Node node = nodes[i];
+                ids[i] = node.id;
+                deleted[i] = node.deleted;
+                vectors[i] = node.vector;
+                links[i] = new int[node.links.length][];
+                for (int layer = 0; layer < node.links.length; layer++) {
+                    links[i][layer] = Arrays.copyOf(node.links[layer], node.linkCounts[layer]);
+                }
+            }
+            return new Graph(m, dimension, entryPoint, maxLevel, ids, deleted, vectors, links);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contents of this index with a previously exported graph.
+     * Vectors must already be normalised.
+     *
+     * @throws IllegalArgumentException if the graph was built with a different {@code m}
+     */
+    void importGraph(Graph graph) {
+        if (graph.m() != m) {
+            throw new IllegalArgumentException("Graph was built with m=" + graph.m() + ", expected m=" + m);
+        }
+        lock.writeLock().lock();
+        try {
+            int count = graph.ids().length;
+            ordinals.clear();
+            nodes = new Node[Math.max(1024, count)];
+            for (int i = 0; i < count; i++) {
+                int[][] links = graph.links()[i];
+                Node node = new Node(graph.ids()[i], graph.vectors()[i], links.length - 1, m, maxM0);
+                for (int layer = 0; layer < links.length; layer++) {
+                    System.arraycopy(links[layer], 0, node.links[layer], 0, links[layer].length);
+                    node.linkCounts[layer] = links[layer].length;
+                }
+                node.deleted = graph.deleted()[i];
+                nodes[i] = node;
+                if (!node.deleted) {
+                    ordinals.put(node.id, i);
+                }
+            }
+            nodeCount = count;
+            dimension = graph.dimension();
+            entryPoint = graph.entryPoint();
+            maxLevel = graph.maxLevel();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vector stored for the given id (normalised), or null.
+     */
+    public float[] get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            return ordinal == null ? null : nodes[ordinal].vector.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code k} indexed vectors most similar to {@code query}, best first.
+     *
+     * @param excludeId  id left out of the results (typically the query's own), or null
+     */
+    public List<Neighbor> search(float[] query, int k, String excludeId) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1 || k <= 0 || normalized.length != dimension) {
+                return List.of();
+            }
+            int ep = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                ep = greedyClosest(normalized, ep, layer);
+            }
+            PriorityQueue<Scored> candidates = searchLayer(normalized, ep, Math.max(efSearch, k + 1), 0);
+
+            List<Scored> ranked = new ArrayList<>(candidates);
+            ranked.sort(BEST_FIRST);
+            List<Neighbor> result = new ArrayList<>(k);
+            for (Scored scored : ranked) {
+                Node node = nodes[scored.node()];
+                if (node.deleted || node.id.equals(excludeId)) {
+                    continue;
+                }
+                result.add(new Neighbor(node.id, scored.similarity()));
+                if (result.size() == k) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Graph construction (callers hold the write lock) =====
+
+    private void insert(String id, float[] vector) {
+        int level = randomLevel();
+        int ordinal = nodeCount;
+        if (ordinal == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        nodes[ordinal] = new Node(id, vector, level, m, maxM0);
+        nodeCount++;
+        ordinals.put(id, ordinal);
+
+        if (entryPoint == -1) {
+            entryPoint = ordinal;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            ep = greedyClosest(vector, ep, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            PriorityQueue<Scored> candidates = searchLayer(vector, ep, efConstruction, layer);
+            List<Scored> sorted = new ArrayList<>(candidates);
+            sorted.sort(BEST_FIRST);
+            ep = sorted.get(0).node();
+
+            List<Scored> selected = selectNeighbors(sorted, m);
+            Node node = nodes[ordinal];
+            for (Scored neighbor : selected) {
+                node.links[layer][node.linkCounts[layer]++] = neighbor.node();
+                link(neighbor.node(), ordinal, neighbor.similarity(), layer);
+            }
+        }
+
+        if (level > maxLevel) {
+            entryPoint = ordinal;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds a back link from {@code from} to {@code to}, pruning the link list
+     * of {@code from} with the selection heuristic when it is full.
+     */
+    private void link(int from, int to, float similarity, int layer) {
+        Node node = nodes[from];
+        int capacity = layer == 0 ? maxM0 : m;
+        if (node.linkCounts[layer] < capacity) {
+            node.links[layer][node.linkCounts[layer]++] = to;
+            return;
+        }
+        List<Scored> candidates = new ArrayList<>(capacity + 1);
+        candidates.add(new Scored(to, similarity));
+        for (int i = 0; i < node.linkCounts[layer]; i++) {
+            int other = node.links[layer][i];
+            candidates.add(new Scored(other, dot(node.vector, nodes[other].vector)));
+        }
+        candidates.sort(BEST_FIRST);
+        List<Scored> selected = selectNeighbors(candidates, capacity);
+        for (int i = 0; i < selected.size(); i++) {
+            node.links[layer][i] = selected.get(i).node();
+        }
+        node.linkCounts[layer] = selected.size();
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is closer
+     * to the base than to every candidate already kept, which spreads links
+     * across clusters. Remaining slots are then filled with the closest
+     * pruned candidates. {@code candidates} must be sorted best first.
+     */
+    private List<Scored> selectNeighbors(List<Scored> candidates, int count) {
+        if (candidates.size() <= count) {
+            return candidates;
+        }
+        List<Scored> selected = new ArrayList<>(count);
+        List<Scored> pruned = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() == count) {
+                break;
+            }
+            float[] vector = nodes[candidate.node()].vector;
+            boolean diverse = true;
+            for (Scored kept : selected) {
+                if (dot(vector, nodes[kept.node()].vector) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < count; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(uniform) * levelMultiplier);
+    }
+
+    private void markDeleted(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            nodes[ordinal].deleted = true;
+        }
+    }
+
+    // ===== Graph traversal =====
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float best = dot(query, nodes[current].vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes[current];
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int candidate = node.links[layer][i];
+                float similarity = dot(query, nodes[candidate].vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer; returns up to {@code ef} closest nodes
+     * found, worst on top.
+     */
+    private PriorityQueue<Scored> searchLayer(float[] query, int start, int ef, int layer) {
+        Visited seen = visited.get();
+        seen.reset(nodeCount);
+        seen.visit(start);
+
+        Scored first = new Scored(start, dot(query, nodes[start].vector));
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (current.similarity() < results.peek().similarity() && results.size() >= ef) {
+                break;
+            }
+            Node node = nodes[current.node()];
+            if (node.level() < layer) {
+                continue;
+            }
+            for (int i = 0; i < node.linkCounts[layer]; i++) {
+                int neighbor = node.links[layer][i];
+                if (!seen.visit(neighbor)) {
+                    continue;
+                }
+                float similarity = dot(query, nodes[neighbor].vector);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Scored scored = new Scored(neighbor, similarity);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ImageBlob;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed image storage: each distinct image is stored once, under
+ * {@code images/sha256/<xx>/<sha256>}, and reference-counted by the artifacts
+ * that use it (through {@code Artifact.imageSha256}).
+ *
+ * A caller takes a reference with {@link #acquire} (existing content, no
+ * bytes moved) or {@link #store} (new content) before pointing an artifact
+ * at the blob; references are dropped here when an artifact's image changes
+ * or it is deleted. {@link #collect} (nightly, {@code app.image-blobs.gc-cron})
+ * deletes blobs that have had no references for {@code app.image-blobs.gc-grace},
+ * the grace period covering uploads between taking a reference and updating
+ * their artifact.
+ *
+ * The sweep runs on every node, so it coordinates with uploads through the
+ * blob documents rather than a lock: it first marks a blob
+ * {@code deletingSince}, which makes it absent to {@link #acquire} and
+ * {@link #store}, then deletes the object, then the document. A store of
+ * the same content waits for the document to go before storing the object
+ * again, so it never lands between the sweep's two deletes.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ImageBlobService {
+
+    public record Stored(ImageBlob blob, boolean deduplicated) { }
+
+    public record GcResult(long reconciled, long deleted, long failed, long durationMs) { }
+
+    // A sweep that marked a blob this long ago died before deleting it
+    private static final Duration DELETE_TIMEOUT = Duration.ofMinutes(10);
+
+    // How long a store waits for a sweep to finish deleting the same content
+    private static final Duration STORE_WAIT = Duration.ofSeconds(10);
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageStorage storage;
+    private final Duration gcGrace;
+
+    public ImageBlobService(MongoTemplate mongoTemplate,
+                            ImageStorage storage,
+                            @Value("${app.image-blobs.gc-grace:PT1H}") Duration gcGrace) {
+        this.mongoTemplate = mongoTemplate;
+        this.storage = storage;
+        this.gcGrace = gcGrace;
+    }
+
+    public static String keyOf(String sha256) {
+        return "images/sha256/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    public Optional<ImageBlob> find(String sha256) {
+        return Optional.ofNullable(mongoTemplate.findOne(live(sha256), ImageBlob.class));
+    }
+
+    /**
+     * Takes a reference to already stored content.
+     *
+     * @return the blob, or empty if no content with this hash is stored
+     */
+    public Optional<ImageBlob> acquire(String sha256) {
+        ImageBlob blob = mongoTemplate.findAndModify(live(sha256),
+                new Update().inc("refCount", 1).set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), ImageBlob.class);
+        return Optional.ofNullable(blob);
+    }
+
+    /**
+     * Takes a reference to the content uploaded to {@code stagingKey}: the
+     * staged object becomes the blob, or is deleted if the same content is
+     * already stored.
+     *
+     * @return the blob and whether it was already stored
+     */
+    public Stored store(String sha256, String stagingKey, String contentType, long size) throws IOException {
+        Optional<ImageBlob> existing = acquire(sha256);
+        if (existing.isPresent()) {
+            storage.delete(stagingKey);
+            return new Stored(existing.get(), true);
+        }
+        // The reference is registered before the object is moved in, so a
+        // sweep can no longer pick the blob once the object is there.
+        // Concurrent stores of the same content move identical bytes to the
+        // same key, so the last move wins harmlessly
+        String key = keyOf(sha256);
+        ImageBlob blob = register(sha256, key, contentType, size);
+        try {
+            storage.move(stagingKey, key);
+        } catch (IOException | RuntimeException e) {
+            release(sha256);
+            throw e;
+        }
+        log.debug("Stored image blob {} ({} bytes)", sha256, size);
+        return new Stored(blob, false);
+    }
+
+    /**
+     * Upserts the blob document with a reference taken. While a sweep is
+     * deleting the same content the upsert hits the marked document's
+     * {@code _id}; it is retried until the sweep has removed it.
+     */
+    private ImageBlob register(String sha256, String key, String contentType, long size) {
+        long deadline = System.nanoTime() + STORE_WAIT.toNanos();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                return mongoTemplate.findAndModify(live(sha256),
+                        new Update()
+                                .setOnInsert("key", key)
+                                .setOnInsert("contentType", contentType)
+                                .setOnInsert("size", size)
+                                .setOnInsert("createdAt", now)
+                                .inc("refCount", 1)
+                                .set("updatedAt", now),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), ImageBlob.class);
+            } catch (DuplicateKeyException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Image blob " + sha256 + " is being deleted");
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for image blob " + sha256);
+                }
+            }
+        }
+    }
+
+    /** The blob document, unless a sweep is deleting it. */
+    private static Query live(String sha256) {
+        return Query.query(Criteria.where("_id").is(sha256).and("deletingSince").is(null));
+    }
+
+    /** Drops a reference taken with {@link #acquire} or {@link #store}. */
+    public void release(String sha256) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(sha256)),
+                new Update().inc("refCount", -1).set("updatedAt", LocalDateTime.now()),
+                ImageBlob.class);
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        Artifact previous = event.previous();
+        if (previous == null || previous.getImageSha256() == null) {
+            return;
+        }
+        if (event.isDeletion() || !Objects.equals(previous.getImageSha256(), event.current().getImageSha256())) {
+            release(previous.getImageSha256());
+        }
+    }
+
+    @Scheduled(cron = "${app.image-blobs.gc-cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        try {
+            collect(false);
+        } catch (Exception e) {
+            log.error("Image blob collection failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the blobs that have had no references for the grace period.
+     *
+     * @param reconcile first recount every blob's references from the
+     *                  artifacts, correcting counts that drifted (e.g. after
+     *                  a crash between storing a blob and updating its artifact)
+     */
+    public synchronized GcResult collect(boolean reconcile) {
+        log.info("Collecting unreferenced image blobs (reconcile={})", reconcile);
+        long start = System.currentTimeMillis();
+        long reconciled = reconcile ? reconcile() : 0;
+
+        long deleted = 0;
+        long failed = 0;
+        Set<String> failedIds = new HashSet<>();
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            // Marking the blob takes it from acquire() and store() on every
+            // node before its object goes; a mark left by a sweep that died
+            // is taken over
+            ImageBlob blob = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("refCount").lte(0)
+                            .and("updatedAt").lt(now.minus(gcGrace))
+                            .and("_id").nin(failedIds)
+                            .orOperator(Criteria.where("deletingSince").is(null),
+                                    Criteria.where("deletingSince").lt(now.minus(DELETE_TIMEOUT)))),
+                    new Update().set("deletingSince", now),
+                    FindAndModifyOptions.options().returnNew(true), ImageBlob.class);
+            if (blob == null) {
+                break;
+            }
+            try {
+                storage.delete(blob.getKey());
+            } catch (IOException e) {
+                failed++;
+                failedIds.add(blob.getId());
+                log.warn("Failed to delete image blob {}: {}", blob.getKey(), e.getMessage());
+                // The object is still there: hand the blob back
+                mongoTemplate.updateFirst(marked(blob), new Update().unset("deletingSince"), ImageBlob.class);
+                continue;
+            }
+            mongoTemplate.remove(marked(blob), ImageBlob.class);
+            deleted++;
+        }
+
+        GcResult result = new GcResult(reconciled, deleted, failed, System.currentTimeMillis() - start);
+        log.info("Image blob collection finished: {}", result);
+        return result;
+    }
+
+    /** The blob document while it still carries this sweep's mark. */
+    private static Query marked(ImageBlob blob) {
+        return Query.query(Criteria.where("_id").is(blob.getId()).and("deletingSince").is(blob.getDeletingSince()));
+    }
+
+    /** Sets each blob's refCount to the number of artifacts using it. */
+    private long reconcile() {
+        Map<String, Long> counts = new HashMap<>();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("imageSha256").ne(null)),
+                Aggregation.group("imageSha256").count().as("count"));
+        mongoTemplate.aggregate(aggregation, Artifact.class, Document.class)
+                .forEach(group -> counts.put(group.getString("_id"), ((Number) group.get("count")).longValue()));
+
+        long corrected = 0;
+        Query all = new Query();
+        all.fields().include("refCount");
+        try (Stream<ImageBlob> blobs = mongoTemplate.stream(all, ImageBlob.class)) {
+            for (ImageBlob blob : (Iterable<ImageBlob>) blobs::iterator) {
+                long count = counts.getOrDefault(blob.getId(), 0L);
+                if (blob.getRefCount() != count) {
+                    // updatedAt is left alone so a recent upload keeps its grace period
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(blob.getId())),
+                            new Update().set("refCount", count), ImageBlob.class);
+                    corrected++;
+                }
+            }
+        }
+        return corrected;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local disk cache of images (originals and thumbnails) for serving them
+ * with file channel transfers, bounded by {@code app.image-cache.max-size}
+ * with least-recently-used eviction.
+ *
+ * A miss is filled from a {@link Source} (normally the {@link ImageStorage})
+ * into a temporary file that is then moved into place, so a cached file is
+ * always complete; concurrent misses for the same key share one fill. The
+ * LRU order is kept in memory and rebuilt from file modification times at
+ * startup. Only images are cached: content of any other type is refused
+ * (and dropped from disk at startup).
+ *
+ * Files are handed out already open ({@link OpenFile}), opened under the same
+ * lock as evictions and invalidations delete them, so a file cannot go between
+ * being looked up and being read; an open file stays readable after it is
+ * deleted. A fill overtaken by an {@link #invalidate} of its key is served to
+ * the request that started it but not cached.
+ *
+ * @author parth
+ */
+@Component
+@Slf4j
+public class ImageCache {
+
+    private static final String TEMP_PREFIX = ".fill-";
+
+    /** Where a missing entry is filled from. */
+    @FunctionalInterface
+    public interface Source {
+        /** Opens the content; {@link java.nio.file.NoSuchFileException} if there is none. */
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * A cached file. {@code etag} is derived from its modification time and
+     * size (a refill always changes the former).
+     */
+    public record CachedFile(Path path, long size, String etag, String contentType) { }
+
+    /** A cached file opened for reading; close it once sent. */
+    public record OpenFile(CachedFile file, FileChannel channel) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** A fill in progress; {@code generation} counts the invalidations it ran into. */
+    private static final class Fill {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private long generation;
+    }
+
+    // Times a request looks up an entry that keeps going before it can open it
+    private static final int MAX_LOOKUPS = 3;
+
+    private final Path root;
+    private final long maxBytes;
+    private final Tika tika = new Tika();
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Fill> fills = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public ImageCache(@Value("${app.image-cache.path:data/image-cache}") Path root,
+                      @Value("${app.image-cache.max-size:2GB}") DataSize maxSize) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxBytes = maxSize.toBytes();
+        Files.createDirectories(this.root);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to load image cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The cached file for {@code key}, filled from {@code source} on a miss,
+     * opened for reading.
+     */
+    public OpenFile open(String key, Source source) throws IOException {
+        for (int lookup = 1; ; lookup++) {
+            OpenFile cached = openCached(key);
+            if (cached != null) {
+                return cached;
+            }
+            if (lookup > MAX_LOOKUPS) {
+                throw new IOException("Image evicted or invalidated while being opened: " + key);
+            }
+            Fill fill = new Fill();
+            Fill running = fills.putIfAbsent(key, fill);
+            if (running != null) {
+                // Then look the entry up again: it may already be gone
+                await(running.done);
+                continue;
+            }
+            try {
+                OpenFile filled = fill(key, source, fill);
+                fill.done.complete(null);
+                return filled;
+            } catch (IOException | RuntimeException e) {
+                fill.done.completeExceptionally(e);
+                throw e;
+            } finally {
+                fills.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops the entry of {@code key}, if cached; a fill of it in progress
+     * is not cached.
+     */
+    public void invalidate(String key) {
+        synchronized (entries) {
+            CachedFile removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size();
+                deleteQuietly(removed.path());
+            }
+            Fill fill = fills.get(key);
+            if (fill != null) {
+                fill.generation++;
+            }
+        }
+    }
+
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private OpenFile openCached(String key) throws IOException {
+        synchronized (entries) {
+            CachedFile cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            try {
+                return new OpenFile(cached, FileChannel.open(cached.path(), StandardOpenOption.READ));
+            } catch (NoSuchFileException e) {
+                // Deleted behind the cache's back
+                entries.remove(key);
+                totalBytes -= cached.size();
+                return null;
+            }
+        }
+    }
+
+    private OpenFile fill(String key, Source source, Fill fill) throws IOException {
+        long generation;
+        synchronized (entries) {
+            generation = fill.generation;
+        }
+        Path file = resolve(key);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), TEMP_PREFIX, ".tmp");
+        try {
+            try (InputStream in = source.open()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String contentType = tika.detect(temp);
+            if (!isImage(contentType)) {
+                throw new IOException("Not an image (" + contentType + "): " + key);
+            }
+            synchronized (entries) {
+                if (fill.generation != generation) {
+                    // Invalidated meanwhile: serve the copy, which goes with the temporary file
+                    log.debug("Image {} invalidated while being cached", key);
+                    CachedFile uncached = describe(temp, Files.readAttributes(temp, BasicFileAttributes.class),
+                            contentType);
+                    return new OpenFile(uncached, FileChannel.open(temp, StandardOpenOption.READ));
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                CachedFile cached = describe(file, Files.readAttributes(file, BasicFileAttributes.class), contentType);
+                log.debug("Cached image {} ({} bytes)", key, cached.size());
+                OpenFile opened = new OpenFile(cached, FileChannel.open(file, StandardOpenOption.READ));
+                add(key, cached);
+                return opened;
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Registers an entry and evicts down to the size limit; call holding the lock. */
+    private void add(String key, CachedFile cached) {
+        CachedFile previous = entries.put(key, cached);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += cached.size();
+        Iterator<Map.Entry<String, CachedFile>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedFile> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                // The entry just added is the last to go
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue().size();
+            // Files being sent are already open and stay readable
+            deleteQuietly(entry.getValue().path());
+        }
+    }
+
+    /** Registers the files already on disk, oldest first. */
+    private void load() throws IOException {
+        long start = System.currentTimeMillis();
+        record Found(Path file, BasicFileAttributes attributes) { }
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                if (file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                    // Left behind by a fill interrupted by a crash
+                    deleteQuietly(file);
+                    continue;
+                }
+                found.add(new Found(file, attributes));
+            }
+        }
+        found.sort(Comparator.comparing(f -> f.attributes().lastModifiedTime()));
+        for (Found f : found) {
+            String key = root.relativize(f.file()).toString().replace('\\', '/');
+            String contentType = tika.detect(f.file());
+            if (!isImage(contentType)) {
+                deleteQuietly(f.file());
+                continue;
+            }
+            synchronized (entries) {
+                if (!entries.containsKey(key)) {
+                    add(key, describe(f.file(), f.attributes(), contentType));
+                }
+            }
+        }
+        log.info("Image cache loaded: {} files, {} bytes in {} ms",
+                found.size(), getTotalBytes(), System.currentTimeMillis() - start);
+    }
+
+    private static CachedFile describe(Path file, BasicFileAttributes attributes, String contentType) {
+        String etag = "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis())
+                + "-" + Long.toHexString(attributes.size()) + "\"";
+        return new CachedFile(file, attributes.size(), etag, contentType);
+    }
+
+    private static boolean isImage(String contentType) {
+        return contentType != null && contentType.startsWith("image/");
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid cache key: " + key);
+        }
+        return file;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached image {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void await(CompletableFuture<Void> fill) throws IOException {
+        try {
+            fill.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for image", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Downloads artifact images from their (external) URLs, with timeouts and a
+ * size cap so a bad URL cannot stall a worker or exhaust memory.
+ *
+ * Image URLs are set by clients, so they are not trusted: only public
+ * addresses are fetched (never loopback, private, link-local or similar
+ * ones), optionally only from {@code app.images.allowed-hosts} and their
+ * subdomains, and redirects are followed one at a time with the same
+ * checks. A response that is not {@code image/*} is refused.
+ *
+ * @author parth
+ */
+@Component
+public class ImageDownloader {
+
+    private static final int MAX_REDIRECTS = 5;
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final long maxBytes;
+    private final List<String> allowedHosts;
+
+    public ImageDownloader(@Value("${app.images.download-timeout:PT30S}") Duration timeout,
+                           @Value("${app.images.max-download-size:30MB}") DataSize maxSize,
+                           @Value("${app.images.allowed-hosts:}") List<String> allowedHosts) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                // Followed here, so that every hop is checked
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.timeout = timeout;
+        this.maxBytes = maxSize.toBytes();
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .toList();
+    }
+
+    /**
+     * The body of {@code url}.
+     *
+     * @throws IOException on a URL or redirect that is not allowed, a non-2xx
+     *                     or non-image response, a body over
+     *                     {@code app.images.max-download-size}, or a network error
+     */
+    public byte[] download(String url) throws IOException, InterruptedException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid image URL: " + url, e);
+        }
+        HttpResponse<InputStream> response = null;
+        for (int redirects = 0; response == null; redirects++) {
+            check(uri);
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+            HttpResponse<InputStream> hop = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            String location = hop.headers().firstValue("Location").orElse(null);
+            if (hop.statusCode() / 100 != 3 || location == null) {
+                response = hop;
+                continue;
+            }
+            hop.body().close();
+            if (redirects == MAX_REDIRECTS) {
+                throw new IOException("Too many redirects for " + url);
+            }
+            try {
+                uri = uri.resolve(location);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid redirect from " + uri + ": " + location, e);
+            }
+        }
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + response.statusCode() + " for " + url);
+            }
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (!contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+                throw new IOException("Not an image (" + contentType + "): " + url);
+            }
+            long declared = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (declared > maxBytes) {
+                throw new IOException("Image too large (" + declared + " bytes): " + url);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(declared > 0 ? (int) declared : 64 * 1024);
+            byte[] buffer = new byte[16 * 1024];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("Image larger than " + maxBytes + " bytes: " + url);
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Refuses URLs that are not http(s), not on an allowed host, or whose
+     * host resolves to a non-public address.
+     */
+    private void check(URI uri) throws IOException {
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IOException("Unsupported image URL: " + uri);
+        }
+        String host = uri.getHost();
+        if (host == null || host.isEmpty()) {
+            throw new IOException("Invalid image URL: " + uri);
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        if (!allowedHosts.isEmpty() && !isAllowed(host)) {
+            throw new IOException("Image host not allowed: " + host);
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IOException("Unknown image host: " + host, e);
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new IOException("Image host " + host + " resolves to a non-public address");
+            }
+        }
+    }
+
+    private boolean isAllowed(String host) {
+        for (String allowed : allowedHosts) {
+            if (host.equals(allowed) || host.endsWith("." + allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            // Unique local fc00::/7, and IPv4-mapped ::ffff:a.b.c.d checked as IPv4
+            if ((bytes[0] & 0xfe) == 0xfc) {
+                return false;
+            }
+            boolean mapped = true;
+            for (int i = 0; i < 10; i++) {
+                mapped &= bytes[i] == 0;
+            }
+            if (mapped && (bytes[10] & 0xff) == 0xff && (bytes[11] & 0xff) == 0xff) {
+                try {
+                    return isPublic(InetAddress.getByAddress(new byte[] { bytes[12], bytes[13], bytes[14], bytes[15] }));
+                } catch (UnknownHostException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0/8, carrier-grade NAT 100.64/10, benchmarking 198.18/15, reserved 240/4
+            return first != 0
+                    && !(first == 100 && second >= 64 && second < 128)
+                    && !(first == 198 && (second == 18 || second == 19))
+                    && first < 240;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Perceptual hashes of artifact images, indexed in a {@link BkTree} for
+ * finding visually identical images by Hamming distance.
+ *
+ * When an artifact is written with a new or changed image, its uploaded
+ * original is read from the {@link ImageStorage}, or else its thumbnail
+ * (or the full image when there is none) is downloaded, and it is hashed locally
+ * with {@link PerceptualHash} on a small bounded pool; the hash is stored
+ * in {@code imageHash}. The hash of the previous image is dropped at once,
+ * so the artifact is never matched by a picture it no longer has, and a
+ * hash is only stored while the image it was computed from is current.
+ * Writes that overflow the queue are skipped and left to {@link #backfill}.
+ * The tree is rebuilt from the stored hashes at startup.
+ *
+ * The analysis workers take the image analysis of an identical image from
+ * {@link #findAnalyzedTwin} instead of asking for it again, and uploads
+ * reuse an identical stored image found with {@link #findIdentical}.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ImageHashIndex {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public record Result(long scanned, long hashed, long failed, long durationMs) { }
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageDownloader downloader;
+    private final ImageStorage storage;
+    private final boolean enabled;
+    private final boolean hashOnWrite;
+    private final int maxDistance;
+    private final int identicalDistance;
+    private final int concurrency;
+    private final ThreadPoolExecutor executor;
+    private final BkTree tree = new BkTree();
+    private final Map<String, Long> hashes = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ImageHashIndex(MongoTemplate mongoTemplate,
+                          ImageDownloader downloader,
+                          ImageStorage storage,
+                          @Value("${app.image-hash.enabled:true}") boolean enabled,
+                          @Value("${app.image-hash.hash-on-write:true}") boolean hashOnWrite,
+                          @Value("${app.image-hash.max-distance:6}") int maxDistance,
+                          @Value("${app.image-hash.identical-distance:2}") int identicalDistance,
+                          @Value("${app.image-hash.concurrency:4}") int concurrency,
+                          @Value("${app.image-hash.queue-capacity:10000}") int queueCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.downloader = downloader;
+        this.storage = storage;
+        this.enabled = enabled;
+        this.hashOnWrite = hashOnWrite;
+        this.maxDistance = maxDistance;
+        this.identicalDistance = identicalDistance;
+        this.concurrency = concurrency;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("image-hash-", 0).factory(),
+                (task, pool) -> log.debug("Image hash queue full, leaving an image to the backfill"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            log.info("Image hash index disabled");
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build image hash index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Re-reads the stored image hashes into a fresh tree.
+     */
+    public synchronized void rebuild() {
+        log.info("Building image hash index...");
+        long start = System.currentTimeMillis();
+        ready = false;
+        synchronized (tree) {
+            tree.clear();
+            hashes.clear();
+        }
+
+        Query query = new Query(Criteria.where("imageHash").ne(null));
+        query.fields().include("imageHash");
+        query.cursorBatchSize(BATCH_SIZE);
+        try (Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            artifacts.forEach(artifact -> put(artifact.getId(), artifact.getImageHash()));
+        }
+
+        ready = true;
+        log.info("Image hash index built: {} images in {} ms", tree.size(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isDeletion()) {
+            forget(event.artifactId());
+            return;
+        }
+        Artifact current = event.current();
+        ImageSource source = ImageSource.of(current);
+        if (source == null) {
+            forget(current.getId());
+            return;
+        }
+        boolean imageChanged = event.previous() == null || !Objects.equals(ImageSource.of(event.previous()), source);
+        if (!imageChanged && current.getImageHash() != null) {
+            put(current.getId(), current.getImageHash());
+            return;
+        }
+        if (imageChanged) {
+            forget(current.getId());
+            if (current.getImageHash() != null
+                    || (event.previous() != null && event.previous().getImageHash() != null)) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(current.getId())),
+                        new Update().unset("imageHash"), Artifact.class);
+            }
+        }
+        if (hashOnWrite) {
+            String id = current.getId();
+            executor.execute(() -> hashArtifact(id, source));
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    /**
+     * Artifacts whose image is within {@code app.image-hash.max-distance}
+     * bits of that of {@code artifactId}, nearest first; empty if its image
+     * has not been hashed.
+     */
+    public List<BkTree.Match> findVisualDuplicates(String artifactId, int limit) {
+        Long hash = hashes.get(artifactId);
+        if (hash == null) {
+            return List.of();
+        }
+        return tree.search(hash, maxDistance).stream()
+                .filter(match -> !match.id().equals(artifactId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Artifacts whose image is the same picture as one with the given hash
+     * (within {@code app.image-hash.identical-distance} bits).
+     */
+    public List<BkTree.Match> findIdentical(long hash) {
+        return tree.search(hash, identicalDistance);
+    }
+
+    /**
+     * The image-derived analysis of another artifact with the same image as
+     * {@code artifactId}, so it does not have to be analysed again.
+     */
+    public Optional<Artifact> findAnalyzedTwin(String artifactId) {
+        Long hash = hashes.get(artifactId);
+        if (hash == null) {
+            return Optional.empty();
+        }
+        List<String> twinIds = findIdentical(hash).stream()
+                .map(BkTree.Match::id)
+                .filter(id -> !id.equals(artifactId))
+                .toList();
+        if (twinIds.isEmpty()) {
+            return Optional.empty();
+        }
+        Query query = new Query(Criteria.where("_id").in(twinIds).and("analysis.imageEmbedding").ne(null));
+        query.fields().include("analysis.imageEmbedding", "analysis.detections");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Artifact.class));
+    }
+
+    /** Hash of image data, e.g. an upload, for {@link #findIdentical}. */
+    public long hash(byte[] image) throws IOException {
+        return PerceptualHash.dHash(new ByteArrayInputStream(image));
+    }
+
+    /**
+     * Hashes the images of artifacts that have none yet, or of all artifacts
+     * with an image when {@code full} is set.
+     */
+    public synchronized Result backfill(boolean full) throws InterruptedException {
+        log.info("Backfilling image hashes (full={})", full);
+        long start = System.currentTimeMillis();
+
+        Criteria hasImage = new Criteria().orOperator(
+                Criteria.where("r2ImageKey").nin(null, ""),
+                Criteria.where("thumbnailUrl").nin(null, ""),
+                Criteria.where("imageUrl").nin(null, ""));
+        Query query = new Query(full ? hasImage : new Criteria().andOperator(hasImage, Criteria.where("imageHash").is(null)));
+        query.fields().include("r2ImageKey", "imageUrl", "thumbnailUrl");
+        query.cursorBatchSize(100);
+
+        AtomicLong hashed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long scanned = 0;
+        Semaphore slots = new Semaphore(concurrency);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+             Stream<Artifact> artifacts = mongoTemplate.stream(query, Artifact.class)) {
+            for (Artifact artifact : (Iterable<Artifact>) artifacts::iterator) {
+                scanned++;
+                slots.acquire();
+                workers.execute(() -> {
+                    try {
+                        if (hashArtifact(artifact.getId(), ImageSource.of(artifact))) {
+                            hashed.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+
+        Result result = new Result(scanned, hashed.get(), failed.get(), System.currentTimeMillis() - start);
+        log.info("Image hash backfill finished: {}", result);
+        return result;
+    }
+
+    private boolean hashArtifact(String artifactId, ImageSource source) {
+        try {
+            long hash;
+            if (source.storageKey() != null) {
+                try (InputStream in = storage.open(source.storageKey())) {
+                    hash = PerceptualHash.dHash(in);
+                }
+            } else {
+                hash = hash(downloader.download(source.url()));
+            }
+            // Only if the image is still the one hashed
+            boolean current = mongoTemplate.updateFirst(Query.query(source.isCurrent(Criteria.where("_id").is(artifactId))),
+                    new Update().set("imageHash", hash), Artifact.class).getMatchedCount() > 0;
+            if (current) {
+                put(artifactId, hash);
+            }
+            return current;
+        } catch (IOException e) {
+            log.debug("Cannot hash image of artifact {} ({}): {}", artifactId, source, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Changes to hashes and tree are made together under the tree's monitor
+    private void put(String artifactId, long hash) {
+        synchronized (tree) {
+            Long previous = hashes.put(artifactId, hash);
+            if (previous != null && previous != hash) {
+                tree.remove(previous, artifactId);
+            }
+            tree.put(hash, artifactId);
+        }
+    }
+
+    private void forget(String artifactId) {
+        synchronized (tree) {
+            Long previous = hashes.remove(artifactId);
+            if (previous == null) {
+                return;
+            }
+            tree.remove(previous, artifactId);
+            if (tree.emptyNodes() > Math.max(1000, tree.size() / 2)) {
+                log.info("Compacting image hash index ({} empty nodes)", tree.emptyNodes());
+                tree.clear();
+                hashes.forEach((id, h) -> tree.put(h, id));
+            }
+        }
+    }
+
+    /**
+     * Where the image of an artifact is read from for hashing: its uploaded
+     * original in the storage, else its thumbnail or full image URL.
+     */
+    private record ImageSource(String storageKey, String url) {
+
+        static ImageSource of(Artifact artifact) {
+            if (hasText(artifact.getR2ImageKey())) {
+                return new ImageSource(artifact.getR2ImageKey(), null);
+            }
+            if (hasText(artifact.getThumbnailUrl())) {
+                return new ImageSource(null, artifact.getThumbnailUrl());
+            }
+            if (hasText(artifact.getImageUrl())) {
+                return new ImageSource(null, artifact.getImageUrl());
+            }
+            return null;
+        }
+
+        /** Narrows {@code criteria} to artifacts whose image is still this one. */
+        Criteria isCurrent(Criteria criteria) {
+            if (storageKey != null) {
+                return criteria.and("r2ImageKey").is(storageKey);
+            }
+            return criteria.and("r2ImageKey").in(null, "")
+                    .orOperator(Criteria.where("thumbnailUrl").is(url), Criteria.where("imageUrl").is(url));
+        }
+
+        @Override
+        public String toString() {
+            return storageKey != null ? "stored " + storageKey : url;
+        }
+
+        private static boolean hasText(String value) {
+            return value != null && !value.isBlank();
+        }
+    }
+}
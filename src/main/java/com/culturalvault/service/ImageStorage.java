@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object storage for artifact images (originals and generated thumbnails),
+ * addressed by slash-separated keys such as
+ * {@code thumbnails/<id>/<version>/320.jpg}.
+ *
+ * The implementation is selected with {@code app.storage.type}:
+ * {@code local} ({@link LocalImageStorage}, the default, for development and
+ * tests) or {@code r2} ({@link S3ImageStorage}, Cloudflare R2 or any
+ * S3-compatible store).
+ *
+ * @author parth
+ */
+public interface ImageStorage {
+
+    /** Stores {@code data} under {@code key}, replacing any existing object. */
+    void put(String key, byte[] data, String contentType) throws IOException;
+
+    /**
+     * Stores the rest of {@code data} under {@code key}, streaming it with a
+     * fixed-size buffer whatever its length. Nothing is stored if reading
+     * {@code data} fails.
+     *
+     * @return the number of bytes stored
+     */
+    long put(String key, InputStream data, String contentType) throws IOException;
+
+    /**
+     * Opens the object for reading; the caller closes the stream.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such object
+     */
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Moves an object to another key (within the store, without
+     * transferring its content through this process).
+     */
+    void move(String fromKey, String toKey) throws IOException;
+
+    /** Deletes the object; does nothing if it does not exist. */
+    void delete(String key) throws IOException;
+}
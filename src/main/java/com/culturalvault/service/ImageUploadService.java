@@ -0,0 +1,295 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ImageBlob;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Uploads of artifact images, streamed from the request body straight into
+ * the {@link ImageStorage}.
+ *
+ * The content type is sniffed with Tika from the first bytes (only images
+ * are accepted) and a SHA-256 of the content is computed as it passes
+ * through. Nothing is held in memory beyond fixed-size buffers, and at most
+ * {@code app.uploads.max-concurrent} uploads run at once, so heap use stays
+ * bounded however large or numerous the uploads are.
+ *
+ * Images are stored content-addressed through {@link ImageBlobService}: the
+ * body is staged, and once its hash is known it either becomes a new blob or
+ * is dropped in favour of the identical one already stored. New content is
+ * also looked up in the {@link ImageHashIndex}: when another artifact's
+ * stored image is the same picture and at least as large, that one is used
+ * instead (unless {@code app.uploads.reuse-identical} is off).
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ImageUploadService {
+
+    // Enough for Tika's magic-byte detection
+    private static final int SNIFF_BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    public record Result(String artifactId, String key, String contentType, long size, String sha256,
+                         boolean deduplicated) { }
+
+    /** An upload refused because of its content. */
+    public static class RejectedException extends IllegalArgumentException {
+
+        public enum Reason { UNSUPPORTED_TYPE, TOO_LARGE, DIGEST_MISMATCH }
+
+        private final Reason reason;
+
+        public RejectedException(Reason reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+    }
+
+    private final ArtifactService artifactService;
+    private final ImageBlobService imageBlobService;
+    private final ImageStorage storage;
+    private final ImageHashIndex imageHashIndex;
+    private final boolean reuseIdentical;
+    private final Tika tika = new Tika();
+    private final long maxBytes;
+    private final Duration acquireTimeout;
+    private final Semaphore slots;
+
+    public ImageUploadService(ArtifactService artifactService,
+                              ImageBlobService imageBlobService,
+                              ImageStorage storage,
+                              ImageHashIndex imageHashIndex,
+                              @Value("${app.uploads.max-size:200MB}") DataSize maxSize,
+                              @Value("${app.uploads.max-concurrent:4}") int maxConcurrent,
+                              @Value("${app.uploads.acquire-timeout:PT10S}") Duration acquireTimeout,
+                              @Value("${app.uploads.reuse-identical:true}") boolean reuseIdentical) {
+        this.artifactService = artifactService;
+        this.imageBlobService = imageBlobService;
+        this.storage = storage;
+        this.imageHashIndex = imageHashIndex;
+        this.reuseIdentical = reuseIdentical;
+        this.maxBytes = maxSize.toBytes();
+        this.acquireTimeout = acquireTimeout;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Stores {@code body} as the image of an artifact, replacing its
+     * previous one. Content that is already stored is not stored again; if
+     * the client names it with {@code claimedSha256}, the body is not even
+     * read.
+     *
+     * @param declaredLength the request's Content-Length, or -1 if unknown
+     * @param claimedSha256  hex SHA-256 of the body according to the client, or null
+     * @throws NoSuchElementException if there is no such artifact
+     * @throws RejectedException if the content is not an image, too large,
+     *                           or does not match {@code claimedSha256}
+     * @throws IllegalStateException if too many uploads are in progress
+     */
+    public Result upload(String artifactId, InputStream body, long declaredLength, String claimedSha256)
+            throws IOException {
+        if (!artifactService.existsById(artifactId)) {
+            throw new NoSuchElementException("Artifact not found with ID: " + artifactId);
+        }
+        String claimed = claimedSha256 == null ? null : claimedSha256.trim().toLowerCase(Locale.ROOT);
+        if (claimed != null && !SHA256_HEX.matcher(claimed).matches()) {
+            throw new RejectedException(RejectedException.Reason.DIGEST_MISMATCH,
+                    "Not a hex SHA-256: " + claimedSha256);
+        }
+        if (claimed != null) {
+            Optional<ImageBlob> stored = imageBlobService.acquire(claimed);
+            if (stored.isPresent()) {
+                return link(artifactId, stored.get(), true);
+            }
+        }
+        if (declaredLength > maxBytes) {
+            throw new RejectedException(RejectedException.Reason.TOO_LARGE,
+                    "Image larger than " + maxBytes + " bytes");
+        }
+        try {
+            if (!slots.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many uploads in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an upload slot");
+        }
+        ImageBlobService.Stored stored;
+        try {
+            stored = store(body, claimed);
+        } finally {
+            slots.release();
+        }
+        return link(artifactId, stored.blob(), stored.deduplicated());
+    }
+
+    /** Streams the body to a staging object and turns it into a blob. */
+    private ImageBlobService.Stored store(InputStream body, String claimedSha256) throws IOException {
+        InputStream in = new BufferedInputStream(body, SNIFF_BUFFER_SIZE);
+        String contentType = tika.detect(in);
+        if (!contentType.startsWith("image/")) {
+            throw new RejectedException(RejectedException.Reason.UNSUPPORTED_TYPE,
+                    "Not an image: " + contentType);
+        }
+
+        MessageDigest digest = sha256();
+        String stagingKey = "staging/" + UUID.randomUUID();
+        long size;
+        try (InputStream content = new DigestInputStream(new LimitedInputStream(in, maxBytes), digest)) {
+            size = storage.put(stagingKey, content, contentType);
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        if (claimedSha256 != null && !claimedSha256.equals(sha256)) {
+            storage.delete(stagingKey);
+            throw new RejectedException(RejectedException.Reason.DIGEST_MISMATCH,
+                    "Content SHA-256 is " + sha256 + ", not " + claimedSha256);
+        }
+        if (imageBlobService.find(sha256).isEmpty()) {
+            Optional<ImageBlob> twin = acquireIdentical(stagingKey, size);
+            if (twin.isPresent()) {
+                storage.delete(stagingKey);
+                return new ImageBlobService.Stored(twin.get(), true);
+            }
+        }
+        return imageBlobService.store(sha256, stagingKey, contentType, size);
+    }
+
+    /**
+     * Takes a reference to another artifact's stored image that is the same
+     * picture as the staged one and at least as large, so nothing is lost by
+     * using it instead.
+     */
+    private Optional<ImageBlob> acquireIdentical(String stagingKey, long size) {
+        if (!reuseIdentical || !imageHashIndex.isAvailable()) {
+            return Optional.empty();
+        }
+        long hash;
+        try (InputStream in = storage.open(stagingKey)) {
+            hash = PerceptualHash.dHash(in);
+        } catch (IOException e) {
+            // Not decodable here: stored as it is
+            return Optional.empty();
+        }
+        for (BkTree.Match match : imageHashIndex.findIdentical(hash)) {
+            String twinSha256 = artifactService.getArtifactById(match.id())
+                    .map(Artifact::getImageSha256)
+                    .orElse(null);
+            boolean usable = twinSha256 != null
+                    && imageBlobService.find(twinSha256).filter(blob -> blob.getSize() >= size).isPresent();
+            if (!usable) {
+                continue;
+            }
+            Optional<ImageBlob> acquired = imageBlobService.acquire(twinSha256);
+            if (acquired.isPresent()) {
+                log.debug("Upload is the same picture as the image of artifact {}, using {}", match.id(), twinSha256);
+                return acquired;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Points the artifact at a blob the caller holds a reference to. */
+    private Result link(String artifactId, ImageBlob blob, boolean deduplicated) throws IOException {
+        Artifact previous;
+        try {
+            previous = artifactService.getArtifactById(artifactId).orElseThrow();
+            artifactService.updateStoredImage(artifactId, blob.getKey(), blob.getId());
+        } catch (RuntimeException e) {
+            // Deleted meanwhile
+            imageBlobService.release(blob.getId());
+            throw new NoSuchElementException("Artifact not found with ID: " + artifactId);
+        }
+        if (blob.getId().equals(previous.getImageSha256())) {
+            // Same image again: the artifact already held a reference
+            imageBlobService.release(blob.getId());
+        } else if (previous.getR2ImageKey() != null
+                && previous.getR2ImageKey().startsWith("originals/" + artifactId + "/")) {
+            // Uploaded before content addressing; not shared with anything
+            storage.delete(previous.getR2ImageKey());
+        }
+        log.info("Stored image of artifact {}: {} ({}, {} bytes{})", artifactId, blob.getKey(),
+                blob.getContentType(), blob.getSize(), deduplicated ? ", already stored" : "");
+        return new Result(artifactId, blob.getKey(), blob.getContentType(), blob.getSize(), blob.getId(), deduplicated);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Fails the read once more than {@code limit} bytes have been read. */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        private void counted(int read) {
+            count += read;
+            if (count > limit) {
+                throw new RejectedException(RejectedException.Reason.TOO_LARGE,
+                        "Image larger than " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.culturalvault.model.CursorPage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keyset ("seek") pagination over a MongoDB collection.
+ *
+ * Results are ordered by the requested sort field with {@code _id} as a tie
+ * breaker, and each page starts right after the last (sort value, _id) pair
+ * of the previous one. The position is handed to the client as an opaque
+ * URL-safe cursor, so deep pages cost the same as the first one and no total
+ * count is ever computed.
+ *
+ * @author parth
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPaginator {
+
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Fetches one page.
+     *
+     * @param domainType  mapped document type that determines the collection
+     * @param filter      additional criteria, or null for the whole collection
+     * @param sortBy      field to order by ({@code id} for insertion order)
+     * @param direction   sort direction
+     * @param cursor      cursor from the previous page, or null/blank for the first page
+     * @param size        page size
+     * @param resultType  type each document is read into
+     * @param fields      fields to load, or none to load whole documents
+     */
+    public <T> CursorPage<T> page(Class<?> domainType, Criteria filter, String sortBy, Sort.Direction direction,
+                                  String cursor, int size, Class<T> resultType, String... fields) {
+        String sortField = toFieldName(sortBy);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter != null) {
+            criteria.add(filter);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            criteria.add(seekCriteria(Position.decode(cursor, sortField, direction)));
+        }
+
+        Query query = new Query();
+        if (criteria.size() == 1) {
+            query.addCriteria(criteria.get(0));
+        } else if (criteria.size() > 1) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(sortField.equals("_id")
+                ? Sort.by(direction, "_id")
+                : Sort.by(direction, sortField).and(Sort.by(direction, "_id")));
+        query.limit(limit + 1);
+        if (fields.length > 0) {
+            query.fields().include(fields).include(sortField, "_id");
+        }
+
+        String collection = mongoTemplate.getCollectionName(domainType);
+        List<Document> documents = mongoTemplate.find(query, Document.class, collection);
+
+        String nextCursor = null;
+        if (documents.size() > limit) {
+            documents = documents.subList(0, limit);
+            Document last = documents.get(limit - 1);
+            nextCursor = new Position(sortField, direction, last.get(sortField), last.get("_id")).encode();
+        }
+
+        List<T> content = documents.stream()
+                .map(document -> mongoTemplate.getConverter().read(resultType, document))
+                .toList();
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private static String toFieldName(String sortBy) {
+        if (sortBy == null || sortBy.isBlank() || sortBy.equals("id") || sortBy.equals("_id")) {
+            return "_id";
+        }
+        if (!FIELD_NAME.matcher(sortBy).matches()) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy);
+        }
+        return sortBy;
+    }
+
+    /**
+     * Everything strictly after the given position in the sort order. MongoDB
+     * sorts null/missing values before all others, so they come last in a
+     * descending listing and first in an ascending one.
+     */
+    private static Criteria seekCriteria(Position position) {
+        boolean descending = position.direction().isDescending();
+        Object value = position.value();
+        Object id = position.id();
+
+        Criteria afterId = descending ? Criteria.where("_id").lt(id) : Criteria.where("_id").gt(id);
+        if (position.field().equals("_id")) {
+            return afterId;
+        }
+
+        Criteria sameValue = descending
+                ? Criteria.where(position.field()).is(value).and("_id").lt(id)
+                : Criteria.where(position.field()).is(value).and("_id").gt(id);
+
+        if (value == null) {
+            return descending
+                    ? sameValue
+                    : new Criteria().orOperator(sameValue, Criteria.where(position.field()).ne(null));
+        }
+        return descending
+                ? new Criteria().orOperator(
+                        Criteria.where(position.field()).lt(value),
+                        sameValue,
+                        Criteria.where(position.field()).is(null))
+                : new Criteria().orOperator(
+                        Criteria.where(position.field()).gt(value),
+                        sameValue);
+    }
+
+    private record Position(String field, Sort.Direction direction, Object value, Object id) {
+
+        String encode() {
+            String raw = field + "\n" + direction.name() + "\n" + encodeValue(id) + "\n" + encodeValue(value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String cursor, String expectedField, Sort.Direction expectedDirection) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            if (parts.length != 4 || !parts[0].equals(expectedField) || !parts[1].equals(expectedDirection.name())) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            return new Position(parts[0], expectedDirection, decodeValue(parts[3]), decodeValue(parts[2]));
+        }
+
+        private static String encodeValue(Object value) {
+            if (value == null) {
+                return "z:";
+            } else if (value instanceof ObjectId objectId) {
+                return "o:" + objectId.toHexString();
+            } else if (value instanceof String string) {
+                return "s:" + string;
+            } else if (value instanceof Date date) {
+                return "d:" + date.getTime();
+            } else if (value instanceof Integer number) {
+                return "i:" + number;
+            } else if (value instanceof Long number) {
+                return "l:" + number;
+            } else if (value instanceof Double number) {
+                return "f:" + number;
+            } else if (value instanceof Boolean bool) {
+                return "b:" + bool;
+            }
+            throw new IllegalArgumentException("Cannot paginate on values of type " + value.getClass().getSimpleName());
+        }
+
+        private static Object decodeValue(String encoded) {
+            if (encoded.length() < 2 || encoded.charAt(1) != ':') {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String body = encoded.substring(2);
+            try {
+                return switch (encoded.charAt(0)) {
+                    case 'z' -> null;
+                    case 'o' -> new ObjectId(body);
+                    case 's' -> body;
+                    case 'd' -> new Date(Long.parseLong(body));
+                    case 'i' -> Integer.valueOf(body);
+                    case 'l' -> Long.valueOf(body);
+                    case 'f' -> Double.valueOf(body);
+                    case 'b' -> Boolean.valueOf(body);
+                    default -> throw new IllegalArgumentException("Invalid cursor");
+                };
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Leasing of the documents of a Mongo collection used as a work queue, on
+ * any number of nodes.
+ *
+ * A document waits in the {@code waiting} status until its
+ * {@code availableAt}. A worker claims it atomically with
+ * {@code findAndModify}, which moves it to the {@code leased} status,
+ * counts the attempt and leases it for {@code lease}; only the lease owner
+ * can then finish, retry or release it. A document whose lease ran out is
+ * claimed again, unless that was its last allowed attempt: those are left to
+ * {@link #expireDeadLeases}. Retries wait with exponential backoff from
+ * {@code backoff} up to {@code maxBackoff}.
+ *
+ * The documents need {@code status}, {@code attempts}, {@code availableAt},
+ * {@code leaseOwner}, {@code leaseExpiresAt} and {@code updatedAt} fields.
+ *
+ * @author parth
+ */
+public class LeasedQueue<T> {
+
+    private final MongoTemplate mongoTemplate;
+    private final Class<T> type;
+    private final Enum<?> waiting;
+    private final Enum<?> leased;
+    private final String errorField;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+
+    /**
+     * @param errorField the field a retried document's error is kept in
+     */
+    public LeasedQueue(MongoTemplate mongoTemplate, Class<T> type, Enum<?> waiting, Enum<?> leased, String errorField,
+                       Duration lease, int maxAttempts, Duration backoff, Duration maxBackoff) {
+        this.mongoTemplate = mongoTemplate;
+        this.type = type;
+        this.waiting = waiting;
+        this.leased = leased;
+        this.errorField = errorField;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Leases a document whose lease ran out, or else the longest waiting
+     * available one, to {@code owner}.
+     *
+     * @param update further changes made on claiming, e.g. a start time
+     * @return the claimed document, or null if there is none
+     */
+    public T claim(String owner, Supplier<Update> update) {
+        LocalDateTime now = LocalDateTime.now();
+        T claimed = claim(owner, new Query(Criteria.where("status").is(leased)
+                .and("leaseExpiresAt").lte(now)
+                .and("attempts").lt(maxAttempts)), update, now);
+        if (claimed == null) {
+            claimed = claim(owner, new Query(Criteria.where("status").is(waiting)
+                    .and("availableAt").lte(now))
+                    .with(Sort.by("availableAt")), update, now);
+        }
+        return claimed;
+    }
+
+    private T claim(String owner, Query query, Supplier<Update> update, LocalDateTime now) {
+        return mongoTemplate.findAndModify(query,
+                update.get().set("status", leased)
+                        .set("leaseOwner", owner)
+                        .set("leaseExpiresAt", now.plus(lease))
+                        .inc("attempts", 1)
+                        .set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true), type);
+    }
+
+    /**
+     * Ends the lease of a document with {@code update}, which sets its final
+     * status.
+     *
+     * @return false if {@code owner} no longer holds the lease
+     */
+    public boolean finish(String owner, String id, Update update) {
+        return mongoTemplate.updateFirst(leasedBy(owner, List.of(id)),
+                update.unset("leaseOwner").unset("leaseExpiresAt").set("updatedAt", LocalDateTime.now()),
+                type).getModifiedCount() > 0;
+    }
+
+    /**
+     * Puts a document that failed its {@code attempts}th attempt back after
+     * a backoff, keeping the error.
+     *
+     * @return false, writing nothing, if it has no attempts left
+     */
+    public boolean retry(String owner, String id, int attempts, String error) {
+        if (attempts >= maxAttempts) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateFirst(leasedBy(owner, List.of(id)),
+                new Update().set("status", waiting).set("availableAt", now.plus(backoff(attempts)))
+                        .set(errorField, error).unset("leaseOwner").unset("leaseExpiresAt").set("updatedAt", now),
+                type);
+        return true;
+    }
+
+    /**
+     * Hands documents back without counting the attempt, e.g. on shutdown
+     * or when the work could not be started.
+     */
+    public void release(String owner, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(leasedBy(owner, ids),
+                new Update().set("status", waiting).unset("leaseOwner").unset("leaseExpiresAt")
+                        .inc("attempts", -1).set("updatedAt", LocalDateTime.now()),
+                type);
+    }
+
+    /**
+     * Ends the leases that ran out on their last allowed attempt (the
+     * worker died or hung on it) with {@code update}, which sets the final
+     * status.
+     *
+     * @return the number of documents changed
+     */
+    public long expireDeadLeases(Update update) {
+        LocalDateTime now = LocalDateTime.now();
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").is(leased)
+                        .and("leaseExpiresAt").lte(now)
+                        .and("attempts").gte(maxAttempts)),
+                update.unset("leaseOwner").unset("leaseExpiresAt").set("updatedAt", now),
+                type).getModifiedCount();
+    }
+
+    /** Delay before retry {@code attempts + 1}: doubling, capped, with jitter. */
+    Duration backoff(int attempts) {
+        long millis = backoff.toMillis() << Math.min(Math.max(attempts - 1, 0), 20);
+        millis = Math.min(millis, maxBackoff.toMillis());
+        // +-20% so documents that failed together do not all come back together
+        return Duration.ofMillis((long) (millis * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+    }
+
+    private Query leasedBy(String owner, Collection<String> ids) {
+        return Query.query(Criteria.where("_id").in(ids)
+                .and("status").is(leased)
+                .and("leaseOwner").is(owner));
+    }
+}
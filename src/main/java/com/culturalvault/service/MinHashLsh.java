@@ -0,0 +1,299 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash signatures of text with a banded locality-sensitive hashing index,
+ * for finding near-duplicate texts without comparing against every entry.
+ *
+ * Text is normalized (accents stripped, lower-cased, punctuation removed)
+ * and cut into overlapping character shingles. Each signature holds
+ * {@code bands * rows} minimum hash values; the fraction of equal values
+ * estimates the Jaccard similarity of two shingle sets. Entries that agree
+ * on all rows of at least one band become candidates, which are then
+ * checked against the full signature, so a lookup only touches the few
+ * entries sharing a bucket. Pairs at the threshold
+ * {@code (1 / bands) ^ (1 / rows)} are found about half the time; pairs well
+ * above it almost always.
+ *
+ * Thread-safe: lookups share a read lock, changes take the write lock.
+ *
+ * @author parth
+ */
+public class MinHashLsh {
+
+    public record Match(String id, double similarity) { }
+
+    private final int bands;
+    private final int rows;
+    private final int shingleSize;
+    private final long[] seeds;
+    private final Map<String, int[]> signatures = new HashMap<>();
+    // Per band: bucket key -> id (String) or ids (List<String>); most buckets hold a single id
+    private final List<Map<Long, Object>> buckets = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public MinHashLsh(int bands, int rows, int shingleSize) {
+        if (bands < 1 || rows < 1 || shingleSize < 1) {
+            throw new IllegalArgumentException("bands, rows and shingleSize must be positive");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.shingleSize = shingleSize;
+        // Fixed seed: signatures must not change between runs
+        SplittableRandom random = new SplittableRandom(0x5EED_D0C5L);
+        this.seeds = new long[bands * rows];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+        for (int b = 0; b < bands; b++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Signature of the given text, or null when it has fewer than
+     * {@code minShingles} distinct shingles (too short to compare reliably).
+     */
+    public int[] signature(String text, int minShingles) {
+        long[] shingles = shingles(text);
+        if (shingles.length < Math.max(1, minShingles)) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            long min = Long.MAX_VALUE;
+            for (long shingle : shingles) {
+                long h = mix(shingle ^ seeds[i]);
+                if (h < min) {
+                    min = h;
+                }
+            }
+            signature[i] = (int) (min >>> 32);
+        }
+        return signature;
+    }
+
+    public void put(String id, int[] signature) {
+        if (signature.length != seeds.length) {
+            throw new IllegalArgumentException("Expected a signature of length " + seeds.length);
+        }
+        lock.writeLock().lock();
+        try {
+            int[] previous = signatures.put(id, signature);
+            if (previous != null) {
+                unbucket(id, previous);
+            }
+            for (int b = 0; b < bands; b++) {
+                buckets.get(b).merge(bandKey(signature, b), id, MinHashLsh::addToBucket);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int[] previous = signatures.remove(id);
+            if (previous != null) {
+                unbucket(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.forEach(Map::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return signatures.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] get(String id) {
+        lock.readLock().lock();
+        try {
+            return signatures.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> ids() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(signatures.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries whose estimated similarity to {@code signature} is at least
+     * {@code threshold}, most similar first.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Match> query(int[] signature, double threshold, int limit, String excludeId) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<String> seen = new HashSet<>();
+            for (int b = 0; b < bands; b++) {
+                Object bucket = buckets.get(b).get(bandKey(signature, b));
+                if (bucket == null) {
+                    continue;
+                }
+                List<String> ids = bucket instanceof String single ? List.of(single) : (List<String>) bucket;
+                for (String id : ids) {
+                    if (id.equals(excludeId) || !seen.add(id)) {
+                        continue;
+                    }
+                    double similarity = similarity(signature, signatures.get(id));
+                    if (similarity >= threshold) {
+                        matches.add(new Match(id, similarity));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparing(Match::id));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /** Estimated Jaccard similarity of the texts behind two signatures. */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    long[] shingles(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        if (normalized.length() <= shingleSize) {
+            return new long[] { hash(normalized, 0, normalized.length()) };
+        }
+        int count = normalized.length() - shingleSize + 1;
+        long[] shingles = new long[count];
+        for (int i = 0; i < count; i++) {
+            shingles[i] = hash(normalized, i, i + shingleSize);
+        }
+        Arrays.sort(shingles);
+        int distinct = 0;
+        for (int i = 0; i < shingles.length; i++) {
+            if (i == 0 || shingles[i] != shingles[i - 1]) {
+                shingles[distinct++] = shingles[i];
+            }
+        }
+        return Arrays.copyOf(shingles, distinct);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unbucket(String id, int[] signature) {
+        for (int b = 0; b < bands; b++) {
+            Map<Long, Object> band = buckets.get(b);
+            long key = bandKey(signature, b);
+            Object bucket = band.get(key);
+            if (bucket instanceof String single) {
+                if (single.equals(id)) {
+                    band.remove(key);
+                }
+            } else if (bucket != null) {
+                List<String> ids = (List<String>) bucket;
+                ids.remove(id);
+                if (ids.size() == 1) {
+                    band.put(key, ids.get(0));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object addToBucket(Object bucket, Object id) {
+        if (bucket instanceof String single) {
+            List<String> ids = new ArrayList<>(2);
+            ids.add(single);
+            ids.add((String) id);
+            return ids;
+        }
+        ((List<String>) bucket).add((String) id);
+        return bucket;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            key = mix(key * 31 + signature[r]);
+        }
+        return key;
+    }
+
+    private static long hash(String s, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identifies this application instance among the nodes sharing the
+ * database, e.g. as the owner of leased work ({@code app.node-id}, by
+ * default host, pid and a random suffix).
+ *
+ * @author parth
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String id) {
+        this.id = id.isBlank() ? defaultId() : id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        // The pid tells nodes apart on one host, the suffix restarts of one process
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid()
+                + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * 64-bit difference hash (dHash) of images, computed locally with ImageIO.
+ *
+ * The image is reduced to a 9x8 grid of average luminance and each bit
+ * records whether a cell is darker than its right-hand neighbour. Resizing,
+ * recompression and small colour changes flip few bits, so the Hamming
+ * distance between two hashes ({@link #distance}) measures how different two
+ * images look: 0-2 is the same picture, up to about 10 a close variant.
+ *
+ * @author parth
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+    /** Images are decoded subsampled to about this many pixels on the short side. */
+    private static final int DECODE_SIZE = 256;
+
+    private PerceptualHash() {
+    }
+
+    public static long dHash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return dHash(in);
+        }
+    }
+
+    /**
+     * Decodes the image (subsampled, so large originals are not fully
+     * decoded into memory) and hashes it.
+     *
+     * @throws IOException if the data is not in a format ImageIO can read
+     */
+    public static long dHash(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / DECODE_SIZE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return dHash(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[][] cells = shrink(image);
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                hash <<= 1;
+                if (cells[y][x] < cells[y][x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /** Average luminance of each cell of a WIDTH x HEIGHT grid over the image. */
+    private static double[][] shrink(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[][] sums = new double[HEIGHT][WIDTH];
+        int[][] counts = new int[HEIGHT][WIDTH];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellY = (int) ((long) y * HEIGHT / height);
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                double alpha = (argb >>> 24) / 255.0;
+                double luminance = 0.299 * ((argb >> 16) & 0xff) + 0.587 * ((argb >> 8) & 0xff) + 0.114 * (argb & 0xff);
+                // Transparent areas count as white
+                int cellX = (int) ((long) x * WIDTH / width);
+                sums[cellY][cellX] += alpha * luminance + (1 - alpha) * 255;
+                counts[cellY][cellX]++;
+            }
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                // Images narrower or lower than the grid leave cells empty
+                sums[y][x] = counts[y][x] == 0 ? 0 : sums[y][x] / counts[y][x];
+            }
+        }
+        return sums;
+    }
+}
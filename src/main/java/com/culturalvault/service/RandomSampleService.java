@@ -0,0 +1,283 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.Story;
+import com.culturalvault.model.StoryGenre;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Random picks of artifacts and stories from pools of ids held in memory,
+ * replacing a {@code $sample} aggregation per request.
+ *
+ * There is one pool for each collection and one per artifact category and
+ * story genre. Each pool is a shuffled sample of up to
+ * {@code app.random-pools.max-pool-size} ids, drawn uniformly in a single
+ * streaming pass and redrawn every {@code app.random-pools.refresh-interval},
+ * so large collections are covered over successive refreshes. Picks walk a
+ * pool from a shared cursor, which hands out distinct ids until the pool
+ * wraps around; a client identified by key is additionally not given the
+ * ids of its last {@code app.random-pools.repeat-window} picks while the
+ * pool has others.
+ *
+ * Until the first refresh has finished nothing is returned, and callers
+ * fall back to {@code $sample}.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class RandomSampleService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxPoolSize;
+    private final int repeatWindow;
+    private final SplittableRandom random = new SplittableRandom();
+    private final Map<String, RecentPicks> clients;
+
+    private volatile Pools artifactPools;
+    private volatile Pools storyPools;
+
+    public RandomSampleService(MongoTemplate mongoTemplate,
+                               @Value("${app.random-pools.max-pool-size:5000}") int maxPoolSize,
+                               @Value("${app.random-pools.repeat-window:50}") int repeatWindow,
+                               @Value("${app.random-pools.max-clients:10000}") int maxClients) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxPoolSize = maxPoolSize;
+        this.repeatWindow = repeatWindow;
+        // Access-ordered, so the clients not seen for longest are forgotten first
+        this.clients = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecentPicks> eldest) {
+                return size() > maxClients;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduledRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.random-pools.refresh-interval:PT10M}",
+               initialDelayString = "${app.random-pools.refresh-interval:PT10M}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Failed to refresh random sample pools: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Redraws every pool.
+     */
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        Pools artifacts = build(Artifact.class, "categoryKey");
+        Pools stories = build(Story.class, "genre");
+        artifactPools = artifacts;
+        storyPools = stories;
+        log.info("Random sample pools refreshed: {} artifact ids in {} categories, {} story ids in {} genres in {} ms",
+                artifacts.all().size(), artifacts.groups().size(),
+                stories.all().size(), stories.groups().size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Up to {@code count} random artifact ids, of one category if
+     * {@code categoryKey} is not null.
+     *
+     * @param client key of the client to avoid repeats for, or null
+     * @return the ids, or empty if the pools are not built yet
+     */
+    public Optional<List<String>> pickArtifactIds(String categoryKey, int count, String client) {
+        return pick(artifactPools, categoryKey, count, client);
+    }
+
+    /**
+     * Up to {@code count} random story ids, of one genre if {@code genre}
+     * is not null.
+     *
+     * @param client key of the client to avoid repeats for, or null
+     * @return the ids, or empty if the pools are not built yet
+     */
+    public Optional<List<String>> pickStoryIds(StoryGenre genre, int count, String client) {
+        return pick(storyPools, genre == null ? null : genre.name(), count, client);
+    }
+
+    private Optional<List<String>> pick(Pools pools, String group, int count, String client) {
+        if (pools == null) {
+            return Optional.empty();
+        }
+        Pool pool = group == null ? pools.all() : pools.groups().get(group);
+        if (pool == null || count <= 0) {
+            return Optional.of(List.of());
+        }
+        RecentPicks recent = client == null || repeatWindow <= 0 ? null : recentPicks(client);
+        List<String> picked = pool.take(count, recent);
+        if (recent != null) {
+            recent.addAll(picked);
+        }
+        return Optional.of(picked);
+    }
+
+    private RecentPicks recentPicks(String client) {
+        synchronized (clients) {
+            return clients.computeIfAbsent(client, key -> new RecentPicks(repeatWindow));
+        }
+    }
+
+    /**
+     * Samples the ids of a collection, overall and per value of
+     * {@code groupField}, with one reservoir each.
+     */
+    private Pools build(Class<?> type, String groupField) {
+        Reservoir all = new Reservoir();
+        Map<String, Reservoir> groups = new HashMap<>();
+        Query query = new Query();
+        query.fields().include(groupField);
+        query.cursorBatchSize(BATCH_SIZE);
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(type))) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                String id = document.get("_id").toString();
+                all.offer(id);
+                Object group = document.get(groupField);
+                if (group != null) {
+                    groups.computeIfAbsent(group.toString(), key -> new Reservoir()).offer(id);
+                }
+            }
+        }
+        Map<String, Pool> groupPools = new HashMap<>();
+        groups.forEach((group, reservoir) -> groupPools.put(group, reservoir.toPool()));
+        return new Pools(all.toPool(), groupPools);
+    }
+
+    private record Pools(Pool all, Map<String, Pool> groups) { }
+
+    /** Uniform sample of at most maxPoolSize of the ids offered (algorithm R). */
+    private final class Reservoir {
+
+        private final List<String> ids = new ArrayList<>();
+        private long seen;
+
+        void offer(String id) {
+            seen++;
+            if (ids.size() < maxPoolSize) {
+                ids.add(id);
+            } else {
+                long slot = random.nextLong(seen);
+                if (slot < maxPoolSize) {
+                    ids.set((int) slot, id);
+                }
+            }
+        }
+
+        Pool toPool() {
+            String[] shuffled = ids.toArray(String[]::new);
+            for (int i = shuffled.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String swap = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = swap;
+            }
+            return new Pool(shuffled, random.nextInt(Math.max(shuffled.length, 1)));
+        }
+    }
+
+    /** A shuffled, immutable array of ids read from a shared cursor. */
+    private static final class Pool {
+
+        private final String[] ids;
+        private final AtomicInteger cursor;
+
+        Pool(String[] ids, int start) {
+            this.ids = ids;
+            this.cursor = new AtomicInteger(start);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        /**
+         * Up to {@code count} distinct ids, skipping those in {@code recent}
+         * unless the pool has too few others.
+         */
+        List<String> take(int count, RecentPicks recent) {
+            int wanted = Math.min(count, ids.length);
+            List<String> picked = new ArrayList<>(wanted);
+            int skipped = 0;
+            for (int tried = 0; tried < ids.length && picked.size() < wanted; tried++) {
+                String id = ids[Math.floorMod(cursor.getAndIncrement(), ids.length)];
+                if (recent != null && recent.contains(id)) {
+                    skipped++;
+                } else if (!picked.contains(id)) {
+                    picked.add(id);
+                }
+            }
+            if (picked.size() < wanted && skipped > 0) {
+                // A repeat rather than a short answer
+                for (int tried = 0; tried < ids.length && picked.size() < wanted; tried++) {
+                    String id = ids[Math.floorMod(cursor.getAndIncrement(), ids.length)];
+                    if (!picked.contains(id)) {
+                        picked.add(id);
+                    }
+                }
+            }
+            return picked;
+        }
+    }
+
+    /** The ids last picked for one client, oldest first. */
+    private static final class RecentPicks {
+
+        private final int window;
+        private final LinkedHashSet<String> ids = new LinkedHashSet<>();
+
+        RecentPicks(int window) {
+            this.window = window;
+        }
+
+        synchronized boolean contains(String id) {
+            return ids.contains(id);
+        }
+
+        synchronized void addAll(List<String> picked) {
+            for (String id : picked) {
+                ids.remove(id);
+                ids.add(id);
+            }
+            while (ids.size() > window) {
+                ids.remove(ids.iterator().next());
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spaces calls evenly so that no more than {@code permits} start per
+ * {@code period}, shared by every thread using the same instance.
+ *
+ * Callers block in {@link #acquire()} until their slot; a lock is used
+ * rather than {@code synchronized} so that waiting virtual threads do not
+ * pin their carrier thread.
+ *
+ * @author parth
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextSlot = System.nanoTime();
+
+    public RateLimiter(int permits, Duration period) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+        this.intervalNanos = period.toNanos() / permits;
+    }
+
+    public void acquire() throws InterruptedException {
+        long slot;
+        lock.lock();
+        try {
+            slot = Math.max(System.nanoTime(), nextSlot);
+            nextSlot = slot + intervalNanos;
+        } finally {
+            lock.unlock();
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+}
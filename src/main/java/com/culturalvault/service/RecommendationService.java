@@ -5,16 +5,17 @@
 
 package com.culturalvault.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactSummary;
+import com.culturalvault.model.SimilarityMode;
 import com.culturalvault.model.User;
 import com.culturalvault.model.UserInteraction;
 import com.culturalvault.repository.PopularArtifact;
@@ -35,7 +36,7 @@ public class RecommendationService {
     private final UserService userService;
     private final UserInteractionService interactionService;
     
-    public List<Artifact> getRecommendationsForUser(String userId, int count) {
+    public List<ArtifactSummary> getRecommendationsForUser(String userId, int count) {
         log.debug("Generating recommendations for user: {}", userId);
         
         return userService.getUserById(userId)
@@ -43,7 +44,7 @@ public class RecommendationService {
                 .orElse(getPopularArtifacts(count));
     }
     
-    private List<Artifact> generateRecommendations(User user, int count) {
+    private List<ArtifactSummary> generateRecommendations(User user, int count) {
         // Get user's interaction history
         List<UserInteraction> userInteractions = interactionService.getUserInteractions(user.getId());
         
@@ -58,7 +59,7 @@ public class RecommendationService {
                 .collect(Collectors.toSet());
         
         // Find similar artifacts based on user's preferences
-        List<Artifact> recommendations = findSimilarArtifacts(viewedArtifactIds, user, count * 2);
+        List<ArtifactSummary> recommendations = findSimilarArtifacts(viewedArtifactIds, user, count * 2);
         
         // Filter out already viewed artifacts
         recommendations = recommendations.stream()
@@ -68,7 +69,7 @@ public class RecommendationService {
         
         // If not enough recommendations, fill with popular artifacts
         if (recommendations.size() < count) {
-            List<Artifact> popularArtifacts = getPopularArtifacts(count - recommendations.size());
+            List<ArtifactSummary> popularArtifacts = getPopularArtifacts(count - recommendations.size());
             popularArtifacts.stream()
                     .filter(artifact -> !viewedArtifactIds.contains(artifact.getId()))
                     .forEach(recommendations::add);
@@ -77,7 +78,7 @@ public class RecommendationService {
         return recommendations.stream().limit(count).collect(Collectors.toList());
     }
     
-    private List<Artifact> findSimilarArtifacts(Set<String> viewedArtifactIds, User user, int count) {
+    private List<ArtifactSummary> findSimilarArtifacts(Set<String> viewedArtifactIds, User user, int count) {
         // Get user preferences
         List<String> preferredGenres = user.getPreferences() != null ? 
                 user.getPreferences().getFavoriteGenres() : List.of();
@@ -85,7 +86,7 @@ public class RecommendationService {
                 user.getPreferences().getInterests() : List.of();
         
         // Find artifacts similar to user's interests
-        List<Artifact> similar = List.of();
+        List<ArtifactSummary> similar = new ArrayList<>();
         
         // Try to find by culture/period from interests
         for (String interest : interests) {
@@ -106,12 +107,16 @@ public class RecommendationService {
         return similar.stream().limit(count).collect(Collectors.toList());
     }
     
-    public List<Artifact> getSimilarArtifacts(String artifactId, int count) {
-        log.debug("Finding similar artifacts to: {}", artifactId);
-        return artifactService.getSimilarArtifacts(artifactId, count);
+    public List<ArtifactSummary> getSimilarArtifacts(String artifactId, int count) {
+        return getSimilarArtifacts(artifactId, count, SimilarityMode.METADATA);
     }
     
-    public List<Artifact> getArtifactsByUserInterests(String userId, int count) {
+    public List<ArtifactSummary> getSimilarArtifacts(String artifactId, int count, SimilarityMode mode) {
+        log.debug("Finding similar artifacts to: {} (mode: {})", artifactId, mode);
+        return artifactService.getSimilarArtifacts(artifactId, count, mode);
+    }
+    
+    public List<ArtifactSummary> getArtifactsByUserInterests(String userId, int count) {
         log.debug("Getting artifacts based on user interests: {}", userId);
         
         return userService.getUserById(userId)
@@ -124,8 +129,8 @@ public class RecommendationService {
                 .orElse(getPopularArtifacts(count));
     }
     
-    private List<Artifact> getArtifactsByInterests(List<String> interests, int count) {
-        List<Artifact> artifacts = List.of();
+    private List<ArtifactSummary> getArtifactsByInterests(List<String> interests, int count) {
+        List<ArtifactSummary> artifacts = new ArrayList<>();
         
         for (String interest : interests) {
             // Map interests to cultures/categories
@@ -141,7 +146,7 @@ public class RecommendationService {
         return artifacts.stream().limit(count).collect(Collectors.toList());
     }
     
-    public List<Artifact> getPopularArtifacts(int count) {
+    public List<ArtifactSummary> getPopularArtifacts(int count) {
         log.debug("Getting popular artifacts based on interactions");
         
         // Get most popular artifacts from interactions
@@ -151,23 +156,20 @@ public class RecommendationService {
                 .collect(Collectors.toList());
         
         // Fetch actual artifact objects
-        List<Artifact> popularArtifacts = popularArtifactIds.stream()
-                .map(artifactService::getArtifactById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+        List<ArtifactSummary> popularArtifacts = artifactService.getArtifactSummaries(popularArtifactIds).stream()
                 .limit(count)
                 .collect(Collectors.toList());
         
         // If not enough popular artifacts, fill with random ones
         if (popularArtifacts.size() < count) {
-            List<Artifact> randomArtifacts = artifactService.getRandomArtifacts(count - popularArtifacts.size());
+            List<ArtifactSummary> randomArtifacts = artifactService.getRandomArtifacts(count - popularArtifacts.size());
             popularArtifacts.addAll(randomArtifacts);
         }
         
         return popularArtifacts.stream().limit(count).collect(Collectors.toList());
     }
     
-    public List<Artifact> getTrendingArtifacts(int count) {
+    public List<ArtifactSummary> getTrendingArtifacts(int count) {
         log.debug("Getting trending artifacts from recent interactions");
         
         // Get artifacts with recent high interaction
@@ -183,19 +185,15 @@ public class RecommendationService {
                 .collect(Collectors.toList());
         
         // Fetch actual artifacts
-        return trendingArtifactIds.stream()
-                .map(artifactService::getArtifactById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        return artifactService.getArtifactSummaries(trendingArtifactIds);
     }
     
-    public List<Artifact> getRecommendationsByCategory(String category, int count) {
+    public List<ArtifactSummary> getRecommendationsByCategory(String category, int count) {
         log.debug("Getting recommendations for category: {}", category);
         return artifactService.getRandomArtifactsByCategory(category, count);
     }
     
-    public List<Artifact> getFavoriteBasedRecommendations(String userId, int count) {
+    public List<ArtifactSummary> getFavoriteBasedRecommendations(String userId, int count) {
         log.debug("Getting recommendations based on user favorites: {}", userId);
         
         return userService.getUserById(userId)
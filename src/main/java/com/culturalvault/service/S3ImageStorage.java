@@ -0,0 +1,201 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * {@link ImageStorage} in an S3-compatible bucket, configured for Cloudflare
+ * R2 under {@code app.storage.r2}.
+ *
+ * Streams are stored as multipart uploads of {@code app.storage.r2.part-size}
+ * parts, sent one at a time from a single reused buffer; a stream shorter
+ * than one part is stored with a plain PUT.
+ *
+ * @author parth
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "r2")
+@Slf4j
+public class S3ImageStorage implements ImageStorage {
+
+    // S3 requires parts of at least 5 MiB, except the last
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final int partSize;
+
+    public S3ImageStorage(@Value("${app.storage.r2.access-key-id}") String accessKeyId,
+                          @Value("${app.storage.r2.secret-access-key}") String secretAccessKey,
+                          @Value("${app.storage.r2.bucket-name}") String bucket,
+                          @Value("${app.storage.r2.endpoint}") String endpoint,
+                          @Value("${app.storage.r2.region:auto}") String region,
+                          @Value("${app.storage.r2.part-size:8MB}") DataSize partSize) {
+        this.s3 = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
+                .forcePathStyle(true)
+                .build();
+        this.bucket = bucket;
+        this.partSize = (int) Math.max(MIN_PART_SIZE, partSize.toBytes());
+    }
+
+    /** The underlying client, for operations beyond this interface. */
+    public S3Client getClient() {
+        return s3;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+
+    @Override
+    public void put(String key, byte[] data, String contentType) throws IOException {
+        try {
+            s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromBytes(data));
+        } catch (SdkException e) {
+            throw new IOException("Failed to store " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long put(String key, InputStream data, String contentType) throws IOException {
+        byte[] buffer = new byte[partSize];
+        int length = data.readNBytes(buffer, 0, partSize);
+        if (length < partSize) {
+            try {
+                s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                        partBody(buffer, length));
+                return length;
+            } catch (SdkException e) {
+                throw new IOException("Failed to store " + key + ": " + e.getMessage(), e);
+            }
+        }
+
+        String uploadId;
+        try {
+            uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+                    .uploadId();
+        } catch (SdkException e) {
+            throw new IOException("Failed to start upload of " + key + ": " + e.getMessage(), e);
+        }
+        List<CompletedPart> parts = new ArrayList<>();
+        long total = 0;
+        try {
+            while (length > 0) {
+                int partNumber = parts.size() + 1;
+                long partLength = length;
+                String etag = s3.uploadPart(request -> request.bucket(bucket).key(key)
+                                .uploadId(uploadId).partNumber(partNumber).contentLength(partLength),
+                        partBody(buffer, length)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                total += length;
+                length = data.readNBytes(buffer, 0, partSize);
+            }
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+            return total;
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            if (e instanceof SdkException) {
+                throw new IOException("Failed to upload " + key + ": " + e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(request -> request.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3.headObject(request -> request.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (SdkException e) {
+            throw new IOException("Failed to check " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void move(String fromKey, String toKey) throws IOException {
+        try {
+            // Server-side copy; S3 has no rename
+            s3.copyObject(request -> request.sourceBucket(bucket).sourceKey(fromKey)
+                    .destinationBucket(bucket).destinationKey(toKey));
+            s3.deleteObject(request -> request.bucket(bucket).key(fromKey));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(fromKey);
+        } catch (SdkException e) {
+            throw new IOException("Failed to move " + fromKey + " to " + toKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException e) {
+            // The bucket's lifecycle rule cleans up what is left
+            log.warn("Failed to abort upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    // The buffer is re-read on a retry rather than copied
+    private static RequestBody partBody(byte[] buffer, int length) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length,
+                "application/octet-stream");
+    }
+}
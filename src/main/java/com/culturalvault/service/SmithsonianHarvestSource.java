@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Smithsonian Open Access API ({@code /search}), paged by row offset. The
+ * search has no modification-date filter, so incremental syncs fetch every
+ * record and rely on content hashes to skip the unchanged ones.
+ *
+ * @author parth
+ */
+@Component
+public class SmithsonianHarvestSource extends HarvestSource {
+
+    public static final String NAME = "SMITHSONIAN";
+
+    private final String apiKey;
+
+    public SmithsonianHarvestSource(RestClient.Builder builder,
+                                    HttpClient httpClient,
+                                    @Value("${app.api.smithsonian.base-url}") String baseUrl,
+                                    @Value("${app.api.smithsonian.api-key:}") String apiKey,
+                                    @Value("${app.api.smithsonian.rate-limit:1000}") int rateLimit,
+                                    @Value("${app.api.smithsonian.rate-limit-period:PT1H}") Duration rateLimitPeriod) {
+        super(builder, httpClient, baseUrl, rateLimit, rateLimitPeriod);
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    @Override
+    public String firstCursor() {
+        return "0";
+    }
+
+    @Override
+    public Page fetch(String query, Instant modifiedSince, String cursor, int pageSize) throws InterruptedException {
+        long start = Long.parseLong(cursor);
+        int rows = Math.min(pageSize, 1000);
+        JsonNode response = get(uri -> uri.path("/search")
+                .queryParam("api_key", apiKey)
+                .queryParam("q", query)
+                .queryParam("start", start)
+                .queryParam("rows", rows)
+                .build()).path("response");
+
+        List<Artifact> records = new ArrayList<>();
+        JsonNode results = response.path("rows");
+        for (JsonNode row : results) {
+            Artifact artifact = toArtifact(row);
+            if (artifact != null) {
+                records.add(artifact);
+            }
+        }
+        long total = response.path("rowCount").asLong();
+        long next = start + results.size();
+        String nextCursor = results.isEmpty() || next >= total ? null : Long.toString(next);
+        return new Page(records, nextCursor, total);
+    }
+
+    private static Artifact toArtifact(JsonNode row) {
+        String id = text(row, "id");
+        String title = text(row, "title");
+        if (id == null || title == null) {
+            return null;
+        }
+        JsonNode content = row.path("content");
+        JsonNode descriptive = content.path("descriptiveNonRepeating");
+        JsonNode indexed = content.path("indexedStructured");
+        JsonNode freetext = content.path("freetext");
+        JsonNode media = descriptive.path("online_media").path("media").path(0);
+
+        Artifact artifact = new Artifact();
+        artifact.setSource(NAME);
+        artifact.setSourceId(id);
+        artifact.setTitle(title);
+        artifact.setDescription(text(freetext.path("notes").path(0), "content"));
+        artifact.setCategory(upper(first(indexed, "object_type")));
+        artifact.setCulture(upper(first(indexed, "culture")));
+        artifact.setPeriod(periodOf(first(indexed, "date")));
+        artifact.setMaterial(text(freetext.path("physicalDescription").path(0), "content"));
+        artifact.setImageUrl(text(media, "content"));
+        artifact.setThumbnailUrl(text(media, "thumbnail"));
+        artifact.setSourceUrl(text(descriptive, "record_link"));
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        String unit = text(descriptive, "unit_code");
+        if (unit != null) {
+            metadata.put("unitCode", unit);
+        }
+        String date = first(indexed, "date");
+        if (date != null) {
+            metadata.put("date", date);
+        }
+        artifact.setMetadata(metadata);
+        return artifact;
+    }
+}
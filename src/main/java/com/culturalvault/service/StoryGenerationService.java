@@ -0,0 +1,274 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.GenerationParams;
+import com.culturalvault.model.Story;
+import com.culturalvault.model.StoryGenre;
+import com.culturalvault.model.StoryJob;
+import com.culturalvault.model.StoryJob.Status;
+import com.culturalvault.model.StoryLength;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates stories in the background. {@link #submit} only stores a
+ * QUEUED {@link StoryJob} and returns it; the client then polls the job
+ * until it has a {@code storyId} or an {@code error}.
+ *
+ * Jobs live in the {@code story_jobs} collection, so they outlast restarts
+ * and are shared by all nodes. Each of {@code app.story-generation.workers}
+ * threads claims one job at a time through a {@link LeasedQueue}, leasing
+ * it for {@code app.story-generation.lease}; a job whose node went away is
+ * taken over once its lease runs out. Failed calls are retried with
+ * exponential backoff from {@code app.story-generation.backoff} up to
+ * {@code app.story-generation.max-backoff}, for at most
+ * {@code app.story-generation.max-attempts} attempts; a job whose last
+ * allowed lease runs out (its worker died or hung on it) is failed by a
+ * periodic sweep instead of being taken over again.
+ *
+ * {@link #stream} is the interactive alternative: the text is handed on as
+ * the model produces it, and the story is saved once it is complete.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class StoryGenerationService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ArtifactService artifactService;
+    private final StoryService storyService;
+    private final AiServiceClient aiServiceClient;
+    private final int workers;
+    private final Duration pollInterval;
+    private final LeasedQueue<StoryJob> queue;
+    private final String nodeId;
+    // Wakes an idle worker when a job is submitted on this node
+    private final Semaphore submitted = new Semaphore(0);
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public StoryGenerationService(MongoTemplate mongoTemplate,
+                                  ArtifactService artifactService,
+                                  StoryService storyService,
+                                  AiServiceClient aiServiceClient,
+                                  @Value("${app.story-generation.workers:4}") int workers,
+                                  @Value("${app.story-generation.poll-interval:PT5S}") Duration pollInterval,
+                                  @Value("${app.story-generation.lease:PT5M}") Duration lease,
+                                  @Value("${app.story-generation.max-attempts:3}") int maxAttempts,
+                                  @Value("${app.story-generation.backoff:PT30S}") Duration backoff,
+                                  @Value("${app.story-generation.max-backoff:PT1H}") Duration maxBackoff,
+                                  NodeIdentity nodeIdentity) {
+        this.mongoTemplate = mongoTemplate;
+        this.artifactService = artifactService;
+        this.storyService = storyService;
+        this.aiServiceClient = aiServiceClient;
+        this.workers = workers;
+        this.pollInterval = pollInterval;
+        this.queue = new LeasedQueue<>(mongoTemplate, StoryJob.class, Status.QUEUED, Status.RUNNING, "error",
+                lease, maxAttempts, backoff, maxBackoff);
+        this.nodeId = nodeIdentity.getId();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            // Waiting on the AI service most of the time, so virtual threads
+            String owner = nodeId + "/" + i;
+            threads.add(Thread.ofVirtual().name("story-generation-" + i).start(() -> work(owner)));
+        }
+        log.info("Started {} story generation workers as {}", workers, nodeId);
+    }
+
+    /**
+     * Stops the workers; the jobs they were running are queued again for
+     * the next node or restart.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void onShutdown() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    /**
+     * Queues the generation of a story about an artifact.
+     *
+     * @throws IllegalArgumentException if the artifact does not exist
+     */
+    public StoryJob submit(String artifactId, String userId, StoryGenre genre, StoryLength length,
+                           GenerationParams params) {
+        if (!artifactService.existsById(artifactId)) {
+            throw new IllegalArgumentException("Artifact not found with id: " + artifactId);
+        }
+        StoryJob job = mongoTemplate.insert(new StoryJob(artifactId, userId, genre, length, params));
+        log.info("Queued story generation {} for artifact: {} by user: {}", job.getId(), artifactId, userId);
+        submitted.release();
+        return job;
+    }
+
+    /**
+     * Generates a story about an artifact, passing its text to
+     * {@code onChunk} piece by piece, and saves it once complete. Returns
+     * without waiting for the AI service; cancelling the result abandons
+     * the generation.
+     *
+     * @throws IllegalArgumentException if the artifact does not exist
+     * @throws AiServiceClient.AiServiceException if the AI service cannot be
+     *                                            called at the moment
+     */
+    public CompletableFuture<Story> stream(String artifactId, String userId, StoryGenre genre, StoryLength length,
+                                           GenerationParams params, Consumer<String> onChunk) {
+        Artifact artifact = artifactService.getArtifactById(artifactId)
+                .orElseThrow(() -> new IllegalArgumentException("Artifact not found with id: " + artifactId));
+        log.info("Streaming story generation for artifact: {} by user: {}", artifactId, userId);
+        CompletableFuture<AiServiceClient.GeneratedStory> generation =
+                aiServiceClient.streamStory(artifact, genre, length, params, onChunk);
+        CompletableFuture<Story> saved = generation.thenApply(generated ->
+                storyService.createStory(toStory(artifact, userId, genre, length, params, generated)));
+        saved.whenComplete((story, e) -> {
+            if (e != null) {
+                generation.cancel(true);
+            }
+        });
+        return saved;
+    }
+
+    @Scheduled(fixedDelayString = "${app.story-generation.sweep-interval:PT1M}",
+               initialDelayString = "${app.story-generation.sweep-interval:PT1M}")
+    public void scheduledSweep() {
+        try {
+            expireDeadLeases();
+        } catch (Exception e) {
+            log.error("Story generation sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /** Fails the jobs whose last allowed lease ran out. */
+    public long expireDeadLeases() {
+        long expired = queue.expireDeadLeases(new Update().set("status", Status.FAILED)
+                .set("error", "Lease expired").set("finishedAt", LocalDateTime.now()));
+        if (expired > 0) {
+            log.warn("Failed {} story generation jobs whose lease expired", expired);
+        }
+        return expired;
+    }
+
+    public Optional<StoryJob> getJob(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, StoryJob.class));
+    }
+
+    private void work(String owner) {
+        while (running) {
+            StoryJob job;
+            try {
+                job = queue.claim(owner, () -> new Update().set("startedAt", LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                log.warn("Cannot claim story generation jobs: {}", e.getMessage());
+                job = null;
+            }
+            try {
+                if (job == null) {
+                    submitted.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                } else if (!process(owner, job)) {
+                    // The AI service is refusing calls
+                    Thread.sleep(pollInterval);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs a claimed job.
+     *
+     * @return false if the AI service did not take the call, so the worker
+     *         should hold off
+     */
+    private boolean process(String owner, StoryJob job) {
+        try {
+            Optional<Artifact> artifact = artifactService.getArtifactById(job.getArtifactId());
+            if (artifact.isEmpty()) {
+                finish(owner, job, new Update().set("status", Status.FAILED)
+                        .set("error", "Artifact not found with id: " + job.getArtifactId()));
+                return true;
+            }
+            AiServiceClient.GeneratedStory generated = aiServiceClient.generateStory(
+                    artifact.get(), job.getGenre(), job.getLength(), job.getGenerationParams());
+
+            // Saved under the job's id, so a job run twice (lease lost mid-call) still makes one story
+            Story story = toStory(artifact.get(), job.getUserId(), job.getGenre(), job.getLength(),
+                    job.getGenerationParams(), generated);
+            story.setId(job.getId());
+            storyService.createStory(story);
+
+            finish(owner, job, new Update().set("status", Status.SUCCEEDED).set("storyId", story.getId())
+                    .unset("error"));
+            return true;
+        } catch (AiServiceClient.AiServiceException e) {
+            if (e.isRejected()) {
+                // Not sent: the attempt does not count. The interrupt (shutdown) is
+                // cleared so that it does not also abort this write
+                boolean interrupted = Thread.interrupted();
+                queue.release(owner, List.of(job.getId()));
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+            fail(owner, job, e.getMessage(), e.isRetryable());
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Story generation {} failed (attempt {}): {}", job.getId(), job.getAttempts(), e.getMessage());
+            fail(owner, job, String.valueOf(e.getMessage()), true);
+            return true;
+        }
+    }
+
+    private static Story toStory(Artifact artifact, String userId, StoryGenre genre, StoryLength length,
+                                 GenerationParams params, AiServiceClient.GeneratedStory generated) {
+        String title = generated.title() != null ? generated.title() : artifact.getTitle();
+        Story story = new Story(artifact.getId(), userId, title, generated.content(), genre, length);
+        story.setGenerationParams(params);
+        return story;
+    }
+
+    private void fail(String owner, StoryJob job, String error, boolean retryable) {
+        if (retryable && queue.retry(owner, job.getId(), job.getAttempts(), error)) {
+            return;
+        }
+        log.warn("Story generation {} failed after {} attempts: {}", job.getId(), job.getAttempts(), error);
+        finish(owner, job, new Update().set("status", Status.FAILED).set("error", error));
+    }
+
+    private void finish(String owner, StoryJob job, Update update) {
+        queue.finish(owner, job.getId(), update.set("finishedAt", LocalDateTime.now()));
+    }
+}
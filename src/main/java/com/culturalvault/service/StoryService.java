@@ -6,15 +6,20 @@
 package com.culturalvault.service;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.culturalvault.model.GenerationParams;
+import com.culturalvault.model.CursorPage;
 import com.culturalvault.model.Story;
 import com.culturalvault.model.StoryFeedback;
 import com.culturalvault.model.StoryGenre;
@@ -35,6 +40,9 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class StoryService  {
     private final StoryRepository storyRepository;
+    private final KeysetPaginator keysetPaginator;
+    private final RandomSampleService randomSamples;
+    
     public Story createStory(Story story) {
         log.info("Creating new story for artifact: {}", story.getArtifactId());
         
@@ -50,6 +58,14 @@ public class StoryService  {
         return storyRepository.findById(id);
     }
     
+    /**
+     * When the story was last modified, read without loading the document.
+     */
+    public Optional<LocalDateTime> getLastModified(String id) {
+        return storyRepository.findTimestampsById(id)
+                .map(story -> story.getUpdatedAt() != null ? story.getUpdatedAt() : story.getGeneratedAt());
+    }
+    
     public Story updateStory(String id, Story updatedStory) {
         log.info("Updating story with id: {}", id);
         
@@ -76,6 +92,11 @@ public class StoryService  {
         return storyRepository.findAll(pageable);
     }
     
+    public CursorPage<Story> getStoriesByCursor(String cursor, int size, String sortBy, Sort.Direction direction) {
+        log.debug("Fetching stories after cursor {} sorted by {} {}", cursor, sortBy, direction);
+        return keysetPaginator.page(Story.class, null, sortBy, direction, cursor, size, Story.class);
+    }
+    
     public Page<Story> getStoriesByArtifact(String artifactId, Pageable pageable) {
         log.debug("Fetching stories for artifact: {}", artifactId);
         return storyRepository.findByArtifactId(artifactId, pageable);
@@ -86,6 +107,18 @@ public class StoryService  {
         return storyRepository.findByUserId(userId, pageable);
     }
     
+    public CursorPage<Story> getStoriesByArtifactCursor(String artifactId, String cursor, int size) {
+        log.debug("Fetching stories for artifact {} after cursor {}", artifactId, cursor);
+        return keysetPaginator.page(Story.class, Criteria.where("artifactId").is(artifactId),
+                "generatedAt", Sort.Direction.DESC, cursor, size, Story.class);
+    }
+    
+    public CursorPage<Story> getStoriesByUserCursor(String userId, String cursor, int size) {
+        log.debug("Fetching stories by user {} after cursor {}", userId, cursor);
+        return keysetPaginator.page(Story.class, Criteria.where("userId").is(userId),
+                "generatedAt", Sort.Direction.DESC, cursor, size, Story.class);
+    }
+    
     public List<Story> getStoriesForUserAndArtifact(String userId, String artifactId) {
         log.debug("Fetching stories for user {} and artifact {}", userId, artifactId);
         return storyRepository.findByArtifactIdAndUserId(artifactId, userId);
@@ -132,13 +165,44 @@ public class StoryService  {
     }
     
     public List<Story> getRandomStories(int count) {
+        return getRandomStories(count, null);
+    }
+    
+    /**
+     * Random stories from the precomputed sample pools, avoiding those
+     * recently shown to {@code client} (null for no one in particular).
+     */
+    public List<Story> getRandomStories(int count, String client) {
         log.debug("Fetching {} random stories", count);
-        return storyRepository.findRandomStories(Math.min(count, 20));
+        int limit = Math.min(count, 20);
+        return randomSamples.pickStoryIds(null, limit, client)
+                .map(this::getStories)
+                .orElseGet(() -> storyRepository.findRandomStories(limit));
     }
     
     public List<Story> getRandomStoriesByGenre(StoryGenre genre, int count) {
+        return getRandomStoriesByGenre(genre, count, null);
+    }
+    
+    public List<Story> getRandomStoriesByGenre(StoryGenre genre, int count, String client) {
         log.debug("Fetching {} random stories from genre: {}", count, genre);
-        return storyRepository.findRandomStoriesByGenre(genre, Math.min(count, 10));
+        int limit = Math.min(count, 10);
+        return randomSamples.pickStoryIds(genre, limit, client)
+                .map(this::getStories)
+                .orElseGet(() -> storyRepository.findRandomStoriesByGenre(genre, limit));
+    }
+    
+    /** Stories with the given ids, in the same order; unknown ids are skipped. */
+    private List<Story> getStories(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Story> byId = new HashMap<>();
+        storyRepository.findAllById(ids).forEach(story -> byId.put(story.getId(), story));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
     
     public Story addFeedback(String storyId, StoryFeedback feedback) {
@@ -204,23 +268,6 @@ public class StoryService  {
         return storyRepository.getGenreStatistics();
     }
     
-    public Story generateStoryForArtifact(String artifactId, String userId, StoryGenre genre, 
-                                        StoryLength length, GenerationParams params) {
-        log.info("Generating story for artifact: {} by user: {}", artifactId, userId);
-        
-        // Create new story
-        Story story = new Story();
-        story.setArtifactId(artifactId);
-        story.setUserId(userId);
-        story.setGenre(genre);
-        story.setLength(length);
-        story.setGenerationParams(params);
-        story.setTitle("Generated Story"); // Will be updated by AI service
-        story.setContent("Story content will be generated..."); // Will be updated by AI service
-        
-        return createStory(story);
-    }
-    
     public Story updateGeneratedStory(String storyId, String title, String content) {
         log.info("Updating generated story content for id: {}", storyId);
         
@@ -0,0 +1,486 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package com.culturalvault.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ThumbnailRun;
+import com.culturalvault.repository.ArtifactRepository;
+import com.culturalvault.repository.ThumbnailRunRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates thumbnails of artifact images and stores them in the
+ * {@link ImageStorage}.
+ *
+ * A run walks the artifacts that have an image but no thumbnails in
+ * {@code _id} order, a batch of {@code app.thumbnails.batch-size} at a
+ * time. The images (the uploaded original, else the one at {@code imageUrl})
+ * are read on virtual threads, at most {@code app.thumbnails.downloads} at
+ * once, and only their bytes are handed to a fixed pool of
+ * {@code app.thumbnails.workers} resize workers. A worker decodes an image
+ * subsampled (so large originals are never decoded at full size), scales it
+ * down in halving steps to each configured width (never up) and stores it
+ * as JPEG under {@code thumbnails/<id>/<version>/<width>.jpg}, the version
+ * being a digest of the image's source and content. The keys are recorded
+ * in {@code Artifact.thumbnailKeys} only while the artifact still has the
+ * image that was read, so thumbnails of a replaced image are discarded
+ * rather than recorded, and the deletion of a replaced image's thumbnails
+ * never hits those of the new one. Failures are counted in
+ * {@code thumbnailAttempts}, and an image is given up on after
+ * {@code app.thumbnails.max-attempts}.
+ *
+ * After every batch the run's checkpoint is saved as a {@link ThumbnailRun},
+ * and a run left RUNNING by a restart is resumed on startup.
+ *
+ * @author parth
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final ObjectId FIRST_ID = new ObjectId("000000000000000000000000");
+
+    private final ArtifactRepository artifactRepository;
+    private final ThumbnailRunRepository runRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ImageDownloader downloader;
+    private final ImageStorage storage;
+    private final List<Integer> widths;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final float jpegQuality;
+    private final boolean resumeOnStartup;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService fetchers;
+    private final Semaphore downloads;
+
+    private volatile Thread runner;
+
+    public ThumbnailService(ArtifactRepository artifactRepository,
+                            ThumbnailRunRepository runRepository,
+                            MongoTemplate mongoTemplate,
+                            ImageDownloader downloader,
+                            ImageStorage storage,
+                            @Value("${app.thumbnails.widths:160,320,640}") List<Integer> widths,
+                            @Value("${app.thumbnails.workers:4}") int workers,
+                            @Value("${app.thumbnails.downloads:16}") int downloads,
+                            @Value("${app.thumbnails.batch-size:100}") int batchSize,
+                            @Value("${app.thumbnails.max-attempts:3}") int maxAttempts,
+                            @Value("${app.thumbnails.jpeg-quality:0.85}") float jpegQuality,
+                            @Value("${app.thumbnails.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.artifactRepository = artifactRepository;
+        this.runRepository = runRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.downloader = downloader;
+        this.storage = storage;
+        this.widths = widths.stream().distinct().sorted().toList();
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.jpegQuality = jpegQuality;
+        this.resumeOnStartup = resumeOnStartup;
+        // Resizing is CPU-bound, so a fixed pool of platform threads; the
+        // queue holds at most one batch
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batchSize), Thread.ofPlatform().name("thumbnail-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Reading the originals is I/O-bound; the permits bound how many are
+        // held in memory, from download to resize
+        this.fetchers = Executors.newVirtualThreadPerTaskExecutor();
+        this.downloads = new Semaphore(Math.max(1, downloads));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        try {
+            runRepository.findFirstByStatusOrderByStartedAtDesc(ThumbnailRun.Status.RUNNING).ifPresent(run -> {
+                log.info("Resuming thumbnail run {} after {}", run.getId(), run.getLastArtifactId());
+                launch(run);
+            });
+        } catch (Exception e) {
+            log.error("Failed to resume thumbnail run: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        // A run interrupted here stays RUNNING, to be resumed on the next start
+        workers.shutdownNow();
+        fetchers.shutdownNow();
+        Thread current = runner;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Drops the thumbnails of an artifact whose image changed, so the next
+     * run regenerates them, and removes those of a deleted artifact.
+     */
+    @EventListener
+    public void onArtifactChanged(ArtifactChangedEvent event) {
+        if (event.previous() == null) {
+            return;
+        }
+        if (event.isDeletion()) {
+            deleteStored(event.previous());
+            return;
+        }
+        if (imageChanged(event.previous(), event.current())
+                && (event.current().getThumbnailKeys() != null || event.current().getThumbnailAttempts() != null)) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(event.artifactId())),
+                    new Update().unset("thumbnailKeys").unset("thumbnailAttempts").unset("thumbnailError")
+                            .set("updatedAt", LocalDateTime.now()),
+                    Artifact.class);
+            deleteStored(event.previous());
+        }
+    }
+
+    /**
+     * Starts a run over all artifacts that lack thumbnails.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized ThumbnailRun start() {
+        if (runner != null) {
+            throw new IllegalStateException("A thumbnail run is already in progress");
+        }
+        ThumbnailRun run = runRepository.save(new ThumbnailRun());
+        log.info("Started thumbnail run {}", run.getId());
+        launch(run);
+        return run;
+    }
+
+    public Optional<ThumbnailRun> getRun(String id) {
+        return runRepository.findById(id);
+    }
+
+    public List<ThumbnailRun> getRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    public synchronized boolean cancel(String id) {
+        Thread current = runner;
+        if (current == null || !current.getName().equals(runnerName(id))) {
+            return false;
+        }
+        current.interrupt();
+        return true;
+    }
+
+    private synchronized void launch(ThumbnailRun run) {
+        runner = Thread.ofVirtual().name(runnerName(run.getId())).start(() -> run(run));
+    }
+
+    private void run(ThumbnailRun run) {
+        ThumbnailRun.Status status = ThumbnailRun.Status.COMPLETED;
+        String error = null;
+        try {
+            ObjectId after = run.getLastArtifactId() == null ? FIRST_ID : new ObjectId(run.getLastArtifactId());
+            PageRequest page = PageRequest.of(0, batchSize, Sort.by("id"));
+            List<Artifact> batch;
+            while (!(batch = artifactRepository.findArtifactsNeedingThumbnails(after, maxAttempts, page)).isEmpty()) {
+                List<Future<Boolean>> results = new ArrayList<>(batch.size());
+                for (Artifact artifact : batch) {
+                    results.add(fetchers.submit(() -> process(artifact)));
+                }
+                long succeeded = 0;
+                try {
+                    for (Future<Boolean> result : results) {
+                        if (result.get()) {
+                            succeeded++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    results.forEach(result -> result.cancel(true));
+                    throw e;
+                }
+                String lastId = batch.get(batch.size() - 1).getId();
+                run.batchDone(lastId, succeeded, batch.size() - succeeded);
+                runRepository.save(run);
+                after = new ObjectId(lastId);
+                log.debug("Thumbnail run {}: {} processed, checkpoint {}", run.getId(), run.getProcessed(), lastId);
+            }
+        } catch (InterruptedException e) {
+            if (workers.isShutdown()) {
+                log.info("Thumbnail run {} interrupted by shutdown after {}", run.getId(), run.getLastArtifactId());
+                return;
+            }
+            status = ThumbnailRun.Status.CANCELLED;
+        } catch (ExecutionException | RuntimeException e) {
+            status = ThumbnailRun.Status.FAILED;
+            error = e.getMessage();
+            log.error("Thumbnail run {} failed: {}", run.getId(), error, e);
+        } finally {
+            synchronized (this) {
+                runner = null;
+            }
+        }
+        run.finish(status, error);
+        runRepository.save(run);
+        log.info("Thumbnail run {} {}: {} processed, {} succeeded, {} failed",
+                run.getId(), status, run.getProcessed(), run.getSucceeded(), run.getFailed());
+    }
+
+    /**
+     * Generates and stores the thumbnails of one artifact: reads the
+     * original on the calling (virtual) thread, then resizes it on a worker.
+     *
+     * @return whether it succeeded; failures are recorded on the artifact
+     */
+    private boolean process(Artifact artifact) {
+        try {
+            downloads.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            byte[] original = readOriginal(artifact);
+            Future<Map<String, String>> resized = workers.submit(() -> resize(artifact, original));
+            Map<String, String> keys;
+            try {
+                keys = resized.get();
+            } catch (InterruptedException e) {
+                resized.cancel(true);
+                throw e;
+            }
+            // Only if the image is still the one read
+            boolean current = mongoTemplate.updateFirst(imageIsCurrent(artifact),
+                    new Update().set("thumbnailKeys", keys).unset("thumbnailAttempts").unset("thumbnailError")
+                            .set("updatedAt", LocalDateTime.now()),
+                    Artifact.class).getMatchedCount() > 0;
+            if (!current) {
+                log.debug("Image of artifact {} changed while its thumbnails were made, discarding them", artifact.getId());
+                deleteStored(keys.values());
+            }
+            return current;
+        } catch (IOException | RuntimeException e) {
+            recordFailure(artifact, e);
+            return false;
+        } catch (ExecutionException e) {
+            recordFailure(artifact, e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            downloads.release();
+        }
+    }
+
+    private void recordFailure(Artifact artifact, Throwable e) {
+        log.debug("Cannot create thumbnails of artifact {} ({}): {}", artifact.getId(), artifact.getImageUrl(), e.getMessage());
+        mongoTemplate.updateFirst(imageIsCurrent(artifact),
+                new Update().inc("thumbnailAttempts", 1).set("thumbnailError", String.valueOf(e.getMessage())),
+                Artifact.class);
+    }
+
+    /**
+     * Scales an original down to each configured width and stores the
+     * thumbnails.
+     *
+     * @return the stored keys by width
+     */
+    private Map<String, String> resize(Artifact artifact, byte[] original) throws IOException {
+        String prefix = "thumbnails/" + artifact.getId() + "/" + version(artifact, original) + "/";
+        BufferedImage image = decode(new ByteArrayInputStream(original), widths.get(widths.size() - 1));
+        Map<String, String> keys = new LinkedHashMap<>();
+        // Largest first, each width scaled from the previous one
+        for (int i = widths.size() - 1; i >= 0; i--) {
+            int width = widths.get(i);
+            // Never upscale: widths larger than the image are skipped, but
+            // an image narrower than the smallest width is stored as it is
+            if (width > image.getWidth() && i > 0) {
+                continue;
+            }
+            image = scaleDown(image, width);
+            String key = prefix + width + ".jpg";
+            storage.put(key, encodeJpeg(image), CONTENT_TYPE);
+            keys.put(String.valueOf(width), key);
+        }
+        return keys;
+    }
+
+    /** The uploaded original if there is one, else the image at the source URL. */
+    private byte[] readOriginal(Artifact artifact) throws IOException, InterruptedException {
+        if (artifact.getR2ImageKey() != null && !artifact.getR2ImageKey().isBlank()) {
+            try (InputStream in = storage.open(artifact.getR2ImageKey())) {
+                return in.readAllBytes();
+            }
+        }
+        return downloader.download(artifact.getImageUrl());
+    }
+
+    /**
+     * Digest of where an image was read from and of its content, which tells
+     * the thumbnails of one image apart from those of the next.
+     */
+    private static String version(Artifact artifact, byte[] original) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String source = artifact.getR2ImageKey() != null && !artifact.getR2ImageKey().isBlank()
+                    ? artifact.getR2ImageKey() : String.valueOf(artifact.getImageUrl());
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(original);
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Matches the artifact only while its image is still the one it was read with. */
+    private static Query imageIsCurrent(Artifact artifact) {
+        return Query.query(Criteria.where("_id").is(artifact.getId())
+                .and("imageUrl").is(artifact.getImageUrl())
+                .and("r2ImageKey").is(artifact.getR2ImageKey()));
+    }
+
+    private void deleteStored(Artifact artifact) {
+        if (artifact.getThumbnailKeys() != null) {
+            deleteStored(artifact.getThumbnailKeys().values());
+        }
+    }
+
+    private void deleteStored(Iterable<String> keys) {
+        for (String key : keys) {
+            try {
+                storage.delete(key);
+            } catch (IOException e) {
+                log.warn("Failed to delete thumbnail {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Decodes an image, subsampled while that keeps it at least twice as
+     * wide as {@code targetWidth}.
+     */
+    private static BufferedImage decode(InputStream data, int targetWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(data)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, reader.getWidth(0) / (2 * targetWidth));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales down to {@code width} (keeping the aspect ratio) in steps of at
+     * most half, which bilinear filtering can do without aliasing. Returns an
+     * opaque RGB image, transparent areas filled white.
+     */
+    private static BufferedImage scaleDown(BufferedImage image, int width) {
+        BufferedImage current = image;
+        int targetWidth = Math.min(width, image.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+        do {
+            int w = Math.max(targetWidth, current.getWidth() / 2);
+            int h = w == targetWidth ? targetHeight : Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    static boolean imageChanged(Artifact previous, Artifact current) {
+        return !Objects.equals(previous.getImageUrl(), current.getImageUrl())
+                || !Objects.equals(previous.getR2ImageKey(), current.getR2ImageKey());
+    }
+
+    private static String runnerName(String runId) {
+        return "thumbnail-run-" + runId;
+    }
+}
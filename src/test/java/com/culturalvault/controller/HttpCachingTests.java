@@ -0,0 +1,66 @@
+package com.culturalvault.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class HttpCachingTests {
+
+	private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 250_000_000);
+	private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+	@Test
+	void theEtagChangesWithEveryWrite() {
+		String etag = HttpCaching.etag("a1", UPDATED);
+
+		assertThat(etag).startsWith("\"a1-").endsWith("\"");
+		assertThat(HttpCaching.etag("a1", UPDATED)).isEqualTo(etag);
+		assertThat(HttpCaching.etag("a1", UPDATED.plusNanos(1_000_000))).isNotEqualTo(etag);
+		assertThat(HttpCaching.etag("a2", UPDATED)).isNotEqualTo(etag);
+	}
+
+	@Test
+	void aMatchingIfNoneMatchIsAnsweredWith304AndTheValidators() {
+		String etag = HttpCaching.etag("a1", UPDATED);
+
+		ResponseEntity<Object> response = HttpCaching.notModified(etag, "a1", UPDATED, MAX_AGE);
+
+		assertThat(response).isNotNull();
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(response.getBody()).isNull();
+		assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+		assertThat(response.getHeaders().getLastModified()).isEqualTo(HttpCaching.epochMillis(UPDATED) / 1000 * 1000);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=300, must-revalidate");
+	}
+
+	@Test
+	void aStaleOrMissingValidatorGetsTheFullResponse() {
+		String stale = HttpCaching.etag("a1", UPDATED.minusSeconds(1));
+
+		assertThat(HttpCaching.<Object>notModified(stale, "a1", UPDATED, MAX_AGE)).isNull();
+		assertThat(HttpCaching.<Object>notModified(null, "a1", UPDATED, MAX_AGE)).isNull();
+		// Documents written before updatedAt was tracked have no validator
+		assertThat(HttpCaching.<Object>notModified("*", "a1", null, MAX_AGE)).isNull();
+
+		ResponseEntity<String> ok = HttpCaching.ok("a1", UPDATED, MAX_AGE).body("{}");
+		assertThat(ok.getHeaders().getETag()).isEqualTo(HttpCaching.etag("a1", UPDATED));
+		assertThat(HttpCaching.ok("a1", null, MAX_AGE).build().getHeaders().getETag()).isNull();
+	}
+
+	@Test
+	void ifNoneMatchIsComparedWeakly() {
+		String etag = HttpCaching.etag("a1", UPDATED);
+
+		assertThat(HttpCaching.matches("W/" + etag, etag)).isTrue();
+		assertThat(HttpCaching.matches("\"other\", " + etag, etag)).isTrue();
+		assertThat(HttpCaching.matches("*", etag)).isTrue();
+		assertThat(HttpCaching.matches("\"other\"", etag)).isFalse();
+		assertThat(HttpCaching.matches(null, etag)).isFalse();
+	}
+}
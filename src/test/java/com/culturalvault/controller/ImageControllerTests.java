@@ -0,0 +1,108 @@
+package com.culturalvault.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import com.culturalvault.service.ArtifactImageService;
+import com.culturalvault.service.ImageCache;
+import com.culturalvault.service.ImageUploadService;
+
+/**
+ * Conditional and range requests for an image served from a real
+ * {@link ImageCache} in a temporary directory.
+ */
+class ImageControllerTests {
+
+	@TempDir
+	Path root;
+
+	private byte[] image;
+	private ImageController controller;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB), "png", out);
+		image = out.toByteArray();
+
+		ImageCache cache = new ImageCache(root, DataSize.ofMegabytes(1));
+		ArtifactImageService artifactImageService = mock(ArtifactImageService.class);
+		when(artifactImageService.getImage(eq("a1"), any()))
+				.thenAnswer(call -> Optional.of(cache.open("a1.png", () -> new ByteArrayInputStream(image))));
+		when(artifactImageService.getImage(eq("missing"), any())).thenReturn(Optional.empty());
+		controller = new ImageController(artifactImageService, mock(ImageUploadService.class), Duration.ofDays(1));
+	}
+
+	private MockHttpServletResponse get(String id, String header, String value) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/artifacts/" + id + "/image");
+		if (header != null) {
+			request.addHeader(header, value);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.getArtifactImage(id, null, request, response);
+		return response;
+	}
+
+	@Test
+	void servesTheImageWithItsValidators() throws IOException {
+		MockHttpServletResponse response = get("a1", null, null);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentType()).isEqualTo("image/png");
+		assertThat(response.getContentAsByteArray()).isEqualTo(image);
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isNotBlank();
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("public, max-age=86400");
+	}
+
+	@Test
+	void aMatchingIfNoneMatchGets304WithoutABody() throws IOException {
+		String etag = get("a1", null, null).getHeader(HttpHeaders.ETAG);
+
+		MockHttpServletResponse response = get("a1", HttpHeaders.IF_NONE_MATCH, etag);
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+		assertThat(get("a1", HttpHeaders.IF_NONE_MATCH, "\"stale\"").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void servesASingleByteRange() throws IOException {
+		MockHttpServletResponse response = get("a1", HttpHeaders.RANGE, "bytes=10-19");
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/" + image.length);
+		assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(image, 10, 20));
+
+		MockHttpServletResponse beyond = get("a1", HttpHeaders.RANGE, "bytes=" + image.length + "-");
+		assertThat(beyond.getStatus()).isEqualTo(416);
+		assertThat(beyond.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + image.length);
+	}
+
+	@Test
+	void anUnknownImageIs404() throws IOException {
+		assertThat(get("missing", null, null).getStatus()).isEqualTo(404);
+	}
+}
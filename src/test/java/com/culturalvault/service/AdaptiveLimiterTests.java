@@ -0,0 +1,94 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTests {
+
+	private static final Duration FAST = Duration.ofMillis(10);
+	private static final long QUICK_CALL = Duration.ofMillis(1).toNanos();
+	private static final long SLOW_CALL = Duration.ofMillis(50).toNanos();
+
+	@Test
+	void refusesSlotsBeyondTheLimitUntilOneIsReleased() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 0.5, Duration.ofSeconds(1));
+		assertThat(limiter.acquire(FAST)).isTrue();
+		assertThat(limiter.acquire(FAST)).isTrue();
+
+		assertThat(limiter.acquire(FAST)).isFalse();
+
+		CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return limiter.acquire(Duration.ofSeconds(5));
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		limiter.onIgnored();
+		assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void growsWhileTheLimitIsInUse() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 100, 0.5, Duration.ofSeconds(1));
+
+		// Four calls at a time: the first two released each round find the
+		// limit at least half used and add 1/limit
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 4; i++) {
+				limiter.acquire(FAST);
+			}
+			for (int i = 0; i < 4; i++) {
+				limiter.onSuccess(QUICK_CALL);
+			}
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(5);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void doesNotGrowWhileMostlyIdle() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 0.5, Duration.ofSeconds(1));
+
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire(FAST);
+			limiter.onSuccess(QUICK_CALL);
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void backsOffOnOverloadAndSlowCallsDownToTheMinimum() throws InterruptedException {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(16, 2, 100, 0.5, Duration.ofMillis(20));
+
+		limiter.acquire(FAST);
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(8);
+
+		limiter.acquire(FAST);
+		limiter.onSuccess(SLOW_CALL);
+		assertThat(limiter.getLimit()).isEqualTo(4);
+
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire(FAST);
+			limiter.onDropped();
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void rejectsInvalidBounds() {
+		assertThatThrownBy(() -> new AdaptiveLimiter(1, 0, 10, 0.5, FAST)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdaptiveLimiter(1, 5, 4, 0.5, FAST)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
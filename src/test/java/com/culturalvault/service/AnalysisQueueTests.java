@@ -0,0 +1,231 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.culturalvault.model.AnalysisTask;
+import com.culturalvault.model.AnalysisTask.Status;
+
+class AnalysisQueueTests {
+
+	private static final Duration LEASE = Duration.ofMinutes(5);
+	private static final Duration BACKOFF = Duration.ofSeconds(30);
+	private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+	private static final int MAX_ATTEMPTS = 3;
+
+	private InMemoryMongo mongo;
+	private AnalysisQueue queue;
+	private LocalDateTime now;
+
+	@BeforeEach
+	void setUp() {
+		mongo = new InMemoryMongo();
+		queue = new AnalysisQueue(mongo.mongoTemplate(), LEASE, MAX_ATTEMPTS, BACKOFF, MAX_BACKOFF, false);
+		now = LocalDateTime.now();
+	}
+
+	private void add(String id, LocalDateTime availableAt) {
+		AnalysisTask task = new AnalysisTask();
+		task.setId(id);
+		task.setStatus(Status.PENDING);
+		task.setAvailableAt(availableAt);
+		task.setCreatedAt(availableAt);
+		mongo.insert(task);
+	}
+
+	private AnalysisTask task(String id) {
+		return mongo.get(AnalysisTask.class, id);
+	}
+
+	/** Lets the lease of a task run out. */
+	private void expireLease(String id) {
+		set(id, "leaseExpiresAt", now.minusSeconds(1));
+	}
+
+	/** Makes a task waiting out its backoff available now. */
+	private void endBackoff(String id) {
+		set(id, "availableAt", now.minusSeconds(1));
+	}
+
+	private void set(String id, String field, Object value) {
+		mongo.mongoTemplate().updateFirst(Query.query(Criteria.where("_id").is(id)), new Update().set(field, value),
+				AnalysisTask.class);
+	}
+
+	@Test
+	void claimsAvailableTasksLongestWaitingFirst() {
+		add("b", now.minusMinutes(1));
+		add("a", now.minusMinutes(2));
+		add("later", now.plusHours(1));
+
+		List<AnalysisTask> claimed = queue.claim("w1", 10);
+
+		assertThat(claimed).extracting(AnalysisTask::getId).containsExactly("a", "b");
+		assertThat(claimed).allSatisfy(task -> {
+			assertThat(task.getStatus()).isEqualTo(Status.LEASED);
+			assertThat(task.getLeaseOwner()).isEqualTo("w1");
+			assertThat(task.getAttempts()).isEqualTo(1);
+			assertThat(task.getLeaseExpiresAt()).isAfter(now.plus(LEASE).minusSeconds(5));
+		});
+		assertThat(task("later").getStatus()).isEqualTo(Status.PENDING);
+	}
+
+	@Test
+	void claimsAtMostTheRequestedNumber() {
+		for (int i = 0; i < 5; i++) {
+			add("t" + i, now.minusMinutes(5 - i));
+		}
+
+		assertThat(queue.claim("w1", 2)).extracting(AnalysisTask::getId).containsExactly("t0", "t1");
+		assertThat(queue.claim("w2", 2)).extracting(AnalysisTask::getId).containsExactly("t2", "t3");
+	}
+
+	@Test
+	void leasedTasksAreNotClaimedTwice() {
+		add("a", now.minusMinutes(1));
+
+		assertThat(queue.claim("w1", 10)).hasSize(1);
+		assertThat(queue.claim("w2", 10)).isEmpty();
+	}
+
+	@Test
+	void anExpiredLeaseIsClaimedByAnotherWorker() {
+		add("a", now.minusMinutes(1));
+		queue.claim("w1", 1);
+		expireLease("a");
+
+		List<AnalysisTask> reclaimed = queue.claim("w2", 1);
+
+		assertThat(reclaimed).extracting(AnalysisTask::getId).containsExactly("a");
+		assertThat(reclaimed.get(0).getLeaseOwner()).isEqualTo("w2");
+		assertThat(reclaimed.get(0).getAttempts()).isEqualTo(2);
+		// The former owner can no longer settle it
+		assertThat(queue.complete("w1", "a")).isFalse();
+		assertThat(queue.complete("w2", "a")).isTrue();
+		assertThat(task("a").getStatus()).isEqualTo(Status.DONE);
+		assertThat(task("a").getLeaseOwner()).isNull();
+	}
+
+	@Test
+	void aFailureBacksOffExponentially() {
+		add("a", now.minusMinutes(1));
+
+		AnalysisTask first = queue.claim("w1", 1).get(0);
+		queue.fail("w1", first, "boom", true);
+
+		AnalysisTask stored = task("a");
+		assertThat(stored.getStatus()).isEqualTo(Status.PENDING);
+		assertThat(stored.getLastError()).isEqualTo("boom");
+		assertThat(stored.getLeaseOwner()).isNull();
+		assertThat(stored.getAvailableAt()).isBetween(now.plusSeconds(24), now.plusSeconds(37));
+		assertThat(queue.claim("w1", 1)).isEmpty();
+
+		endBackoff("a");
+		AnalysisTask second = queue.claim("w1", 1).get(0);
+		queue.fail("w1", second, "boom", true);
+
+		// Doubled, with +-20% jitter
+		assertThat(task("a").getAvailableAt()).isBetween(now.plusSeconds(48), now.plusSeconds(73));
+	}
+
+	@Test
+	void theBackoffIsCapped() {
+		AnalysisQueue patient = new AnalysisQueue(mongo.mongoTemplate(), LEASE, 20, BACKOFF, MAX_BACKOFF, false);
+		add("a", now.minusMinutes(1));
+		AnalysisTask task = patient.claim("w1", 1).get(0);
+		task.setAttempts(10);
+
+		patient.fail("w1", task, "boom", true);
+
+		assertThat(task("a").getAvailableAt()).isBefore(now.plus(MAX_BACKOFF.multipliedBy(12).dividedBy(10)).plusSeconds(1));
+	}
+
+	@Test
+	void aTaskIsDeadLetteredAfterMaxAttempts() {
+		add("a", now.minusMinutes(1));
+
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			AnalysisTask task = queue.claim("w1", 1).get(0);
+			assertThat(task.getAttempts()).isEqualTo(attempt);
+			queue.fail("w1", task, "boom " + attempt, true);
+			endBackoff("a");
+		}
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.DEAD);
+		assertThat(task("a").getLastError()).isEqualTo("boom 3");
+		assertThat(queue.claim("w1", 1)).isEmpty();
+	}
+
+	@Test
+	void aNonRetryableFailureIsDeadLetteredAtOnce() {
+		add("a", now.minusMinutes(1));
+
+		queue.fail("w1", queue.claim("w1", 1).get(0), "bad request", false);
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.DEAD);
+		assertThat(task("a").getAttempts()).isEqualTo(1);
+	}
+
+	@Test
+	void anExpiredLastLeaseIsDeadLetteredNotReclaimed() {
+		add("a", now.minusMinutes(1));
+		for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+			queue.claim("w1", 1);
+			expireLease("a");
+		}
+		queue.claim("w1", 1);
+		expireLease("a");
+
+		assertThat(queue.claim("w2", 1)).isEmpty();
+		assertThat(queue.expireDeadLeases()).isEqualTo(1);
+		assertThat(task("a").getStatus()).isEqualTo(Status.DEAD);
+		assertThat(task("a").getLastError()).isEqualTo("Lease expired");
+	}
+
+	@Test
+	void releasingATaskDoesNotUseUpAnAttempt() {
+		add("a", now.minusMinutes(1));
+		queue.claim("w1", 1);
+
+		queue.release("w1", List.of("a"));
+
+		AnalysisTask stored = task("a");
+		assertThat(stored.getStatus()).isEqualTo(Status.PENDING);
+		assertThat(stored.getAttempts()).isZero();
+		assertThat(stored.getLeaseOwner()).isNull();
+		assertThat(queue.claim("w2", 1).get(0).getAttempts()).isEqualTo(1);
+	}
+
+	@Test
+	void onlyTheLeaseOwnerCanSettleATask() {
+		add("a", now.minusMinutes(1));
+		AnalysisTask task = queue.claim("w1", 1).get(0);
+
+		queue.fail("w2", task, "not mine", true);
+		queue.release("w2", List.of("a"));
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.LEASED);
+		assertThat(task("a").getLeaseOwner()).isEqualTo("w1");
+		assertThat(queue.complete("w2", "a")).isFalse();
+	}
+
+	@Test
+	void deadTasksCanBeRequeuedWithFreshAttempts() {
+		add("a", now.minusMinutes(1));
+		queue.fail("w1", queue.claim("w1", 1).get(0), "bad request", false);
+
+		assertThat(queue.requeueDead()).isEqualTo(1);
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.PENDING);
+		assertThat(queue.claim("w1", 1).get(0).getAttempts()).isEqualTo(1);
+	}
+}
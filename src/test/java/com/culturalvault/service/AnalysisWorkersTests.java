@@ -0,0 +1,215 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import com.culturalvault.model.AnalysisTask;
+import com.culturalvault.model.AnalysisTask.Status;
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ArtifactAnalysis;
+import com.culturalvault.model.Embedding;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Workers draining the queue through the {@link AiServiceClient}, against a
+ * stub AI service on the JDK {@link HttpServer}.
+ */
+class AnalysisWorkersTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<String> paths = new CopyOnWriteArrayList<>();
+	private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+	private final ImageHashIndex imageHashIndex = mock(ImageHashIndex.class);
+	private final Map<String, ArtifactAnalysis> saved = new ConcurrentHashMap<>();
+
+	private volatile int status = 200;
+	private HttpServer server;
+	private InMemoryMongo mongo;
+	private AiServiceClient client;
+	private AnalysisWorkers workers;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/analyze", this::analyze);
+		server.start();
+
+		client = new AiServiceClient(RestClient.builder(), HttpClient.newHttpClient(), objectMapper,
+				"http://127.0.0.1:" + server.getAddress().getPort(), 5000, Duration.ofSeconds(5),
+				8, Duration.ofMillis(20), 256, 4, 1, 32, 0.7, Duration.ofSeconds(10),
+				100, Duration.ofSeconds(30), 10, Duration.ofMinutes(1));
+
+		mongo = new InMemoryMongo();
+		AnalysisQueue queue = new AnalysisQueue(mongo.mongoTemplate(), Duration.ofMinutes(5), 3,
+				Duration.ofSeconds(30), Duration.ofMinutes(5), false);
+
+		ArtifactService artifactService = mock(ArtifactService.class);
+		when(artifactService.getArtifactById(anyString())).thenAnswer(call -> {
+			Artifact artifact = new Artifact();
+			artifact.setId(call.getArgument(0));
+			artifact.setTitle("Artifact " + call.getArgument(0));
+			artifact.setImageUrl("https://images.example.org/" + call.getArgument(0) + ".jpg");
+			return Optional.of(artifact);
+		});
+		when(artifactService.saveAnalysis(anyString(), any(ArtifactAnalysis.class))).thenAnswer(call -> {
+			saved.put(call.getArgument(0), call.getArgument(1));
+			return null;
+		});
+
+		workers = new AnalysisWorkers(queue, artifactService, client, imageHashIndex, true, 2, 10, Duration.ofMillis(20),
+				new NodeIdentity("test-node"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		workers.onShutdown();
+		client.onShutdown();
+		server.stop(0);
+	}
+
+	/** Answers each artifact with a tag naming its title. */
+	private void analyze(HttpExchange exchange) throws IOException {
+		paths.add(exchange.getRequestURI().getPath());
+		JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+		if (request.isArray()) {
+			request.forEach(requests::add);
+		} else {
+			requests.add(request);
+		}
+		String body = "{}";
+		if (status == 200) {
+			body = request.isArray()
+					? objectMapper.writeValueAsString(StreamSupport.stream(request.spliterator(), false)
+							.map(AnalysisWorkersTests::analysisOf).toList())
+					: objectMapper.writeValueAsString(analysisOf(request));
+		}
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, Object> analysisOf(JsonNode artifact) {
+		return Map.of("culturalTags", Map.of(artifact.path("title").asText(), 0.9));
+	}
+
+	private void add(String id, LocalDateTime availableAt) {
+		AnalysisTask task = new AnalysisTask();
+		task.setId(id);
+		task.setStatus(Status.PENDING);
+		task.setAvailableAt(availableAt);
+		task.setCreatedAt(availableAt);
+		mongo.insert(task);
+	}
+
+	private AnalysisTask task(String id) {
+		return mongo.get(AnalysisTask.class, id);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition met within 10s").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void analysesAndCompletesQueuedTasks() throws InterruptedException {
+		LocalDateTime now = LocalDateTime.now();
+		for (int i = 0; i < 5; i++) {
+			add("a" + i, now.minusSeconds(10 - i));
+		}
+
+		workers.onApplicationReady();
+		await(() -> workers.getStats().analyzed() == 5);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(task("a" + i).getStatus()).isEqualTo(Status.DONE);
+			assertThat(saved.get("a" + i).getCulturalTags()).containsOnlyKeys("Artifact a" + i);
+		}
+		assertThat(workers.getStats().failed()).isZero();
+		// A claimed batch goes out as one batch request
+		assertThat(paths).contains("/analyze/batch");
+	}
+
+	@Test
+	void anAnalysedTwinImageIsNotAnalysedAgain() throws InterruptedException {
+		ArtifactAnalysis twinAnalysis = new ArtifactAnalysis();
+		twinAnalysis.setImageEmbedding(Embedding.of(new float[] { 0.6f, 0.8f }));
+		twinAnalysis.setDetections(List.of());
+		Artifact twin = new Artifact();
+		twin.setId("twin");
+		twin.setAnalysis(twinAnalysis);
+		when(imageHashIndex.findAnalyzedTwin("a")).thenReturn(Optional.of(twin));
+		add("a", LocalDateTime.now().minusSeconds(1));
+		add("b", LocalDateTime.now().minusSeconds(1));
+
+		workers.onApplicationReady();
+		await(() -> workers.getStats().analyzed() == 2);
+
+		JsonNode requestOfA = requests.stream().filter(r -> r.path("artifactId").asText().equals("a")).findFirst().orElseThrow();
+		JsonNode requestOfB = requests.stream().filter(r -> r.path("artifactId").asText().equals("b")).findFirst().orElseThrow();
+		assertThat(requestOfA.has("imageUrl")).isFalse();
+		assertThat(requestOfB.path("imageUrl").asText()).isEqualTo("https://images.example.org/b.jpg");
+		assertThat(saved.get("a").getImageEmbedding()).isSameAs(twinAnalysis.getImageEmbedding());
+		assertThat(saved.get("a").getDetections()).isSameAs(twinAnalysis.getDetections());
+		assertThat(saved.get("a").getCulturalTags()).containsOnlyKeys("Artifact a");
+		assertThat(saved.get("b").getImageEmbedding()).isNull();
+	}
+
+	@Test
+	void serviceErrorsAreRetriedLater() throws InterruptedException {
+		status = 503;
+		add("a", LocalDateTime.now().minusSeconds(1));
+
+		workers.onApplicationReady();
+		await(() -> task("a").getLastError() != null);
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.PENDING);
+		assertThat(task("a").getAttempts()).isEqualTo(1);
+		assertThat(task("a").getLastError()).contains("503");
+		assertThat(task("a").getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+		assertThat(saved).isEmpty();
+	}
+
+	@Test
+	void rejectedRequestsAreDeadLettered() throws InterruptedException {
+		status = 400;
+		add("a", LocalDateTime.now().minusSeconds(1));
+
+		workers.onApplicationReady();
+		await(() -> task("a").getLastError() != null);
+
+		assertThat(task("a").getStatus()).isEqualTo(Status.DEAD);
+		assertThat(paths).containsExactly("/analyze");
+	}
+}
@@ -0,0 +1,200 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.culturalvault.model.Artifact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+class ArtifactBulkWriterTests {
+
+	private MongoTemplate mongoTemplate;
+	private BulkOperations bulk;
+	private ApplicationEventPublisher eventPublisher;
+	private ArtifactBulkWriter writer;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		bulk = mock(BulkOperations.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artifact.class)).thenReturn(bulk);
+		writer = new ArtifactBulkWriter(mongoTemplate, eventPublisher, new ObjectMapper());
+	}
+
+	private static Artifact imported(String sourceId, String title) {
+		Artifact artifact = new Artifact();
+		artifact.setSource("EUROPEANA");
+		artifact.setSourceId(sourceId);
+		artifact.setTitle(title);
+		artifact.setCategory("Painting");
+		return artifact;
+	}
+
+	private static BulkWriteResult upserted(int index, ObjectId id) {
+		return BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(new BulkWriteUpsert(index, new BsonObjectId(id))), List.of());
+	}
+
+	private static BulkWriteResult matched(int count) {
+		return BulkWriteResult.acknowledged(0, count, 0, count, List.of(), List.of());
+	}
+
+	@Test
+	void upsertsNewRecordsOnTheSourceKey() {
+		ObjectId id = new ObjectId();
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of());
+		when(bulk.execute()).thenReturn(upserted(0, id));
+		Artifact artifact = imported("/1/a", "Night Watch");
+
+		ArtifactBulkWriter.Result result = writer.write(List.of(artifact));
+
+		assertThat(result.inserted()).isEqualTo(1);
+		assertThat(result.updated()).isZero();
+		assertThat(result.failed()).isZero();
+		assertThat(artifact.getId()).isEqualTo(id.toHexString());
+		assertThat(artifact.getContentHash()).isNotBlank();
+		assertThat(artifact.getCategoryKey()).isNotNull();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(bulk).upsert(query.capture(), update.capture());
+		assertThat(query.getValue().getQueryObject())
+				.containsEntry("source", "EUROPEANA").containsEntry("sourceId", "/1/a");
+		assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+				.containsEntry("title", "Night Watch").containsEntry("contentHash", artifact.getContentHash());
+		ArgumentCaptor<ArtifactChangedEvent> event = ArgumentCaptor.forClass(ArtifactChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().previous()).isNull();
+		assertThat(event.getValue().current()).isSameAs(artifact);
+	}
+
+	@Test
+	void lastRecordForAKeyWinsWithinABatch() {
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of());
+		when(bulk.execute()).thenReturn(upserted(0, new ObjectId()));
+
+		writer.write(List.of(imported("/1/a", "First"), imported("/1/a", "Second")));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(bulk, times(1)).upsert(any(Query.class), update.capture());
+		assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+				.containsEntry("title", "Second");
+	}
+
+	@Test
+	void skipsRecordsWhoseContentHashIsUnchanged() {
+		// First import, to learn the hash the writer stores
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of());
+		when(bulk.execute()).thenReturn(upserted(0, new ObjectId()));
+		Artifact first = imported("/1/a", "Night Watch");
+		writer.write(List.of(first));
+
+		Artifact stored = new Artifact();
+		stored.setId(first.getId());
+		stored.setSourceId("/1/a");
+		stored.setContentHash(first.getContentHash());
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of(stored));
+		Artifact again = imported("/1/a", "Night Watch");
+
+		ArtifactBulkWriter.Result result = writer.write(List.of(again));
+
+		assertThat(result.unchanged()).isEqualTo(1);
+		assertThat(result.inserted()).isZero();
+		assertThat(result.updated()).isZero();
+		assertThat(again.getId()).isEqualTo(first.getId());
+		// Only the first import was written and published
+		verify(bulk, times(1)).execute();
+		verify(eventPublisher, times(1)).publishEvent(any(ArtifactChangedEvent.class));
+	}
+
+	@Test
+	void updatesChangedRecordsWithThePreviousStateInTheEvent() {
+		Artifact previous = imported("/1/a", "Old title");
+		previous.setId(new ObjectId().toHexString());
+		previous.setContentHash("stale");
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of(previous));
+		when(bulk.execute()).thenReturn(matched(1));
+		Artifact artifact = imported("/1/a", "New title");
+
+		ArtifactBulkWriter.Result result = writer.write(List.of(artifact));
+
+		assertThat(result.updated()).isEqualTo(1);
+		assertThat(artifact.getId()).isEqualTo(previous.getId());
+		ArgumentCaptor<ArtifactChangedEvent> event = ArgumentCaptor.forClass(ArtifactChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().previous().getTitle()).isEqualTo("Old title");
+		assertThat(event.getValue().current().getTitle()).isEqualTo("New title");
+	}
+
+	@Test
+	void retriesARecordInsertedConcurrentlyAsAnUpdate() {
+		Artifact concurrent = imported("/1/a", "Inserted elsewhere");
+		concurrent.setId(new ObjectId().toHexString());
+		concurrent.setContentHash("other");
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class)))
+				// Not stored yet when the batch is prepared...
+				.thenReturn(List.of())
+				// ...but stored by the time it is retried
+				.thenReturn(List.of(concurrent))
+				.thenReturn(List.of(concurrent));
+		BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+		when(bulk.execute())
+				.thenThrow(new BulkOperationException("duplicate", new MongoBulkWriteException(
+						BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()), List.of(duplicate),
+						null, new ServerAddress(), Set.of())))
+				.thenReturn(matched(1));
+		Artifact artifact = imported("/1/a", "Night Watch");
+
+		ArtifactBulkWriter.Result result = writer.write(List.of(artifact));
+
+		assertThat(result.failed()).isZero();
+		assertThat(result.inserted()).isZero();
+		assertThat(result.updated()).isEqualTo(1);
+		assertThat(artifact.getId()).isEqualTo(concurrent.getId());
+		verify(bulk, times(2)).execute();
+	}
+
+	@Test
+	void reportsADuplicateKeyThatPersistsOnRetry() {
+		when(mongoTemplate.find(any(Query.class), eq(Artifact.class))).thenReturn(List.of());
+		BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+		when(bulk.execute()).thenThrow(new BulkOperationException("duplicate", new MongoBulkWriteException(
+				BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()), List.of(duplicate),
+				null, new ServerAddress(), Set.of())));
+
+		ArtifactBulkWriter.Result result = writer.write(List.of(imported("/1/a", "Night Watch")));
+
+		assertThat(result.failed()).isEqualTo(1);
+		assertThat(result.failures().get(0).message()).contains("duplicate key");
+		verify(bulk, times(2)).execute();
+		verify(eventPublisher, never()).publishEvent(any(ArtifactChangedEvent.class));
+	}
+}
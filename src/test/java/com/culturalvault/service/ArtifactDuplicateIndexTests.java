@@ -0,0 +1,89 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.culturalvault.model.Artifact;
+
+/**
+ * Duplicate flags written into {@link InMemoryMongo} as artifacts change.
+ */
+class ArtifactDuplicateIndexTests {
+
+	private static final String VESSEL = "Bronze ritual wine vessel with taotie mask decoration from the late"
+			+ " Shang dynasty, excavated at Anyang";
+	private static final String LANDSCAPE = "Watercolour landscape of the Thames at dawn, painted by an unknown"
+			+ " English artist around 1820";
+
+	private final InMemoryMongo mongo = new InMemoryMongo();
+	private final ArtifactDuplicateIndex index = new ArtifactDuplicateIndex(mongo.mongoTemplate(), true, 0.7, 16, 4,
+			5, 20);
+
+	private void add(String id, String title) {
+		Artifact artifact = new Artifact();
+		artifact.setId(id);
+		artifact.setTitle(title);
+		mongo.insert(artifact);
+	}
+
+	/** Saves a new title and publishes the change, as ArtifactService does. */
+	private void retitle(String id, String title) {
+		Artifact previous = artifact(id);
+		Artifact current = artifact(id);
+		current.setTitle(title);
+		mongo.mongoTemplate().save(current);
+		index.onArtifactChanged(ArtifactChangedEvent.updated(previous, current));
+	}
+
+	private Artifact artifact(String id) {
+		return mongo.get(Artifact.class, id);
+	}
+
+	@Test
+	void theDuplicatesOfAnArtifactWhoseTextChangedAreReEvaluated() {
+		add("a1", VESSEL);
+		add("a2", VESSEL);
+		add("a3", VESSEL);
+		index.rebuild();
+		index.scan();
+		assertThat(artifact("a2").getDuplicateOf()).isEqualTo("a1");
+		assertThat(artifact("a3").getDuplicateOf()).isEqualTo("a1");
+
+		retitle("a1", LANDSCAPE);
+		index.flush();
+
+		// a2 is now the oldest of the two left alike
+		assertThat(artifact("a2").getDuplicateOf()).isNull();
+		assertThat(artifact("a3").getDuplicateOf()).isEqualTo("a2");
+	}
+
+	@Test
+	void aNewerArtifactIsFlaggedWhenAnOlderOneComesToMatchIt() {
+		add("a1", LANDSCAPE);
+		add("a2", VESSEL);
+		index.rebuild();
+		assertThat(index.scan().flagged()).isZero();
+
+		retitle("a1", VESSEL);
+		index.flush();
+
+		assertThat(artifact("a1").getDuplicateOf()).isNull();
+		assertThat(artifact("a2").getDuplicateOf()).isEqualTo("a1");
+	}
+
+	@Test
+	void theDuplicatesOfADeletedArtifactAreReEvaluated() {
+		add("a1", VESSEL);
+		add("a2", VESSEL);
+		index.rebuild();
+		index.scan();
+
+		Artifact deleted = artifact("a1");
+		mongo.collection("artifacts").removeIf(document -> document.get("_id").equals("a1"));
+		index.onArtifactChanged(ArtifactChangedEvent.deleted(deleted));
+		index.flush();
+
+		assertThat(artifact("a2").getDuplicateOf()).isNull();
+	}
+}
@@ -0,0 +1,104 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BkTreeTests {
+
+	private static List<BkTree.Match> bruteForce(Map<String, Long> hashes, long query, int maxDistance) {
+		List<BkTree.Match> matches = new ArrayList<>();
+		hashes.forEach((id, hash) -> {
+			int distance = PerceptualHash.distance(hash, query);
+			if (distance <= maxDistance) {
+				matches.add(new BkTree.Match(id, hash, distance));
+			}
+		});
+		matches.sort(Comparator.comparingInt(BkTree.Match::distance).thenComparing(BkTree.Match::id));
+		return matches;
+	}
+
+	/** A hash differing from the given one in the given number of random bits. */
+	private static long flip(long hash, int bits, Random random) {
+		long flipped = hash;
+		while (PerceptualHash.distance(flipped, hash) < bits) {
+			flipped ^= 1L << random.nextInt(64);
+		}
+		return flipped;
+	}
+
+	@Test
+	void findsTheSameMatchesAsABruteForceScan() {
+		Random random = new Random(5);
+		BkTree tree = new BkTree();
+		Map<String, Long> hashes = new LinkedHashMap<>();
+		for (int i = 0; i < 2000; i++) {
+			// Clusters around a few bases, so that small distances occur
+			long hash = flip(i % 20 == 0 ? random.nextLong() : hashes.get("h" + (i - i % 20)), i % 20 == 0 ? 0 : random.nextInt(12), random);
+			hashes.put("h" + i, hash);
+			tree.put(hash, "h" + i);
+		}
+
+		assertThat(tree.size()).isEqualTo(2000);
+		for (int q = 0; q < 50; q++) {
+			long query = flip(hashes.get("h" + random.nextInt(2000)), random.nextInt(6), random);
+			for (int maxDistance : new int[] { 0, 4, 10 }) {
+				assertThat(tree.search(query, maxDistance)).isEqualTo(bruteForce(hashes, query, maxDistance));
+			}
+		}
+	}
+
+	@Test
+	void keepsEveryIdOfADuplicateHash() {
+		BkTree tree = new BkTree();
+		tree.put(0xF0F0L, "b");
+		tree.put(0xF0F0L, "a");
+		tree.put(0xF0F1L, "c");
+
+		assertThat(tree.search(0xF0F0L, 0)).extracting(BkTree.Match::id).containsExactly("a", "b");
+		assertThat(tree.search(0xF0F0L, 1)).extracting(BkTree.Match::id).containsExactly("a", "b", "c");
+		assertThat(tree.size()).isEqualTo(3);
+	}
+
+	@Test
+	void removedIdsAreNotFoundAndLeaveEmptyNodes() {
+		BkTree tree = new BkTree();
+		tree.put(0L, "root");
+		tree.put(1L, "child");
+		tree.put(1L, "twin");
+
+		assertThat(tree.remove(1L, "child")).isTrue();
+		assertThat(tree.remove(1L, "child")).isFalse();
+		assertThat(tree.remove(2L, "twin")).isFalse();
+		assertThat(tree.emptyNodes()).isZero();
+
+		assertThat(tree.remove(1L, "twin")).isTrue();
+		assertThat(tree.emptyNodes()).isEqualTo(1);
+		assertThat(tree.size()).isEqualTo(1);
+		assertThat(tree.search(0L, 64)).extracting(BkTree.Match::id).containsExactly("root");
+
+		// An empty node is reused when its hash comes back
+		tree.put(1L, "again");
+		assertThat(tree.emptyNodes()).isZero();
+		assertThat(tree.search(1L, 0)).extracting(BkTree.Match::id).containsExactly("again");
+	}
+
+	@Test
+	void clearEmptiesTheTree() {
+		BkTree tree = new BkTree();
+		tree.put(0L, "a");
+		tree.put(-1L, "b");
+
+		tree.clear();
+
+		assertThat(tree.size()).isZero();
+		assertThat(tree.search(0L, 64)).isEmpty();
+	}
+}
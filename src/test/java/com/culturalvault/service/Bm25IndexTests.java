@@ -0,0 +1,154 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class Bm25IndexTests {
+
+	private Bm25Index index;
+
+	@BeforeEach
+	void setUp() {
+		Map<String, Double> boosts = new LinkedHashMap<>();
+		boosts.put("title", 3.0);
+		boosts.put("description", 1.0);
+		index = new Bm25Index(boosts, 1.2, 0.75);
+	}
+
+	@Test
+	void tokenizesIntoLowerCaseWordsWithoutStopWords() {
+		assertThat(Bm25Index.tokenize("The Night-Watch, of Rembrandt (1642) à Paris"))
+				.containsExactly("night", "watch", "rembrandt", "1642", "paris");
+		assertThat(Bm25Index.tokenize("  ")).isEmpty();
+		assertThat(Bm25Index.tokenize(null)).isEmpty();
+	}
+
+	@Test
+	void findsDocumentsMatchingAnyTerm() {
+		index.put("1", "Bronze vase", "A vase from the Han dynasty");
+		index.put("2", "Silk scroll", "Painted landscape");
+		index.put("3", "Bronze mirror", "Polished bronze");
+
+		Bm25Index.SearchResult result = index.search("bronze scroll", 0, 10);
+
+		assertThat(result.ids()).containsExactlyInAnyOrder("1", "2", "3");
+		assertThat(result.totalHits()).isEqualTo(3);
+		assertThat(index.search("porcelain", 0, 10).hits()).isEmpty();
+	}
+
+	@Test
+	void aTitleMatchOutranksTheSameMatchInTheDescription() {
+		index.put("title", "Bronze vase", "An old object");
+		index.put("description", "Old object", "A bronze vase");
+
+		assertThat(index.search("bronze", 0, 10).ids()).containsExactly("title", "description");
+	}
+
+	@Test
+	void rareTermsWeighMoreThanCommonOnes() {
+		for (int i = 0; i < 10; i++) {
+			index.put("common" + i, "Vase", "");
+		}
+		index.put("rare", "Vase", "Jade");
+		index.put("other", "Carving", "Jade");
+
+		// "jade" is in 2 of 12 documents, "vase" in 11
+		assertThat(index.search("jade", 0, 10).ids()).containsExactlyInAnyOrder("rare", "other");
+		assertThat(index.search("vase jade", 0, 1).ids()).containsExactly("rare");
+	}
+
+	@Test
+	void shorterFieldsScoreHigherForTheSameMatch() {
+		index.put("short", "Vase", "");
+		index.put("long", "Vase with a painted dragon and clouds around the neck", "");
+
+		assertThat(index.search("vase", 0, 10).ids()).containsExactly("short", "long");
+	}
+
+	@Test
+	void pagesThroughTheRankedHits() {
+		for (int i = 0; i < 5; i++) {
+			// Ranked by the number of occurrences in the description
+			index.put("d" + i, "Coin", "coin ".repeat(i + 1));
+		}
+
+		Bm25Index.SearchResult first = index.search("coin", 0, 2);
+		Bm25Index.SearchResult second = index.search("coin", 2, 2);
+		Bm25Index.SearchResult beyond = index.search("coin", 10, 2);
+
+		assertThat(first.ids()).containsExactly("d4", "d3");
+		assertThat(second.ids()).containsExactly("d2", "d1");
+		assertThat(first.totalHits()).isEqualTo(5);
+		assertThat(beyond.hits()).isEmpty();
+		assertThat(beyond.totalHits()).isEqualTo(5);
+	}
+
+	@Test
+	void equalScoresAreOrderedById() {
+		index.put("b", "Mask", "");
+		index.put("a", "Mask", "");
+		index.put("c", "Mask", "");
+
+		assertThat(index.search("mask", 0, 10).ids()).containsExactly("a", "b", "c");
+	}
+
+	@Test
+	void putReplacesThePreviousVersion() {
+		index.put("1", "Bronze vase", "");
+		index.put("1", "Silk scroll", "");
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("bronze", 0, 10).hits()).isEmpty();
+		assertThat(index.search("silk", 0, 10).ids()).containsExactly("1");
+	}
+
+	@Test
+	void removedDocumentsAreNotFoundAndTheirSlotIsReused() {
+		index.put("1", "Bronze vase", "");
+		index.put("2", "Bronze mirror", "");
+
+		index.remove("1");
+		index.remove("missing");
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("bronze", 0, 10).ids()).containsExactly("2");
+		assertThat(index.search("vase", 0, 10).hits()).isEmpty();
+
+		index.put("3", "Bronze bell", "");
+		assertThat(index.search("bronze", 0, 10).ids()).containsExactlyInAnyOrder("2", "3");
+	}
+
+	@Test
+	void growsPastItsInitialCapacity() {
+		for (int i = 0; i < 3000; i++) {
+			index.put("d" + i, "Item " + i, i % 2 == 0 ? "even" : "odd");
+		}
+
+		assertThat(index.size()).isEqualTo(3000);
+		assertThat(index.search("even", 0, 10).totalHits()).isEqualTo(1500);
+		assertThat(index.search("2999", 0, 10).ids()).containsExactly("d2999");
+	}
+
+	@Test
+	void clearEmptiesTheIndex() {
+		index.put("1", "Bronze vase", "");
+
+		index.clear();
+
+		assertThat(index.size()).isZero();
+		assertThat(index.search("bronze", 0, 10).hits()).isEmpty();
+	}
+
+	@Test
+	void emptyQueriesFindNothing() {
+		index.put("1", "The vase", "");
+
+		assertThat(index.search("the of", 0, 10).hits()).isEmpty();
+		assertThat(index.search("vase", 0, 0).hits()).isEmpty();
+	}
+}
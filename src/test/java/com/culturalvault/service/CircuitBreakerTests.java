@@ -0,0 +1,85 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.culturalvault.service.CircuitBreaker.State;
+
+class CircuitBreakerTests {
+
+	/** Trips the breaker with {@code threshold} consecutive failures. */
+	private static void trip(CircuitBreaker breaker, int threshold) {
+		for (int i = 0; i < threshold; i++) {
+			assertThat(breaker.allowRequest()).isTrue();
+			breaker.onFailure();
+		}
+	}
+
+	@Test
+	void opensAfterTheThresholdOfConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofHours(1));
+
+		trip(breaker, 2);
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.isOpen()).isTrue();
+		assertThat(breaker.allowRequest()).isFalse();
+	}
+
+	@Test
+	void aSuccessResetsTheFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofHours(1));
+
+		trip(breaker, 2);
+		breaker.onSuccess();
+		trip(breaker, 2);
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void letsOneTrialThroughOnceTheOpenPeriodIsOver() {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+		trip(breaker, 1);
+
+		assertThat(breaker.isOpen()).isFalse();
+		assertThat(breaker.allowRequest()).isTrue();
+		assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+		// Only one trial at a time
+		assertThat(breaker.allowRequest()).isFalse();
+	}
+
+	@Test
+	void aSuccessfulTrialClosesTheCircuit() {
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+		trip(breaker, 1);
+		assertThat(breaker.allowRequest()).isTrue();
+
+		breaker.onSuccess();
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(breaker.allowRequest()).isTrue();
+		assertThat(breaker.allowRequest()).isTrue();
+	}
+
+	@Test
+	void aFailedTrialOpensTheCircuitAgain() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(5, Duration.ofMillis(100));
+		trip(breaker, 5);
+		Thread.sleep(150);
+		assertThat(breaker.allowRequest()).isTrue();
+
+		// A single failure is enough while half-open
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.allowRequest()).isFalse();
+		Thread.sleep(150);
+		assertThat(breaker.allowRequest()).isTrue();
+	}
+}
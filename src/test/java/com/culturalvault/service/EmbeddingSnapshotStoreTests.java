@@ -0,0 +1,101 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EmbeddingSnapshotStoreTests {
+
+	@TempDir
+	Path root;
+
+	private static HnswIndex index(Random random, int size, int dimension) {
+		HnswIndex index = new HnswIndex(8, 64, 64);
+		for (int i = 0; i < size; i++) {
+			float[] vector = new float[dimension];
+			for (int d = 0; d < dimension; d++) {
+				vector[d] = (float) random.nextGaussian();
+			}
+			index.put("a" + i, vector);
+		}
+		return index;
+	}
+
+	@Test
+	void aSnapshotReadsBackAsTheGraphsThatWereWritten() throws IOException {
+		Random random = new Random(42);
+		HnswIndex text = index(random, 300, 16);
+		HnswIndex image = index(random, 50, 8);
+		// A tombstone is kept as such
+		text.remove("a7");
+		Map<ArtifactVectorIndex.Kind, HnswIndex.Graph> graphs = new EnumMap<>(ArtifactVectorIndex.Kind.class);
+		graphs.put(ArtifactVectorIndex.Kind.TEXT, text.exportGraph());
+		graphs.put(ArtifactVectorIndex.Kind.IMAGE, image.exportGraph());
+		Instant watermark = Instant.ofEpochMilli(1_700_000_000_123L);
+		EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(root.resolve("embeddings.snapshot").toString());
+
+		store.write(new EmbeddingSnapshotStore.Snapshot(watermark, graphs));
+		EmbeddingSnapshotStore.Snapshot read = store.read().orElseThrow();
+
+		assertThat(read.watermark()).isEqualTo(watermark);
+		assertThat(read.graphs()).containsOnlyKeys(graphs.keySet());
+		for (ArtifactVectorIndex.Kind kind : graphs.keySet()) {
+			HnswIndex.Graph expected = graphs.get(kind);
+			HnswIndex.Graph actual = read.graphs().get(kind);
+			assertThat(actual.m()).isEqualTo(expected.m());
+			assertThat(actual.dimension()).isEqualTo(expected.dimension());
+			assertThat(actual.entryPoint()).isEqualTo(expected.entryPoint());
+			assertThat(actual.maxLevel()).isEqualTo(expected.maxLevel());
+			assertThat(actual.ids()).isEqualTo(expected.ids());
+			assertThat(actual.deleted()).isEqualTo(expected.deleted());
+			assertThat(Arrays.deepEquals(actual.vectors(), expected.vectors())).as("%s vectors", kind).isTrue();
+			assertThat(Arrays.deepEquals(actual.links(), expected.links())).as("%s links", kind).isTrue();
+		}
+
+		// The imported graph answers queries as the original does
+		HnswIndex restored = new HnswIndex(8, 64, 64);
+		restored.importGraph(read.graphs().get(ArtifactVectorIndex.Kind.TEXT));
+		assertThat(restored.contains("a7")).isFalse();
+		for (int i = 0; i < 20; i++) {
+			float[] query = new float[16];
+			for (int d = 0; d < 16; d++) {
+				query[d] = (float) random.nextGaussian();
+			}
+			assertThat(restored.search(query, 10, null)).isEqualTo(text.search(query, 10, null));
+		}
+	}
+
+	@Test
+	void aMissingSnapshotReadsAsEmpty() throws IOException {
+		EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(root.resolve("none.snapshot").toString());
+
+		assertThat(store.read()).isEmpty();
+	}
+
+	@Test
+	void aForeignOrTruncatedFileIsRejected() throws IOException {
+		Path path = root.resolve("embeddings.snapshot");
+		EmbeddingSnapshotStore store = new EmbeddingSnapshotStore(path.toString());
+
+		Files.write(path, "not a snapshot at all".getBytes());
+		assertThatThrownBy(store::read).isInstanceOf(IOException.class);
+
+		Map<ArtifactVectorIndex.Kind, HnswIndex.Graph> graphs = new EnumMap<>(ArtifactVectorIndex.Kind.class);
+		graphs.put(ArtifactVectorIndex.Kind.TEXT, index(new Random(1), 20, 4).exportGraph());
+		store.write(new EmbeddingSnapshotStore.Snapshot(Instant.now(), graphs));
+		byte[] written = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(written, written.length / 2));
+		assertThatThrownBy(store::read).isInstanceOf(IOException.class);
+	}
+}
@@ -0,0 +1,212 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Harvest sources against a stub server on the JDK {@link HttpServer}.
+ */
+class HarvestSourceTests {
+
+	/** A canned response: status and JSON body. */
+	private record Reply(int status, String body) { }
+
+	private HttpServer server;
+	private String baseUrl;
+	private final List<Map<String, String>> requests = new CopyOnWriteArrayList<>();
+	private final Map<String, Function<Map<String, String>, Reply>> handlers = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		Map<String, String> params = new HashMap<>();
+		UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams().toSingleValueMap()
+				.forEach((name, value) -> params.put(name, UriUtils.decode(value, StandardCharsets.UTF_8)));
+		requests.add(params);
+		Function<Map<String, String>, Reply> handler = handlers.get(exchange.getRequestURI().getPath());
+		Reply reply = handler == null ? new Reply(404, "{}") : handler.apply(params);
+		byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(reply.status(), body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private EuropeanaHarvestSource europeana() {
+		return new EuropeanaHarvestSource(RestClient.builder(), HttpClient.newHttpClient(), baseUrl, "key", 10_000,
+				Duration.ofHours(1));
+	}
+
+	private SmithsonianHarvestSource smithsonian() {
+		return new SmithsonianHarvestSource(RestClient.builder(), HttpClient.newHttpClient(), baseUrl, "key", 10_000,
+				Duration.ofHours(1));
+	}
+
+	private static String europeanaItem(String id, String title) {
+		return """
+				{"id": "%s", "title": ["%s"], "type": "IMAGE", "country": ["united kingdom"], "year": ["1665"]}
+				""".formatted(id, title);
+	}
+
+	private static String smithsonianRow(String id) {
+		return """
+				{"id": "%s", "title": "Row %s", "content": {"indexedStructured": {"date": ["1900s"]}}}
+				""".formatted(id, id);
+	}
+
+	@Test
+	void europeanaFollowsTheDeepPagingCursor() throws InterruptedException {
+		handlers.put("/search.json", params -> switch (params.get("cursor")) {
+			case "*" -> new Reply(200, """
+					{"totalResults": 3, "nextCursor": "page2", "items": [%s, %s]}
+					""".formatted(europeanaItem("/1/a", "A"), europeanaItem("/1/b", "B")));
+			case "page2" -> new Reply(200, """
+					{"totalResults": 3, "items": [%s]}
+					""".formatted(europeanaItem("/1/c", "C")));
+			default -> new Reply(400, "{}");
+		});
+		EuropeanaHarvestSource source = europeana();
+
+		HarvestSource.Page first = source.fetch("painting", null, source.firstCursor(), 2);
+		assertThat(first.records()).extracting("sourceId").containsExactly("/1/a", "/1/b");
+		assertThat(first.nextCursor()).isEqualTo("page2");
+		assertThat(first.totalResults()).isEqualTo(3);
+
+		HarvestSource.Page second = source.fetch("painting", null, first.nextCursor(), 2);
+		assertThat(second.records()).extracting("sourceId").containsExactly("/1/c");
+		assertThat(second.nextCursor()).isNull();
+
+		assertThat(requests).extracting(params -> params.get("cursor")).containsExactly("*", "page2");
+		assertThat(requests).allSatisfy(params -> {
+			assertThat(params).containsEntry("wskey", "key").containsEntry("query", "painting").containsEntry("rows", "2");
+		});
+		assertThat(first.records().get(0).getSource()).isEqualTo(EuropeanaHarvestSource.NAME);
+		assertThat(first.records().get(0).getCulture()).isEqualTo("UNITED_KINGDOM");
+		assertThat(first.records().get(0).getPeriod()).isEqualTo("EARLY_MODERN");
+	}
+
+	@Test
+	void europeanaRestrictsIncrementalSyncsToModifiedRecords() throws InterruptedException {
+		handlers.put("/search.json", params -> new Reply(200, "{\"totalResults\": 0, \"items\": []}"));
+
+		europeana().fetch("painting", Instant.parse("2024-05-01T10:15:30.123Z"), "*", 10);
+
+		assertThat(requests.get(0)).containsEntry("qf", "timestamp_update:[2024-05-01T10:15:30Z TO *]");
+	}
+
+	@Test
+	void smithsonianPagesByStartOffset() throws InterruptedException {
+		handlers.put("/search", params -> switch (params.get("start")) {
+			case "0" -> new Reply(200, """
+					{"response": {"rowCount": 3, "rows": [%s, %s]}}
+					""".formatted(smithsonianRow("s1"), smithsonianRow("s2")));
+			case "2" -> new Reply(200, """
+					{"response": {"rowCount": 3, "rows": [%s]}}
+					""".formatted(smithsonianRow("s3")));
+			default -> new Reply(400, "{}");
+		});
+		SmithsonianHarvestSource source = smithsonian();
+
+		HarvestSource.Page first = source.fetch("vase", null, source.firstCursor(), 2);
+		assertThat(first.records()).extracting("sourceId").containsExactly("s1", "s2");
+		assertThat(first.nextCursor()).isEqualTo("2");
+
+		HarvestSource.Page second = source.fetch("vase", null, first.nextCursor(), 2);
+		assertThat(second.records()).extracting("sourceId").containsExactly("s3");
+		assertThat(second.nextCursor()).isNull();
+		assertThat(second.totalResults()).isEqualTo(3);
+
+		assertThat(requests).extracting(params -> params.get("start")).containsExactly("0", "2");
+		assertThat(requests).allSatisfy(params -> assertThat(params).containsEntry("rows", "2"));
+	}
+
+	@Test
+	void smithsonianStopsOnAnEmptyPage() throws InterruptedException {
+		handlers.put("/search", params -> new Reply(200, "{\"response\": {\"rowCount\": 10, \"rows\": []}}"));
+
+		assertThat(smithsonian().fetch("vase", null, "4", 2).nextCursor()).isNull();
+	}
+
+	@Test
+	void retriesTooManyRequestsAndServerErrors() throws InterruptedException {
+		AtomicInteger calls = new AtomicInteger();
+		handlers.put("/search", params -> switch (calls.incrementAndGet()) {
+			case 1 -> new Reply(429, "{}");
+			case 2 -> new Reply(503, "{}");
+			default -> new Reply(200, """
+					{"response": {"rowCount": 1, "rows": [%s]}}
+					""".formatted(smithsonianRow("s1")));
+		});
+
+		HarvestSource.Page page = smithsonian().fetch("vase", null, "0", 10);
+
+		assertThat(page.records()).hasSize(1);
+		assertThat(calls).hasValue(3);
+	}
+
+	@Test
+	void doesNotRetryClientErrors() {
+		AtomicInteger calls = new AtomicInteger();
+		handlers.put("/search", params -> {
+			calls.incrementAndGet();
+			return new Reply(400, "{}");
+		});
+
+		assertThatThrownBy(() -> smithsonian().fetch("vase", null, "0", 10))
+				.isInstanceOf(HttpClientErrorException.BadRequest.class);
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void requestsAreSpacedByTheRateLimit() throws InterruptedException {
+		handlers.put("/search", params -> new Reply(200, "{\"response\": {\"rowCount\": 0, \"rows\": []}}"));
+		// 20 per second: one every 50 ms
+		SmithsonianHarvestSource source = new SmithsonianHarvestSource(RestClient.builder(), HttpClient.newHttpClient(),
+				baseUrl, "key", 20, Duration.ofSeconds(1));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			source.fetch("vase", null, "0", 10);
+		}
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+	}
+}
@@ -0,0 +1,195 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTests {
+
+	private static final int DIMENSION = 32;
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static double cosine(float[] a, float[] b) {
+		double dot = 0;
+		double normA = 0;
+		double normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return dot / Math.sqrt(normA * normB);
+	}
+
+	/** The true k nearest ids by brute force. */
+	private static Set<String> exactNearest(Map<String, float[]> vectors, float[] query, int k) {
+		Set<String> nearest = new HashSet<>();
+		vectors.entrySet().stream()
+				.sorted(Comparator.comparingDouble((Map.Entry<String, float[]> e) -> cosine(query, e.getValue())).reversed())
+				.limit(k)
+				.forEach(e -> nearest.add(e.getKey()));
+		return nearest;
+	}
+
+	/** Mean fraction of the true k nearest neighbours found, over the queries. */
+	private static double recall(HnswIndex index, Map<String, float[]> vectors, List<float[]> queries, int k) {
+		double found = 0;
+		for (float[] query : queries) {
+			Set<String> expected = exactNearest(vectors, query, k);
+			found += index.search(query, k, null).stream().filter(n -> expected.contains(n.id())).count();
+		}
+		return found / (queries.size() * (double) k);
+	}
+
+	private static Map<String, float[]> populate(HnswIndex index, Random random, int count) {
+		Map<String, float[]> vectors = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			float[] vector = randomVector(random);
+			vectors.put("v" + i, vector);
+			index.put("v" + i, vector);
+		}
+		return vectors;
+	}
+
+	@Test
+	void findsMostTrueNearestNeighbours() {
+		Random random = new Random(42);
+		HnswIndex index = new HnswIndex(16, 200, 100);
+		Map<String, float[]> vectors = populate(index, random, 2000);
+		List<float[]> queries = random.ints(50).mapToObj(i -> randomVector(random)).toList();
+
+		assertThat(recall(index, vectors, queries, 10)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void findsAnIndexedVectorAsItsOwnNearestNeighbour() {
+		Random random = new Random(7);
+		HnswIndex index = new HnswIndex(8, 100, 50);
+		Map<String, float[]> vectors = populate(index, random, 500);
+
+		int found = 0;
+		for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+			List<HnswIndex.Neighbor> nearest = index.search(entry.getValue(), 1, null);
+			if (nearest.get(0).id().equals(entry.getKey())) {
+				found++;
+			}
+		}
+		assertThat(found).isGreaterThanOrEqualTo(490);
+	}
+
+	@Test
+	void ranksByCosineSimilarityBestFirst() {
+		HnswIndex index = new HnswIndex(4, 20, 10);
+		index.put("same", new float[] { 2, 0 });
+		index.put("close", new float[] { 1, 0.2f });
+		index.put("orthogonal", new float[] { 0, 1 });
+		index.put("opposite", new float[] { -1, 0 });
+
+		List<HnswIndex.Neighbor> neighbors = index.search(new float[] { 1, 0 }, 4, null);
+
+		assertThat(neighbors).extracting(HnswIndex.Neighbor::id)
+				.containsExactly("same", "close", "orthogonal", "opposite");
+		assertThat(neighbors.get(0).similarity()).isCloseTo(1.0f, offset(1e-5f));
+		assertThat(neighbors.get(3).similarity()).isCloseTo(-1.0f, offset(1e-5f));
+	}
+
+	@Test
+	void leavesOutTheExcludedId() {
+		HnswIndex index = new HnswIndex(4, 20, 10);
+		index.put("a", new float[] { 1, 0 });
+		index.put("b", new float[] { 1, 0.1f });
+
+		assertThat(index.search(new float[] { 1, 0 }, 1, "a")).extracting(HnswIndex.Neighbor::id).containsExactly("b");
+	}
+
+	@Test
+	void removedVectorsAreNeverReturned() {
+		Random random = new Random(3);
+		HnswIndex index = new HnswIndex(8, 100, 50);
+		Map<String, float[]> vectors = populate(index, random, 300);
+		for (int i = 0; i < 300; i += 2) {
+			index.remove("v" + i);
+			vectors.remove("v" + i);
+		}
+
+		assertThat(index.size()).isEqualTo(150);
+		assertThat(index.tombstones()).isEqualTo(150);
+		assertThat(index.contains("v0")).isFalse();
+		assertThat(index.get("v0")).isNull();
+		for (int q = 0; q < 20; q++) {
+			assertThat(index.search(randomVector(random), 10, null))
+					.allSatisfy(neighbor -> assertThat(vectors).containsKey(neighbor.id()));
+		}
+	}
+
+	@Test
+	void putReplacesAVector() {
+		HnswIndex index = new HnswIndex(4, 20, 10);
+		index.put("a", new float[] { 1, 0 });
+		index.put("b", new float[] { 0, 1 });
+
+		index.put("a", new float[] { 0, 2 });
+
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.get("a")).containsExactly(0, 1);
+		assertThat(index.search(new float[] { 1, 0 }, 2, null)).extracting(HnswIndex.Neighbor::similarity)
+				.allSatisfy(similarity -> assertThat(similarity).isLessThan(0.5f));
+	}
+
+	@Test
+	void compactionDropsTombstonesAndKeepsRecall() {
+		Random random = new Random(11);
+		HnswIndex index = new HnswIndex(16, 200, 100);
+		Map<String, float[]> vectors = populate(index, random, 1500);
+		for (int i = 0; i < 1500; i += 3) {
+			index.remove("v" + i);
+			vectors.remove("v" + i);
+		}
+		List<float[]> queries = random.ints(30).mapToObj(i -> randomVector(random)).toList();
+
+		index.compact();
+
+		assertThat(index.tombstones()).isZero();
+		assertThat(index.size()).isEqualTo(vectors.size());
+		assertThat(new HashSet<>(index.ids())).isEqualTo(vectors.keySet());
+		assertThat(recall(index, vectors, queries, 10)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void rejectsVectorsOfAnotherDimension() {
+		HnswIndex index = new HnswIndex(4, 20, 10);
+		index.put("a", new float[] { 1, 0 });
+
+		assertThatThrownBy(() -> index.put("b", new float[] { 1, 0, 0 })).isInstanceOf(IllegalArgumentException.class);
+		assertThat(index.search(new float[] { 1, 0, 0 }, 1, null)).isEmpty();
+	}
+
+	@Test
+	void anEmptyIndexFindsNothing() {
+		HnswIndex index = new HnswIndex(4, 20, 10);
+
+		assertThat(index.search(new float[] { 1, 0 }, 5, null)).isEmpty();
+
+		index.put("a", new float[] { 1, 0 });
+		index.clear();
+		assertThat(index.size()).isZero();
+		assertThat(index.search(new float[] { 1, 0 }, 5, null)).isEmpty();
+	}
+}
@@ -0,0 +1,196 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.culturalvault.model.ImageBlob;
+
+/**
+ * Reference counting and collection of image blobs, with the documents in
+ * {@link InMemoryMongo} and the objects in a {@link LocalImageStorage} whose
+ * deletes a test can hook into.
+ */
+class ImageBlobServiceTests {
+
+	private static final Duration GRACE = Duration.ofHours(1);
+
+	@TempDir
+	Path root;
+
+	private final InMemoryMongo mongo = new InMemoryMongo();
+	private HookedStorage storage;
+	private ImageBlobService blobService;
+
+	/** Runs {@link #onDelete} inside each delete, before the object goes. */
+	private static class HookedStorage extends LocalImageStorage {
+
+		private volatile IORunnable onDelete = () -> { };
+
+		HookedStorage(Path root) {
+			super(root);
+		}
+
+		@Override
+		public void delete(String key) throws IOException {
+			onDelete.run();
+			super.delete(key);
+		}
+	}
+
+	private interface IORunnable {
+		void run() throws IOException;
+	}
+
+	@BeforeEach
+	void setUp() {
+		storage = new HookedStorage(root);
+		blobService = new ImageBlobService(mongo.mongoTemplate(), storage, GRACE);
+	}
+
+	/** Stores content under a blob with the given references, last changed {@code age} ago. */
+	private ImageBlob blob(String content, long refCount, Duration age) throws IOException {
+		String sha256 = sha256Of(content);
+		storage.put(ImageBlobService.keyOf(sha256), content.getBytes(StandardCharsets.UTF_8), "image/png");
+		ImageBlob blob = new ImageBlob();
+		blob.setId(sha256);
+		blob.setKey(ImageBlobService.keyOf(sha256));
+		blob.setContentType("image/png");
+		blob.setSize(content.length());
+		blob.setRefCount(refCount);
+		blob.setCreatedAt(LocalDateTime.now().minus(age));
+		blob.setUpdatedAt(LocalDateTime.now().minus(age));
+		return mongo.insert(blob);
+	}
+
+	/** A fake but well-formed SHA-256 that differs per content. */
+	private static String sha256Of(String content) {
+		return String.format("%064x", content.hashCode() & 0xffffffffL);
+	}
+
+	private String stage(String content) throws IOException {
+		String stagingKey = "staging/" + content;
+		storage.put(stagingKey, content.getBytes(StandardCharsets.UTF_8), "image/png");
+		return stagingKey;
+	}
+
+	@Test
+	void collectsOnlyBlobsUnreferencedForTheGracePeriod() throws IOException {
+		ImageBlob unused = blob("unused", 0, GRACE.plusMinutes(1));
+		ImageBlob used = blob("used", 2, GRACE.plusMinutes(1));
+		ImageBlob justReleased = blob("just released", 0, Duration.ofMinutes(1));
+
+		ImageBlobService.GcResult result = blobService.collect(false);
+
+		assertThat(result.deleted()).isEqualTo(1);
+		assertThat(result.failed()).isZero();
+		assertThat(mongo.get(ImageBlob.class, unused.getId())).isNull();
+		assertThat(storage.exists(unused.getKey())).isFalse();
+		assertThat(storage.exists(used.getKey())).isTrue();
+		assertThat(storage.exists(justReleased.getKey())).isTrue();
+		assertThat(mongo.collection("image_blobs")).hasSize(2);
+	}
+
+	@Test
+	void referencesAreCountedAcrossStoresAndReleases() throws IOException {
+		String sha256 = sha256Of("shared");
+		blobService.store(sha256, stage("shared"), "image/png", 6);
+		ImageBlobService.Stored second = blobService.store(sha256, stage("shared"), "image/png", 6);
+
+		assertThat(second.deduplicated()).isTrue();
+		assertThat(mongo.get(ImageBlob.class, sha256).getRefCount()).isEqualTo(2);
+		assertThat(storage.exists("staging/shared")).isFalse();
+
+		blobService.release(sha256);
+		blobService.release(sha256);
+
+		assertThat(mongo.get(ImageBlob.class, sha256).getRefCount()).isZero();
+		// Still inside the grace period
+		assertThat(blobService.collect(false).deleted()).isZero();
+		assertThat(storage.exists(ImageBlobService.keyOf(sha256))).isTrue();
+	}
+
+	@Test
+	void aBlobBeingDeletedIsNotReusedAndAStoreWaitsForTheSweep() throws Exception {
+		ImageBlob doomed = blob("doomed", 0, GRACE.plusMinutes(1));
+		String stagingKey = stage("doomed");
+		CompletableFuture<ImageBlobService.Stored> racingStore = new CompletableFuture<>();
+
+		// Another node uploads the same content while this sweep deletes it
+		storage.onDelete = () -> {
+			storage.onDelete = () -> { };
+			assertThat(blobService.acquire(doomed.getId())).isEmpty();
+			Thread.ofVirtual().start(() -> {
+				try {
+					racingStore.complete(blobService.store(doomed.getId(), stagingKey, "image/png", 6));
+				} catch (Throwable e) {
+					racingStore.completeExceptionally(e);
+				}
+			});
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			assertThat(racingStore).isNotDone();
+		};
+
+		assertThat(blobService.collect(false).deleted()).isEqualTo(1);
+
+		ImageBlobService.Stored stored = racingStore.get(5, TimeUnit.SECONDS);
+		assertThat(stored.deduplicated()).isFalse();
+		assertThat(stored.blob().getRefCount()).isEqualTo(1);
+		assertThat(stored.blob().getDeletingSince()).isNull();
+		// The object the sweep deleted has been stored again
+		assertThat(storage.exists(doomed.getKey())).isTrue();
+	}
+
+	@Test
+	void aBlobWhoseObjectCannotBeDeletedIsHandedBack() throws IOException {
+		ImageBlob stuck = blob("stuck", 0, GRACE.plusMinutes(1));
+		storage.onDelete = () -> {
+			throw new IOException("storage unavailable");
+		};
+
+		ImageBlobService.GcResult result = blobService.collect(false);
+
+		assertThat(result.deleted()).isZero();
+		assertThat(result.failed()).isEqualTo(1);
+		assertThat(mongo.get(ImageBlob.class, stuck.getId()).getDeletingSince()).isNull();
+		assertThat(blobService.acquire(stuck.getId())).isPresent();
+	}
+
+	@Test
+	void aSweepThatDiedMidDeleteIsTakenOver() throws IOException {
+		ImageBlob abandoned = blob("abandoned", 0, GRACE.plusMinutes(1));
+		ImageBlob inProgress = blob("in progress", 0, GRACE.plusMinutes(1));
+		mark(abandoned, LocalDateTime.now().minusHours(1));
+		mark(inProgress, LocalDateTime.now().minusSeconds(5));
+
+		assertThat(blobService.collect(false).deleted()).isEqualTo(1);
+
+		assertThat(mongo.get(ImageBlob.class, abandoned.getId())).isNull();
+		assertThat(storage.exists(abandoned.getKey())).isFalse();
+		// Left to the sweep that is deleting it
+		assertThat(mongo.get(ImageBlob.class, inProgress.getId())).isNotNull();
+	}
+
+	/** Marks a blob the way a sweep on another node does. */
+	private void mark(ImageBlob blob, LocalDateTime deletingSince) {
+		mongo.mongoTemplate().updateFirst(Query.query(Criteria.where("_id").is(blob.getId())),
+				new Update().set("deletingSince", deletingSince), ImageBlob.class);
+	}
+}
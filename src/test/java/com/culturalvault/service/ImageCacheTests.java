@@ -0,0 +1,105 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The cache in a temporary directory, filled with small PNGs.
+ */
+class ImageCacheTests {
+
+	@TempDir
+	Path root;
+
+	private static byte[] png(Color color, int size) throws IOException {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				image.setRGB(x, y, color.getRGB() ^ (x * 31 + y * 17));
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private static byte[] read(ImageCache.OpenFile file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) file.file().size());
+		while (buffer.hasRemaining() && file.channel().read(buffer, buffer.position()) > 0) {
+			// read() at a position leaves the channel's own position alone
+		}
+		return buffer.array();
+	}
+
+	@Test
+	void aMissIsFilledOnceAndThenServedFromDisk() throws IOException {
+		ImageCache cache = new ImageCache(root, DataSize.ofMegabytes(1));
+		byte[] image = png(Color.RED, 16);
+		AtomicInteger opened = new AtomicInteger();
+
+		try (ImageCache.OpenFile first = cache.open("a.png", () -> {
+			opened.incrementAndGet();
+			return new ByteArrayInputStream(image);
+		})) {
+			assertThat(first.file().contentType()).isEqualTo("image/png");
+			assertThat(read(first)).isEqualTo(image);
+		}
+		try (ImageCache.OpenFile second = cache.open("a.png", () -> {
+			throw new AssertionError("filled again");
+		})) {
+			assertThat(read(second)).isEqualTo(image);
+		}
+		assertThat(opened).hasValue(1);
+	}
+
+	@Test
+	void anOpenFileStaysReadableWhenItsEntryIsEvicted() throws IOException {
+		byte[] first = png(Color.RED, 32);
+		byte[] second = png(Color.BLUE, 32);
+		// Room for one of them only
+		ImageCache cache = new ImageCache(root, DataSize.ofBytes(first.length + second.length - 1));
+
+		try (ImageCache.OpenFile sending = cache.open("first.png", () -> new ByteArrayInputStream(first))) {
+			cache.open("second.png", () -> new ByteArrayInputStream(second)).close();
+
+			assertThat(Files.exists(sending.file().path())).isFalse();
+			assertThat(read(sending)).isEqualTo(first);
+		}
+		assertThat(cache.getTotalBytes()).isEqualTo(second.length);
+	}
+
+	@Test
+	void aFillOvertakenByAnInvalidationIsServedButNotCached() throws IOException {
+		ImageCache cache = new ImageCache(root, DataSize.ofMegabytes(1));
+		byte[] old = png(Color.RED, 16);
+		byte[] current = png(Color.GREEN, 16);
+
+		try (ImageCache.OpenFile stale = cache.open("a.png", () -> {
+			// The image changes while its old content is being read
+			cache.invalidate("a.png");
+			return new ByteArrayInputStream(old);
+		})) {
+			assertThat(read(stale)).isEqualTo(old);
+		}
+		assertThat(cache.getTotalBytes()).isZero();
+
+		try (ImageCache.OpenFile fresh = cache.open("a.png", () -> new ByteArrayInputStream(current))) {
+			assertThat(read(fresh)).isEqualTo(current);
+		}
+	}
+}
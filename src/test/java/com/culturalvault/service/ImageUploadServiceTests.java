@@ -0,0 +1,301 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.ImageBlob;
+import com.culturalvault.service.ImageUploadService.RejectedException;
+
+/**
+ * Uploads into a {@link LocalImageStorage} in a temporary directory. The blob
+ * documents live in {@link InMemoryMongo}, so the reference counts are those
+ * {@link ImageBlobService} actually writes.
+ */
+class ImageUploadServiceTests {
+
+	@TempDir
+	Path root;
+
+	private LocalImageStorage storage;
+	private ImageBlobService blobService;
+	private ImageUploadService uploadService;
+	private final ImageHashIndex imageHashIndex = mock(ImageHashIndex.class);
+	private final InMemoryMongo mongo = new InMemoryMongo();
+	private final List<Document> blobs = mongo.collection("image_blobs");
+	private final Map<String, Artifact> artifacts = new HashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		storage = new LocalImageStorage(root);
+		blobService = new ImageBlobService(mongo.mongoTemplate(), storage, Duration.ofHours(1));
+		uploadService = new ImageUploadService(artifactService(), blobService, storage, imageHashIndex,
+				DataSize.ofKilobytes(64), 2, Duration.ofSeconds(1), true);
+		for (String id : List.of("a1", "a2")) {
+			Artifact artifact = new Artifact();
+			artifact.setId(id);
+			artifacts.put(id, artifact);
+		}
+	}
+
+	private ImageBlob blob(String sha256) {
+		return mongo.get(ImageBlob.class, sha256);
+	}
+
+	/** Artifacts in {@link #artifacts}; image updates publish their change to the blob service. */
+	private ArtifactService artifactService() {
+		ArtifactService artifactService = mock(ArtifactService.class);
+		when(artifactService.existsById(anyString())).thenAnswer(call -> artifacts.containsKey(call.getArgument(0)));
+		when(artifactService.getArtifactById(anyString()))
+				.thenAnswer(call -> Optional.ofNullable(artifacts.get(call.getArgument(0))).map(Artifact::new));
+		when(artifactService.updateStoredImage(anyString(), anyString(), anyString())).thenAnswer(call -> {
+			Artifact current = artifacts.get(call.getArgument(0));
+			Artifact previous = new Artifact(current);
+			current.setR2ImageKey(call.getArgument(1));
+			current.setImageSha256(call.getArgument(2));
+			blobService.onArtifactChanged(ArtifactChangedEvent.updated(previous, new Artifact(current)));
+			return current;
+		});
+		return artifactService;
+	}
+
+	private static byte[] png(Color color) throws IOException {
+		return png(color, 8);
+	}
+
+	private static byte[] png(Color color, int size) throws IOException {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				// A gradient, so that larger versions are larger files
+				image.setRGB(x, y, new Color(color.getRed() * x / size, color.getGreen(), color.getBlue()).getRGB());
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+	}
+
+	private ImageUploadService.Result upload(String artifactId, byte[] data, String claimedSha256) throws IOException {
+		return uploadService.upload(artifactId, new ByteArrayInputStream(data), data.length, claimedSha256);
+	}
+
+	private List<Path> storedFiles() throws IOException {
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile).toList();
+		}
+	}
+
+	@Test
+	void storesAnImageContentAddressed() throws Exception {
+		byte[] image = png(Color.RED);
+
+		ImageUploadService.Result result = upload("a1", image, null);
+
+		assertThat(result.contentType()).isEqualTo("image/png");
+		assertThat(result.sha256()).isEqualTo(sha256(image));
+		assertThat(result.key()).isEqualTo(ImageBlobService.keyOf(sha256(image)));
+		assertThat(result.size()).isEqualTo(image.length);
+		assertThat(result.deduplicated()).isFalse();
+		assertThat(Files.readAllBytes(storage.resolve(result.key()))).isEqualTo(image);
+		assertThat(storedFiles()).containsExactly(storage.resolve(result.key()));
+		assertThat(blob(result.sha256()).getRefCount()).isEqualTo(1);
+		assertThat(artifacts.get("a1").getImageSha256()).isEqualTo(result.sha256());
+	}
+
+	@Test
+	void rejectsContentThatIsNotAnImage() throws IOException {
+		byte[] text = "<html><body>not an image</body></html>".getBytes(StandardCharsets.UTF_8);
+
+		assertThatThrownBy(() -> upload("a1", text, null))
+				.isInstanceOf(RejectedException.class)
+				.extracting("reason").isEqualTo(RejectedException.Reason.UNSUPPORTED_TYPE);
+		assertThat(storedFiles()).isEmpty();
+		assertThat(blobs).isEmpty();
+	}
+
+	@Test
+	void rejectsADeclaredLengthOverTheLimitUnread() {
+		InputStream unread = new InputStream() {
+			@Override
+			public int read() {
+				throw new AssertionError("body was read");
+			}
+		};
+
+		assertThatThrownBy(() -> uploadService.upload("a1", unread, DataSize.ofKilobytes(65).toBytes(), null))
+				.isInstanceOf(RejectedException.class)
+				.extracting("reason").isEqualTo(RejectedException.Reason.TOO_LARGE);
+	}
+
+	@Test
+	void rejectsABodyOverTheLimitWithoutADeclaredLength() throws IOException {
+		byte[] image = png(Color.RED);
+		byte[] large = new byte[(int) DataSize.ofKilobytes(80).toBytes()];
+		System.arraycopy(image, 0, large, 0, image.length);
+
+		assertThatThrownBy(() -> uploadService.upload("a1", new ByteArrayInputStream(large), -1, null))
+				.isInstanceOf(RejectedException.class)
+				.extracting("reason").isEqualTo(RejectedException.Reason.TOO_LARGE);
+		assertThat(storedFiles()).isEmpty();
+		assertThat(blobs).isEmpty();
+	}
+
+	@Test
+	void rejectsContentNotMatchingTheClaimedDigest() throws Exception {
+		byte[] image = png(Color.RED);
+		String other = sha256(png(Color.BLUE));
+
+		assertThatThrownBy(() -> upload("a1", image, other))
+				.isInstanceOf(RejectedException.class)
+				.extracting("reason").isEqualTo(RejectedException.Reason.DIGEST_MISMATCH);
+		assertThat(storedFiles()).isEmpty();
+		assertThat(blobs).isEmpty();
+		assertThat(artifacts.get("a1").getImageSha256()).isNull();
+	}
+
+	@Test
+	void rejectsAClaimedDigestThatIsNotHex() {
+		assertThatThrownBy(() -> upload("a1", png(Color.RED), "not-a-digest"))
+				.isInstanceOf(RejectedException.class)
+				.extracting("reason").isEqualTo(RejectedException.Reason.DIGEST_MISMATCH);
+	}
+
+	@Test
+	void storedContentNamedByItsDigestIsNotRead() throws Exception {
+		byte[] image = png(Color.RED);
+		String sha256 = sha256(image);
+		upload("a1", image, null);
+		InputStream unread = new InputStream() {
+			@Override
+			public int read() {
+				throw new AssertionError("body was read");
+			}
+		};
+
+		ImageUploadService.Result result = uploadService.upload("a2", unread, image.length, sha256.toUpperCase());
+
+		assertThat(result.deduplicated()).isTrue();
+		assertThat(result.key()).isEqualTo(ImageBlobService.keyOf(sha256));
+		assertThat(blob(sha256).getRefCount()).isEqualTo(2);
+		assertThat(artifacts.get("a2").getR2ImageKey()).isEqualTo(result.key());
+	}
+
+	@Test
+	void identicalContentIsStoredOnce() throws Exception {
+		byte[] image = png(Color.RED);
+
+		upload("a1", image, null);
+		ImageUploadService.Result second = upload("a2", image, null);
+
+		assertThat(second.deduplicated()).isTrue();
+		assertThat(storedFiles()).hasSize(1);
+		assertThat(blob(sha256(image)).getRefCount()).isEqualTo(2);
+	}
+
+	@Test
+	void reUploadingTheSameImageKeepsOneReference() throws Exception {
+		byte[] image = png(Color.RED);
+
+		upload("a1", image, null);
+		upload("a1", image, null);
+		upload("a1", image, sha256(image));
+
+		assertThat(blob(sha256(image)).getRefCount()).isEqualTo(1);
+		assertThat(storedFiles()).hasSize(1);
+	}
+
+	@Test
+	void replacingAnImageReleasesThePreviousOne() throws Exception {
+		byte[] red = png(Color.RED);
+		byte[] blue = png(Color.BLUE);
+
+		upload("a1", red, null);
+		upload("a2", red, null);
+		upload("a1", blue, null);
+
+		assertThat(blob(sha256(red)).getRefCount()).isEqualTo(1);
+		assertThat(blob(sha256(blue)).getRefCount()).isEqualTo(1);
+		assertThat(artifacts.get("a1").getImageSha256()).isEqualTo(sha256(blue));
+
+		upload("a2", blue, null);
+
+		assertThat(blob(sha256(red)).getRefCount()).isZero();
+		assertThat(blob(sha256(blue)).getRefCount()).isEqualTo(2);
+	}
+
+	@Test
+	void anIdenticalPictureAlreadyStoredLargerIsReused() throws Exception {
+		byte[] large = png(Color.RED, 64);
+		byte[] small = png(Color.RED, 16);
+		upload("a2", large, null);
+		when(imageHashIndex.isAvailable()).thenReturn(true);
+		when(imageHashIndex.findIdentical(PerceptualHash.dHash(new ByteArrayInputStream(small))))
+				.thenReturn(List.of(new BkTree.Match("a2", 0L, 0)));
+
+		ImageUploadService.Result result = upload("a1", small, null);
+
+		assertThat(result.deduplicated()).isTrue();
+		assertThat(result.sha256()).isEqualTo(sha256(large));
+		assertThat(blob(sha256(large)).getRefCount()).isEqualTo(2);
+		assertThat(blob(sha256(small))).isNull();
+		assertThat(storedFiles()).hasSize(1);
+	}
+
+	@Test
+	void anIdenticalPictureStoredSmallerIsNotReused() throws Exception {
+		byte[] small = png(Color.RED, 16);
+		byte[] large = png(Color.RED, 64);
+		upload("a2", small, null);
+		when(imageHashIndex.isAvailable()).thenReturn(true);
+		when(imageHashIndex.findIdentical(PerceptualHash.dHash(new ByteArrayInputStream(large))))
+				.thenReturn(List.of(new BkTree.Match("a2", 0L, 0)));
+
+		ImageUploadService.Result result = upload("a1", large, null);
+
+		assertThat(result.deduplicated()).isFalse();
+		assertThat(result.sha256()).isEqualTo(sha256(large));
+		assertThat(storedFiles()).hasSize(2);
+	}
+
+	@Test
+	void refusesUnknownArtifacts() {
+		assertThatThrownBy(() -> upload("missing", png(Color.RED), null))
+				.isInstanceOf(NoSuchElementException.class);
+	}
+}
@@ -0,0 +1,444 @@
+package com.culturalvault.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.bson.BsonString;
+import org.bson.Document;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * MongoDB collections held in memory, behind a mocked MongoTemplate, for the
+ * tests of the services that query Mongo directly. Entities, queries and
+ * updates go through Spring Data's own mapping, so the documents hold what
+ * MongoDB would (enum names, dates, {@code _id}); the fake then evaluates
+ * them like MongoDB does for the subset the services use:
+ * <ul>
+ * <li>queries: equality, {@code $and}, {@code $or}, {@code $nor}, {@code $eq},
+ * {@code $ne}, {@code $in}, {@code $nin}, {@code $exists} and the range
+ * operators, which only match values of the same type (numbers of any type
+ * together), never null</li>
+ * <li>sorts: null and missing values before all others</li>
+ * <li>updates: {@code $set}, {@code $unset}, {@code $inc},
+ * {@code $setOnInsert}, upserts (seeded with the query's equalities, and
+ * failing with a duplicate key when the {@code _id} is taken by a document
+ * the query did not match), and bulk {@code updateOne}s</li>
+ * </ul>
+ * Projections are ignored: whole documents come back.
+ */
+class InMemoryMongo {
+
+	private final Map<String, List<Document>> collections = new LinkedHashMap<>();
+	private final MongoMappingContext mappingContext = new MongoMappingContext();
+	private final MappingMongoConverter converter;
+	private final QueryMapper queryMapper;
+	private final UpdateMapper updateMapper;
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+	InMemoryMongo() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		mappingContext.afterPropertiesSet();
+		converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		queryMapper = new QueryMapper(converter);
+		updateMapper = new UpdateMapper(converter);
+
+		when(mongoTemplate.getConverter()).thenReturn(converter);
+		when(mongoTemplate.getCollectionName(any())).thenAnswer(call -> collectionName(call.getArgument(0)));
+		when(mongoTemplate.insert(any(Object.class))).thenAnswer(call -> insert(call.getArgument(0)));
+		when(mongoTemplate.save(any(Object.class))).thenAnswer(call -> save(call.getArgument(0)));
+		when(mongoTemplate.findById(any(), any())).thenAnswer(call -> findById(call.getArgument(0), call.getArgument(1)));
+		when(mongoTemplate.findOne(any(Query.class), any())).thenAnswer(call -> find(call.getArgument(0),
+				call.getArgument(1), collectionName(call.getArgument(1))).stream().findFirst().orElse(null));
+		when(mongoTemplate.find(any(Query.class), any()))
+				.thenAnswer(call -> find(call.getArgument(0), call.getArgument(1), collectionName(call.getArgument(1))));
+		when(mongoTemplate.find(any(Query.class), any(), anyString()))
+				.thenAnswer(call -> find(call.getArgument(0), call.getArgument(1), call.getArgument(2)));
+		when(mongoTemplate.stream(any(Query.class), any())).thenAnswer(call -> find(call.getArgument(0),
+				call.getArgument(1), collectionName(call.getArgument(1))).stream());
+		when(mongoTemplate.count(any(Query.class), any(Class.class)))
+				.thenAnswer(call -> (long) matching(call.getArgument(0), call.getArgument(1)).size());
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any()))
+				.thenAnswer(call -> findAndModify(call.getArgument(0), call.getArgument(1),
+						FindAndModifyOptions.none(), call.getArgument(2)));
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), any())).thenAnswer(call -> findAndModify(call.getArgument(0),
+						call.getArgument(1), call.getArgument(2), call.getArgument(3)));
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), any(Class.class)))
+				.thenAnswer(call -> update(call.getArgument(0), call.getArgument(1), call.getArgument(2), 1, false));
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), any(Class.class)))
+				.thenAnswer(call -> update(call.getArgument(0), call.getArgument(1), call.getArgument(2),
+						Integer.MAX_VALUE, false));
+		when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), any(Class.class)))
+				.thenAnswer(call -> update(call.getArgument(0), call.getArgument(1), call.getArgument(2), 1, true));
+		when(mongoTemplate.findAndRemove(any(Query.class), any()))
+				.thenAnswer(call -> findAndRemove(call.getArgument(0), call.getArgument(1)));
+		when(mongoTemplate.remove(any(Query.class), any(Class.class)))
+				.thenAnswer(call -> remove(call.getArgument(0), call.getArgument(1)));
+		when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class)))
+				.thenAnswer(call -> bulkOps(call.getArgument(1)));
+	}
+
+	/** Bulk updates, applied in order on {@code execute()}. */
+	private BulkOperations bulkOps(Class<?> type) {
+		BulkOperations bulk = mock(BulkOperations.class);
+		List<Runnable> updates = new ArrayList<>();
+		Answer<BulkOperations> updateOne = call -> {
+			Query query = call.getArgument(0);
+			UpdateDefinition update = call.getArgument(1);
+			updates.add(() -> update(query, update, type, 1, false));
+			return bulk;
+		};
+		when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(updateOne);
+		when(bulk.updateOne(any(Query.class), any(UpdateDefinition.class))).thenAnswer(updateOne);
+		when(bulk.execute()).thenAnswer(call -> {
+			updates.forEach(Runnable::run);
+			int count = updates.size();
+			updates.clear();
+			return BulkWriteResult.acknowledged(0, count, 0, count, List.of(), List.of());
+		});
+		return bulk;
+	}
+
+	MongoTemplate mongoTemplate() {
+		return mongoTemplate;
+	}
+
+	/**
+	 * The live documents of a collection, for tests that set up or inspect
+	 * raw documents.
+	 */
+	synchronized List<Document> collection(String name) {
+		return collections.computeIfAbsent(name, n -> new ArrayList<>());
+	}
+
+	/** A copy of the stored entity; change it through the template. */
+	<T> T get(Class<T> type, Object id) {
+		return findById(id, type);
+	}
+
+	synchronized <T> T insert(T entity) {
+		Document document = new Document();
+		converter.write(entity, document);
+		if (document.get("_id") == null) {
+			throw new IllegalArgumentException("Entities need an id here");
+		}
+		List<Document> collection = collection(collectionName(entity.getClass()));
+		if (byId(collection, document.get("_id")) != null) {
+			throw new DuplicateKeyException("Duplicate _id " + document.get("_id"));
+		}
+		collection.add(document);
+		return entity;
+	}
+
+	private synchronized <T> T save(T entity) {
+		Document document = new Document();
+		converter.write(entity, document);
+		List<Document> collection = collection(collectionName(entity.getClass()));
+		collection.remove(byId(collection, document.get("_id")));
+		return insert(entity);
+	}
+
+	private synchronized <T> T findById(Object id, Class<T> type) {
+		Document document = byId(collection(collectionName(type)), queryMapper.convertId(id));
+		return document == null ? null : read(type, document);
+	}
+
+	private synchronized <T> List<T> find(Query query, Class<T> type, String collection) {
+		return matching(query, type, collection).stream().map(document -> read(type, document)).toList();
+	}
+
+	private synchronized <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options,
+			Class<T> type) {
+		MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(type);
+		List<Document> matched = matching(query, type);
+		Document document = matched.isEmpty() ? null : matched.get(0);
+		if (document == null) {
+			if (!options.isUpsert()) {
+				return null;
+			}
+			document = upsert(query, update, type, entity);
+			return options.isReturnNew() ? read(type, document) : null;
+		}
+		Document before = copy(document);
+		apply(updateMapper.getMappedObject(update.getUpdateObject(), entity), document, false);
+		return read(type, options.isReturnNew() ? document : before);
+	}
+
+	private synchronized UpdateResult update(Query query, UpdateDefinition update, Class<?> type, int limit,
+			boolean upsert) {
+		MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(type);
+		List<Document> matched = matching(query, type).stream().limit(limit).toList();
+		if (matched.isEmpty() && upsert) {
+			Document inserted = upsert(query, update, type, entity);
+			return UpdateResult.acknowledged(0, 0L, new BsonString(String.valueOf(inserted.get("_id"))));
+		}
+		long modified = 0;
+		Document mapped = updateMapper.getMappedObject(update.getUpdateObject(), entity);
+		for (Document document : matched) {
+			Document before = copy(document);
+			apply(mapped, document, false);
+			if (!before.equals(document)) {
+				modified++;
+			}
+		}
+		return UpdateResult.acknowledged(matched.size(), modified, null);
+	}
+
+	private Document upsert(Query query, UpdateDefinition update, Class<?> type, MongoPersistentEntity<?> entity) {
+		Document document = new Document();
+		queryMapper.getMappedObject(query.getQueryObject(), entity).forEach((field, value) -> {
+			if (!field.startsWith("$") && !isOperators(value)) {
+				document.put(field, value);
+			}
+		});
+		apply(updateMapper.getMappedObject(update.getUpdateObject(), entity), document, true);
+		List<Document> collection = collection(collectionName(type));
+		if (document.get("_id") == null) {
+			throw new IllegalArgumentException("Upserts need an _id in the query here");
+		}
+		if (byId(collection, document.get("_id")) != null) {
+			throw new DuplicateKeyException("Duplicate _id " + document.get("_id"));
+		}
+		collection.add(document);
+		return document;
+	}
+
+	private synchronized <T> T findAndRemove(Query query, Class<T> type) {
+		List<Document> matched = matching(query, type);
+		if (matched.isEmpty()) {
+			return null;
+		}
+		collection(collectionName(type)).remove(matched.get(0));
+		return read(type, matched.get(0));
+	}
+
+	private synchronized DeleteResult remove(Query query, Class<?> type) {
+		List<Document> matched = matching(query, type);
+		collection(collectionName(type)).removeAll(matched);
+		return DeleteResult.acknowledged(matched.size());
+	}
+
+	private List<Document> matching(Query query, Class<?> type) {
+		return matching(query, type, collectionName(type));
+	}
+
+	private synchronized List<Document> matching(Query query, Class<?> type, String collection) {
+		MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(type);
+		Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+		Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+		Comparator<Document> order = (a, b) -> 0;
+		for (Map.Entry<String, Object> field : sort.entrySet()) {
+			Comparator<Document> byField = (a, b) -> compare(value(a, field.getKey()), value(b, field.getKey()));
+			order = order.thenComparing(((Number) field.getValue()).intValue() < 0 ? byField.reversed() : byField);
+		}
+		Stream<Document> matched = collection(collection).stream()
+				.filter(document -> matches(filter, document))
+				.sorted(order);
+		if (query.getSkip() > 0) {
+			matched = matched.skip(query.getSkip());
+		}
+		if (query.getLimit() > 0) {
+			matched = matched.limit(query.getLimit());
+		}
+		return matched.toList();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static boolean matches(Document filter, Document document) {
+		for (Map.Entry<String, Object> condition : filter.entrySet()) {
+			boolean ok = switch (condition.getKey()) {
+				case "$and" -> ((List<Document>) condition.getValue()).stream().allMatch(q -> matches(q, document));
+				case "$or" -> ((List<Document>) condition.getValue()).stream().anyMatch(q -> matches(q, document));
+				case "$nor" -> ((List<Document>) condition.getValue()).stream().noneMatch(q -> matches(q, document));
+				default -> matchesField(condition.getValue(), document, condition.getKey());
+			};
+			if (!ok) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static boolean matchesField(Object condition, Document document, String field) {
+		Object actual = value(document, field);
+		if (!isOperators(condition)) {
+			return equal(actual, condition);
+		}
+		for (Map.Entry<String, Object> operator : ((Document) condition).entrySet()) {
+			Object value = operator.getValue();
+			boolean ok = switch (operator.getKey()) {
+				case "$eq" -> equal(actual, value);
+				case "$ne" -> !equal(actual, value);
+				case "$in" -> ((Collection<Object>) value).stream().anyMatch(v -> equal(actual, v));
+				case "$nin" -> ((Collection<Object>) value).stream().noneMatch(v -> equal(actual, v));
+				case "$exists" -> (Boolean) value == has(document, field);
+				case "$lt" -> comparable(actual, value) && compare(actual, value) < 0;
+				case "$lte" -> comparable(actual, value) && compare(actual, value) <= 0;
+				case "$gt" -> comparable(actual, value) && compare(actual, value) > 0;
+				case "$gte" -> comparable(actual, value) && compare(actual, value) >= 0;
+				default -> throw new UnsupportedOperationException(operator.getKey());
+			};
+			if (!ok) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Null matches a missing field too; a value matches an array holding it. */
+	private static boolean equal(Object actual, Object expected) {
+		if (actual instanceof Collection<?> values && !(expected instanceof Collection)) {
+			return values.stream().anyMatch(v -> equal(v, expected));
+		}
+		if (actual instanceof Number a && expected instanceof Number b) {
+			return Double.compare(a.doubleValue(), b.doubleValue()) == 0;
+		}
+		return Objects.equals(actual, expected);
+	}
+
+	private static boolean comparable(Object a, Object b) {
+		return a != null && b != null
+				&& (a instanceof Number && b instanceof Number || a.getClass() == b.getClass() && a instanceof Comparable);
+	}
+
+	/** MongoDB's order for the types the tests use, null and missing first. */
+	@SuppressWarnings("unchecked")
+	private static int compare(Object a, Object b) {
+		if (a == null || b == null) {
+			return a == null ? (b == null ? 0 : -1) : 1;
+		}
+		if (a instanceof Number x && b instanceof Number y) {
+			return Double.compare(x.doubleValue(), y.doubleValue());
+		}
+		if (!comparable(a, b)) {
+			return 0;
+		}
+		return ((Comparable<Object>) a).compareTo(b);
+	}
+
+	private static void apply(Document update, Document document, boolean inserting) {
+		for (Map.Entry<String, Object> operator : update.entrySet()) {
+			Document fields = (Document) operator.getValue();
+			switch (operator.getKey()) {
+				case "$set" -> fields.forEach((field, value) -> put(document, field, value));
+				case "$unset" -> fields.keySet().forEach(field -> unset(document, field));
+				case "$inc" -> fields.forEach((field, value) -> put(document, field,
+						add((Number) value(document, field), (Number) value)));
+				case "$setOnInsert" -> {
+					if (inserting) {
+						fields.forEach((field, value) -> put(document, field, value));
+					}
+				}
+				default -> throw new UnsupportedOperationException(operator.getKey());
+			}
+		}
+	}
+
+	private static Number add(Number a, Number b) {
+		if (a == null) {
+			return b;
+		}
+		if (a instanceof Double || b instanceof Double) {
+			return a.doubleValue() + b.doubleValue();
+		}
+		if (a instanceof Long || b instanceof Long) {
+			return a.longValue() + b.longValue();
+		}
+		return a.intValue() + b.intValue();
+	}
+
+	private static boolean isOperators(Object condition) {
+		return condition instanceof Document operators && !operators.isEmpty()
+				&& operators.keySet().stream().allMatch(key -> key.startsWith("$"));
+	}
+
+	private static Object value(Document document, String path) {
+		Object value = document;
+		for (String part : path.split("\\.")) {
+			if (!(value instanceof Document parent)) {
+				return null;
+			}
+			value = parent.get(part);
+		}
+		return value;
+	}
+
+	private static boolean has(Document document, String path) {
+		int dot = path.lastIndexOf('.');
+		Object parent = dot < 0 ? document : value(document, path.substring(0, dot));
+		return parent instanceof Document fields && fields.containsKey(path.substring(dot + 1));
+	}
+
+	private static void put(Document document, String path, Object value) {
+		int dot = path.indexOf('.');
+		if (dot < 0) {
+			document.put(path, value);
+			return;
+		}
+		Object child = document.get(path.substring(0, dot));
+		if (!(child instanceof Document)) {
+			child = new Document();
+			document.put(path.substring(0, dot), child);
+		}
+		put((Document) child, path.substring(dot + 1), value);
+	}
+
+	private static void unset(Document document, String path) {
+		int dot = path.lastIndexOf('.');
+		Object parent = dot < 0 ? document : value(document, path.substring(0, dot));
+		if (parent instanceof Document fields) {
+			fields.remove(path.substring(dot + 1));
+		}
+	}
+
+	private static Document byId(List<Document> collection, Object id) {
+		return collection.stream().filter(document -> Objects.equals(document.get("_id"), id)).findFirst().orElse(null);
+	}
+
+	private <T> T read(Class<T> type, Document document) {
+		return converter.read(type, copy(document));
+	}
+
+	private static Document copy(Document document) {
+		Document copy = new Document();
+		document.forEach((field, value) -> copy.put(field, value instanceof Document child ? copy(child) : value));
+		return copy;
+	}
+
+	private String collectionName(Class<?> type) {
+		return mappingContext.getRequiredPersistentEntity(type).getCollection();
+	}
+}
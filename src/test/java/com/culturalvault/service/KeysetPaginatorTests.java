@@ -0,0 +1,240 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.culturalvault.model.Artifact;
+import com.culturalvault.model.CursorPage;
+
+/**
+ * Pages walked over documents held in {@link InMemoryMongo}, which evaluates
+ * the seek criteria and sorts like MongoDB (null and missing values before
+ * all others).
+ */
+class KeysetPaginatorTests {
+
+	private final InMemoryMongo mongo = new InMemoryMongo();
+	private final List<Document> documents = mongo.collection("artifacts");
+	private final MongoTemplate mongoTemplate = mongo.mongoTemplate();
+	private KeysetPaginator paginator;
+
+	@BeforeEach
+	void setUp() {
+		paginator = new KeysetPaginator(mongoTemplate);
+
+		String[] titles = { "b", "a", null, "c", "a", null, "b", "a" };
+		Integer[] years = { 1900, null, 1500, 1900, 2000, -300, null, 1500 };
+		for (int i = 0; i < titles.length; i++) {
+			Document document = new Document("_id", new ObjectId(new Date(1_700_000_000_000L + i * 1000L), i));
+			if (titles[i] != null) {
+				document.put("title", titles[i]);
+			}
+			document.put("year", years[i]);
+			documents.add(document);
+		}
+	}
+
+	/** Follows the cursors to the end, collecting the ids in page order. */
+	private List<Object> walk(Criteria filter, String sortBy, Sort.Direction direction, int size) {
+		List<Object> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Document> page = paginator.page(Artifact.class, filter, sortBy, direction, cursor, size,
+					Document.class);
+			assertThat(page.getContent()).hasSizeLessThanOrEqualTo(size);
+			page.getContent().forEach(document -> ids.add(document.get("_id")));
+			cursor = page.getNextCursor();
+			assertThat(ids).hasSizeLessThanOrEqualTo(documents.size());
+		} while (cursor != null);
+		return ids;
+	}
+
+	/** The ids in the order a single sorted query returns them. */
+	private List<Object> sorted(String field, Sort.Direction direction) {
+		return mongoTemplate.find(new Query().with(Sort.by(direction, field, "_id")), Document.class, "artifacts")
+				.stream()
+				.map(document -> document.get("_id"))
+				.toList();
+	}
+
+	@Test
+	void walksInsertionOrderByIdInBothDirections() {
+		List<Object> ascending = documents.stream().map(document -> document.get("_id")).toList();
+
+		assertThat(walk(null, "id", Sort.Direction.ASC, 3)).isEqualTo(ascending);
+		assertThat(walk(null, null, Sort.Direction.DESC, 3)).isEqualTo(ascending.reversed());
+	}
+
+	@Test
+	void walksAStringFieldWithNullsAndTiesAscending() {
+		// Null titles first, then each title in _id order
+		assertThat(walk(null, "title", Sort.Direction.ASC, 2)).isEqualTo(sorted("title", Sort.Direction.ASC));
+	}
+
+	@Test
+	void walksAStringFieldWithNullsAndTiesDescending() {
+		// Null titles last
+		assertThat(walk(null, "title", Sort.Direction.DESC, 2)).isEqualTo(sorted("title", Sort.Direction.DESC));
+	}
+
+	@Test
+	void walksANumericFieldWithNullsForEveryPageSize() {
+		for (int size = 1; size <= documents.size() + 1; size++) {
+			assertThat(walk(null, "year", Sort.Direction.ASC, size)).isEqualTo(sorted("year", Sort.Direction.ASC));
+			assertThat(walk(null, "year", Sort.Direction.DESC, size)).isEqualTo(sorted("year", Sort.Direction.DESC));
+		}
+	}
+
+	@Test
+	void combinesTheFilterWithTheSeekCriteria() {
+		List<Object> expected = sorted("title", Sort.Direction.ASC).stream()
+				.filter(id -> documents.stream().anyMatch(d -> d.get("_id").equals(id) && "a".equals(d.get("title"))))
+				.toList();
+
+		assertThat(walk(Criteria.where("title").is("a"), "title", Sort.Direction.ASC, 1))
+				.hasSize(3).isEqualTo(expected);
+	}
+
+	@Test
+	void aPageEndingOnANullValueSeeksPastTheNullsAscending() {
+		// The two null titles fill the first page
+		CursorPage<Document> first = paginator.page(Artifact.class, null, "title", Sort.Direction.ASC, null, 2,
+				Document.class);
+		assertThat(first.getContent()).allSatisfy(document -> assertThat(document.get("title")).isNull());
+		ObjectId lastId = first.getContent().get(1).getObjectId("_id");
+
+		paginator.page(Artifact.class, null, "title", Sort.Direction.ASC, first.getNextCursor(), 2, Document.class);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(2))
+				.find(query.capture(), eq(Document.class), eq("artifacts"));
+		// Either another null title after the last _id, or any non-null title
+		assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("$or", List.of(
+				new Document("title", null).append("_id", new Document("$gt", lastId)),
+				new Document("title", new Document("$ne", null)))));
+	}
+
+	@Test
+	void aPageEndingOnANullValueOnlyHasNullsLeftDescending() {
+		CursorPage<Document> page = null;
+		String cursor = null;
+		// Walk until the page ending on the first null title
+		do {
+			page = paginator.page(Artifact.class, null, "title", Sort.Direction.DESC, cursor, 1, Document.class);
+			cursor = page.getNextCursor();
+		} while (page.getContent().get(0).get("title") != null);
+		ObjectId lastId = page.getContent().get(0).getObjectId("_id");
+
+		paginator.page(Artifact.class, null, "title", Sort.Direction.DESC, cursor, 1, Document.class);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, atLeastOnce())
+				.find(query.capture(), eq(Document.class), eq("artifacts"));
+		assertThat(query.getValue().getQueryObject())
+				.isEqualTo(new Document("title", null).append("_id", new Document("$lt", lastId)));
+	}
+
+	@Test
+	void cursorsAreOpaqueAndUrlSafe() {
+		CursorPage<Document> page = paginator.page(Artifact.class, null, "title", Sort.Direction.ASC, null, 3,
+				Document.class);
+
+		assertThat(page.getNextCursor()).matches("[A-Za-z0-9_-]+");
+		String decoded = new String(Base64.getUrlDecoder().decode(page.getNextCursor()));
+		assertThat(decoded).startsWith("title\nASC\no:");
+	}
+
+	@Test
+	void encodesEachSupportedValueType() {
+		Object[] values = { "text", 42, 42L, 4.2, true, new Date(1_700_000_000_000L) };
+		for (Object value : values) {
+			documents.clear();
+			documents.add(new Document("_id", new ObjectId()).append("field", value));
+			documents.add(new Document("_id", new ObjectId()).append("field", value));
+
+			CursorPage<Document> first = paginator.page(Artifact.class, null, "field", Sort.Direction.ASC, null, 1,
+					Document.class);
+			CursorPage<Document> second = paginator.page(Artifact.class, null, "field", Sort.Direction.ASC,
+					first.getNextCursor(), 1, Document.class);
+
+			// The decoded value has the type it was encoded from, so the tie
+			// is broken by _id and the second document is found
+			assertThat(second.getContent()).as("%s", value.getClass().getSimpleName())
+					.extracting(document -> document.get("_id")).containsExactly(documents.get(1).get("_id"));
+		}
+	}
+
+	@Test
+	void rejectsValuesThatCannotBeEncoded() {
+		documents.clear();
+		documents.add(new Document("_id", new ObjectId()).append("field", List.of("x")));
+		documents.add(new Document("_id", new ObjectId()).append("field", List.of("y")));
+
+		assertThatThrownBy(() -> paginator.page(Artifact.class, null, "field", Sort.Direction.ASC, null, 1,
+				Document.class)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsACursorForAnotherSortOrder() {
+		String cursor = paginator.page(Artifact.class, null, "title", Sort.Direction.ASC, null, 1, Document.class)
+				.getNextCursor();
+
+		assertThatThrownBy(() -> paginator.page(Artifact.class, null, "title", Sort.Direction.DESC, cursor, 1,
+				Document.class)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> paginator.page(Artifact.class, null, "year", Sort.Direction.ASC, cursor, 1,
+				Document.class)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		String[] cursors = {
+				"not base64!",
+				Base64.getUrlEncoder().encodeToString("title\nASC".getBytes()),
+				Base64.getUrlEncoder().encodeToString("title\nASC\no:nothex\ns:a".getBytes()),
+				Base64.getUrlEncoder().encodeToString("title\nASC\nx:1\ns:a".getBytes()),
+		};
+		for (String cursor : cursors) {
+			assertThatThrownBy(() -> paginator.page(Artifact.class, null, "title", Sort.Direction.ASC, cursor, 1,
+					Document.class)).as(cursor).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void rejectsSortFieldsThatAreNotPlainNames() {
+		Stream.of("title.$where", "a b", "$natural", "x;y").forEach(sortBy ->
+				assertThatThrownBy(() -> paginator.page(Artifact.class, null, sortBy, Sort.Direction.ASC, null, 1,
+						Document.class)).as(sortBy).isInstanceOf(IllegalArgumentException.class));
+	}
+
+	@Test
+	void capsThePageSize() {
+		for (int i = 0; i < 150; i++) {
+			documents.add(new Document("_id", new ObjectId()));
+		}
+
+		assertThat(paginator.page(Artifact.class, null, "id", Sort.Direction.ASC, null, 1000, Document.class)
+				.getContent()).hasSize(100);
+		assertThat(paginator.page(Artifact.class, null, "id", Sort.Direction.ASC, null, 0, Document.class)
+				.getContent()).hasSize(1);
+	}
+}
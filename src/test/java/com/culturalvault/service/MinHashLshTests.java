@@ -0,0 +1,113 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MinHashLshTests {
+
+	private static final String ORIGINAL = "A large bronze ritual vessel with a lid, cast in the late Shang dynasty, decorated with"
+			+ " taotie masks on a ground of spirals and raised flanges at the corners of each side.";
+
+	private static final String NEAR_DUPLICATE = "A large bronze ritual vessel with a lid, cast in the late Shang dynasty, decorated with"
+			+ " taotie masks on a ground of spirals and raised flanges at the corners of every side.";
+
+	private static final String UNRELATED = "Watercolour landscape of a river valley at dawn, painted in the nineteenth century by an"
+			+ " unknown English artist and mounted in a gilt wooden frame with a cream card border.";
+
+	private MinHashLsh lsh;
+
+	@BeforeEach
+	void setUp() {
+		lsh = new MinHashLsh(16, 8, 5);
+	}
+
+	private static double jaccard(long[] a, long[] b) {
+		Set<Long> intersection = new HashSet<>(LongStream.of(a).boxed().toList());
+		intersection.retainAll(LongStream.of(b).boxed().toList());
+		Set<Long> union = new HashSet<>(LongStream.of(a).boxed().toList());
+		union.addAll(LongStream.of(b).boxed().toList());
+		return intersection.size() / (double) union.size();
+	}
+
+	@Test
+	void findsNearDuplicatesButNotUnrelatedTexts() {
+		lsh.put("near", lsh.signature(NEAR_DUPLICATE, 10));
+		lsh.put("unrelated", lsh.signature(UNRELATED, 10));
+
+		List<MinHashLsh.Match> matches = lsh.query(lsh.signature(ORIGINAL, 10), 0.7, 10, null);
+
+		assertThat(matches).extracting(MinHashLsh.Match::id).containsExactly("near");
+		assertThat(matches.get(0).similarity()).isGreaterThanOrEqualTo(0.7);
+	}
+
+	@Test
+	void estimatesTheJaccardSimilarityOfTheShingles() {
+		double exact = jaccard(lsh.shingles(ORIGINAL), lsh.shingles(NEAR_DUPLICATE));
+
+		double estimate = MinHashLsh.similarity(lsh.signature(ORIGINAL, 10), lsh.signature(NEAR_DUPLICATE, 10));
+
+		assertThat(estimate).isCloseTo(exact, offset(0.15));
+		assertThat(MinHashLsh.similarity(lsh.signature(ORIGINAL, 10), lsh.signature(ORIGINAL, 10))).isEqualTo(1.0);
+		assertThat(MinHashLsh.similarity(lsh.signature(ORIGINAL, 10), lsh.signature(UNRELATED, 10))).isLessThan(0.2);
+	}
+
+	@Test
+	void ignoresCaseAndPunctuation() {
+		assertThat(lsh.signature(ORIGINAL.toUpperCase().replace(",", ""), 10)).isEqualTo(lsh.signature(ORIGINAL, 10));
+	}
+
+	@Test
+	void ordersMatchesMostSimilarFirstAndHonoursTheLimit() {
+		lsh.put("exact", lsh.signature(ORIGINAL, 10));
+		lsh.put("near", lsh.signature(NEAR_DUPLICATE, 10));
+
+		List<MinHashLsh.Match> matches = lsh.query(lsh.signature(ORIGINAL, 10), 0.5, 10, null);
+
+		assertThat(matches).extracting(MinHashLsh.Match::id).containsExactly("exact", "near");
+		assertThat(lsh.query(lsh.signature(ORIGINAL, 10), 0.5, 1, null)).extracting(MinHashLsh.Match::id)
+				.containsExactly("exact");
+		assertThat(lsh.query(lsh.signature(ORIGINAL, 10), 0.5, 10, "exact")).extracting(MinHashLsh.Match::id)
+				.containsExactly("near");
+	}
+
+	@Test
+	void removedAndReplacedSignaturesAreNotMatched() {
+		lsh.put("a", lsh.signature(NEAR_DUPLICATE, 10));
+		lsh.put("b", lsh.signature(NEAR_DUPLICATE, 10));
+
+		lsh.remove("a");
+		lsh.put("b", lsh.signature(UNRELATED, 10));
+
+		assertThat(lsh.contains("a")).isFalse();
+		assertThat(lsh.size()).isEqualTo(1);
+		assertThat(lsh.ids()).containsExactly("b");
+		assertThat(lsh.query(lsh.signature(ORIGINAL, 10), 0.5, 10, null)).isEmpty();
+		assertThat(lsh.query(lsh.signature(UNRELATED, 10), 0.5, 10, null)).extracting(MinHashLsh.Match::id)
+				.containsExactly("b");
+	}
+
+	@Test
+	void textsWithTooFewShinglesHaveNoSignature() {
+		assertThat(lsh.signature("Bronze vase", 10)).isNull();
+		assertThat(lsh.signature("", 1)).isNull();
+		assertThat(lsh.signature(null, 1)).isNull();
+		assertThat(lsh.signature(ORIGINAL, 10)).hasSize(16 * 8);
+	}
+
+	@Test
+	void rejectsInvalidParametersAndSignatures() {
+		assertThatThrownBy(() -> new MinHashLsh(0, 8, 5)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MinHashLsh(16, 0, 5)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MinHashLsh(16, 8, 0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> lsh.put("a", new int[3])).isInstanceOf(IllegalArgumentException.class);
+	}
+}
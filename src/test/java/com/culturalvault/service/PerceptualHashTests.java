@@ -0,0 +1,115 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PerceptualHashTests {
+
+	/** A grid of random grey blocks, the same for the same seed at any size. */
+	private static BufferedImage blocks(long seed, int width, int height) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 9; x++) {
+				int grey = random.nextInt(256);
+				g.setColor(new Color(grey, grey, grey));
+				g.fillRect(x * width / 9, y * height / 8, width / 9 + 1, height / 8 + 1);
+			}
+		}
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage resize(BufferedImage image, int width, int height) {
+		BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = resized.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return resized;
+	}
+
+	private static byte[] encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		return out.toByteArray();
+	}
+
+	@Test
+	void setsABitWhereTheRightCellIsBrighter() {
+		BufferedImage brightening = new BufferedImage(90, 80, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < 90; x++) {
+			for (int y = 0; y < 80; y++) {
+				int grey = x * 255 / 89;
+				brightening.setRGB(x, y, new Color(grey, grey, grey).getRGB());
+			}
+		}
+
+		assertThat(PerceptualHash.dHash(brightening)).isEqualTo(-1L);
+		assertThat(PerceptualHash.dHash(new BufferedImage(90, 80, BufferedImage.TYPE_INT_RGB))).isZero();
+	}
+
+	@Test
+	void identicalImagesHashTheSame(@TempDir Path dir) throws IOException {
+		BufferedImage image = blocks(1, 450, 400);
+		Path file = dir.resolve("image.png");
+		Files.write(file, encode(image, "png"));
+
+		long hash = PerceptualHash.dHash(image);
+
+		assertThat(PerceptualHash.dHash(file)).isEqualTo(hash);
+		assertThat(PerceptualHash.dHash(new ByteArrayInputStream(encode(image, "png")))).isEqualTo(hash);
+		assertThat(PerceptualHash.distance(hash, hash)).isZero();
+	}
+
+	@Test
+	void resizedAndRecompressedCopiesStayClose() throws IOException {
+		BufferedImage original = blocks(2, 900, 800);
+		long hash = PerceptualHash.dHash(original);
+
+		long small = PerceptualHash.dHash(resize(original, 120, 100));
+		long jpeg = PerceptualHash.dHash(new ByteArrayInputStream(encode(original, "jpg")));
+
+		assertThat(PerceptualHash.distance(hash, small)).isLessThanOrEqualTo(5);
+		assertThat(PerceptualHash.distance(hash, jpeg)).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void differentImagesAreFarApart() {
+		long a = PerceptualHash.dHash(blocks(3, 450, 400));
+		long b = PerceptualHash.dHash(blocks(4, 450, 400));
+
+		assertThat(PerceptualHash.distance(a, b)).isGreaterThan(16);
+	}
+
+	@Test
+	void distanceCountsTheDifferingBits() {
+		assertThat(PerceptualHash.distance(0L, -1L)).isEqualTo(64);
+		assertThat(PerceptualHash.distance(0b1010L, 0b0110L)).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsDataThatIsNotAnImage() {
+		assertThatThrownBy(() -> PerceptualHash.dHash(new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8))))
+				.isInstanceOf(IOException.class)
+				.hasMessage("Unsupported image format");
+	}
+}
@@ -0,0 +1,61 @@
+package com.culturalvault.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	@Test
+	void spacesCallsEvenly() throws InterruptedException {
+		// One every 40 ms
+		RateLimiter limiter = new RateLimiter(25, Duration.ofSeconds(1));
+		List<Long> starts = new ArrayList<>();
+
+		for (int i = 0; i < 6; i++) {
+			limiter.acquire();
+			starts.add(System.nanoTime());
+		}
+
+		for (int i = 1; i < starts.size(); i++) {
+			assertThat(Duration.ofNanos(starts.get(i) - starts.get(i - 1))).isGreaterThanOrEqualTo(Duration.ofMillis(35));
+		}
+	}
+
+	@Test
+	void sharesTheRateAcrossThreads() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(50, Duration.ofSeconds(1));
+		List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = new ArrayList<>();
+
+		long begin = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			threads.add(Thread.ofVirtual().start(() -> {
+				try {
+					limiter.acquire();
+					starts.add(System.nanoTime());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// Ten slots 20 ms apart, the first one immediate
+		assertThat(starts).hasSize(10);
+		assertThat(Duration.ofNanos(Collections.max(starts) - begin)).isGreaterThanOrEqualTo(Duration.ofMillis(170));
+	}
+
+	@Test
+	void rejectsNonPositivePermits() {
+		assertThatThrownBy(() -> new RateLimiter(0, Duration.ofSeconds(1))).isInstanceOf(IllegalArgumentException.class);
+	}
+}